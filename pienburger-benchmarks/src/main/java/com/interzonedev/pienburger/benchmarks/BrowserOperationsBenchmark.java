@@ -0,0 +1,108 @@
+package com.interzonedev.pienburger.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.interzonedev.pienburger.FunctionalTestProperties;
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.driver.BrowserOperations;
+import com.interzonedev.pienburger.driver.WaitMode;
+
+/**
+ * Measures the time taken by the {@link BrowserOperations} methods against an {@link HtmlUnitDriver} with JavaScript
+ * enabled and the pages served by a {@link CannedPageServer}.
+ * 
+ * Every wait benchmark opens its page first, so the overhead of a wait is its score minus the score of
+ * {@link #openPage()}. For the delayed page the score is the time from navigation until the element is detected, which
+ * shows the detection latency of each {@link WaitMode} on top of the configured insertion delay.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class BrowserOperationsBenchmark {
+
+    @Param({ "POLLING", "MUTATION_OBSERVER" })
+    public WaitMode waitMode;
+
+    @Param({ "50" })
+    public int delayMillis;
+
+    @Param({ "500" })
+    public int listSize;
+
+    private CannedPageServer server;
+
+    private HtmlUnitDriver driver;
+
+    private BrowserOperations browserOperations;
+
+    private final By contentBy = By.id(CannedPageServer.CONTENT_ID);
+
+    private final By itemsBy = By.cssSelector(CannedPageServer.ITEM_SELECTOR);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new CannedPageServer();
+        server.start();
+
+        driver = new HtmlUnitDriver(true);
+
+        FunctionalTestProperties functionalTestProperties = new FunctionalTestProperties(Browser.HTMLUNIT,
+                server.getBaseUrl());
+        functionalTestProperties.setWaitMode(waitMode);
+        browserOperations = new BrowserOperations(functionalTestProperties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.quit();
+        server.stop();
+    }
+
+    @Benchmark
+    public void openPage() {
+        browserOperations.openPage(driver, "/static");
+    }
+
+    @Benchmark
+    public void waitForElement() {
+        browserOperations.openPage(driver, "/static");
+        browserOperations.waitForElement(driver, contentBy);
+    }
+
+    @Benchmark
+    public WebElement waitForAndGetElementWithText() {
+        browserOperations.openPage(driver, "/delayed?delay=" + delayMillis);
+        return browserOperations.waitForAndGetElementWithText(driver, contentBy, CannedPageServer.CONTENT_TEXT);
+    }
+
+    @Benchmark
+    public List<WebElement> waitForAndGetElements() {
+        browserOperations.openPage(driver, "/list?size=" + listSize);
+        return browserOperations.waitForAndGetElements(driver, itemsBy);
+    }
+
+}
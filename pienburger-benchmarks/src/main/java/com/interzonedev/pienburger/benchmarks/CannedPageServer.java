@@ -0,0 +1,153 @@
+package com.interzonedev.pienburger.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server bound to the loopback interface that serves canned pages for the benchmarks. The pages are
+ * generated so their shape can be controlled with query parameters:
+ * 
+ * <ul>
+ * <li>{@code /static} - a page whose {@code #content} element is present on load.</li>
+ * <li>{@code /delayed?delay=<millis>} - a page that inserts its {@code #content} element the specified number of
+ * milliseconds after load.</li>
+ * <li>{@code /list?size=<count>} - a page with a list of the specified number of {@code li.item} elements.</li>
+ * </ul>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class CannedPageServer {
+
+    public static final String CONTENT_ID = "content";
+
+    public static final String CONTENT_TEXT = "Loaded";
+
+    public static final String ITEM_SELECTOR = "li.item";
+
+    private final HttpServer server;
+
+    private final ExecutorService executorService;
+
+    /**
+     * Constructs a server bound to an ephemeral port on the loopback interface. Call {@link #start()} to start serving.
+     * 
+     * @throws IOException Thrown if the server socket cannot be bound.
+     */
+    public CannedPageServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "canned-page-server");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executorService);
+
+        server.createContext("/static", new PageHandler() {
+            @Override
+            protected String body(Map<String, String> parameters) {
+                return "<div id=\"" + CONTENT_ID + "\">" + CONTENT_TEXT + "</div>";
+            }
+        });
+
+        server.createContext("/delayed", new PageHandler() {
+            @Override
+            protected String body(Map<String, String> parameters) {
+                int delay = getInt(parameters, "delay", 50);
+                return "<script>setTimeout(function () {"
+                        + "var div = document.createElement('div');"
+                        + "div.id = '" + CONTENT_ID + "';"
+                        + "div.appendChild(document.createTextNode('" + CONTENT_TEXT + "'));"
+                        + "document.body.appendChild(div);"
+                        + "}, " + delay + ");</script>";
+            }
+        });
+
+        server.createContext("/list", new PageHandler() {
+            @Override
+            protected String body(Map<String, String> parameters) {
+                int size = getInt(parameters, "size", 500);
+                StringBuilder body = new StringBuilder("<ul>");
+                for (int i = 0; i < size; i++) {
+                    body.append("<li class=\"item\">Item ").append(i).append("</li>");
+                }
+                return body.append("</ul>").toString();
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Gets the base URL of the server, without a trailing slash, to be used as the application URL of the
+     * {@code FunctionalTestProperties}.
+     * 
+     * @return Returns the base URL of the server.
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private abstract static class PageHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String html = "<!DOCTYPE html><html><head><title>Benchmark</title></head><body>"
+                    + body(parseQuery(exchange.getRequestURI().getRawQuery())) + "</body></html>";
+            byte[] bytes = html.getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            OutputStream out = exchange.getResponseBody();
+            try {
+                out.write(bytes);
+            } finally {
+                out.close();
+            }
+        }
+
+        protected abstract String body(Map<String, String> parameters);
+
+        protected int getInt(Map<String, String> parameters, String name, int defaultValue) {
+            String value = parameters.get(name);
+            return (null == value) ? defaultValue : Integer.parseInt(value);
+        }
+
+        private Map<String, String> parseQuery(String query) throws IOException {
+            Map<String, String> parameters = new HashMap<String, String>();
+            if (null != query) {
+                for (String pair : query.split("&")) {
+                    int separator = pair.indexOf('=');
+                    if (separator > 0) {
+                        parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                                URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+                    }
+                }
+            }
+            return parameters;
+        }
+    }
+
+}
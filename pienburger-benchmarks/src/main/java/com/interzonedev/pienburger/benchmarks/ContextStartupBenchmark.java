@@ -0,0 +1,37 @@
+package com.interzonedev.pienburger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.interzonedev.pienburger.PienburgerConfiguration;
+
+/**
+ * Measures the time a freshly forked JVM takes to start and close the pienburger framework context, which is the
+ * framework overhead a forked test worker pays before its first test.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class ContextStartupBenchmark {
+
+    @Benchmark
+    public AnnotationConfigApplicationContext startContext() {
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(
+                PienburgerConfiguration.class);
+        applicationContext.close();
+        return applicationContext;
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.interzonedev.pienburger.benchmarks;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import com.interzonedev.pienburger.metrics.NoOpMetricsSink;
+import com.interzonedev.pienburger.remote.RemoteTransport;
+import com.interzonedev.pienburger.remote.StubWireProtocolServer;
+
+/**
+ * Measures the round trip of a wire protocol command from a {@link RemoteWebDriver} to a
+ * {@link StubWireProtocolServer}, both through the pooled keep-alive connections of a {@link RemoteTransport} and
+ * through the default HTTP client Selenium creates for each session. Several threads, each with its own session, send
+ * commands at once, as the workers of a parallel run do against a grid.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@Threads(4)
+public class RemoteTransportBenchmark {
+
+    @Param({ "0", "1" })
+    public long latencyMillis;
+
+    private StubWireProtocolServer server;
+
+    private RemoteTransport remoteTransport;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new StubWireProtocolServer(latencyMillis);
+        server.start();
+
+        remoteTransport = new RemoteTransport(new URL(server.getRemoteUrl()), NoOpMetricsSink.INSTANCE);
+        remoteTransport.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        remoteTransport.stop();
+        server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Sessions {
+
+        private RemoteWebDriver pooledDriver;
+
+        private RemoteWebDriver defaultDriver;
+
+        @Setup(Level.Trial)
+        public void setUp(RemoteTransportBenchmark benchmark) throws Exception {
+            pooledDriver = benchmark.remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+            defaultDriver = new RemoteWebDriver(new URL(benchmark.server.getRemoteUrl()),
+                    DesiredCapabilities.htmlUnit());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pooledDriver.quit();
+            defaultDriver.quit();
+        }
+
+    }
+
+    @Benchmark
+    public String pooledTransport(Sessions sessions) {
+        return sessions.pooledDriver.getCurrentUrl();
+    }
+
+    @Benchmark
+    public String defaultTransport(Sessions sessions) {
+        return sessions.defaultDriver.getCurrentUrl();
+    }
+
+}
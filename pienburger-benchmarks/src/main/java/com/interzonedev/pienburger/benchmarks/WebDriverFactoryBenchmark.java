@@ -0,0 +1,65 @@
+package com.interzonedev.pienburger.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebDriver;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.interzonedev.pienburger.PienburgerConfiguration;
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.driver.WebDriverFactory;
+
+/**
+ * Measures the cost of getting an HtmlUnit {@link WebDriver} from the {@link WebDriverFactory} of a pienburger
+ * application context, both as the shared driver and as a lease and release of a pooled session.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WebDriverFactoryBenchmark {
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    private WebDriverFactory webDriverFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        applicationContext = new AnnotationConfigApplicationContext(PienburgerConfiguration.class);
+        webDriverFactory = applicationContext.getBean("webDriverFactory", WebDriverFactory.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    @Benchmark
+    public WebDriver getWebDriver() {
+        return webDriverFactory.getWebDriver(Browser.HTMLUNIT);
+    }
+
+    @Benchmark
+    public WebDriver leaseAndReleaseWebDriver() {
+        WebDriver driver = webDriverFactory.leaseWebDriver(Browser.HTMLUNIT);
+        webDriverFactory.releaseWebDriver(Browser.HTMLUNIT, driver);
+        return driver;
+    }
+
+}
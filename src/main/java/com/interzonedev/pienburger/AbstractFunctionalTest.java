@@ -1,18 +1,45 @@
 package com.interzonedev.pienburger;
 
+import com.interzonedev.pienburger.artifact.ArtifactWriter;
+import com.interzonedev.pienburger.artifact.FailureArtifacts;
+import com.interzonedev.pienburger.async.AsyncBrowserOperations;
+import com.interzonedev.pienburger.async.SessionGroup;
+import com.interzonedev.pienburger.dataset.DataSetCache;
+import com.interzonedev.pienburger.dataset.ReadOnlyData;
+import com.interzonedev.pienburger.dataset.SnapshotDataSet;
 import com.interzonedev.pienburger.driver.Browser;
 import com.interzonedev.pienburger.driver.BrowserOperations;
 import com.interzonedev.pienburger.driver.WebDriverFactory;
+import com.interzonedev.pienburger.load.VirtualUser;
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsRegistry;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.OperationTimer;
+import com.interzonedev.pienburger.metrics.Outcome;
+import com.interzonedev.pienburger.sharding.RunHistoryRecorder;
 import com.interzonedev.zankou.AbstractIntegrationTest;
 import com.interzonedev.zankou.dataset.DataSet;
 import com.interzonedev.zankou.dataset.DataSets;
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
+import org.springframework.context.ApplicationContext;
 import org.springframework.test.context.ContextConfiguration;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.sql.DataSource;
+
+import java.lang.annotation.Annotation;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Top level functional test class meant to be run with a JUnit test runner. This is meant to be subclassed by any
@@ -20,19 +47,60 @@ import javax.inject.Named;
  * 
  * This leverages the Zankou integration testing framework so that {@link DataSets} or {@link DataSet} annotations can
  * be used on test classes and methods to set up and tear down any datasources involved in the functional tests. The
- * Zankou dataset testers can also be used.
+ * Zankou dataset testers can also be used. Heavy datasets can instead be declared with {@link SnapshotDataSet}, which
+ * loads them once and restores them from a snapshot between tests.
+ * 
+ * Running this will create the pienburger Spring application context. The framework beans live in a single context
+ * per JVM that is the parent of every test context (see {@link PienburgerContextInitializer}), so subclasses can add
+ * their own {@code @ContextConfiguration} without starting another set of browser session pools.
+ * 
+ * Every test holds its own browser session for its duration, so subclasses can be run concurrently, for example with
+ * the {@link com.interzonedev.pienburger.parallel.ParallelFunctionalTestComputer} or the surefire {@code parallel}
+ * setting, as long as the {@code pienburger.parallel.concurrency} setting allows enough pooled sessions.
+ * 
+ * The time spent in the before and after lifecycle, leasing the browser and in every {@link BrowserOperations} call is
+ * recorded to the {@link MetricsRegistry} and tagged with the test class, so the slowest tests and pages stand out in
+ * the metrics report written at the end of the run.
+ * 
+ * Subclasses can also be replayed as concurrent virtual users by the
+ * {@link com.interzonedev.pienburger.load.LoadRunner}, in which case the browser of the
+ * {@link FunctionalTestProperties} is overridden by that of the load run, the session pool is grown to hold a session
+ * for every virtual user and a {@link SnapshotDataSet} is loaded once for the whole run.
  * 
- * Running this will create the pienburger Spring application context.
+ * When a page open or wait of the {@link #browserOperations} times out, the state of the browser is grabbed before the
+ * session is reset. If the test then fails, the {@link ArtifactWriter} writes the grabbed screenshot, page source,
+ * console log and URL in the background.
  * 
  * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
  */
-@ContextConfiguration(locations = { "classpath:spring/com/interzonedev/pienburger/applicationContext-pienburger.xml" })
+@ContextConfiguration(locations = {
+        "classpath:spring/com/interzonedev/pienburger/applicationContext-pienburger-functionalTest.xml" },
+        initializers = { PienburgerContextInitializer.class })
 public abstract class AbstractFunctionalTest extends AbstractIntegrationTest {
 
     @Inject
     @Named("webDriverFactory")
     private WebDriverFactory webDriverFactory;
 
+    @Inject
+    @Named("metricsRegistry")
+    private MetricsSink metricsSink;
+
+    @Inject
+    @Named("runHistoryRecorder")
+    private RunHistoryRecorder runHistoryRecorder;
+
+    @Inject
+    @Named("dataSetCache")
+    private DataSetCache dataSetCache;
+
+    @Inject
+    @Named("artifactWriter")
+    private ArtifactWriter artifactWriter;
+
+    @Inject
+    private ApplicationContext applicationContext;
+
     /**
      * A specific {@code WebDriver} implementation that can be used by implementing functional tests to interact with
      * the live browser opened for each test. This will be set for each test class according to the
@@ -49,6 +117,63 @@ public abstract class AbstractFunctionalTest extends AbstractIntegrationTest {
      */
     protected BrowserOperations browserOperations;
 
+    /**
+     * Asynchronous counterpart of the {@link #browserOperations} for tests that drive several browser sessions at once,
+     * such as the {@link #driver} and sessions leased with {@link #leaseSessions(int)}.
+     */
+    protected AsyncBrowserOperations asyncBrowserOperations;
+
+    private Browser browser;
+
+    private String driverProfile;
+
+    private final List<SessionGroup> sessionGroups = new ArrayList<SessionGroup>();
+
+    private Map<String, String> metricTags;
+
+    private Description testDescription;
+
+    private FailureArtifacts failureArtifacts;
+
+    /**
+     * Records the duration and outcome of each whole test, including the before and after lifecycle. The duration is
+     * also added to the run history used to balance sharded runs, except for iterations of a load run. The browser
+     * states grabbed during a failed test are handed to the {@link ArtifactWriter}.
+     */
+    @Rule
+    public final TestRule testMetricsRule = new TestWatcher() {
+        private long startNanos;
+
+        private Outcome outcome;
+
+        @Override
+        protected void starting(Description description) {
+            testDescription = description;
+            startNanos = System.nanoTime();
+            outcome = Outcome.SUCCESS;
+        }
+
+        @Override
+        protected void failed(Throwable e, Description description) {
+            outcome = (e instanceof TimeoutException) ? Outcome.TIMEOUT : Outcome.FAILURE;
+            if (null != failureArtifacts) {
+                failureArtifacts.testFailed(e);
+            }
+        }
+
+        @Override
+        protected void finished(Description description) {
+            long durationNanos = System.nanoTime() - startNanos;
+            if (null != metricsSink) {
+                metricsSink.record(MetricNames.TEST_TOTAL, getMetricTags(), outcome, durationNanos);
+            }
+            if ((null != runHistoryRecorder) && (null == VirtualUser.current())) {
+                runHistoryRecorder.record(description.getClassName(), description.getMethodName(), durationNanos);
+            }
+            failureArtifacts = null;
+        }
+    };
+
     /**
      * Abstract method that allows the implementing functional test to return a {@link FunctionalTestProperties}
      * instance containing the properties (browser, default timeout, URL for the application under test) for that test
@@ -62,23 +187,161 @@ public abstract class AbstractFunctionalTest extends AbstractIntegrationTest {
     /**
      * Run before each test method in an the implementing functional test. Sets the {@link #driver} and
      * {@link #browserOperations} properties according to the {@link FunctionalTestProperties} returned by the
-     * {@link AbstractFunctionalTest#getFunctionalTestProperties()} method.
+     * {@link AbstractFunctionalTest#getFunctionalTestProperties()} method. The {@link #driver} is leased from the pool
+     * of browser sessions maintained by the {@link WebDriverFactory} and held exclusively for the duration of the test.
      */
     @Before
     public void beforeTest() {
         FunctionalTestProperties functionalTestProperties = getFunctionalTestProperties();
-        browserOperations = new BrowserOperations(functionalTestProperties);
-        Browser browser = functionalTestProperties.getBrowser();
-        driver = webDriverFactory.getWebDriver(browser);
+        VirtualUser virtualUser = VirtualUser.current();
+        browser = (null == virtualUser) ? functionalTestProperties.getBrowser() : virtualUser.getBrowser();
+        driverProfile = functionalTestProperties.getDriverProfile();
+        metricTags = null;
+
+        OperationTimer beforeTimer = new OperationTimer(metricsSink, MetricNames.TEST_BEFORE, getMetricTags());
+        try {
+            MetricsSink operationsSink = (null == virtualUser) ? metricsSink : virtualUser.decorate(metricsSink);
+            failureArtifacts = new FailureArtifacts(artifactWriter, getClass().getName(),
+                    (null == testDescription) ? null : testDescription.getMethodName(), metricsSink, getMetricTags());
+            browserOperations = new BrowserOperations(functionalTestProperties, operationsSink, getMetricTags(),
+                    failureArtifacts);
+            asyncBrowserOperations = new AsyncBrowserOperations(browserOperations);
+
+            prepareDataSet();
+
+            if (null != virtualUser) {
+                webDriverFactory.getWebDriverPool(browser, driverProfile).ensureMaxSize(virtualUser.getUserCount());
+            }
+
+            OperationTimer leaseTimer = new OperationTimer(metricsSink, MetricNames.DRIVER_LEASE, getMetricTags());
+            try {
+                driver = webDriverFactory.leaseWebDriver(browser, driverProfile);
+                leaseTimer.succeeded();
+            } finally {
+                leaseTimer.stop();
+            }
+
+            FunctionalTestContext.begin(new FunctionalTestContext(getClass(), driver, browserOperations));
+            beforeTimer.succeeded();
+        } finally {
+            beforeTimer.stop();
+        }
     }
 
     /**
-     * Run after each test method in an the implementing functional test. Clears the {@link #driver} and
-     * {@link #browserOperations} properties.
+     * Run after each test method in an the implementing functional test. Returns the {@link #driver} and any sessions
+     * leased with {@link #leaseSessions(int)} to the pool of browser sessions and clears the {@link #driver} and
+     * {@link #browserOperations} properties. Unless the test declared a {@link SnapshotDataSet} and
+     * {@link ReadOnlyData}, the {@link DataSetCache} is told that the test may have changed the data of any dataset.
      */
     @After
     public void afterTest() {
+        OperationTimer afterTimer = new OperationTimer(metricsSink, MetricNames.TEST_AFTER, getMetricTags());
+        try {
+            FunctionalTestContext.end();
+
+            dataSetCache.afterTest((null != getTestAnnotation(SnapshotDataSet.class))
+                    && (null != getTestAnnotation(ReadOnlyData.class)));
+
+            if (null != asyncBrowserOperations) {
+                asyncBrowserOperations.awaitQuiescence();
+            }
+
+            for (SessionGroup sessionGroup : sessionGroups) {
+                sessionGroup.close();
+            }
+            sessionGroups.clear();
+
+            if (null != driver) {
+                webDriverFactory.releaseWebDriver(browser, driverProfile, driver);
+            }
+
+            afterTimer.succeeded();
+        } finally {
+            afterTimer.stop();
+        }
+
         driver = null;
         browserOperations = null;
+        asyncBrowserOperations = null;
+    }
+
+    /**
+     * Gets the zero based index of the worker thread running this test. Tests that run concurrently have different
+     * worker indexes, which can be used to keep data created by the test from colliding with that of other tests.
+     * 
+     * @return Returns the zero based index of the worker thread running this test.
+     */
+    protected int getWorkerIndex() {
+        return FunctionalTestContext.currentWorkerIndex();
+    }
+
+    /**
+     * Leases additional browser sessions of the same {@link Browser} and driver profile as the {@link #driver} for a
+     * test that plays several users at once. The sessions are returned to their pool after the test.
+     * 
+     * @param count The number of sessions to lease.
+     * 
+     * @return Returns the leased sessions.
+     */
+    protected SessionGroup leaseSessions(int count) {
+        SessionGroup sessionGroup = new SessionGroup(webDriverFactory, browser, driverProfile, count);
+        sessionGroups.add(sessionGroup);
+        return sessionGroup;
+    }
+
+    /**
+     * Grabs the screenshot, page source, console log and URL of the {@link #driver}, to be written if the test fails.
+     * Page opens and waits that time out grab them already, so this is meant for tests that are about to check
+     * something other than the presence of an element.
+     * 
+     * @param label Describes what the test was doing, to tell the captures of a test apart.
+     */
+    protected void captureBrowserState(String label) {
+        if (null != failureArtifacts) {
+            failureArtifacts.capture(driver, label, null);
+        }
+    }
+
+    /**
+     * Loads or restores the {@link SnapshotDataSet} declared on the test method or class, if any. The virtual users of
+     * a load run share the dataset, which is loaded once for the run instead of being restored under the iterations of
+     * the other users.
+     */
+    private void prepareDataSet() {
+        SnapshotDataSet dataSet = getTestAnnotation(SnapshotDataSet.class);
+        if (null == dataSet) {
+            return;
+        }
+
+        OperationTimer dataSetTimer = new OperationTimer(metricsSink, MetricNames.DATASET_PREPARE, getMetricTags());
+        try {
+            DataSource dataSource = applicationContext.getBean(dataSet.dataSource(), DataSource.class);
+            VirtualUser virtualUser = VirtualUser.current();
+            if (null == virtualUser) {
+                boolean readOnly = (null != getTestAnnotation(ReadOnlyData.class));
+                dataSetCache.prepare(dataSource, dataSet, readOnly, applicationContext);
+            } else {
+                dataSetCache.prepareShared(dataSource, dataSet, virtualUser.getLoadRun(), applicationContext);
+            }
+            dataSetTimer.succeeded();
+        } catch (SQLException sqle) {
+            throw new IllegalStateException("Error preparing the dataset " + dataSet, sqle);
+        } finally {
+            dataSetTimer.stop();
+        }
+    }
+
+    private <A extends Annotation> A getTestAnnotation(Class<A> annotationType) {
+        A annotation = (null == testDescription) ? null : testDescription.getAnnotation(annotationType);
+        return (null == annotation) ? getClass().getAnnotation(annotationType) : annotation;
+    }
+
+    private Map<String, String> getMetricTags() {
+        if (null == metricTags) {
+            metricTags = MetricsRegistry.tags(MetricsSink.TEST_CLASS_TAG, getClass().getName(), MetricsSink.BROWSER_TAG,
+                    (null == browser) ? null : browser.id());
+        }
+        return metricTags;
     }
 }
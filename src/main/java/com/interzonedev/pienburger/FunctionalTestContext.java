@@ -0,0 +1,99 @@
+package com.interzonedev.pienburger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.WebDriver;
+
+import com.interzonedev.pienburger.driver.BrowserOperations;
+
+/**
+ * Holds the browser session and helper instances of the functional test currently running on a thread. This lets page
+ * objects and other helpers reach the {@link WebDriver} and {@link BrowserOperations} of their own test without them
+ * being passed around, and keeps tests that run concurrently on different threads isolated from each other.
+ * 
+ * Each thread that runs functional tests is also assigned a stable, zero based worker index that can be used to
+ * partition external resources such as databases between concurrently running tests.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class FunctionalTestContext {
+
+    private static final AtomicInteger nextWorkerIndex = new AtomicInteger();
+
+    private static final ThreadLocal<Integer> workerIndex = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return nextWorkerIndex.getAndIncrement();
+        }
+    };
+
+    private static final ThreadLocal<FunctionalTestContext> currentContext = new ThreadLocal<FunctionalTestContext>();
+
+    private final Class<?> testClass;
+
+    private final WebDriver driver;
+
+    private final BrowserOperations browserOperations;
+
+    public FunctionalTestContext(Class<?> testClass, WebDriver driver, BrowserOperations browserOperations) {
+        this.testClass = testClass;
+        this.driver = driver;
+        this.browserOperations = browserOperations;
+    }
+
+    public Class<?> getTestClass() {
+        return testClass;
+    }
+
+    public WebDriver getDriver() {
+        return driver;
+    }
+
+    public BrowserOperations getBrowserOperations() {
+        return browserOperations;
+    }
+
+    /**
+     * Gets the context of the functional test currently running on the calling thread.
+     * 
+     * @return Returns the context of the functional test currently running on the calling thread.
+     * 
+     * @throws IllegalStateException Thrown if no functional test is running on the calling thread.
+     */
+    public static FunctionalTestContext current() {
+        FunctionalTestContext context = currentContext.get();
+        if (null == context) {
+            throw new IllegalStateException("No functional test is running on thread "
+                    + Thread.currentThread().getName());
+        }
+        return context;
+    }
+
+    /**
+     * Gets the worker index of the calling thread, assigning the next free index if the thread does not have one yet.
+     * 
+     * @return Returns the zero based worker index of the calling thread.
+     */
+    public static int currentWorkerIndex() {
+        return workerIndex.get();
+    }
+
+    /**
+     * Assigns the specified worker index to the calling thread. Used by thread pools that run functional tests so that
+     * their worker indexes are contiguous regardless of which other threads have asked for an index.
+     * 
+     * @param index The zero based worker index to assign.
+     */
+    public static void assignWorkerIndex(int index) {
+        workerIndex.set(index);
+    }
+
+    static void begin(FunctionalTestContext context) {
+        currentContext.set(context);
+    }
+
+    static void end() {
+        currentContext.remove();
+    }
+
+}
@@ -1,11 +1,24 @@
 package com.interzonedev.pienburger;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.NotFoundException;
+
 import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.driver.DriverProfile;
+import com.interzonedev.pienburger.driver.PollingStrategies;
+import com.interzonedev.pienburger.driver.PollingStrategy;
+import com.interzonedev.pienburger.driver.WaitMode;
+import com.interzonedev.pienburger.driver.WaitSettings;
 
 /**
  * Value object that holds the properties used in a functional test. Holds values for the default timeout when waiting
- * for a page load or for elements to appear in a page, the URL of the application under test and a {@link Browser}
- * instance to open for the test.
+ * for a page load or for elements to appear in a page, the {@link PollingStrategy} and ignored exceptions used while
+ * waiting, the {@link WaitMode} used to wait for elements, the quiet period after which a page is considered idle, the
+ * URL of the application under test and a {@link Browser} instance to open for the test, launched with the named
+ * {@link DriverProfile}.
  * 
  * An instance of this class is meant to be supplied to the pienburger framework for each implementing functional test
  * to specify how to run each test.
@@ -14,24 +27,59 @@ import com.interzonedev.pienburger.driver.Browser;
  */
 public class FunctionalTestProperties {
 
+    /**
+     * The element wait timeout used when none is set.
+     */
+    public static final Duration DEFAULT_ELEMENT_WAIT_TIMEOUT = Duration.ofSeconds(5L);
+
     private Browser browser;
 
     private String applicationUrl;
 
-    private Long elementWaitTimeoutInSeconds = 5L;
+    private String driverProfile = DriverProfile.DEFAULT;
+
+    private Duration elementWaitTimeout = DEFAULT_ELEMENT_WAIT_TIMEOUT;
+
+    private PollingStrategy pollingStrategy = PollingStrategies.fixed(PollingStrategies.DEFAULT_INTERVAL);
+
+    private List<Class<? extends Throwable>> ignoredExceptions = new ArrayList<Class<? extends Throwable>>();
+
+    private WaitMode waitMode = WaitMode.POLLING;
+
+    private Duration networkQuietPeriod = Duration.ofMillis(500L);
+
+    private boolean locatorCacheEnabled;
 
     public FunctionalTestProperties() {
+        ignoredExceptions.add(NotFoundException.class);
     }
 
     public FunctionalTestProperties(Browser browser, String applicationUrl) {
+        this();
         this.browser = browser;
         this.applicationUrl = applicationUrl;
     }
 
     public FunctionalTestProperties(Browser browser, String applicationUrl, Long elementWaitTimeoutInSeconds) {
-        this.browser = browser;
-        this.applicationUrl = applicationUrl;
-        this.elementWaitTimeoutInSeconds = elementWaitTimeoutInSeconds;
+        this(browser, applicationUrl);
+        setElementWaitTimeoutInSeconds(elementWaitTimeoutInSeconds);
+    }
+
+    /**
+     * Creates an instance for the specified {@link Browser} and application URL with an element wait timeout of
+     * sub-second precision.
+     * 
+     * @param browser The {@link Browser} to open for the test.
+     * @param applicationUrl The URL of the application under test.
+     * @param elementWaitTimeout The default timeout when waiting for elements to appear in a page.
+     * 
+     * @return Returns a new instance with the specified values.
+     */
+    public static FunctionalTestProperties ofElementWaitTimeout(Browser browser, String applicationUrl,
+            Duration elementWaitTimeout) {
+        FunctionalTestProperties functionalTestProperties = new FunctionalTestProperties(browser, applicationUrl);
+        functionalTestProperties.setElementWaitTimeout(elementWaitTimeout);
+        return functionalTestProperties;
     }
 
     public Browser getBrowser() {
@@ -42,6 +90,20 @@ public class FunctionalTestProperties {
         this.browser = browser;
     }
 
+    /**
+     * Gets the name of the {@link DriverProfile} the browser is launched with, such as {@link DriverProfile#FAST}.
+     * Defaults to {@link DriverProfile#DEFAULT}.
+     * 
+     * @return Returns the name of the {@link DriverProfile} the browser is launched with.
+     */
+    public String getDriverProfile() {
+        return driverProfile;
+    }
+
+    public void setDriverProfile(String driverProfile) {
+        this.driverProfile = driverProfile;
+    }
+
     public String getApplicationUrl() {
         return applicationUrl;
     }
@@ -50,12 +112,98 @@ public class FunctionalTestProperties {
         this.applicationUrl = applicationUrl;
     }
 
+    /**
+     * Gets the default element wait timeout in whole seconds, rounded down. Use {@link #getElementWaitTimeout()} for
+     * the exact value.
+     * 
+     * @return Returns the default element wait timeout in whole seconds, or null if it has been set to null.
+     */
     public Long getElementWaitTimeoutInSeconds() {
-        return elementWaitTimeoutInSeconds;
+        return (null == elementWaitTimeout) ? null : elementWaitTimeout.getSeconds();
     }
 
     public void setElementWaitTimeoutInSeconds(Long elementWaitTimeoutInSeconds) {
-        this.elementWaitTimeoutInSeconds = elementWaitTimeoutInSeconds;
+        this.elementWaitTimeout = (null == elementWaitTimeoutInSeconds) ? null : Duration
+                .ofSeconds(elementWaitTimeoutInSeconds);
+    }
+
+    public Duration getElementWaitTimeout() {
+        return elementWaitTimeout;
+    }
+
+    public void setElementWaitTimeout(Duration elementWaitTimeout) {
+        this.elementWaitTimeout = elementWaitTimeout;
+    }
+
+    public PollingStrategy getPollingStrategy() {
+        return pollingStrategy;
+    }
+
+    public void setPollingStrategy(PollingStrategy pollingStrategy) {
+        this.pollingStrategy = pollingStrategy;
+    }
+
+    /**
+     * Gets the exception types that are ignored when thrown while checking a wait condition. Defaults to
+     * {@link NotFoundException}, as with {@code WebDriverWait}.
+     * 
+     * @return Returns the exception types that are ignored when thrown while checking a wait condition.
+     */
+    public List<Class<? extends Throwable>> getIgnoredExceptions() {
+        return ignoredExceptions;
+    }
+
+    public void setIgnoredExceptions(List<Class<? extends Throwable>> ignoredExceptions) {
+        this.ignoredExceptions = ignoredExceptions;
+    }
+
+    public WaitMode getWaitMode() {
+        return waitMode;
+    }
+
+    public void setWaitMode(WaitMode waitMode) {
+        this.waitMode = waitMode;
+    }
+
+    /**
+     * Gets how long a page must go without network requests or pending timers before it is considered idle by
+     * {@code BrowserOperations.awaitNetworkIdle}.
+     * 
+     * @return Returns the quiet period after which a page is considered idle.
+     */
+    public Duration getNetworkQuietPeriod() {
+        return networkQuietPeriod;
+    }
+
+    public void setNetworkQuietPeriod(Duration networkQuietPeriod) {
+        this.networkQuietPeriod = networkQuietPeriod;
+    }
+
+    /**
+     * Gets whether {@code BrowserOperations.waitForElement} and {@code BrowserOperations.waitForAndGetElement} reuse
+     * the element found by an earlier call with the same {@code By} on the same page, as long as it is still attached.
+     * Defaults to false.
+     * 
+     * @return Returns whether element lookups are cached per page.
+     */
+    public boolean isLocatorCacheEnabled() {
+        return locatorCacheEnabled;
+    }
+
+    public void setLocatorCacheEnabled(boolean locatorCacheEnabled) {
+        this.locatorCacheEnabled = locatorCacheEnabled;
+    }
+
+    /**
+     * Gets the {@link WaitSettings} made up of the element wait timeout, polling strategy and ignored exceptions held
+     * by this instance. If the element wait timeout has been set to null, {@link #DEFAULT_ELEMENT_WAIT_TIMEOUT} is
+     * used.
+     * 
+     * @return Returns the {@link WaitSettings} made up of the wait properties held by this instance.
+     */
+    public WaitSettings getWaitSettings() {
+        return new WaitSettings((null == elementWaitTimeout) ? DEFAULT_ELEMENT_WAIT_TIMEOUT : elementWaitTimeout,
+                pollingStrategy, ignoredExceptions);
     }
 
 }
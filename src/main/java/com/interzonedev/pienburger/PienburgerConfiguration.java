@@ -0,0 +1,108 @@
+package com.interzonedev.pienburger;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.factory.config.PropertiesFactoryBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ClassPathResource;
+
+import com.interzonedev.pienburger.artifact.ArtifactWriter;
+import com.interzonedev.pienburger.dataset.DataSetCache;
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.driver.WebDriverFactory;
+import com.interzonedev.pienburger.metrics.MetricsRegistry;
+import com.interzonedev.pienburger.sharding.RunHistoryRecorder;
+
+/**
+ * Declares every bean of the pienburger framework explicitly, so the framework context starts without scanning the
+ * classpath. No browser is launched at startup; the driver of each {@link Browser} is only loaded once a test asks
+ * the {@link WebDriverFactory} for it.
+ * 
+ * The shared driver of each browser is still available under the bean id it has always had, such as
+ * {@code firefoxDriver} or {@code htmlUnitDriver}. These beans are lazy and are the same drivers as those returned by
+ * {@link WebDriverFactory#getWebDriver(Browser)}, which closes them when the context is closed.
+ * 
+ * Functional tests get these beans from the context shared through the {@link PienburgerContextInitializer}.
+ * Applications that want the framework beans in a context of their own can declare this class as a bean or import
+ * {@code spring/com/interzonedev/pienburger/applicationContext-pienburger.xml}, which does so. Test contexts that have
+ * the shared context as their parent should not import it, as they would get a second set of the beans.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Configuration
+public class PienburgerConfiguration {
+
+    @Bean
+    public Properties pienburgerProperties() throws IOException {
+        PropertiesFactoryBean propertiesFactoryBean = new PropertiesFactoryBean();
+        propertiesFactoryBean.setIgnoreResourceNotFound(true);
+        propertiesFactoryBean.setLocation(new ClassPathResource(PienburgerSettings.PROPERTIES_RESOURCE));
+        propertiesFactoryBean.afterPropertiesSet();
+        return propertiesFactoryBean.getObject();
+    }
+
+    @Bean
+    public PienburgerSettings pienburgerSettings() throws IOException {
+        return new PienburgerSettings(pienburgerProperties());
+    }
+
+    @Bean
+    public MetricsRegistry metricsRegistry() {
+        return new MetricsRegistry();
+    }
+
+    @Bean
+    public WebDriverFactory webDriverFactory() {
+        return new WebDriverFactory();
+    }
+
+    @Bean
+    public RunHistoryRecorder runHistoryRecorder() {
+        return new RunHistoryRecorder();
+    }
+
+    @Bean
+    public DataSetCache dataSetCache() {
+        return new DataSetCache();
+    }
+
+    @Bean
+    public ArtifactWriter artifactWriter() {
+        return new ArtifactWriter();
+    }
+
+    @Bean(destroyMethod = "")
+    @Lazy
+    public WebDriver firefoxDriver() {
+        return webDriverFactory().getWebDriver(Browser.FIREFOX);
+    }
+
+    @Bean(destroyMethod = "")
+    @Lazy
+    public WebDriver chromeDriver() {
+        return webDriverFactory().getWebDriver(Browser.CHROME);
+    }
+
+    @Bean(destroyMethod = "")
+    @Lazy
+    public WebDriver safariDriver() {
+        return webDriverFactory().getWebDriver(Browser.SAFARI);
+    }
+
+    @Bean(destroyMethod = "")
+    @Lazy
+    public WebDriver htmlUnitDriver() {
+        return webDriverFactory().getWebDriver(Browser.HTMLUNIT);
+    }
+
+    @Bean(destroyMethod = "")
+    @Lazy
+    public WebDriver internetExplorerDriver() {
+        return webDriverFactory().getWebDriver(Browser.IE);
+    }
+
+}
@@ -0,0 +1,49 @@
+package com.interzonedev.pienburger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+/**
+ * Makes a single framework context built from {@link PienburgerConfiguration} the parent of every functional test
+ * context in the JVM. Test classes that add their own {@code @ContextConfiguration} get a context of their own from
+ * the Spring test context cache, but they all share the same framework beans, so browser session pools, the asset
+ * proxy, metrics and run history survive across test classes with differing configurations instead of being started
+ * again for each of them.
+ * 
+ * The framework context is created when the first test context is initialized and closed when the JVM exits.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class PienburgerContextInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    private static final Log log = LogFactory.getLog(PienburgerContextInitializer.class);
+
+    private static AnnotationConfigApplicationContext sharedContext;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext applicationContext) {
+        if (null == applicationContext.getParent()) {
+            applicationContext.setParent(getSharedContext());
+        }
+    }
+
+    /**
+     * Gets the framework context shared by every functional test context, creating it on first use.
+     * 
+     * @return Returns the shared framework context.
+     */
+    public static synchronized AnnotationConfigApplicationContext getSharedContext() {
+        if (null == sharedContext) {
+            long startNanos = System.nanoTime();
+            sharedContext = new AnnotationConfigApplicationContext(PienburgerConfiguration.class);
+            sharedContext.registerShutdownHook();
+            log.info("getSharedContext: Started the pienburger context in "
+                    + ((System.nanoTime() - startNanos) / 1000000L) + "ms");
+        }
+        return sharedContext;
+    }
+
+}
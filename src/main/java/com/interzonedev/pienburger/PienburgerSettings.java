@@ -0,0 +1,112 @@
+package com.interzonedev.pienburger;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+/**
+ * Typed access to the framework wide settings read from the optional {@code pienburger.properties} file on the
+ * classpath. Every setting has a default so the properties file only needs to contain the values being overridden.
+ * 
+ * Code that runs before the framework context exists, such as a JUnit {@code Computer} or {@code Suite}, reads the
+ * same settings through {@link #fromClasspath()}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Named("pienburgerSettings")
+public class PienburgerSettings {
+
+    /**
+     * The name of the optional properties file on the classpath.
+     */
+    public static final String PROPERTIES_RESOURCE = "pienburger.properties";
+
+    /**
+     * The setting that holds the number of tests run concurrently. It also sizes the browser session pools, so every
+     * worker can lease a session without waiting.
+     */
+    public static final String PARALLEL_CONCURRENCY = "pienburger.parallel.concurrency";
+
+    private final Properties properties;
+
+    /**
+     * Constructs an instance backed by the specified {@link Properties}.
+     * 
+     * @param properties The {@link Properties} read from {@code pienburger.properties}. May be empty if the file is
+     *            not present on the classpath.
+     */
+    @Inject
+    public PienburgerSettings(@Named("pienburgerProperties") Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Reads the settings directly from {@code pienburger.properties} on the classpath, for use outside of the framework
+     * context.
+     * 
+     * @return Returns the settings, backed by empty {@link Properties} if the file is not present.
+     */
+    public static PienburgerSettings fromClasspath() {
+        Properties properties = new Properties();
+        ClassPathResource resource = new ClassPathResource(PROPERTIES_RESOURCE);
+        if (resource.exists()) {
+            try {
+                PropertiesLoaderUtils.fillProperties(properties, resource);
+            } catch (IOException ioe) {
+                throw new IllegalStateException("Error reading " + PROPERTIES_RESOURCE, ioe);
+            }
+        }
+        return new PienburgerSettings(properties);
+    }
+
+    /**
+     * Gets the trimmed string value of the setting with the specified key. System properties take precedence over
+     * values in {@code pienburger.properties} so that individual runs can override settings from the command line.
+     * 
+     * @param key The key of the setting.
+     * @param defaultValue The value to return if the setting is not present.
+     * 
+     * @return Returns the value of the setting or the default value if the setting is not present.
+     */
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (null == value) {
+            value = properties.getProperty(key);
+        }
+        if ((null == value) || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        return (null == value) ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        return (null == value) ? defaultValue : Long.parseLong(value);
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return (null == value) ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Gets the number of tests run concurrently from the {@link #PARALLEL_CONCURRENCY} setting. Both the parallel test
+     * runner and the default size of the browser session pools are based on this value.
+     * 
+     * @return Returns the configured concurrency, defaulting to the number of available processors.
+     */
+    public int getParallelConcurrency() {
+        return getInt(PARALLEL_CONCURRENCY, Runtime.getRuntime().availableProcessors());
+    }
+
+}
@@ -0,0 +1,559 @@
+package com.interzonedev.pienburger.artifact;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+
+/**
+ * Writes the {@link BrowserCapture}s of failed functional tests to disk on background threads, so that a failing test
+ * only pays for grabbing the browser state and not for compressing and writing it. The writes are queued on a bounded
+ * queue. When the queue is full the test thread writes its own artifacts, which slows the tests down to the pace of the
+ * disk instead of piling up captures in memory.
+ * 
+ * Each JVM writes into its own run directory under the artifact directory. Every failed test gets a {@code report.txt}
+ * under {@code <test class>/<test method>-<n>} with the failure, and the URL, console log and notes of each capture.
+ * Screenshots and gzipped page sources are stored once per run under {@code blobs}, named by the SHA-256 of their
+ * content, so the identical error pages of hundreds of failing tests take the space of one. Run directories beyond the
+ * retention limits are deleted in the background when the next run starts. Each run holds a lock on a
+ * {@code run-<id>.lock} file next to its run directory while it is running, so that concurrent runs sharing the
+ * artifact directory never delete each other's run directories.
+ * 
+ * The following settings are read:
+ * 
+ * <ul>
+ * <li>{@code pienburger.artifacts.enabled} - Whether to capture artifacts of failed tests at all (default true).</li>
+ * <li>{@code pienburger.artifacts.directory} - The directory the run directories are created in (default
+ * {@code target/pienburger-artifacts}).</li>
+ * <li>{@code pienburger.artifacts.writerThreads} - The number of background writer threads (default 2).</li>
+ * <li>{@code pienburger.artifacts.queueCapacity} - The number of failed tests whose artifacts can wait to be written
+ * before the test threads write their own (default 32).</li>
+ * <li>{@code pienburger.artifacts.maxCapturesPerTest} - The number of captures kept per test; later ones are not
+ * grabbed (default 3).</li>
+ * <li>{@code pienburger.artifacts.maxScreenshotBytes} - Larger screenshots are left out (default 4000000).</li>
+ * <li>{@code pienburger.artifacts.maxPageSourceChars} - Longer page sources are truncated (default 1000000).</li>
+ * <li>{@code pienburger.artifacts.maxConsoleEntries} - The number of console log entries kept per capture (default
+ * 200).</li>
+ * <li>{@code pienburger.artifacts.maxRunBytes} - Once the screenshots and page sources of a run reach this size only
+ * the reports are written, counting the compressed size of the page sources (default 268435456).</li>
+ * <li>{@code pienburger.artifacts.retainRuns} - The number of previous run directories kept (default 5).</li>
+ * <li>{@code pienburger.artifacts.retainDays} - Previous run directories older than this are deleted (default 7).</li>
+ * </ul>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Named("artifactWriter")
+public class ArtifactWriter implements InitializingBean, DisposableBean {
+
+    private static final Log log = LogFactory.getLog(ArtifactWriter.class);
+
+    private static final String RUN_DIRECTORY_PREFIX = "run-";
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+
+    private static final String BLOB_DIRECTORY = "blobs";
+
+    @Inject
+    @Named("pienburgerSettings")
+    private PienburgerSettings pienburgerSettings;
+
+    private boolean enabled = true;
+
+    private int maxCapturesPerTest;
+
+    private int maxScreenshotBytes;
+
+    private int maxPageSourceChars;
+
+    private int maxConsoleEntries;
+
+    private long maxRunBytes;
+
+    private File runDirectory;
+
+    private FileChannel runLockChannel;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * The blobs written or being written, by name. Each completes with whether the blob was written, so that reports
+     * only refer to a blob once it is on disk.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Boolean>> writtenBlobs =
+            new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+
+    private final AtomicInteger nextReportId = new AtomicInteger();
+
+    private final AtomicLong runBytes = new AtomicLong();
+
+    private final AtomicLong reportCount = new AtomicLong();
+
+    private final AtomicLong dedupedCount = new AtomicLong();
+
+    private final AtomicLong omittedCount = new AtomicLong();
+
+    private final AtomicLong callerWriteCount = new AtomicLong();
+
+    @Override
+    public void afterPropertiesSet() {
+        enabled = pienburgerSettings.getBoolean("pienburger.artifacts.enabled", true);
+        if (!enabled) {
+            return;
+        }
+
+        maxCapturesPerTest = pienburgerSettings.getInt("pienburger.artifacts.maxCapturesPerTest", 3);
+        maxScreenshotBytes = pienburgerSettings.getInt("pienburger.artifacts.maxScreenshotBytes", 4000000);
+        maxPageSourceChars = pienburgerSettings.getInt("pienburger.artifacts.maxPageSourceChars", 1000000);
+        maxConsoleEntries = pienburgerSettings.getInt("pienburger.artifacts.maxConsoleEntries", 200);
+        maxRunBytes = pienburgerSettings.getLong("pienburger.artifacts.maxRunBytes", 268435456L);
+
+        final File directory = new File(pienburgerSettings.getString("pienburger.artifacts.directory",
+                "target/pienburger-artifacts"));
+        String runId = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + "-"
+                + Integer.toHexString(ThreadLocalRandom.current().nextInt() & 0xffff);
+        runDirectory = new File(directory, RUN_DIRECTORY_PREFIX + runId);
+        lockRun();
+
+        int writerThreads = Math.max(1, pienburgerSettings.getInt("pienburger.artifacts.writerThreads", 2));
+        int queueCapacity = Math.max(1, pienburgerSettings.getInt("pienburger.artifacts.queueCapacity", 32));
+        executor = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                    private final AtomicInteger nextThreadId = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "pienburger-artifacts-" + nextThreadId.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor threadPoolExecutor) {
+                        if (threadPoolExecutor.isShutdown()) {
+                            log.warn("rejectedExecution: Artifacts submitted after shutdown are not written");
+                            return;
+                        }
+                        callerWriteCount.incrementAndGet();
+                        runnable.run();
+                    }
+                });
+
+        final int retainRuns = pienburgerSettings.getInt("pienburger.artifacts.retainRuns", 5);
+        final int retainDays = pienburgerSettings.getInt("pienburger.artifacts.retainDays", 7);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deleteExpiredRuns(directory, retainRuns, retainDays);
+            }
+        });
+    }
+
+    /**
+     * Writes every queued artifact before the application context is closed.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (null == executor) {
+            return;
+        }
+
+        executor.shutdown();
+        if (!executor.awaitTermination(60L, TimeUnit.SECONDS)) {
+            log.warn("destroy: Timed out writing the remaining artifacts");
+        }
+
+        if (reportCount.get() > 0L) {
+            log.info("destroy: Wrote the artifacts of " + reportCount.get() + " failed tests to "
+                    + runDirectory.getAbsolutePath() + " - " + runBytes.get() + " bytes, " + dedupedCount.get()
+                    + " duplicates, " + omittedCount.get() + " omitted over the size cap, "
+                    + callerWriteCount.get() + " written on test threads");
+        }
+
+        unlockRun();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getMaxCapturesPerTest() {
+        return maxCapturesPerTest;
+    }
+
+    public int getMaxScreenshotBytes() {
+        return maxScreenshotBytes;
+    }
+
+    public int getMaxPageSourceChars() {
+        return maxPageSourceChars;
+    }
+
+    public int getMaxConsoleEntries() {
+        return maxConsoleEntries;
+    }
+
+    /**
+     * Gets the directory the artifacts of this run are written to. It is only created once the first artifact is
+     * written.
+     * 
+     * @return Returns the directory the artifacts of this run are written to, or null if capturing is disabled.
+     */
+    public File getRunDirectory() {
+        return runDirectory;
+    }
+
+    public void setPienburgerSettings(PienburgerSettings pienburgerSettings) {
+        this.pienburgerSettings = pienburgerSettings;
+    }
+
+    /**
+     * Queues the artifacts of a failed test to be written. If the queue is full they are written on the calling thread.
+     * 
+     * @param className The name of the test class.
+     * @param methodName The name of the test method.
+     * @param failure The failure of the test.
+     * @param captures The {@link BrowserCapture}s grabbed during the test.
+     */
+    public void submit(final String className, final String methodName, final Throwable failure,
+            final List<BrowserCapture> captures) {
+        if (!enabled) {
+            return;
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(className, methodName, failure, captures);
+                } catch (IOException ioe) {
+                    log.warn("write: Error writing the artifacts of " + className + "." + methodName, ioe);
+                }
+            }
+        });
+    }
+
+    private void write(String className, String methodName, Throwable failure, List<BrowserCapture> captures)
+            throws IOException {
+        File reportDirectory = new File(new File(runDirectory, toFileName(className)), toFileName(methodName) + "-"
+                + nextReportId.incrementAndGet());
+        Files.createDirectories(reportDirectory.toPath());
+
+        StringWriter report = new StringWriter();
+        PrintWriter out = new PrintWriter(report);
+        out.println("Test: " + className + "." + methodName);
+        out.println();
+        failure.printStackTrace(out);
+
+        int captureIndex = 0;
+        for (BrowserCapture capture : captures) {
+            captureIndex++;
+            out.println();
+            out.println("Capture " + captureIndex + ": " + capture.getLabel() + " at "
+                    + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(capture.getTimestampMillis())));
+            if (null != capture.getCause()) {
+                out.println("Cause: " + capture.getCause());
+            }
+            out.println("URL: " + capture.getUrl());
+            if (null != capture.getScreenshot()) {
+                out.println("Screenshot: " + writeBlob(capture.getScreenshot(), ".png", false));
+            }
+            if (null != capture.getPageSource()) {
+                out.println("Page source: " + writeBlob(capture.getPageSource().getBytes(StandardCharsets.UTF_8),
+                        ".html.gz", true));
+            }
+            for (String note : capture.getNotes()) {
+                out.println("Note: " + note);
+            }
+            if (!capture.getConsoleLog().isEmpty()) {
+                out.println("Console log:");
+                for (String entry : capture.getConsoleLog()) {
+                    out.println("    " + entry);
+                }
+            }
+        }
+        out.flush();
+
+        byte[] reportBytes = report.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(new File(reportDirectory, "report.txt").toPath(), reportBytes);
+        runBytes.addAndGet(reportBytes.length);
+        reportCount.incrementAndGet();
+    }
+
+    /**
+     * Writes the specified content to the blob directory of the run unless identical content was already written. If
+     * identical content is being written by another thread, waits for that write, and writes the content itself if the
+     * other write fails or is over the cap.
+     * 
+     * @return Returns the path of the blob relative to the run directory, or why it was not written.
+     */
+    private String writeBlob(byte[] content, String extension, boolean compress) throws IOException {
+        String name = BLOB_DIRECTORY + "/" + sha256(content) + extension;
+
+        while (true) {
+            CompletableFuture<Boolean> written = new CompletableFuture<Boolean>();
+            CompletableFuture<Boolean> existing = writtenBlobs.putIfAbsent(name, written);
+            if (null != existing) {
+                if (existing.join()) {
+                    dedupedCount.incrementAndGet();
+                    return name;
+                }
+                continue;
+            }
+
+            boolean stored = false;
+            try {
+                stored = storeBlob(name, content, compress);
+            } finally {
+                if (!stored) {
+                    // Removed before completing, so that the waiting writers try again.
+                    writtenBlobs.remove(name, written);
+                }
+                written.complete(stored);
+            }
+
+            if (!stored) {
+                omittedCount.incrementAndGet();
+                return "omitted, the artifacts of this run reached " + maxRunBytes + " bytes";
+            }
+            return name;
+        }
+    }
+
+    /**
+     * Writes the specified content to the blob with the specified name if the run is below its size cap.
+     * 
+     * @return Returns true if the blob was written, or false if it would have taken the run over the cap.
+     */
+    private boolean storeBlob(String name, byte[] content, boolean compress) throws IOException {
+        byte[] blob = content;
+        if (compress) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 4 + 64);
+            GZIPOutputStream gzipOut = new GZIPOutputStream(compressed, 8192);
+            try {
+                gzipOut.write(content);
+            } finally {
+                gzipOut.close();
+            }
+            blob = compressed.toByteArray();
+        }
+
+        // Reserve the size written to disk so that concurrent writers cannot overrun the cap together.
+        if (runBytes.addAndGet(blob.length) > maxRunBytes) {
+            runBytes.addAndGet(-blob.length);
+            return false;
+        }
+
+        File blobFile = new File(runDirectory, name);
+        try {
+            Files.createDirectories(blobFile.getParentFile().toPath());
+            Files.write(blobFile.toPath(), blob);
+        } catch (IOException ioe) {
+            runBytes.addAndGet(-blob.length);
+            throw ioe;
+        }
+
+        return true;
+    }
+
+    private String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 is not available", nsae);
+        }
+    }
+
+    private String toFileName(String name) {
+        return (null == name) ? "unknown" : name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Creates and locks the lock file of this run next to its run directory. The lock is held until
+     * {@link #destroy()}, or released by the operating system if the JVM dies, so that the retention of concurrent
+     * runs, such as the other forks of a parallel build, leaves the directory of this run alone.
+     */
+    private void lockRun() {
+        File lockFile = getLockFile(runDirectory);
+        try {
+            Files.createDirectories(lockFile.getParentFile().toPath());
+            runLockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (null == runLockChannel.tryLock()) {
+                log.warn("lockRun: The lock file " + lockFile.getAbsolutePath() + " is held by another process");
+            }
+        } catch (IOException ioe) {
+            log.warn("lockRun: Error locking " + lockFile.getAbsolutePath()
+                    + ", the run directory may be deleted by concurrent runs", ioe);
+        }
+    }
+
+    private void unlockRun() {
+        if (null == runLockChannel) {
+            return;
+        }
+
+        File lockFile = getLockFile(runDirectory);
+        try {
+            runLockChannel.close();
+            Files.deleteIfExists(lockFile.toPath());
+        } catch (IOException ioe) {
+            log.warn("unlockRun: Error deleting " + lockFile.getAbsolutePath(), ioe);
+        }
+        runLockChannel = null;
+    }
+
+    private File getLockFile(File directory) {
+        return new File(directory.getParentFile(), directory.getName() + LOCK_FILE_SUFFIX);
+    }
+
+    /**
+     * Determines whether the run with the specified lock file is still running by trying to lock it.
+     * 
+     * @return Returns true if the lock file is locked by a live run, or if it cannot be determined.
+     */
+    private boolean isLocked(File lockFile) {
+        if (!lockFile.isFile()) {
+            return false;
+        }
+
+        try {
+            FileChannel lockChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.WRITE);
+            try {
+                FileLock lock = lockChannel.tryLock();
+                if (null == lock) {
+                    return true;
+                }
+                lock.release();
+                return false;
+            } catch (OverlappingFileLockException ofle) {
+                // Locked by another run in this JVM.
+                return true;
+            } finally {
+                lockChannel.close();
+            }
+        } catch (IOException ioe) {
+            log.debug("isLocked: Error checking " + lockFile.getAbsolutePath(), ioe);
+            return true;
+        }
+    }
+
+    /**
+     * Deletes the run directories of previous runs beyond the newest {@code retainRuns} or older than
+     * {@code retainDays}. The directories of runs that still hold their lock file are never deleted, and neither
+     * count toward {@code retainRuns}.
+     */
+    private void deleteExpiredRuns(File directory, int retainRuns, int retainDays) {
+        File[] runDirectories = directory.listFiles();
+        if (null == runDirectories) {
+            return;
+        }
+
+        List<File> previousRuns = new ArrayList<File>();
+        for (File candidate : Arrays.asList(runDirectories)) {
+            String name = candidate.getName();
+            if (!name.startsWith(RUN_DIRECTORY_PREFIX) || candidate.equals(runDirectory)) {
+                continue;
+            }
+
+            if (candidate.isDirectory()) {
+                if (!isLocked(getLockFile(candidate))) {
+                    previousRuns.add(candidate);
+                }
+            } else if (name.endsWith(LOCK_FILE_SUFFIX) && !candidate.equals(getLockFile(runDirectory))) {
+                // The lock file left by a run that died without failures has no run directory to go with it.
+                File lockedRunDirectory = new File(directory, name.substring(0,
+                        name.length() - LOCK_FILE_SUFFIX.length()));
+                if (!lockedRunDirectory.exists() && !isLocked(candidate) && !candidate.delete()) {
+                    log.debug("deleteExpiredRuns: Error deleting " + candidate.getAbsolutePath());
+                }
+            }
+        }
+
+        Collections.sort(previousRuns, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file2.lastModified(), file1.lastModified());
+            }
+        });
+
+        long expiryMillis = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retainDays);
+        for (int i = 0; i < previousRuns.size(); i++) {
+            File previousRun = previousRuns.get(i);
+            if ((i >= retainRuns) || (previousRun.lastModified() < expiryMillis)) {
+                try {
+                    deleteRecursively(previousRun.toPath());
+                    Files.deleteIfExists(getLockFile(previousRun).toPath());
+                    log.debug("deleteExpiredRuns: Deleted " + previousRun.getAbsolutePath());
+                } catch (IOException ioe) {
+                    log.warn("deleteExpiredRuns: Error deleting " + previousRun.getAbsolutePath(), ioe);
+                }
+            }
+        }
+    }
+
+    private void deleteRecursively(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException ioe) throws IOException {
+                if (null != ioe) {
+                    throw ioe;
+                }
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.interzonedev.pienburger.artifact;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.logging.LogEntry;
+import org.openqa.selenium.logging.LogType;
+
+/**
+ * The state of a browser at the moment something went wrong: its current URL, a screenshot, the page source and the
+ * browser console log. The state is grabbed synchronously, since the session is reset as soon as the test ends, and
+ * the size caps of the {@link ArtifactWriter} are applied while grabbing so that a huge page does not have to be held
+ * in memory until it is written. A part the browser cannot provide is left out and the reason is added to the notes,
+ * so that grabbing never hides the failure being investigated.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class BrowserCapture {
+
+    private final String label;
+
+    private final String cause;
+
+    private final long timestampMillis;
+
+    private final List<String> notes = new ArrayList<String>();
+
+    private String url;
+
+    private byte[] screenshot;
+
+    private String pageSource;
+
+    private List<String> consoleLog = Collections.emptyList();
+
+    private BrowserCapture(String label, String cause) {
+        this.label = label;
+        this.cause = cause;
+        this.timestampMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Grabs the state of the browser controlled by the specified {@link WebDriver}.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     * @param label What was being done when the state was grabbed, such as the name of the wait that timed out.
+     * @param cause The message of the exception that triggered the grab, or null.
+     * @param artifactWriter The {@link ArtifactWriter} whose size caps are applied.
+     * 
+     * @return Returns the grabbed state.
+     */
+    public static BrowserCapture grab(WebDriver driver, String label, String cause, ArtifactWriter artifactWriter) {
+        BrowserCapture capture = new BrowserCapture(label, cause);
+
+        try {
+            capture.url = driver.getCurrentUrl();
+        } catch (RuntimeException re) {
+            capture.unavailable("URL", re);
+        }
+
+        if (driver instanceof TakesScreenshot) {
+            try {
+                byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+                if (screenshot.length > artifactWriter.getMaxScreenshotBytes()) {
+                    capture.notes.add("Screenshot of " + screenshot.length + " bytes left out, the cap is "
+                            + artifactWriter.getMaxScreenshotBytes());
+                } else {
+                    capture.screenshot = screenshot;
+                }
+            } catch (RuntimeException re) {
+                capture.unavailable("Screenshot", re);
+            }
+        } else {
+            capture.notes.add("Screenshot not supported by " + driver.getClass().getSimpleName());
+        }
+
+        try {
+            String pageSource = driver.getPageSource();
+            if ((null != pageSource) && (pageSource.length() > artifactWriter.getMaxPageSourceChars())) {
+                capture.notes.add("Page source of " + pageSource.length() + " characters truncated to "
+                        + artifactWriter.getMaxPageSourceChars());
+                pageSource = pageSource.substring(0, artifactWriter.getMaxPageSourceChars());
+            }
+            capture.pageSource = pageSource;
+        } catch (RuntimeException re) {
+            capture.unavailable("Page source", re);
+        }
+
+        try {
+            List<String> consoleLog = new ArrayList<String>();
+            int skipped = 0;
+            for (LogEntry entry : driver.manage().logs().get(LogType.BROWSER)) {
+                if (consoleLog.size() < artifactWriter.getMaxConsoleEntries()) {
+                    consoleLog.add(entry.toString());
+                } else {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                capture.notes.add(skipped + " console log entries left out, the cap is "
+                        + artifactWriter.getMaxConsoleEntries());
+            }
+            capture.consoleLog = consoleLog;
+        } catch (RuntimeException re) {
+            capture.unavailable("Console log", re);
+        }
+
+        return capture;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getCause() {
+        return cause;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public List<String> getNotes() {
+        return notes;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public byte[] getScreenshot() {
+        return screenshot;
+    }
+
+    public String getPageSource() {
+        return pageSource;
+    }
+
+    public List<String> getConsoleLog() {
+        return consoleLog;
+    }
+
+    private void unavailable(String part, RuntimeException re) {
+        String message = (null == re.getMessage()) ? "" : re.getMessage().split("\n", 2)[0];
+        notes.add(part + " unavailable: " + re.getClass().getSimpleName() + " " + message);
+    }
+
+}
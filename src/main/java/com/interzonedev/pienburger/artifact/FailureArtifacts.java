@@ -0,0 +1,104 @@
+package com.interzonedev.pienburger.artifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.WebDriver;
+
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.OperationTimer;
+
+/**
+ * Collects the {@link BrowserCapture}s of a single functional test. The browser state is grabbed on the test thread
+ * when a wait times out, since the session is reset before the test failure is reported, but nothing is written unless
+ * the test then fails, so a test that expects a wait to time out does not leave artifacts behind. When it fails the
+ * captures are handed to the {@link ArtifactWriter} to be written in the background.
+ * 
+ * Captures can be grabbed concurrently by the sessions of a multi-session test.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class FailureArtifacts {
+
+    private final ArtifactWriter artifactWriter;
+
+    private final String className;
+
+    private final String methodName;
+
+    private final MetricsSink metricsSink;
+
+    private final Map<String, String> metricTags;
+
+    private final List<BrowserCapture> captures = new ArrayList<BrowserCapture>();
+
+    /**
+     * Constructs an instance for the specified test.
+     * 
+     * @param artifactWriter The {@link ArtifactWriter} the captures are written with.
+     * @param className The name of the test class.
+     * @param methodName The name of the test method.
+     * @param metricsSink The {@link MetricsSink} the time spent grabbing is recorded to.
+     * @param metricTags The tags, such as the test class, to record the time spent grabbing with.
+     */
+    public FailureArtifacts(ArtifactWriter artifactWriter, String className, String methodName,
+            MetricsSink metricsSink, Map<String, String> metricTags) {
+        this.artifactWriter = artifactWriter;
+        this.className = className;
+        this.methodName = methodName;
+        this.metricsSink = metricsSink;
+        this.metricTags = metricTags;
+    }
+
+    /**
+     * Grabs the state of the browser controlled by the specified {@link WebDriver}, unless capturing is disabled or
+     * this test already holds the maximum number of captures.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     * @param label What was being done when the state was grabbed, such as the name of the wait that timed out.
+     * @param cause The exception that triggered the grab, or null.
+     */
+    public void capture(WebDriver driver, String label, Throwable cause) {
+        if (!artifactWriter.isEnabled() || (null == driver)) {
+            return;
+        }
+
+        synchronized (captures) {
+            if (captures.size() >= artifactWriter.getMaxCapturesPerTest()) {
+                return;
+            }
+        }
+
+        OperationTimer timer = new OperationTimer(metricsSink, MetricNames.ARTIFACT_CAPTURE, metricTags);
+        try {
+            BrowserCapture capture = BrowserCapture.grab(driver, label,
+                    (null == cause) ? null : cause.getClass().getName() + ": " + cause.getMessage(), artifactWriter);
+            synchronized (captures) {
+                captures.add(capture);
+            }
+            timer.succeeded();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Hands the captures of the test to the {@link ArtifactWriter} if there are any.
+     * 
+     * @param failure The failure of the test.
+     */
+    public void testFailed(Throwable failure) {
+        List<BrowserCapture> failureCaptures;
+        synchronized (captures) {
+            failureCaptures = new ArrayList<BrowserCapture>(captures);
+            captures.clear();
+        }
+
+        if (!failureCaptures.isEmpty()) {
+            artifactWriter.submit(className, methodName, failure, failureCaptures);
+        }
+    }
+
+}
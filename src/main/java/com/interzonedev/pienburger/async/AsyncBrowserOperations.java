@@ -0,0 +1,307 @@
+package com.interzonedev.pienburger.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.interzonedev.pienburger.driver.BrowserOperations;
+import com.interzonedev.pienburger.driver.WaitSettings;
+
+/**
+ * Asynchronous counterpart of {@link BrowserOperations} whose methods return a {@link CompletableFuture} instead of
+ * blocking the calling thread. This lets a single test drive several browser sessions at once, for example two users
+ * editing the same record, and combine the results with {@link Futures#firstOf(Deadline, CompletableFuture...)} and
+ * {@link Futures#allOf(Deadline, CompletableFuture...)}.
+ * 
+ * Operations run on the executor from {@link AsyncExecutors#defaultExecutor()} unless another is given, which uses
+ * virtual threads where the JVM supports them. A {@link WebDriver} may not be used by several threads at once, so the
+ * operations submitted for the same driver run one after the other in the order they were submitted, while operations
+ * on different drivers run concurrently. A failed operation does not prevent the next one on the same driver from
+ * running.
+ * 
+ * The methods that take a {@link Deadline} wait only for the time remaining until the deadline when they start, and
+ * fail with a {@link TimeoutException} without touching the browser if it has already passed.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AsyncBrowserOperations {
+
+    private static final BiFunction<Object, Throwable, Object> IGNORE_OUTCOME =
+            new BiFunction<Object, Throwable, Object>() {
+                @Override
+                public Object apply(Object result, Throwable failure) {
+                    return null;
+                }
+            };
+
+    private final BrowserOperations browserOperations;
+
+    private final Executor executor;
+
+    /**
+     * The last operation submitted for each driver, which the next operation for the driver is chained after. These
+     * futures are never handed out, so nothing outside this class can complete or cancel them.
+     */
+    private final Map<WebDriver, CompletableFuture<?>> lanes = new WeakHashMap<WebDriver, CompletableFuture<?>>();
+
+    /**
+     * Constructs an instance that runs the operations of the specified {@link BrowserOperations} on the default
+     * executor.
+     * 
+     * @param browserOperations The {@link BrowserOperations} that performs the operations.
+     */
+    public AsyncBrowserOperations(BrowserOperations browserOperations) {
+        this(browserOperations, AsyncExecutors.defaultExecutor());
+    }
+
+    /**
+     * Constructs an instance that runs the operations of the specified {@link BrowserOperations} on the specified
+     * {@link Executor}.
+     * 
+     * @param browserOperations The {@link BrowserOperations} that performs the operations.
+     * @param executor The {@link Executor} that runs the operations.
+     */
+    public AsyncBrowserOperations(BrowserOperations browserOperations, Executor executor) {
+        this.browserOperations = browserOperations;
+        this.executor = executor;
+    }
+
+    public BrowserOperations getBrowserOperations() {
+        return browserOperations;
+    }
+
+    /**
+     * Runs the specified action against the specified {@link WebDriver} after every operation previously submitted
+     * for the driver has completed. This is how operations not covered by the other methods, such as clicking or
+     * typing, are run in order with them.
+     * 
+     * @param driver The {@link WebDriver} the action uses.
+     * @param action The action to run.
+     * 
+     * @return Returns a future that completes with the result of the action. Cancelling it before the action has
+     *         started skips the action. Cancelling it once the action is running does not stop the action, and the next
+     *         operation submitted for the driver still waits for the action to complete.
+     */
+    public <T> CompletableFuture<T> submit(final WebDriver driver, final Function<WebDriver, T> action) {
+        synchronized (lanes) {
+            CompletableFuture<?> previous = lanes.get(driver);
+            if (null == previous) {
+                previous = CompletableFuture.completedFuture(null);
+            }
+
+            final AtomicReference<CompletableFuture<T>> handedOut = new AtomicReference<CompletableFuture<T>>();
+
+            CompletableFuture<T> next = previous.handle(IGNORE_OUTCOME).thenApplyAsync(new Function<Object, T>() {
+                @Override
+                public T apply(Object ignored) {
+                    CompletableFuture<T> caller = handedOut.get();
+                    if ((null != caller) && caller.isCancelled()) {
+                        // Nothing waits for the result any more, so do not tie up the driver.
+                        return null;
+                    }
+                    return action.apply(driver);
+                }
+            }, executor);
+
+            lanes.put(driver, next);
+
+            // Callers get a dependent copy, so that cancelling it, as the combinators in Futures do with the
+            // operations that lost, does not complete the lane early and start the next operation on the driver while
+            // this one is still using it.
+            CompletableFuture<T> caller = next.thenApply(Function.<T> identity());
+            handedOut.set(caller);
+            return caller;
+        }
+    }
+
+    /**
+     * Asynchronously opens the page at the specified URL relative to the application URL, as with
+     * {@link BrowserOperations#openPage(WebDriver, String)}.
+     */
+    public CompletableFuture<Void> openPage(WebDriver driver, final String url) {
+        return submit(driver, new Function<WebDriver, Void>() {
+            @Override
+            public Void apply(WebDriver d) {
+                browserOperations.openPage(d, url);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Asynchronously opens the page at the specified URL relative to the application URL and waits for it to be idle,
+     * as with {@link BrowserOperations#openPageAndAwaitIdle(WebDriver, String)}.
+     */
+    public CompletableFuture<Void> openPageAndAwaitIdle(WebDriver driver, final String url) {
+        return submit(driver, new Function<WebDriver, Void>() {
+            @Override
+            public Void apply(WebDriver d) {
+                browserOperations.openPageAndAwaitIdle(d, url);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Asynchronously waits for the current page to be idle, as with
+     * {@link BrowserOperations#awaitNetworkIdle(WebDriver)}, for no longer than the time left until the specified
+     * {@link Deadline}.
+     */
+    public CompletableFuture<Void> awaitNetworkIdle(WebDriver driver, final Deadline deadline) {
+        return submit(driver, new Function<WebDriver, Void>() {
+            @Override
+            public Void apply(WebDriver d) {
+                browserOperations.awaitNetworkIdle(d, browserOperations.getNetworkQuietPeriod(),
+                        deadline.limit(browserOperations.getDefaultWaitSettings()));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Asynchronously waits for and gets an element, as with
+     * {@link BrowserOperations#waitForAndGetElement(WebDriver, By)}.
+     */
+    public CompletableFuture<WebElement> waitForAndGetElement(WebDriver driver, By by) {
+        return waitForAndGetElementWithText(driver, by, null, null);
+    }
+
+    /**
+     * Asynchronously waits for and gets an element, as with
+     * {@link BrowserOperations#waitForAndGetElement(WebDriver, By)}, for no longer than the time left until the
+     * specified {@link Deadline}.
+     */
+    public CompletableFuture<WebElement> waitForAndGetElement(WebDriver driver, By by, Deadline deadline) {
+        return waitForAndGetElementWithText(driver, by, null, deadline);
+    }
+
+    /**
+     * Asynchronously waits for and gets an element with the specified text, as with
+     * {@link BrowserOperations#waitForAndGetElementWithText(WebDriver, By, String)}, for no longer than the time left
+     * until the specified {@link Deadline}.
+     * 
+     * @param deadline The {@link Deadline} to wait until, or null to wait for the default timeout.
+     */
+    public CompletableFuture<WebElement> waitForAndGetElementWithText(WebDriver driver, final By by,
+            final String text, final Deadline deadline) {
+        return submit(driver, new Function<WebDriver, WebElement>() {
+            @Override
+            public WebElement apply(WebDriver d) {
+                return browserOperations.waitForAndGetElementWithText(d, by, text, getWaitSettings(deadline));
+            }
+        });
+    }
+
+    /**
+     * Asynchronously waits for and gets the elements identified by the specified {@link By}, as with
+     * {@link BrowserOperations#waitForAndGetElements(WebDriver, By)}, for no longer than the time left until the
+     * specified {@link Deadline}.
+     * 
+     * @param deadline The {@link Deadline} to wait until, or null to wait for the default timeout.
+     */
+    public CompletableFuture<List<WebElement>> waitForAndGetElements(WebDriver driver, final By by,
+            final Deadline deadline) {
+        return submit(driver, new Function<WebDriver, List<WebElement>>() {
+            @Override
+            public List<WebElement> apply(WebDriver d) {
+                return browserOperations.waitForAndGetElements(d, by, getWaitSettings(deadline));
+            }
+        });
+    }
+
+    /**
+     * Asynchronously waits for and gets an element identified by any of the specified {@link By} instances, as with
+     * {@link BrowserOperations#waitForAndGetAnyElement(WebDriver, By...)}, for no longer than the time left until the
+     * specified {@link Deadline}.
+     * 
+     * @param deadline The {@link Deadline} to wait until, or null to wait for the default timeout.
+     */
+    public CompletableFuture<WebElement> waitForAndGetAnyElement(WebDriver driver, final Deadline deadline,
+            final By... bys) {
+        return submit(driver, new Function<WebDriver, WebElement>() {
+            @Override
+            public WebElement apply(WebDriver d) {
+                return browserOperations.waitForAndGetAnyElement(d, getWaitSettings(deadline), bys);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously gets the text of every element identified by the specified {@link By}, as with
+     * {@link BrowserOperations#getTexts(WebDriver, By)}.
+     */
+    public CompletableFuture<List<String>> getTexts(WebDriver driver, final By by) {
+        return submit(driver, new Function<WebDriver, List<String>>() {
+            @Override
+            public List<String> apply(WebDriver d) {
+                return browserOperations.getTexts(d, by);
+            }
+        });
+    }
+
+    /**
+     * Asynchronously waits for and gets the text of every element identified by the specified {@link By}, as with
+     * {@link BrowserOperations#waitForAndGetTexts(WebDriver, By)}, for no longer than the time left until the
+     * specified {@link Deadline}.
+     * 
+     * @param deadline The {@link Deadline} to wait until, or null to wait for the default timeout.
+     */
+    public CompletableFuture<List<String>> waitForAndGetTexts(WebDriver driver, final By by,
+            final Deadline deadline) {
+        return submit(driver, new Function<WebDriver, List<String>>() {
+            @Override
+            public List<String> apply(WebDriver d) {
+                return browserOperations.waitForAndGetTexts(d, by, getWaitSettings(deadline));
+            }
+        });
+    }
+
+    /**
+     * Gets a future that completes once every operation submitted so far for the specified {@link WebDriver} has
+     * completed, successfully or not.
+     * 
+     * @param driver The {@link WebDriver} whose operations to wait for.
+     * 
+     * @return Returns a future that completes with null once the driver is idle.
+     */
+    public CompletableFuture<Void> whenIdle(WebDriver driver) {
+        return submit(driver, new Function<WebDriver, Void>() {
+            @Override
+            public Void apply(WebDriver d) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Blocks until every operation submitted so far, for any driver, has completed. Failures of the operations are not
+     * rethrown. Used before the sessions are returned to their pools so that no operation is still using them.
+     */
+    public void awaitQuiescence() {
+        List<CompletableFuture<?>> pending;
+        synchronized (lanes) {
+            pending = new ArrayList<CompletableFuture<?>>(lanes.values());
+        }
+
+        for (CompletableFuture<?> operation : pending) {
+            operation.handle(IGNORE_OUTCOME).join();
+        }
+    }
+
+    private WaitSettings getWaitSettings(Deadline deadline) {
+        WaitSettings waitSettings = browserOperations.getDefaultWaitSettings();
+        return (null == deadline) ? waitSettings : deadline.limit(waitSettings);
+    }
+
+}
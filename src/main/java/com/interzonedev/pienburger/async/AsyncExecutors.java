@@ -0,0 +1,86 @@
+package com.interzonedev.pienburger.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Creates the executors that run asynchronous browser operations.
+ * 
+ * On a JVM with virtual threads every operation runs on its own virtual thread, so a wait that blocks for its full
+ * timeout does not hold on to a platform thread. On older JVMs the operations fall back to a cached pool of daemon
+ * platform threads. The virtual thread executor is looked up reflectively so that the framework can still be compiled
+ * for and run on older JVMs.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class AsyncExecutors {
+
+    private static final Log log = LogFactory.getLog(AsyncExecutors.class);
+
+    private static ExecutorService defaultExecutor;
+
+    private static ScheduledExecutorService scheduler;
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Creates a new executor that runs each task on a virtual thread if the JVM supports them, or on a cached pool of
+     * daemon threads otherwise.
+     * 
+     * @return Returns a new {@link ExecutorService}. The caller is responsible for shutting it down.
+     */
+    public static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException roe) {
+            log.debug("newExecutor: Virtual threads are not available, falling back to platform threads");
+        }
+
+        return Executors.newCachedThreadPool(newDaemonThreadFactory("pienburger-async-"));
+    }
+
+    /**
+     * Gets the executor shared by every asynchronous browser operation that is not given its own executor.
+     * 
+     * @return Returns the shared {@link ExecutorService}, which is never shut down.
+     */
+    public static synchronized ExecutorService defaultExecutor() {
+        if (null == defaultExecutor) {
+            defaultExecutor = newExecutor();
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Gets the single daemon thread used to enforce deadlines on combined futures.
+     */
+    static synchronized ScheduledExecutorService scheduler() {
+        if (null == scheduler) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(newDaemonThreadFactory("pienburger-deadline-"));
+        }
+        return scheduler;
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(final String namePrefix) {
+        final AtomicInteger nextIndex = new AtomicInteger();
+
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + nextIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+}
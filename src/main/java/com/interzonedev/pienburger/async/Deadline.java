@@ -0,0 +1,82 @@
+package com.interzonedev.pienburger.async;
+
+import java.time.Duration;
+
+import org.openqa.selenium.TimeoutException;
+
+import com.interzonedev.pienburger.driver.WaitSettings;
+
+/**
+ * A point in time by which a group of asynchronous operations must complete. Every operation given the same deadline
+ * waits only for the time remaining when it starts, so operations that queue behind each other on the same browser
+ * share a single time budget instead of each getting the full timeout.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class Deadline {
+
+    private final long deadlineNanos;
+
+    private final Duration timeout;
+
+    private Deadline(Duration timeout) {
+        this.timeout = timeout;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Creates a deadline the specified amount of time from now.
+     * 
+     * @param timeout The time from now until the deadline.
+     * 
+     * @return Returns a new {@link Deadline}.
+     */
+    public static Deadline after(Duration timeout) {
+        if ((null == timeout) || timeout.isNegative()) {
+            throw new IllegalArgumentException("The timeout must not be negative");
+        }
+        return new Deadline(timeout);
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the time left until the deadline.
+     * 
+     * @return Returns the time left until the deadline, or zero if it has passed.
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0L, deadlineNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return (deadlineNanos - System.nanoTime()) <= 0L;
+    }
+
+    /**
+     * Limits the timeout of the specified {@link WaitSettings} to the time left until this deadline.
+     * 
+     * @param waitSettings The {@link WaitSettings} to limit.
+     * 
+     * @return Returns {@link WaitSettings} with the same polling and ignored exceptions and a timeout that ends no
+     *         later than this deadline.
+     * 
+     * @throws TimeoutException Thrown if the deadline has already passed.
+     */
+    public WaitSettings limit(WaitSettings waitSettings) {
+        Duration remaining = remaining();
+        if (remaining.isZero()) {
+            throw new TimeoutException("The deadline of " + timeout.toMillis() + "ms has passed");
+        }
+        return (waitSettings.getTimeout().compareTo(remaining) <= 0) ? waitSettings : waitSettings
+                .withTimeout(remaining);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline[timeout=" + timeout.toMillis() + "ms, remaining=" + remaining().toMillis() + "ms]";
+    }
+
+}
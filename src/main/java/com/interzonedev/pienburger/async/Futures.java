@@ -0,0 +1,200 @@
+package com.interzonedev.pienburger.async;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Combinators for the futures returned by {@link AsyncBrowserOperations} that complete within a shared
+ * {@link Deadline}, and a way to wait for a future from a test that surfaces the original failure.
+ * 
+ * When a combined future completes, whether with a result, a failure or because the deadline passed, the futures it
+ * combines that are still pending are cancelled. Operations of {@link AsyncBrowserOperations} that have not started
+ * yet are then skipped, but an operation that is already running in the browser is not interrupted: it runs until it
+ * finishes or reaches its own timeout, and later operations on the same driver, as well as
+ * {@link AsyncBrowserOperations#awaitQuiescence()}, wait for it. Create the combined operations with the methods that
+ * take the same {@link Deadline} so that the losers stop waiting when the deadline passes.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Combines the specified futures into one that completes with the result of whichever succeeds first.
+     * 
+     * @param deadline The {@link Deadline} by which one of the futures must succeed.
+     * @param futures The futures to combine.
+     * 
+     * @return Returns a future that completes with the first successful result, fails with the last failure if every
+     *         future fails, or fails with a {@link TimeoutException} if none succeeds before the deadline.
+     */
+    @SafeVarargs
+    public static <T> CompletableFuture<T> firstOf(Deadline deadline, CompletableFuture<? extends T>... futures) {
+        return firstOf(deadline, Arrays.asList(futures));
+    }
+
+    /**
+     * Combines the specified futures into one that completes with the result of whichever succeeds first.
+     * 
+     * @param deadline The {@link Deadline} by which one of the futures must succeed.
+     * @param futures The futures to combine.
+     * 
+     * @return Returns a future that completes with the first successful result, fails with the last failure if every
+     *         future fails, or fails with a {@link TimeoutException} if none succeeds before the deadline.
+     */
+    public static <T> CompletableFuture<T> firstOf(Deadline deadline,
+            final List<? extends CompletableFuture<? extends T>> futures) {
+        if (futures.isEmpty()) {
+            throw new IllegalArgumentException("At least one future is required");
+        }
+
+        final CompletableFuture<T> first = new CompletableFuture<T>();
+        final AtomicInteger remainingFailures = new AtomicInteger(futures.size());
+
+        for (CompletableFuture<? extends T> future : futures) {
+            future.whenComplete(new BiConsumer<T, Throwable>() {
+                @Override
+                public void accept(T result, Throwable failure) {
+                    if (null == failure) {
+                        first.complete(result);
+                    } else if (remainingFailures.decrementAndGet() == 0) {
+                        first.completeExceptionally(unwrap(failure));
+                    }
+                }
+            });
+        }
+
+        return withDeadline(first, deadline, "the first of " + futures.size() + " operations", futures);
+    }
+
+    /**
+     * Combines the specified futures into one that completes once every one of them has succeeded.
+     * 
+     * @param deadline The {@link Deadline} by which every future must succeed.
+     * @param futures The futures to combine.
+     * 
+     * @return Returns a future that completes with the results in the same order as the futures, fails with the first
+     *         failure, or fails with a {@link TimeoutException} if they have not all succeeded before the deadline.
+     */
+    @SafeVarargs
+    public static <T> CompletableFuture<List<T>> allOf(Deadline deadline, CompletableFuture<? extends T>... futures) {
+        return allOf(deadline, Arrays.asList(futures));
+    }
+
+    /**
+     * Combines the specified futures into one that completes once every one of them has succeeded.
+     * 
+     * @param deadline The {@link Deadline} by which every future must succeed.
+     * @param futures The futures to combine.
+     * 
+     * @return Returns a future that completes with the results in the same order as the futures, fails with the first
+     *         failure, or fails with a {@link TimeoutException} if they have not all succeeded before the deadline.
+     */
+    public static <T> CompletableFuture<List<T>> allOf(Deadline deadline,
+            final List<? extends CompletableFuture<? extends T>> futures) {
+        if (futures.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.<T> emptyList());
+        }
+
+        final CompletableFuture<List<T>> all = new CompletableFuture<List<T>>();
+        final List<T> results = new ArrayList<T>(Collections.<T> nCopies(futures.size(), null));
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+
+        for (int i = 0; i < futures.size(); i++) {
+            final int index = i;
+            futures.get(i).whenComplete(new BiConsumer<T, Throwable>() {
+                @Override
+                public void accept(T result, Throwable failure) {
+                    if (null != failure) {
+                        all.completeExceptionally(unwrap(failure));
+                        return;
+                    }
+                    synchronized (results) {
+                        results.set(index, result);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        synchronized (results) {
+                            all.complete(new ArrayList<T>(results));
+                        }
+                    }
+                }
+            });
+        }
+
+        return withDeadline(all, deadline, "all of " + futures.size() + " operations", futures);
+    }
+
+    /**
+     * Waits for the specified future and returns its result. Unlike {@link CompletableFuture#join()}, failures are
+     * rethrown as they were thrown by the operation, so assertion errors and {@link TimeoutException}s surface in the
+     * test unchanged.
+     * 
+     * @param future The future to wait for.
+     * 
+     * @return Returns the result of the future.
+     */
+    public static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new WebDriverException("Interrupted while waiting for an asynchronous operation", ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = unwrap(ee);
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new WebDriverException(cause);
+        }
+    }
+
+    private static <T> CompletableFuture<T> withDeadline(final CompletableFuture<T> combined, final Deadline deadline,
+            final String description, final List<? extends CompletableFuture<?>> futures) {
+        final ScheduledFuture<?> timeout = AsyncExecutors.scheduler().schedule(new Runnable() {
+            @Override
+            public void run() {
+                combined.completeExceptionally(new TimeoutException("Timed out after "
+                        + deadline.getTimeout().toMillis() + "ms waiting for " + description));
+            }
+        }, deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+
+        combined.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable failure) {
+                timeout.cancel(false);
+                for (CompletableFuture<?> future : futures) {
+                    future.cancel(false);
+                }
+            }
+        });
+
+        return combined;
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while (((cause instanceof CompletionException) || (cause instanceof ExecutionException))
+                && (null != cause.getCause())) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.interzonedev.pienburger.async;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openqa.selenium.WebDriver;
+
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.driver.DriverProfile;
+import com.interzonedev.pienburger.driver.WebDriverFactory;
+
+/**
+ * A group of browser sessions leased together from the {@link WebDriverFactory} for a test that plays several users
+ * at once. The sessions are leased concurrently so that launching them overlaps, and are all returned to their pool
+ * when the group is closed.
+ * 
+ * The pool for the {@link Browser} must allow enough sessions for the group on top of the session held by the test
+ * itself, for example by raising {@code pienburger.pool.<browserId>.maxSize}, or the leases wait for the pool's lease
+ * timeout and fail.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class SessionGroup implements AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(SessionGroup.class);
+
+    private final WebDriverFactory webDriverFactory;
+
+    private final Browser browser;
+
+    private final String profileName;
+
+    private final List<WebDriver> drivers;
+
+    private boolean closed;
+
+    /**
+     * Leases the specified number of sessions for the specified {@link Browser}. If any lease fails, the sessions that
+     * were leased are returned before the failure is rethrown.
+     * 
+     * @param webDriverFactory The {@link WebDriverFactory} to lease the sessions from.
+     * @param browser The {@link Browser} of the sessions.
+     * @param size The number of sessions to lease.
+     */
+    public SessionGroup(WebDriverFactory webDriverFactory, Browser browser, int size) {
+        this(webDriverFactory, browser, DriverProfile.DEFAULT, size);
+    }
+
+    /**
+     * Leases the specified number of sessions for the specified {@link Browser} launched with the named
+     * {@link DriverProfile}. If any lease fails, the sessions that were leased are returned before the failure is
+     * rethrown.
+     * 
+     * @param webDriverFactory The {@link WebDriverFactory} to lease the sessions from.
+     * @param browser The {@link Browser} of the sessions.
+     * @param profileName The name of the {@link DriverProfile} of the sessions, or null for the default profile.
+     * @param size The number of sessions to lease.
+     */
+    public SessionGroup(final WebDriverFactory webDriverFactory, final Browser browser, final String profileName,
+            int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size must be at least 1");
+        }
+
+        this.webDriverFactory = webDriverFactory;
+        this.browser = browser;
+        this.profileName = profileName;
+
+        List<CompletableFuture<WebDriver>> leases = new ArrayList<CompletableFuture<WebDriver>>(size);
+        for (int i = 0; i < size; i++) {
+            leases.add(CompletableFuture.supplyAsync(new Supplier<WebDriver>() {
+                @Override
+                public WebDriver get() {
+                    return webDriverFactory.leaseWebDriver(browser, profileName);
+                }
+            }, AsyncExecutors.defaultExecutor()));
+        }
+
+        List<WebDriver> leased = new ArrayList<WebDriver>(size);
+        RuntimeException failure = null;
+        for (CompletableFuture<WebDriver> lease : leases) {
+            try {
+                leased.add(Futures.await(lease));
+            } catch (RuntimeException re) {
+                failure = re;
+            }
+        }
+
+        if (null != failure) {
+            release(leased);
+            throw failure;
+        }
+
+        drivers = Collections.unmodifiableList(leased);
+    }
+
+    public Browser getBrowser() {
+        return browser;
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+
+    /**
+     * Gets the session at the specified position in the group.
+     * 
+     * @param index The zero based position of the session.
+     * 
+     * @return Returns the {@link WebDriver} at the specified position.
+     */
+    public WebDriver getDriver(int index) {
+        return drivers.get(index);
+    }
+
+    public List<WebDriver> getDrivers() {
+        return drivers;
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    /**
+     * Returns every session in the group to its pool. Any asynchronous operations on the sessions should have
+     * completed first, for example by waiting for {@link AsyncBrowserOperations#whenIdle(WebDriver)}. Calling this more
+     * than once has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        release(drivers);
+    }
+
+    private void release(List<WebDriver> leased) {
+        for (WebDriver driver : leased) {
+            try {
+                webDriverFactory.releaseWebDriver(browser, profileName, driver);
+            } catch (RuntimeException re) {
+                log.warn("release: Error returning " + browser.id() + " session to its pool", re);
+            }
+        }
+    }
+
+}
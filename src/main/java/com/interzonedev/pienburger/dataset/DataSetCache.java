@@ -0,0 +1,358 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+import com.interzonedev.pienburger.parallel.WorkerDataSource;
+
+/**
+ * Prepares the {@link SnapshotDataSet} of each functional test. The first test that declares a dataset runs its
+ * scripts and takes a {@link DataSetSnapshot} of its tables. Later tests that declare the same dataset get it restored
+ * from the snapshot, and do not even get that when the previous test against the same tables was marked
+ * {@link ReadOnlyData} and the dataset is still loaded. The snapshots are kept for the life of the JVM, so they are
+ * shared across test classes, and are discarded when the application context is closed.
+ * 
+ * A test that does not declare both a {@link SnapshotDataSet} and {@link ReadOnlyData} may have changed any table, so
+ * after it every dataset is restored before it is used again (see {@link #afterTest(boolean)}).
+ * 
+ * A {@link WorkerDataSource} is resolved to the database of the calling worker, so every worker keeps its own
+ * snapshots. Setting {@code pienburger.dataset.snapshots} to false runs the scripts before every test instead, which
+ * helps to rule the cache out when tracking down leaking test data.
+ * 
+ * The first time a database is used, the snapshots that killed JVMs left in it are dropped. Snapshots are considered
+ * left behind once they are older than {@code pienburger.dataset.staleSnapshotHours} (default 24), so that those of
+ * other JVMs still running against the database are kept.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Named("dataSetCache")
+public class DataSetCache implements InitializingBean, DisposableBean {
+
+    private static final Log log = LogFactory.getLog(DataSetCache.class);
+
+    @Inject
+    @Named("pienburgerSettings")
+    private PienburgerSettings pienburgerSettings;
+
+    private SnapshotStrategy snapshotStrategy = new TableCopySnapshotStrategy();
+
+    private final Map<String, Map<List<String>, TableSet>> tableSets =
+            new HashMap<String, Map<List<String>, TableSet>>();
+
+    private final Map<DataSource, String> databaseKeys = new IdentityHashMap<DataSource, String>();
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    private final AtomicLong restoreCount = new AtomicLong();
+
+    private final AtomicLong skipCount = new AtomicLong();
+
+    private boolean enabled = true;
+
+    private long staleSnapshotMillis = TimeUnit.HOURS.toMillis(24L);
+
+    @Override
+    public void afterPropertiesSet() {
+        enabled = pienburgerSettings.getBoolean("pienburger.dataset.snapshots", true);
+        staleSnapshotMillis = TimeUnit.HOURS.toMillis(pienburgerSettings.getLong(
+                "pienburger.dataset.staleSnapshotHours", 24L));
+    }
+
+    /**
+     * Discards every snapshot when the application context is closed.
+     */
+    @Override
+    public void destroy() {
+        synchronized (tableSets) {
+            for (Map<List<String>, TableSet> databaseTableSets : tableSets.values()) {
+                synchronized (databaseTableSets) {
+                    for (TableSet tableSet : databaseTableSets.values()) {
+                        tableSet.discard();
+                    }
+                }
+            }
+            tableSets.clear();
+            databaseKeys.clear();
+        }
+
+        log.info("destroy: Loaded " + loadCount.get() + " datasets, restored " + restoreCount.get() + " and skipped "
+                + skipCount.get() + " restores of read only tests");
+    }
+
+    public void setSnapshotStrategy(SnapshotStrategy snapshotStrategy) {
+        this.snapshotStrategy = snapshotStrategy;
+    }
+
+    /**
+     * Makes sure the tables of the specified dataset hold exactly the data of the dataset, loading it and taking a
+     * snapshot the first time it is requested and restoring the snapshot afterwards.
+     * 
+     * @param dataSource The {@link DataSource} of the database the dataset is loaded into.
+     * @param dataSet The {@link SnapshotDataSet} to prepare.
+     * @param readOnly Whether the test about to run leaves the data unchanged, so that the next test declaring the same
+     *            dataset does not need it restored.
+     * @param resourceLoader The {@link ResourceLoader} the dataset scripts are loaded with.
+     * 
+     * @throws SQLException Thrown if the dataset cannot be loaded or restored.
+     */
+    public void prepare(DataSource dataSource, SnapshotDataSet dataSet, boolean readOnly,
+            ResourceLoader resourceLoader) throws SQLException {
+        dataSource = resolveDataSource(dataSource);
+
+        Map<List<String>, TableSet> databaseTableSets = getDatabaseTableSets(dataSource);
+        synchronized (databaseTableSets) {
+            TableSet tableSet = getTableSet(databaseTableSets, dataSource, dataSet);
+            String dataSetKey = Arrays.toString(dataSet.scripts());
+
+            if (enabled && dataSetKey.equals(tableSet.loadedDataSetKey) && !tableSet.dirty) {
+                skipCount.incrementAndGet();
+                tableSet.dirty = !readOnly;
+                return;
+            }
+
+            load(databaseTableSets, tableSet, dataSet, dataSetKey, resourceLoader);
+            tableSet.dirty = !readOnly;
+        }
+    }
+
+    /**
+     * Records that a test has finished. Unless the test declared both a {@link SnapshotDataSet} and
+     * {@link ReadOnlyData}, every dataset is restored before it is used again, since the test may have changed the
+     * tables of any of them.
+     * 
+     * @param readOnlyDataSetTest Whether the finished test declared both a {@link SnapshotDataSet} and
+     *            {@link ReadOnlyData}.
+     */
+    public void afterTest(boolean readOnlyDataSetTest) {
+        if (readOnlyDataSetTest) {
+            return;
+        }
+
+        synchronized (tableSets) {
+            for (Map<List<String>, TableSet> databaseTableSets : tableSets.values()) {
+                synchronized (databaseTableSets) {
+                    for (TableSet tableSet : databaseTableSets.values()) {
+                        tableSet.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes sure the tables of the specified dataset hold the data of the dataset once for the specified owner, and
+     * leaves them as they are for every later call with the same owner. This is how the virtual users of a load run
+     * share a dataset: the first iteration to start loads or restores it while the others wait, and no iteration
+     * restores it again while other iterations are using it. The tables are restored again the next time a test
+     * prepares them outside of the load run.
+     * 
+     * @param dataSource The {@link DataSource} of the database the dataset is loaded into.
+     * @param dataSet The {@link SnapshotDataSet} to prepare.
+     * @param owner Identifies the load run sharing the dataset.
+     * @param resourceLoader The {@link ResourceLoader} the dataset scripts are loaded with.
+     * 
+     * @throws SQLException Thrown if the dataset cannot be loaded or restored.
+     * @throws IllegalStateException Thrown if the tables already hold another dataset shared by the same owner.
+     */
+    public void prepareShared(DataSource dataSource, SnapshotDataSet dataSet, Object owner,
+            ResourceLoader resourceLoader) throws SQLException {
+        dataSource = resolveDataSource(dataSource);
+
+        Map<List<String>, TableSet> databaseTableSets = getDatabaseTableSets(dataSource);
+        synchronized (databaseTableSets) {
+            TableSet tableSet = getTableSet(databaseTableSets, dataSource, dataSet);
+            String dataSetKey = Arrays.toString(dataSet.scripts());
+
+            if (owner == tableSet.sharedBy) {
+                if (!dataSetKey.equals(tableSet.loadedDataSetKey)) {
+                    throw new IllegalStateException("Cannot load the dataset " + dataSetKey + " into " + tableSet.tables
+                            + " while they are shared with another dataset");
+                }
+                return;
+            }
+
+            load(databaseTableSets, tableSet, dataSet, dataSetKey, resourceLoader);
+            tableSet.dirty = true;
+            tableSet.sharedBy = owner;
+        }
+    }
+
+    private DataSource resolveDataSource(DataSource dataSource) {
+        if (dataSource instanceof WorkerDataSource) {
+            return ((WorkerDataSource) dataSource).getCurrentDataSource();
+        }
+        return dataSource;
+    }
+
+    private TableSet getTableSet(Map<List<String>, TableSet> databaseTableSets, DataSource dataSource,
+            SnapshotDataSet dataSet) {
+        List<String> tables = Arrays.asList(dataSet.tables());
+        TableSet tableSet = databaseTableSets.get(tables);
+        if (null == tableSet) {
+            tableSet = new TableSet(dataSource, tables);
+            databaseTableSets.put(tables, tableSet);
+        }
+        return tableSet;
+    }
+
+    /**
+     * Loads the specified dataset into the tables of the specified table set, or restores it from its snapshot.
+     */
+    private void load(Map<List<String>, TableSet> databaseTableSets, TableSet tableSet, SnapshotDataSet dataSet,
+            String dataSetKey, ResourceLoader resourceLoader) throws SQLException {
+        // The other table sets of the database may share tables with this one, so none of them can be trusted to
+        // still hold their dataset, and neither can this one if loading or restoring fails part way.
+        for (TableSet databaseTableSet : databaseTableSets.values()) {
+            databaseTableSet.loadedDataSetKey = null;
+        }
+        tableSet.sharedBy = null;
+
+        List<String> tables = tableSet.tables;
+        if (!enabled) {
+            tableSet.load(dataSet, resourceLoader);
+            loadCount.incrementAndGet();
+        } else if (tableSet.snapshots.containsKey(dataSetKey)) {
+            tableSet.snapshots.get(dataSetKey).restore();
+            restoreCount.incrementAndGet();
+        } else {
+            tableSet.load(dataSet, resourceLoader);
+            tableSet.snapshots.put(dataSetKey, snapshotStrategy.snapshot(tableSet.dataSource, tables));
+            loadCount.incrementAndGet();
+            log.debug("load: Took a snapshot of " + tables + " for " + dataSetKey);
+        }
+
+        tableSet.loadedDataSetKey = dataSetKey;
+    }
+
+    /**
+     * Gets the table sets of the database of the specified {@link DataSource}. Databases are identified by their JDBC
+     * URL and user, since the contexts of different test classes may hold separate data sources for the same database.
+     */
+    private Map<List<String>, TableSet> getDatabaseTableSets(DataSource dataSource) throws SQLException {
+        synchronized (tableSets) {
+            String databaseKey = databaseKeys.get(dataSource);
+            if (null == databaseKey) {
+                Connection connection = dataSource.getConnection();
+                try {
+                    DatabaseMetaData metaData = connection.getMetaData();
+                    databaseKey = metaData.getURL() + " " + metaData.getUserName();
+                } finally {
+                    connection.close();
+                }
+                databaseKeys.put(dataSource, databaseKey);
+            }
+
+            Map<List<String>, TableSet> databaseTableSets = tableSets.get(databaseKey);
+            if (null == databaseTableSets) {
+                sweep(dataSource, databaseKey);
+                databaseTableSets = new HashMap<List<String>, TableSet>();
+                tableSets.put(databaseKey, databaseTableSets);
+            }
+            return databaseTableSets;
+        }
+    }
+
+    /**
+     * Drops the snapshots left in the specified database by JVMs that were killed before they could discard them.
+     */
+    private void sweep(DataSource dataSource, String databaseKey) {
+        try {
+            int swept = snapshotStrategy.sweep(dataSource, staleSnapshotMillis);
+            if (swept > 0) {
+                log.info("sweep: Dropped " + swept + " stale snapshot tables from " + databaseKey);
+            }
+        } catch (SQLException sqle) {
+            log.warn("sweep: Error dropping stale snapshot tables from " + databaseKey, sqle);
+        }
+    }
+
+    /**
+     * The snapshots of one set of tables in one database and which of them is currently loaded.
+     */
+    private static class TableSet {
+
+        private final DataSource dataSource;
+
+        private final List<String> tables;
+
+        private final Map<String, DataSetSnapshot> snapshots = new HashMap<String, DataSetSnapshot>();
+
+        private String loadedDataSetKey;
+
+        private boolean dirty;
+
+        /**
+         * The load run the loaded dataset is shared by, if any.
+         */
+        private Object sharedBy;
+
+        private TableSet(DataSource dataSource, List<String> tables) {
+            this.dataSource = dataSource;
+            this.tables = tables;
+        }
+
+        private void load(SnapshotDataSet dataSet, ResourceLoader resourceLoader) throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                Statement statement = connection.createStatement();
+                try {
+                    List<String> childrenFirst = new ArrayList<String>(tables);
+                    Collections.reverse(childrenFirst);
+                    for (String table : childrenFirst) {
+                        statement.executeUpdate("DELETE FROM " + table);
+                    }
+                } finally {
+                    statement.close();
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } finally {
+                connection.close();
+            }
+
+            ResourceDatabasePopulator databasePopulator = new ResourceDatabasePopulator();
+            for (String script : dataSet.scripts()) {
+                databasePopulator.addScript(resourceLoader.getResource(script));
+            }
+            DatabasePopulatorUtils.execute(databasePopulator, dataSource);
+        }
+
+        private void discard() {
+            for (DataSetSnapshot snapshot : snapshots.values()) {
+                try {
+                    snapshot.discard();
+                } catch (SQLException sqle) {
+                    log.warn("discard: Error discarding the snapshot of " + tables, sqle);
+                }
+            }
+            snapshots.clear();
+        }
+
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.sql.SQLException;
+
+/**
+ * A copy of the contents of a set of tables taken by a {@link SnapshotStrategy}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public interface DataSetSnapshot {
+
+    /**
+     * Replaces the contents of the tables with the contents they had when the snapshot was taken.
+     * 
+     * @throws SQLException Thrown if the tables cannot be restored.
+     */
+    void restore() throws SQLException;
+
+    /**
+     * Releases the storage held by the snapshot. The snapshot cannot be restored afterwards.
+     * 
+     * @throws SQLException Thrown if the storage cannot be released.
+     */
+    void discard() throws SQLException;
+
+}
@@ -0,0 +1,22 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a functional test class or method as leaving the data of its {@link SnapshotDataSet} unchanged, so the
+ * {@link DataSetCache} does not restore the dataset after it. Marking a test that does modify the data leaks its
+ * changes into the tests that follow it.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface ReadOnlyData {
+}
@@ -0,0 +1,48 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the dataset a functional test runs against, loaded once per database from SQL scripts and restored from a
+ * snapshot between the tests that declare the same dataset, instead of being reloaded around every test as with the
+ * Zankou {@code @DataSets} annotations. May be placed on a test class or on individual test methods, where the method
+ * annotation takes precedence.
+ * 
+ * <pre>
+ * &#064;SnapshotDataSet(scripts = "classpath:datasets/orders.sql", tables = { "customer", "orders", "order_item" })
+ * public class OrderHistoryTest extends AbstractFunctionalTest {
+ * </pre>
+ * 
+ * @see DataSetCache
+ * @see ReadOnlyData
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Documented
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.TYPE, ElementType.METHOD })
+public @interface SnapshotDataSet {
+
+    /**
+     * The locations of the SQL scripts that load the dataset, in the order they are run.
+     */
+    String[] scripts();
+
+    /**
+     * The tables the dataset populates and the tests may modify, parents before children. They are emptied in reverse
+     * order before the dataset is loaded and are the tables captured by the snapshot.
+     */
+    String[] tables();
+
+    /**
+     * The name of the {@code DataSource} bean of the database the dataset is loaded into.
+     */
+    String dataSource() default "dataSource";
+
+}
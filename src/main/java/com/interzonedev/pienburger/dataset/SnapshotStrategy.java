@@ -0,0 +1,41 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+/**
+ * Takes {@link DataSetSnapshot}s of tables in a database.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public interface SnapshotStrategy {
+
+    /**
+     * Takes a snapshot of the current contents of the specified tables.
+     * 
+     * @param dataSource The {@link DataSource} of the database holding the tables.
+     * @param tables The tables to take a snapshot of, parents before children.
+     * 
+     * @return Returns the {@link DataSetSnapshot}.
+     * 
+     * @throws SQLException Thrown if the snapshot cannot be taken.
+     */
+    DataSetSnapshot snapshot(DataSource dataSource, List<String> tables) throws SQLException;
+
+    /**
+     * Drops the snapshots left in a database by JVMs that did not discard them, for example because they were killed.
+     * Only snapshots older than the specified age are dropped, so that those of other JVMs still running against the
+     * same database are kept.
+     * 
+     * @param dataSource The {@link DataSource} of the database to sweep.
+     * @param maxAgeMillis The age in milliseconds beyond which a snapshot is considered stale.
+     * 
+     * @return Returns the number of snapshot tables dropped.
+     * 
+     * @throws SQLException Thrown if the stale snapshots cannot be listed or dropped.
+     */
+    int sweep(DataSource dataSource, long maxAgeMillis) throws SQLException;
+
+}
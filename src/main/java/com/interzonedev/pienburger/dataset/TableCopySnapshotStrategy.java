@@ -0,0 +1,190 @@
+package com.interzonedev.pienburger.dataset;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link SnapshotStrategy} that copies every table into a snapshot table in the same database with
+ * {@code CREATE TABLE ... AS SELECT}. Restoring deletes the rows of the tables, children first, and copies the rows of
+ * the snapshot tables back, parents first, in a single transaction. This works for any database that supports
+ * {@code CREATE TABLE ... AS SELECT} and is much faster than running the dataset scripts again, since the data never
+ * leaves the database.
+ * 
+ * The snapshot tables are named {@code pbs_<time>_<id>_<table>}, where the time is when the snapshot was taken, in
+ * seconds since the epoch in base 36, and the id is random per snapshot, so that JVMs sharing a database do not
+ * collide. The time lets {@link #sweep(DataSource, long)} tell the tables left behind by a JVM that was killed from
+ * those of JVMs still running.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class TableCopySnapshotStrategy implements SnapshotStrategy {
+
+    private static final String SNAPSHOT_TABLE_PREFIX = "pbs_";
+
+    @Override
+    public DataSetSnapshot snapshot(DataSource dataSource, List<String> tables) throws SQLException {
+        String prefix = SNAPSHOT_TABLE_PREFIX
+                + Long.toString(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), 36) + "_"
+                + Integer.toHexString(ThreadLocalRandom.current().nextInt(0x1000, 0x10000)) + "_";
+
+        List<String> snapshotTables = new ArrayList<String>();
+        Connection connection = dataSource.getConnection();
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                for (String table : tables) {
+                    String snapshotTable = prefix + table.replace('.', '_').toLowerCase(Locale.ENGLISH);
+                    statement.executeUpdate("CREATE TABLE " + snapshotTable + " AS SELECT * FROM " + table);
+                    snapshotTables.add(snapshotTable);
+                }
+            } finally {
+                statement.close();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } finally {
+            connection.close();
+        }
+
+        return new TableCopySnapshot(dataSource, new ArrayList<String>(tables), snapshotTables);
+    }
+
+    @Override
+    public int sweep(DataSource dataSource, long maxAgeMillis) throws SQLException {
+        long cutoffSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - maxAgeMillis);
+
+        List<String> staleTables = new ArrayList<String>();
+        Connection connection = dataSource.getConnection();
+        try {
+            ResultSet tables = connection.getMetaData().getTables(connection.getCatalog(), null, "%",
+                    new String[] { "TABLE" });
+            try {
+                while (tables.next()) {
+                    String table = tables.getString("TABLE_NAME");
+                    Long createdSeconds = getCreatedSeconds(table);
+                    if ((null != createdSeconds) && (createdSeconds < cutoffSeconds)) {
+                        staleTables.add(table);
+                    }
+                }
+            } finally {
+                tables.close();
+            }
+
+            Statement statement = connection.createStatement();
+            try {
+                for (String staleTable : staleTables) {
+                    statement.executeUpdate("DROP TABLE " + staleTable);
+                }
+            } finally {
+                statement.close();
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } finally {
+            connection.close();
+        }
+
+        return staleTables.size();
+    }
+
+    /**
+     * Gets the time the specified snapshot table was created.
+     * 
+     * @param table The name of a table, in whatever case the database reports it.
+     * 
+     * @return Returns the time in seconds since the epoch, or null if the table is not a snapshot table.
+     */
+    static Long getCreatedSeconds(String table) {
+        String[] parts = table.toLowerCase(Locale.ENGLISH).split("_", 4);
+        if ((parts.length < 4) || !SNAPSHOT_TABLE_PREFIX.equals(parts[0] + "_")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(parts[1], 36);
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    private static class TableCopySnapshot implements DataSetSnapshot {
+
+        private final DataSource dataSource;
+
+        private final List<String> tables;
+
+        private final List<String> snapshotTables;
+
+        private TableCopySnapshot(DataSource dataSource, List<String> tables, List<String> snapshotTables) {
+            this.dataSource = dataSource;
+            this.tables = tables;
+            this.snapshotTables = snapshotTables;
+        }
+
+        @Override
+        public void restore() throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    Statement statement = connection.createStatement();
+                    try {
+                        List<String> childrenFirst = new ArrayList<String>(tables);
+                        Collections.reverse(childrenFirst);
+                        for (String table : childrenFirst) {
+                            statement.executeUpdate("DELETE FROM " + table);
+                        }
+                        for (int i = 0; i < tables.size(); i++) {
+                            statement.executeUpdate("INSERT INTO " + tables.get(i) + " SELECT * FROM "
+                                    + snapshotTables.get(i));
+                        }
+                    } finally {
+                        statement.close();
+                    }
+                    connection.commit();
+                } catch (SQLException sqle) {
+                    connection.rollback();
+                    throw sqle;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+            } finally {
+                connection.close();
+            }
+        }
+
+        @Override
+        public void discard() throws SQLException {
+            Connection connection = dataSource.getConnection();
+            try {
+                Statement statement = connection.createStatement();
+                try {
+                    for (String snapshotTable : snapshotTables) {
+                        statement.executeUpdate("DROP TABLE " + snapshotTable);
+                    }
+                } finally {
+                    statement.close();
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            } finally {
+                connection.close();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+/**
+ * Support shared by the waits that are performed inside the page with a single asynchronous script call.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+final class AsyncScripts {
+
+    /**
+     * Extra time given to the browser's script timeout beyond the wait timeout so that the script reports its own
+     * timeout instead of being aborted by the driver.
+     */
+    static final long SCRIPT_TIMEOUT_MARGIN_MILLIS = 1000L;
+
+    /**
+     * The script timeout last set on each driver, so that it is only changed when a longer wait needs it.
+     */
+    private static final Map<WebDriver, Long> scriptTimeouts = Collections
+            .synchronizedMap(new WeakHashMap<WebDriver, Long>());
+
+    private AsyncScripts() {
+    }
+
+    /**
+     * Determines whether scripts can be run in the pages opened by the specified {@link WebDriver}.
+     * 
+     * @param driver The {@link WebDriver} to check.
+     * 
+     * @return Returns true if the driver executes scripts and, for HtmlUnit, has JavaScript enabled.
+     */
+    static boolean isSupported(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return false;
+        }
+        if ((driver instanceof HtmlUnitDriver) && !((HtmlUnitDriver) driver).isJavascriptEnabled()) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure that asynchronous scripts run by the specified {@link WebDriver} may run for a wait of the specified
+     * length, plus a margin.
+     * 
+     * @param driver The {@link WebDriver} that will run the script.
+     * @param waitMillis The number of milliseconds the script may wait before calling back.
+     */
+    static void ensureScriptTimeout(WebDriver driver, long waitMillis) {
+        long scriptTimeoutMillis = waitMillis + SCRIPT_TIMEOUT_MARGIN_MILLIS;
+        Long current = scriptTimeouts.get(driver);
+        if ((null == current) || (current < scriptTimeoutMillis)) {
+            driver.manage().timeouts().setScriptTimeout(scriptTimeoutMillis, TimeUnit.MILLISECONDS);
+            scriptTimeouts.put(driver, scriptTimeoutMillis);
+        }
+    }
+
+    /**
+     * Determines whether the specified exception, thrown while running a script, means that the page the script was
+     * running in was unloaded by a navigation, as opposed to a dead session, an unreachable browser or an error in the
+     * script. Selenium reports script errors as plain {@link WebDriverException}s, so an unload is recognized by the
+     * messages the drivers use for it.
+     * 
+     * @param wde The exception thrown while running a script.
+     * 
+     * @return Returns true if the script failed because the page navigated away.
+     */
+    static boolean isPageUnloaded(WebDriverException wde) {
+        if (wde instanceof StaleElementReferenceException) {
+            return true;
+        }
+        if ((wde instanceof NoSuchSessionException) || (wde instanceof NoSuchWindowException)
+                || (wde instanceof UnreachableBrowserException)) {
+            return false;
+        }
+
+        String message = wde.getMessage();
+        if (null == message) {
+            return false;
+        }
+
+        message = message.toLowerCase(Locale.ENGLISH);
+        return message.contains("unload") || message.contains("navigat");
+    }
+
+}
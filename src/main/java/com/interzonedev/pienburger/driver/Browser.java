@@ -3,13 +3,21 @@ package com.interzonedev.pienburger.driver;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.openqa.selenium.WebDriver;
+
 /**
- * An enumeration of the browser executables supported by the pienburger functional testing framework.
+ * An enumeration of the browser executables supported by the pienburger functional testing framework. The
+ * {@link #REMOTE} browser runs on a separate host, such as a Selenium grid, that is driven over the wire protocol.
  * 
  * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
  */
 public enum Browser {
-    FIREFOX("firefox"), CHROME("chrome"), SAFARI("safari"), HTMLUNIT("htmlUnit"), IE("internetExplorer");
+    FIREFOX("firefox", "org.openqa.selenium.firefox.FirefoxDriver"),
+    CHROME("chrome", "org.openqa.selenium.chrome.ChromeDriver"),
+    SAFARI("safari", "org.openqa.selenium.safari.SafariDriver"),
+    HTMLUNIT("htmlUnit", "org.openqa.selenium.htmlunit.HtmlUnitDriver"),
+    IE("internetExplorer", "org.openqa.selenium.ie.InternetExplorerDriver"),
+    REMOTE("remote", "org.openqa.selenium.remote.RemoteWebDriver");
 
     private final static List<String> ids = new LinkedList<String>();
 
@@ -21,14 +29,34 @@ public enum Browser {
 
     private final String id;
 
-    private Browser(String id) {
+    private final String driverClassName;
+
+    private Browser(String id, String driverClassName) {
         this.id = id;
+        this.driverClassName = driverClassName;
     }
 
     public String id() {
         return id;
     }
 
+    /**
+     * Gets the {@link WebDriver} implementation that controls this browser. The class is only loaded when this is
+     * called, so the driver classes of browsers that are never used are never loaded.
+     * 
+     * @return Returns the {@link WebDriver} implementation that controls this browser.
+     * 
+     * @throws IllegalStateException Thrown if the driver class is not on the classpath.
+     */
+    public Class<? extends WebDriver> driverClass() {
+        try {
+            return Class.forName(driverClassName, false, Browser.class.getClassLoader()).asSubclass(WebDriver.class);
+        } catch (ClassNotFoundException cnfe) {
+            throw new IllegalStateException("The driver class " + driverClassName + " for the " + id
+                    + " browser is not on the classpath", cnfe);
+        }
+    }
+
     public static List<String> allIds() {
         return ids;
     }
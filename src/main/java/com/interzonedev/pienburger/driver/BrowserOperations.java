@@ -1,21 +1,50 @@
 package com.interzonedev.pienburger.driver;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.ui.ExpectedCondition;
-import org.openqa.selenium.support.ui.Wait;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import com.interzonedev.pienburger.FunctionalTestProperties;
+import com.interzonedev.pienburger.artifact.FailureArtifacts;
+import com.interzonedev.pienburger.driver.ElementExtractor.Projection;
+import com.interzonedev.pienburger.driver.ObservedElementWait.Match;
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.NoOpMetricsSink;
+import com.interzonedev.pienburger.metrics.OperationTimer;
 
 /**
  * Implements helper methods that perform common operations on the live web browser opened for each test. Each instance
  * gets the a specific instance of {@link FunctionalTestProperties} that holds the URL for the application under test
- * and the default timeout (in seconds) for waiting for page and element loads.
+ * and the default {@link WaitSettings} (timeout, polling strategy and ignored exceptions) for waiting for page and
+ * element loads. Every wait can also be given its own timeout in seconds or its own {@link WaitSettings}.
+ * 
+ * Waits are performed according to the {@link WaitMode} in the {@link FunctionalTestProperties}, either by polling the
+ * browser for the element or by observing DOM mutations inside the page. The waitForAndGet methods return the elements
+ * matched by the wait itself rather than looking them up again afterwards. The get*Texts, get*Attributes and
+ * get*TableRows methods return the data of every matching element as plain Java values read with a single script call.
+ * 
+ * Pages that keep loading data after the document has loaded can be waited on with
+ * {@link #awaitNetworkIdle(WebDriver)}, which returns once no requests or short timers have been pending in the page
+ * for the network quiet period in the {@link FunctionalTestProperties}.
+ * 
+ * When the locator cache is enabled in the {@link FunctionalTestProperties}, {@link #waitForElement(WebDriver, By)},
+ * {@link #waitForAndGetElement(WebDriver, By)} and their overloads return the element found by an earlier call with the
+ * same {@link By} on the same page after a single check that it is still attached (see {@link LocatorCache}). Opening
+ * a page with {@link #openPage(WebDriver, String)} drops the cached elements of the browser.
+ * 
+ * When constructed with {@link FailureArtifacts}, the screenshot, page source, console log and URL of the browser are
+ * grabbed whenever a page open or wait times out, before the exception is thrown, so they are kept should the test
+ * fail because of it.
  * 
  * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
  */
@@ -23,18 +52,72 @@ public class BrowserOperations {
 
     private String applicationUrl;
 
-    private Long elementWaitTimeoutInSeconds;
+    private WaitSettings defaultWaitSettings;
+
+    private WaitMode waitMode;
+
+    private Duration networkQuietPeriod;
+
+    private final MetricsSink metricsSink;
+
+    private final Map<String, String> metricTags;
+
+    private final FailureArtifacts failureArtifacts;
+
+    private final LocatorCache locatorCache;
+
+    private final ObservedElementWait observedElementWait = new ObservedElementWait();
+
+    private final NetworkIdleWait networkIdleWait = new NetworkIdleWait();
+
+    private final ElementExtractor elementExtractor = new ElementExtractor();
 
     /**
      * Constructs an instance with the specified {@link FunctionalTestProperties} so the a common application URL and
-     * default wait timeout (in seconds) can be used throughout the helper methods.
+     * default {@link WaitSettings} can be used throughout the helper methods.
      * 
      * @param functionalTestProperties The {@link FunctionalTestProperties} instance that holds the properties to be
      *            used by the helper methods.
      */
     public BrowserOperations(FunctionalTestProperties functionalTestProperties) {
+        this(functionalTestProperties, NoOpMetricsSink.INSTANCE, Collections.<String, String> emptyMap());
+    }
+
+    /**
+     * Constructs an instance with the specified {@link FunctionalTestProperties} that records the latency and outcome
+     * of every page open and wait to the specified {@link MetricsSink}.
+     * 
+     * @param functionalTestProperties The {@link FunctionalTestProperties} instance that holds the properties to be
+     *            used by the helper methods.
+     * @param metricsSink The {@link MetricsSink} to record every operation to.
+     * @param metricTags The tags, such as the test class, to record every operation with.
+     */
+    public BrowserOperations(FunctionalTestProperties functionalTestProperties, MetricsSink metricsSink,
+            Map<String, String> metricTags) {
+        this(functionalTestProperties, metricsSink, metricTags, null);
+    }
+
+    /**
+     * Constructs an instance with the specified {@link FunctionalTestProperties} that records every page open and wait
+     * to the specified {@link MetricsSink} and grabs the state of the browser into the specified
+     * {@link FailureArtifacts} whenever a page open or wait times out.
+     * 
+     * @param functionalTestProperties The {@link FunctionalTestProperties} instance that holds the properties to be
+     *            used by the helper methods.
+     * @param metricsSink The {@link MetricsSink} to record every operation to.
+     * @param metricTags The tags, such as the test class, to record every operation with.
+     * @param failureArtifacts The {@link FailureArtifacts} of the test, or null to not grab the browser state.
+     */
+    public BrowserOperations(FunctionalTestProperties functionalTestProperties, MetricsSink metricsSink,
+            Map<String, String> metricTags, FailureArtifacts failureArtifacts) {
+        this.metricsSink = metricsSink;
+        this.metricTags = metricTags;
+        this.failureArtifacts = failureArtifacts;
+        locatorCache = functionalTestProperties.isLocatorCacheEnabled() ? new LocatorCache() : null;
         applicationUrl = functionalTestProperties.getApplicationUrl();
-        elementWaitTimeoutInSeconds = functionalTestProperties.getElementWaitTimeoutInSeconds();
+        defaultWaitSettings = functionalTestProperties.getWaitSettings();
+        waitMode = functionalTestProperties.getWaitMode();
+        networkQuietPeriod = functionalTestProperties.getNetworkQuietPeriod();
     }
 
     /**
@@ -46,7 +129,61 @@ public class BrowserOperations {
      * @param url The URL relative to the application URL to which the page is to be opened.
      */
     public void openPage(WebDriver driver, String url) {
-        driver.get(applicationUrl + url);
+        OperationTimer timer = startTimer("openPage");
+        try {
+            if (null != locatorCache) {
+                locatorCache.invalidate(driver);
+            }
+            driver.get(applicationUrl + url);
+            timer.succeeded();
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "openPage", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Opens the page in the browser controlled by the specified {@link WebDriver} to the specified URL relative to the
+     * application URL and waits for the page to be idle as with {@link #awaitNetworkIdle(WebDriver)}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which the page is to be opened.
+     * @param url The URL relative to the application URL to which the page is to be opened.
+     * 
+     * @throws TimeoutException Thrown if the page does not become idle in the amount of time specified by the default
+     *             timeout set on this instance.
+     */
+    public void openPageAndAwaitIdle(WebDriver driver, String url) {
+        openPage(driver, url);
+        awaitNetworkIdle(driver);
+    }
+
+    /**
+     * Waits for the current page opened in the browser controlled by the specified {@link WebDriver} to be idle. The
+     * page is idle once it has loaded and no {@code XMLHttpRequest} or {@code fetch} calls or short timers have been
+     * pending in it for the network quiet period set on this instance. Timesout after the default timeout set on this
+     * instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait.
+     * 
+     * @throws TimeoutException Thrown if the page does not become idle in the amount of time specified by the default
+     *             timeout set on this instance.
+     */
+    public void awaitNetworkIdle(WebDriver driver) {
+        awaitNetworkIdle(driver, networkQuietPeriod, defaultWaitSettings);
+    }
+
+    /**
+     * Waits for the current page opened in the browser controlled by the specified {@link WebDriver} to be idle for the
+     * network quiet period set on this instance. Timesout after the specified number of seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait.
+     * @param timeOutInSeconds The number of seconds to wait for the page to be idle before timing out.
+     * 
+     * @throws TimeoutException Thrown if the page does not become idle in the amount of time specified by the timeout.
+     */
+    public void awaitNetworkIdle(WebDriver driver, long timeOutInSeconds) {
+        awaitNetworkIdle(driver, networkQuietPeriod, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -61,7 +198,7 @@ public class BrowserOperations {
      *             timeout set on this instance.
      */
     public void waitForElement(WebDriver driver, By by) {
-        waitForElement(driver, by, elementWaitTimeoutInSeconds);
+        waitForElement(driver, by, defaultWaitSettings);
     }
 
     /**
@@ -76,7 +213,7 @@ public class BrowserOperations {
      * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
      */
     public void waitForElement(WebDriver driver, By by, long timeOutInSeconds) {
-        waitForElementWithText(driver, by, null, timeOutInSeconds);
+        waitForElement(driver, by, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -92,7 +229,7 @@ public class BrowserOperations {
      *             timeout set on this instance.
      */
     public void waitForElementWithText(WebDriver driver, By by, String text) {
-        waitForElementWithText(driver, by, text, elementWaitTimeoutInSeconds);
+        waitForElementWithText(driver, by, text, defaultWaitSettings);
     }
 
     /**
@@ -107,16 +244,8 @@ public class BrowserOperations {
      * 
      * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
      */
-    public void waitForElementWithText(WebDriver driver, final By by, final String text, long timeOutInSeconds) {
-        ExpectedCondition<Boolean> pageLoadCondition = new ExpectedCondition<Boolean>() {
-            public Boolean apply(WebDriver d) {
-                WebElement element = d.findElement(by);
-                return ((null == text) || element.getText().equals(text));
-            }
-        };
-
-        Wait<WebDriver> pageLoadWait = new WebDriverWait(driver, timeOutInSeconds);
-        pageLoadWait.until(pageLoadCondition);
+    public void waitForElementWithText(WebDriver driver, By by, String text, long timeOutInSeconds) {
+        waitForElementWithText(driver, by, text, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -133,7 +262,7 @@ public class BrowserOperations {
      *             timeout set on this instance.
      */
     public WebElement waitForAndGetElement(WebDriver driver, By by) {
-        return waitForAndGetElementWithText(driver, by, null, elementWaitTimeoutInSeconds);
+        return waitForAndGetElement(driver, by, defaultWaitSettings);
     }
 
     /**
@@ -150,7 +279,7 @@ public class BrowserOperations {
      * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
      */
     public WebElement waitForAndGetElement(WebDriver driver, By by, long timeOutInSeconds) {
-        return waitForAndGetElementWithText(driver, by, null, timeOutInSeconds);
+        return waitForAndGetElement(driver, by, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -168,7 +297,7 @@ public class BrowserOperations {
      *             timeout set on this instance.
      */
     public WebElement waitForAndGetElementWithText(WebDriver driver, By by, String text) {
-        return waitForAndGetElementWithText(driver, by, text, elementWaitTimeoutInSeconds);
+        return waitForAndGetElementWithText(driver, by, text, defaultWaitSettings);
     }
 
     /**
@@ -186,8 +315,7 @@ public class BrowserOperations {
      * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
      */
     public WebElement waitForAndGetElementWithText(WebDriver driver, By by, String text, long timeOutInSeconds) {
-        waitForElementWithText(driver, by, text, timeOutInSeconds);
-        return driver.findElement(by);
+        return waitForAndGetElementWithText(driver, by, text, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -201,8 +329,8 @@ public class BrowserOperations {
      * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
      *             default timeout set on this instance.
      */
-    public void waitForElements(WebDriver driver, final By by) {
-        waitForElements(driver, by, elementWaitTimeoutInSeconds);
+    public void waitForElements(WebDriver driver, By by) {
+        waitForElements(driver, by, defaultWaitSettings);
     }
 
     /**
@@ -217,16 +345,8 @@ public class BrowserOperations {
      * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
      *             timeout.
      */
-    public void waitForElements(WebDriver driver, final By by, long timeOutInSeconds) {
-        ExpectedCondition<Boolean> pageLoadCondition = new ExpectedCondition<Boolean>() {
-            public Boolean apply(WebDriver d) {
-                List<WebElement> elements = d.findElements(by);
-                return !elements.isEmpty();
-            }
-        };
-
-        Wait<WebDriver> pageLoadWait = new WebDriverWait(driver, timeOutInSeconds);
-        pageLoadWait.until(pageLoadCondition);
+    public void waitForElements(WebDriver driver, By by, long timeOutInSeconds) {
+        waitForElements(driver, by, withTimeoutInSeconds(timeOutInSeconds));
     }
 
     /**
@@ -243,7 +363,7 @@ public class BrowserOperations {
      *             default timeout set on this instance.
      */
     public List<WebElement> waitForAndGetElements(WebDriver driver, By by) {
-        return waitForAndGetElements(driver, by, elementWaitTimeoutInSeconds);
+        return waitForAndGetElements(driver, by, defaultWaitSettings);
     }
 
     /**
@@ -261,7 +381,757 @@ public class BrowserOperations {
      *             default timeout set on this instance.
      */
     public List<WebElement> waitForAndGetElements(WebDriver driver, By by, long timeOutInSeconds) {
-        waitForElements(driver, by, timeOutInSeconds);
-        return driver.findElements(by);
+        return waitForAndGetElements(driver, by, withTimeoutInSeconds(timeOutInSeconds));
+    }
+
+    /**
+     * Waits for an element identified by any of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the first one
+     * found. The locators are checked in order on every attempt. Timesout after the default timeout set on this
+     * instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the element.
+     * @param bys The {@link By} instances that determine how the candidate elements are selected.
+     * 
+     * @return Returns the first element found by any of the specified {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if none of the elements are found in the amount of time specified by the default
+     *             timeout set on this instance.
+     */
+    public WebElement waitForAndGetAnyElement(WebDriver driver, By... bys) {
+        return waitForAndGetAnyElement(driver, defaultWaitSettings, bys);
+    }
+
+    /**
+     * Waits for an element identified by any of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the first one
+     * found. The locators are checked in order on every attempt. Timesout after the specified number of seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the element.
+     * @param timeOutInSeconds The number of seconds to wait for an element before timing out.
+     * @param bys The {@link By} instances that determine how the candidate elements are selected.
+     * 
+     * @return Returns the first element found by any of the specified {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if none of the elements are found in the amount of time specified by the
+     *             timeout.
+     */
+    public WebElement waitForAndGetAnyElement(WebDriver driver, long timeOutInSeconds, By... bys) {
+        return waitForAndGetAnyElement(driver, withTimeoutInSeconds(timeOutInSeconds), bys);
+    }
+
+    /**
+     * Waits for an element identified by each of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns them. Timesout
+     * after the default timeout set on this instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the elements.
+     * @param bys The {@link By} instances that determine how the elements are selected.
+     * 
+     * @return Returns a list holding the first element found by each of the specified {@link By} instances, in the same
+     *         order as the {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if any of the elements is not found in the amount of time specified by the
+     *             default timeout set on this instance.
+     */
+    public List<WebElement> waitForAndGetAllElements(WebDriver driver, By... bys) {
+        return waitForAndGetAllElements(driver, defaultWaitSettings, bys);
+    }
+
+    /**
+     * Waits for an element identified by each of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns them. Timesout
+     * after the specified number of seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the elements.
+     * @param timeOutInSeconds The number of seconds to wait for the elements before timing out.
+     * @param bys The {@link By} instances that determine how the elements are selected.
+     * 
+     * @return Returns a list holding the first element found by each of the specified {@link By} instances, in the same
+     *         order as the {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if any of the elements is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<WebElement> waitForAndGetAllElements(WebDriver driver, long timeOutInSeconds, By... bys) {
+        return waitForAndGetAllElements(driver, withTimeoutInSeconds(timeOutInSeconds), bys);
+    }
+
+    /**
+     * Gets the text of every element identified by the selector in the specified {@link By} instance in the current
+     * page opened in the browser controlled by the specified {@link WebDriver}. The texts are read with a single script
+     * call instead of a call to {@link WebElement#getText()} per element.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser from which to get the texts.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * 
+     * @return Returns the trimmed text of each element in document order, or an empty list if there are none.
+     */
+    public List<String> getTexts(WebDriver driver, By by) {
+        return toList(extract("getTexts", driver, by, Projection.TEXT, Collections.<String> emptyList()));
+    }
+
+    /**
+     * Gets the specified attributes of every element identified by the selector in the specified {@link By} instance
+     * in the current page opened in the browser controlled by the specified {@link WebDriver}. The attributes are read
+     * with a single script call instead of a call to {@link WebElement#getAttribute(String)} per element and attribute.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser from which to get the attributes.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param attributeNames The names of the attributes to get.
+     * 
+     * @return Returns a map of attribute name to value, with null for missing attributes, for each element in document
+     *         order, or an empty list if there are none.
+     */
+    public List<Map<String, String>> getAttributes(WebDriver driver, By by, String... attributeNames) {
+        return toList(extract("getAttributes", driver, by, Projection.ATTRIBUTES, Arrays.asList(attributeNames)));
+    }
+
+    /**
+     * Gets the cell texts of the table rows identified by the selector in the specified {@link By} instance in the
+     * current page opened in the browser controlled by the specified {@link WebDriver}. The selector may identify rows
+     * or whole tables and table sections, which are expanded into their rows. The cells are read with a single script
+     * call.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser from which to get the rows.
+     * @param by The {@link By} instance that determines how the rows or tables are selected.
+     * 
+     * @return Returns the trimmed text of each {@code td} and {@code th} cell of each row in document order, or an
+     *         empty list if there are no rows.
+     */
+    public List<List<String>> getTableRows(WebDriver driver, By by) {
+        return toList(extract("getTableRows", driver, by, Projection.TABLE_ROWS, Collections.<String> emptyList()));
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the text of
+     * every element found as with {@link #getTexts(WebDriver, By)}. Timesout after the default timeout set on this
+     * instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * 
+     * @return Returns the trimmed text of each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             default timeout set on this instance.
+     */
+    public List<String> waitForAndGetTexts(WebDriver driver, By by) {
+        return waitForAndGetTexts(driver, by, defaultWaitSettings);
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the text of
+     * every element found as with {@link #getTexts(WebDriver, By)}. Timesout after the specified number of seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param timeOutInSeconds The number of seconds to wait for the elements before timing out.
+     * 
+     * @return Returns the trimmed text of each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<String> waitForAndGetTexts(WebDriver driver, By by, long timeOutInSeconds) {
+        return waitForAndGetTexts(driver, by, withTimeoutInSeconds(timeOutInSeconds));
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the specified
+     * attributes of every element found as with {@link #getAttributes(WebDriver, By, String...)}. Timesout after the
+     * default timeout set on this instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param attributeNames The names of the attributes to get.
+     * 
+     * @return Returns a map of attribute name to value for each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             default timeout set on this instance.
+     */
+    public List<Map<String, String>> waitForAndGetAttributes(WebDriver driver, By by, String... attributeNames) {
+        return waitForAndGetAttributes(driver, by, defaultWaitSettings, attributeNames);
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the specified
+     * attributes of every element found as with {@link #getAttributes(WebDriver, By, String...)}. Timesout after the
+     * specified number of seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param timeOutInSeconds The number of seconds to wait for the elements before timing out.
+     * @param attributeNames The names of the attributes to get.
+     * 
+     * @return Returns a map of attribute name to value for each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<Map<String, String>> waitForAndGetAttributes(WebDriver driver, By by, long timeOutInSeconds,
+            String... attributeNames) {
+        return waitForAndGetAttributes(driver, by, withTimeoutInSeconds(timeOutInSeconds), attributeNames);
+    }
+
+    /**
+     * Waits for at least one table row identified by the selector in the specified {@link By} instance to be present
+     * in the current page opened in the browser controlled by the specified {@link WebDriver} and returns the cell
+     * texts of every row found as with {@link #getTableRows(WebDriver, By)}. Timesout after the default timeout set on
+     * this instance.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the rows.
+     * @param by The {@link By} instance that determines how the rows or tables are selected.
+     * 
+     * @return Returns the trimmed text of each cell of each row in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one row is not found in the amount of time specified by the default
+     *             timeout set on this instance.
+     */
+    public List<List<String>> waitForAndGetTableRows(WebDriver driver, By by) {
+        return waitForAndGetTableRows(driver, by, defaultWaitSettings);
+    }
+
+    /**
+     * Waits for at least one table row identified by the selector in the specified {@link By} instance to be present
+     * in the current page opened in the browser controlled by the specified {@link WebDriver} and returns the cell
+     * texts of every row found as with {@link #getTableRows(WebDriver, By)}. Timesout after the specified number of
+     * seconds.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the rows.
+     * @param by The {@link By} instance that determines how the rows or tables are selected.
+     * @param timeOutInSeconds The number of seconds to wait for the rows before timing out.
+     * 
+     * @return Returns the trimmed text of each cell of each row in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one row is not found in the amount of time specified by the timeout.
+     */
+    public List<List<String>> waitForAndGetTableRows(WebDriver driver, By by, long timeOutInSeconds) {
+        return waitForAndGetTableRows(driver, by, withTimeoutInSeconds(timeOutInSeconds));
+    }
+
+    /**
+     * Gets the quiet period used by {@link #awaitNetworkIdle(WebDriver)} and the methods that wait for an idle page
+     * without taking one.
+     * 
+     * @return Returns the default network quiet period of this instance.
+     */
+    public Duration getNetworkQuietPeriod() {
+        return networkQuietPeriod;
+    }
+
+    /**
+     * Gets the {@link LocatorCache} of this instance, which holds the hit and miss counts of the cached element
+     * lookups.
+     * 
+     * @return Returns the {@link LocatorCache} of this instance, or null if the locator cache is not enabled in the
+     *         {@link FunctionalTestProperties}.
+     */
+    public LocatorCache getLocatorCache() {
+        return locatorCache;
+    }
+
+    /**
+     * Gets the {@link WaitSettings} used by the methods of this instance that do not take a timeout. Per call
+     * variations can be derived from it and passed to the methods that take a {@link WaitSettings}.
+     * 
+     * @return Returns the default {@link WaitSettings} of this instance.
+     */
+    public WaitSettings getDefaultWaitSettings() {
+        return defaultWaitSettings;
+    }
+
+    /**
+     * Waits for the element identified by the selector in the specified {@link By} instance to be present in the
+     * current page opened in the browser controlled by the specified {@link WebDriver}. Waits according to the
+     * specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the element.
+     * @param by The {@link By} instance that determines how the element to wait for is selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
+     */
+    public void waitForElement(WebDriver driver, By by, WaitSettings waitSettings) {
+        waitForAndGetElementWithText(driver, by, null, waitSettings);
+    }
+
+    /**
+     * Waits for the element identified by the selector in the specified {@link By} instance with the specified text to
+     * be present in the current page opened in the browser controlled by the specified {@link WebDriver}. Waits
+     * according to the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the element.
+     * @param by The {@link By} instance that determines how the element to wait for is selected.
+     * @param text The text that the element to wait for must contain.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
+     */
+    public void waitForElementWithText(WebDriver driver, By by, String text, WaitSettings waitSettings) {
+        waitForAndGetElementWithText(driver, by, text, waitSettings);
+    }
+
+    /**
+     * Waits for and returns the element identified by the selector in the specified {@link By} instance to be present
+     * in the current page opened in the browser controlled by the specified {@link WebDriver}. Waits according to the
+     * specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the element.
+     * @param by The {@link By} instance that determines how the element to wait for and get is selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @return Returns the element identified by the selector in the specified {@link By}.
+     * 
+     * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
+     */
+    public WebElement waitForAndGetElement(WebDriver driver, By by, WaitSettings waitSettings) {
+        return waitForAndGetElementWithText(driver, by, null, waitSettings);
+    }
+
+    /**
+     * Waits for and returns the element identified by the selector in the specified {@link By} instance with the
+     * specified text to be present in the current page opened in the browser controlled by the specified
+     * {@link WebDriver}. Waits according to the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the element.
+     * @param by The {@link By} instance that determines how the element to wait for and get is selected.
+     * @param text The text that the element to wait and get for must contain.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @return Returns the element identified by the selector in the specified {@link By}.
+     * 
+     * @throws TimeoutException Thrown if the element is not found in the amount of time specified by the timeout.
+     */
+    public WebElement waitForAndGetElementWithText(WebDriver driver, By by, String text, WaitSettings waitSettings) {
+        OperationTimer timer = startTimer("waitForElement");
+        try {
+            WebElement element;
+            if ((null == locatorCache) || (null != text)) {
+                element = awaitElementWithText(driver, by, text, waitSettings);
+            } else {
+                element = locatorCache.get(driver, by);
+                if (null == element) {
+                    int navigation = locatorCache.getNavigation(driver);
+                    element = awaitElementWithText(driver, by, null, waitSettings);
+                    locatorCache.put(driver, by, element, navigation);
+                }
+            }
+            timer.succeeded();
+            return element;
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "waitForElement", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver}. Waits according to the
+     * specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements to wait for are selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public void waitForElements(WebDriver driver, By by, WaitSettings waitSettings) {
+        waitForAndGetElements(driver, by, waitSettings);
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the elements
+     * that are found. Waits according to the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the elements.
+     * @param by The {@link By} instance that determines how the elements to wait for and get are selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @return Returns a list of elements identified by the selector in the specified {@link By}.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<WebElement> waitForAndGetElements(WebDriver driver, By by, WaitSettings waitSettings) {
+        OperationTimer timer = startTimer("waitForElements");
+        try {
+            List<WebElement> elements = awaitElements(driver, by, waitSettings);
+            timer.succeeded();
+            return elements;
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "waitForElements", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits for an element identified by any of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the first one
+     * found. The locators are checked in order on every attempt. Waits according to the specified
+     * {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the element.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * @param bys The {@link By} instances that determine how the candidate elements are selected.
+     * 
+     * @return Returns the first element found by any of the specified {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if none of the elements are found in the amount of time specified by the
+     *             timeout.
+     */
+    public WebElement waitForAndGetAnyElement(WebDriver driver, WaitSettings waitSettings, By... bys) {
+        OperationTimer timer = startTimer("waitForAnyElement");
+        try {
+            WebElement element = awaitAnyElement(driver, waitSettings, bys);
+            timer.succeeded();
+            return element;
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "waitForAnyElement", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits for an element identified by each of the selectors in the specified {@link By} instances to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns them. Waits
+     * according to the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for and get the elements.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * @param bys The {@link By} instances that determine how the elements are selected.
+     * 
+     * @return Returns a list holding the first element found by each of the specified {@link By} instances, in the same
+     *         order as the {@link By} instances.
+     * 
+     * @throws TimeoutException Thrown if any of the elements is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<WebElement> waitForAndGetAllElements(WebDriver driver, WaitSettings waitSettings, By... bys) {
+        OperationTimer timer = startTimer("waitForAllElements");
+        try {
+            List<WebElement> elements = awaitAllElements(driver, waitSettings, bys);
+            timer.succeeded();
+            return elements;
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "waitForAllElements", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits for the current page opened in the browser controlled by the specified {@link WebDriver} to be idle for the
+     * specified quiet period. Waits according to the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait.
+     * @param quietPeriod How long the page must go without requests or pending timers to be considered idle.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout and, if the page navigates while waiting,
+     *            the polling interval.
+     * 
+     * @throws TimeoutException Thrown if the page does not become idle in the amount of time specified by the timeout.
+     */
+    public void awaitNetworkIdle(WebDriver driver, Duration quietPeriod, WaitSettings waitSettings) {
+        OperationTimer timer = startTimer("awaitNetworkIdle");
+        try {
+            networkIdleWait.await(driver, quietPeriod.toMillis(), waitSettings);
+            timer.succeeded();
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, "awaitNetworkIdle", te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the text of
+     * every element found as with {@link #getTexts(WebDriver, By)}. Waits according to the specified
+     * {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @return Returns the trimmed text of each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<String> waitForAndGetTexts(WebDriver driver, By by, WaitSettings waitSettings) {
+        return toList(waitForAndExtract("waitForTexts", driver, by, Projection.TEXT,
+                Collections.<String> emptyList(), waitSettings));
+    }
+
+    /**
+     * Waits for at least one element identified by the selector in the specified {@link By} instance to be present in
+     * the current page opened in the browser controlled by the specified {@link WebDriver} and returns the specified
+     * attributes of every element found as with {@link #getAttributes(WebDriver, By, String...)}. Waits according to
+     * the specified {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the elements.
+     * @param by The {@link By} instance that determines how the elements are selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * @param attributeNames The names of the attributes to get.
+     * 
+     * @return Returns a map of attribute name to value for each element in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one element is not found in the amount of time specified by the
+     *             timeout.
+     */
+    public List<Map<String, String>> waitForAndGetAttributes(WebDriver driver, By by, WaitSettings waitSettings,
+            String... attributeNames) {
+        return toList(waitForAndExtract("waitForAttributes", driver, by, Projection.ATTRIBUTES,
+                Arrays.asList(attributeNames), waitSettings));
+    }
+
+    /**
+     * Waits for at least one table row identified by the selector in the specified {@link By} instance to be present
+     * in the current page opened in the browser controlled by the specified {@link WebDriver} and returns the cell
+     * texts of every row found as with {@link #getTableRows(WebDriver, By)}. Waits according to the specified
+     * {@link WaitSettings}.
+     * 
+     * @param driver The {@link WebDriver} instance that controls the browser in which to wait for the rows.
+     * @param by The {@link By} instance that determines how the rows or tables are selected.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout, polling and ignored exceptions.
+     * 
+     * @return Returns the trimmed text of each cell of each row in document order.
+     * 
+     * @throws TimeoutException Thrown if at least one row is not found in the amount of time specified by the timeout.
+     */
+    public List<List<String>> waitForAndGetTableRows(WebDriver driver, By by, WaitSettings waitSettings) {
+        return toList(waitForAndExtract("waitForTableRows", driver, by, Projection.TABLE_ROWS,
+                Collections.<String> emptyList(), waitSettings));
+    }
+
+    private WebElement awaitElementWithText(WebDriver driver, final By by, final String text,
+            WaitSettings waitSettings) {
+        long start = System.nanoTime();
+        Object observed = awaitObserved(driver, Collections.singletonList(by), text, Match.FIRST, waitSettings);
+        if (null != observed) {
+            return (WebElement) observed;
+        }
+
+        ExpectedCondition<WebElement> elementCondition = new ExpectedCondition<WebElement>() {
+            public WebElement apply(WebDriver d) {
+                WebElement element = d.findElement(by);
+                return ((null == text) || element.getText().equals(text)) ? element : null;
+            }
+
+            @Override
+            public String toString() {
+                return by + ((null == text) ? "" : " with text \"" + text + "\"");
+            }
+        };
+
+        return new BrowserWait(driver, remainingAfter(waitSettings, start)).until(elementCondition);
+    }
+
+    private List<WebElement> awaitElements(WebDriver driver, final By by, WaitSettings waitSettings) {
+        long start = System.nanoTime();
+        Object observed = awaitObserved(driver, Collections.singletonList(by), null, Match.ALL, waitSettings);
+        if (null != observed) {
+            return toElementList(observed);
+        }
+
+        ExpectedCondition<List<WebElement>> elementsCondition = new ExpectedCondition<List<WebElement>>() {
+            public List<WebElement> apply(WebDriver d) {
+                List<WebElement> elements = d.findElements(by);
+                return elements.isEmpty() ? null : elements;
+            }
+
+            @Override
+            public String toString() {
+                return "elements " + by;
+            }
+        };
+
+        return new BrowserWait(driver, remainingAfter(waitSettings, start)).until(elementsCondition);
+    }
+
+    private WebElement awaitAnyElement(WebDriver driver, WaitSettings waitSettings, By[] bys) {
+        final List<By> locators = toLocatorList(bys);
+
+        long start = System.nanoTime();
+
+        Object observed = awaitObserved(driver, locators, null, Match.ANY, waitSettings);
+        if (null != observed) {
+            return (WebElement) observed;
+        }
+
+        ExpectedCondition<WebElement> anyElementCondition = new ExpectedCondition<WebElement>() {
+            public WebElement apply(WebDriver d) {
+                for (By by : locators) {
+                    List<WebElement> elements = d.findElements(by);
+                    if (!elements.isEmpty()) {
+                        return elements.get(0);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "any of " + locators;
+            }
+        };
+
+        return new BrowserWait(driver, remainingAfter(waitSettings, start)).until(anyElementCondition);
+    }
+
+    private List<WebElement> awaitAllElements(WebDriver driver, WaitSettings waitSettings, By[] bys) {
+        final List<By> locators = toLocatorList(bys);
+
+        long start = System.nanoTime();
+
+        Object observed = awaitObserved(driver, locators, null, Match.EACH, waitSettings);
+        if (null != observed) {
+            return toElementList(observed);
+        }
+
+        ExpectedCondition<List<WebElement>> allElementsCondition = new ExpectedCondition<List<WebElement>>() {
+            public List<WebElement> apply(WebDriver d) {
+                List<WebElement> found = new ArrayList<WebElement>(locators.size());
+                for (By by : locators) {
+                    List<WebElement> elements = d.findElements(by);
+                    if (elements.isEmpty()) {
+                        return null;
+                    }
+                    found.add(elements.get(0));
+                }
+                return found;
+            }
+
+            @Override
+            public String toString() {
+                return "all of " + locators;
+            }
+        };
+
+        return new BrowserWait(driver, remainingAfter(waitSettings, start)).until(allElementsCondition);
+    }
+
+    private List<Object> extract(String operation, WebDriver driver, By by, Projection projection,
+            List<String> attributeNames) {
+        OperationTimer timer = startTimer(operation);
+        try {
+            List<Object> extracted = elementExtractor.extract(driver, by, projection, attributeNames);
+            timer.succeeded();
+            return extracted;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private List<Object> waitForAndExtract(String operation, WebDriver driver, final By by,
+            final Projection projection, final List<String> attributeNames, WaitSettings waitSettings) {
+        OperationTimer timer = startTimer(operation);
+        try {
+            List<Object> extracted = awaitExtraction(driver, by, projection, attributeNames, waitSettings);
+            timer.succeeded();
+            return extracted;
+        } catch (TimeoutException te) {
+            throw timedOut(timer, driver, operation, te);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Waits until extracting from the elements identified by the specified {@link By} yields at least one entry. When
+     * polling, each attempt is the extraction itself so the data is returned by the same call that finds it.
+     */
+    private List<Object> awaitExtraction(WebDriver driver, final By by, final Projection projection,
+            final List<String> attributeNames, WaitSettings waitSettings) {
+        long start = System.nanoTime();
+        Object observed = awaitObserved(driver, Collections.singletonList(by), null, Match.ALL, waitSettings);
+        if (null != observed) {
+            return elementExtractor.extract(driver, toElementList(observed), projection, attributeNames);
+        }
+
+        ExpectedCondition<List<Object>> extractionCondition = new ExpectedCondition<List<Object>>() {
+            public List<Object> apply(WebDriver d) {
+                List<Object> extracted = elementExtractor.extract(d, by, projection, attributeNames);
+                return extracted.isEmpty() ? null : extracted;
+            }
+
+            @Override
+            public String toString() {
+                return "elements " + by;
+            }
+        };
+
+        return new BrowserWait(driver, remainingAfter(waitSettings, start)).until(extractionCondition);
+    }
+
+    /**
+     * Waits with a {@code MutationObserver} in the page if the {@link WaitMode} of this instance calls for it.
+     * 
+     * @return Returns the element or elements found, or null if the wait should be performed by polling instead.
+     */
+    private Object awaitObserved(WebDriver driver, List<By> bys, String text, Match match,
+            WaitSettings waitSettings) {
+        if (WaitMode.MUTATION_OBSERVER != waitMode) {
+            return null;
+        }
+
+        return observedElementWait.await(driver, bys, text, match, waitSettings.getTimeout().toMillis());
+    }
+
+    /**
+     * Gets the specified {@link WaitSettings} with the time left of its timeout since the specified start, so that a
+     * wait that falls back to polling after a failed {@code MutationObserver} wait does not start its timeout over.
+     */
+    private WaitSettings remainingAfter(WaitSettings waitSettings, long startNanos) {
+        Duration remaining = waitSettings.getTimeout().minusNanos(System.nanoTime() - startNanos);
+        return waitSettings.withTimeout(remaining.isNegative() ? Duration.ZERO : remaining);
+    }
+
+    /**
+     * Records that the operation timed out and grabs the state of the browser for the artifacts of the test, if any.
+     * 
+     * @return Returns the specified {@link TimeoutException} to be thrown.
+     */
+    private TimeoutException timedOut(OperationTimer timer, WebDriver driver, String operation, TimeoutException te) {
+        timer.timedOut();
+        if (null != failureArtifacts) {
+            failureArtifacts.capture(driver, operation, te);
+        }
+        return te;
+    }
+
+    private OperationTimer startTimer(String operation) {
+        return new OperationTimer(metricsSink, MetricNames.BROWSER_OPERATION_PREFIX + operation, metricTags);
+    }
+
+    private WaitSettings withTimeoutInSeconds(long timeOutInSeconds) {
+        return defaultWaitSettings.withTimeout(Duration.ofSeconds(timeOutInSeconds));
+    }
+
+    private List<By> toLocatorList(By[] bys) {
+        if (bys.length == 0) {
+            throw new IllegalArgumentException("At least one locator is required");
+        }
+        return Arrays.asList(bys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<WebElement> toElementList(Object elements) {
+        return (List<WebElement>) elements;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> toList(List<Object> extracted) {
+        return (List<T>) (List<?>) extracted;
     }
 }
@@ -0,0 +1,69 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.Wait;
+
+import com.google.common.base.Function;
+
+/**
+ * {@link Wait} implementation that checks its condition against a {@link WebDriver} according to a
+ * {@link WaitSettings}. Unlike {@code WebDriverWait} the timeout has millisecond precision and the interval between
+ * checks is determined by a {@link PollingStrategy} instead of being fixed.
+ * 
+ * As with {@code WebDriverWait}, the condition is satisfied once it returns a value that is neither null nor
+ * {@code Boolean.FALSE}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class BrowserWait implements Wait<WebDriver> {
+
+    private final WebDriver driver;
+
+    private final WaitSettings waitSettings;
+
+    public BrowserWait(WebDriver driver, WaitSettings waitSettings) {
+        this.driver = driver;
+        this.waitSettings = waitSettings;
+    }
+
+    @Override
+    public <T> T until(Function<? super WebDriver, T> isTrue) {
+        long timeoutNanos = waitSettings.getTimeout().toNanos();
+        long end = System.nanoTime() + timeoutNanos;
+        RuntimeException lastException = null;
+
+        for (int attempt = 0;; attempt++) {
+            try {
+                T value = isTrue.apply(driver);
+                if ((null != value) && !Boolean.FALSE.equals(value)) {
+                    return value;
+                }
+            } catch (RuntimeException re) {
+                if (!waitSettings.isIgnored(re)) {
+                    throw re;
+                }
+                lastException = re;
+            }
+
+            long remainingNanos = end - System.nanoTime();
+            if (remainingNanos <= 0L) {
+                throw new TimeoutException("Timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos)
+                        + "ms waiting for " + isTrue, lastException);
+            }
+
+            long sleepNanos = Math.min(waitSettings.getPollingStrategy().getInterval(attempt).toNanos(),
+                    remainingNanos);
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted while waiting for " + isTrue, ie);
+            }
+        }
+    }
+
+}
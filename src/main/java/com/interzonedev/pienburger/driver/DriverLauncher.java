@@ -0,0 +1,159 @@
+package com.interzonedev.pienburger.driver;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Proxy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.FirefoxProfile;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.remote.BrowserType;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Launches local browser sessions configured by a {@link DriverProfile} and translates profiles into the capabilities
+ * of each browser:
+ * 
+ * <ul>
+ * <li>Chrome gets command line arguments for headless mode, no GPU and no images, plus a content setting that blocks
+ * images.</li>
+ * <li>Firefox gets profile preferences that block images and disable hardware acceleration. It cannot run headless,
+ * since the Firefox versions supported by the {@link FirefoxDriver} of Selenium 2 have no headless mode.</li>
+ * <li>HtmlUnit gets the {@code javascriptEnabled} capability if the profile sets it, and has CSS processing switched
+ * off on its web client.</li>
+ * <li>Every browser gets the {@code pageLoadStrategy} capability, which drivers that do not support it ignore.</li>
+ * </ul>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class DriverLauncher {
+
+    private static final Log log = LogFactory.getLog(DriverLauncher.class);
+
+    /**
+     * Launches a new session of the specified {@link Browser} configured by the specified {@link DriverProfile}. A
+     * session with the driver default profile and no proxy is launched with the no argument constructor of the driver.
+     * 
+     * @param browser The {@link Browser} to launch. Must not be {@link Browser#REMOTE}.
+     * @param profile The {@link DriverProfile} that configures the browser.
+     * @param proxy The {@link Proxy} the browser sends its traffic through, or null.
+     * 
+     * @return Returns the new session.
+     */
+    WebDriver launch(Browser browser, DriverProfile profile, Proxy proxy) {
+        Class<? extends WebDriver> driverClass = browser.driverClass();
+
+        if (profile.isDriverDefault() && (null == proxy)) {
+            return BeanUtils.instantiateClass(driverClass);
+        }
+
+        Constructor<?> constructor = ClassUtils.getConstructorIfAvailable(driverClass, Capabilities.class);
+        if (null == constructor) {
+            log.warn("launch: " + driverClass.getName() + " takes no capabilities, ignoring " + profile + " and proxy");
+            return BeanUtils.instantiateClass(driverClass);
+        }
+
+        DesiredCapabilities capabilities = toCapabilities(getBrowserName(browser), profile);
+        if (null != proxy) {
+            capabilities.setCapability(CapabilityType.PROXY, proxy);
+        }
+
+        switch (browser) {
+        case HTMLUNIT:
+            return new ProfiledHtmlUnitDriver(capabilities, profile.isCssEnabled());
+        default:
+            return (WebDriver) BeanUtils.instantiateClass(constructor, capabilities);
+        }
+    }
+
+    /**
+     * Translates the specified {@link DriverProfile} into capabilities for the browser with the specified name. Used
+     * for local sessions and for the sessions requested from a remote server.
+     * 
+     * @param browserName The name of the browser as in {@link BrowserType}.
+     * @param profile The {@link DriverProfile} to translate.
+     * 
+     * @return Returns the capabilities of the profile.
+     */
+    DesiredCapabilities toCapabilities(String browserName, DriverProfile profile) {
+        DesiredCapabilities capabilities = new DesiredCapabilities();
+        capabilities.setBrowserName(browserName);
+
+        if (null != profile.getPageLoadStrategy()) {
+            capabilities.setCapability(CapabilityType.PAGE_LOAD_STRATEGY, profile.getPageLoadStrategy());
+        }
+
+        if (BrowserType.CHROME.equals(browserName)) {
+            ChromeOptions options = new ChromeOptions();
+            List<String> arguments = new ArrayList<String>();
+            if (profile.isHeadless()) {
+                arguments.add("--headless");
+            }
+            if (!profile.isGpuEnabled()) {
+                arguments.add("--disable-gpu");
+            }
+            if (!profile.isImagesEnabled()) {
+                arguments.add("--blink-settings=imagesEnabled=false");
+                options.setExperimentalOption("prefs",
+                        Collections.singletonMap("profile.managed_default_content_settings.images", 2));
+            }
+            arguments.addAll(profile.getArguments());
+            options.addArguments(arguments);
+            capabilities.setCapability(ChromeOptions.CAPABILITY, options);
+        } else if (BrowserType.FIREFOX.equals(browserName)) {
+            FirefoxProfile firefoxProfile = new FirefoxProfile();
+            if (!profile.isImagesEnabled()) {
+                firefoxProfile.setPreference("permissions.default.image", 2);
+            }
+            if (!profile.isGpuEnabled()) {
+                firefoxProfile.setPreference("layers.acceleration.disabled", true);
+            }
+            capabilities.setCapability(FirefoxDriver.PROFILE, firefoxProfile);
+        } else if (BrowserType.HTMLUNIT.equals(browserName) && (null != profile.getJavascriptEnabled())) {
+            capabilities.setJavascriptEnabled(profile.getJavascriptEnabled());
+        }
+
+        return capabilities;
+    }
+
+    private String getBrowserName(Browser browser) {
+        switch (browser) {
+        case FIREFOX:
+            return BrowserType.FIREFOX;
+        case CHROME:
+            return BrowserType.CHROME;
+        case SAFARI:
+            return BrowserType.SAFARI;
+        case HTMLUNIT:
+            return BrowserType.HTMLUNIT;
+        case IE:
+            return BrowserType.IE;
+        default:
+            return browser.id();
+        }
+    }
+
+    /**
+     * {@link HtmlUnitDriver} that can switch off CSS processing, which {@link HtmlUnitDriver} has no capability for.
+     * The web client is configured after construction, since {@link HtmlUnitDriver} creates it in its constructor.
+     */
+    private static class ProfiledHtmlUnitDriver extends HtmlUnitDriver {
+
+        private ProfiledHtmlUnitDriver(Capabilities capabilities, boolean cssEnabled) {
+            super(capabilities);
+            getWebClient().getOptions().setCssEnabled(cssEnabled);
+        }
+
+    }
+
+}
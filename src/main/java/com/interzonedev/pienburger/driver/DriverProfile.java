@@ -0,0 +1,232 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable value object that holds how the browser of a session is launched: whether it runs headless, whether it
+ * loads images and uses the GPU, the page load strategy, whether HtmlUnit runs JavaScript and processes CSS, and any
+ * extra command line arguments. Each option is only applied to the browsers that support it. Whether HtmlUnit runs
+ * JavaScript is left to the driver, which has it switched off, unless it is set explicitly.
+ * 
+ * Profiles are selected by name through the {@code FunctionalTestProperties} and resolved by the
+ * {@link WebDriverFactory}, which keeps a separate pool of sessions per {@link Browser} and profile. The
+ * {@link #DEFAULT} profile launches every browser as its driver does by default. The {@link #FAST} profile, see
+ * {@link #fast(Browser)}, is tuned for throughput.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class DriverProfile {
+
+    /**
+     * The name of the profile that launches every browser with the defaults of its driver.
+     */
+    public static final String DEFAULT = "default";
+
+    /**
+     * The name of the built-in profile tuned for throughput.
+     */
+    public static final String FAST = "fast";
+
+    /**
+     * Page load strategy that waits for the page and all of its resources to load.
+     */
+    public static final String PAGE_LOAD_NORMAL = "normal";
+
+    /**
+     * Page load strategy that waits for the document to be parsed but not for images and stylesheets.
+     */
+    public static final String PAGE_LOAD_EAGER = "eager";
+
+    /**
+     * Page load strategy that returns as soon as the navigation has started.
+     */
+    public static final String PAGE_LOAD_NONE = "none";
+
+    private static final List<String> PAGE_LOAD_STRATEGIES = Arrays.asList(PAGE_LOAD_NORMAL, PAGE_LOAD_EAGER,
+            PAGE_LOAD_NONE);
+
+    private final String name;
+
+    private final boolean headless;
+
+    private final boolean imagesEnabled;
+
+    private final boolean gpuEnabled;
+
+    private final String pageLoadStrategy;
+
+    private final Boolean javascriptEnabled;
+
+    private final boolean cssEnabled;
+
+    private final List<String> arguments;
+
+    /**
+     * Constructs a profile with the specified name that launches browsers with the defaults of their drivers.
+     * 
+     * @param name The name of the profile.
+     */
+    public DriverProfile(String name) {
+        this(name, false, true, true, null, null, true, Collections.<String> emptyList());
+    }
+
+    private DriverProfile(String name, boolean headless, boolean imagesEnabled, boolean gpuEnabled,
+            String pageLoadStrategy, Boolean javascriptEnabled, boolean cssEnabled, List<String> arguments) {
+        if ((null == name) || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("The name must be set");
+        }
+        if ((null != pageLoadStrategy) && !PAGE_LOAD_STRATEGIES.contains(pageLoadStrategy)) {
+            throw new IllegalArgumentException("Unrecognized page load strategy: " + pageLoadStrategy);
+        }
+
+        this.name = name;
+        this.headless = headless;
+        this.imagesEnabled = imagesEnabled;
+        this.gpuEnabled = gpuEnabled;
+        this.pageLoadStrategy = pageLoadStrategy;
+        this.javascriptEnabled = javascriptEnabled;
+        this.cssEnabled = cssEnabled;
+        this.arguments = Collections.unmodifiableList(new ArrayList<String>(arguments));
+    }
+
+    /**
+     * Gets the built-in {@link #FAST} profile of the specified {@link Browser}. Chrome runs headless, Chrome and
+     * Firefox run without images or GPU acceleration, and they and Internet Explorer and remote browsers use the
+     * {@link #PAGE_LOAD_EAGER} page load strategy. HtmlUnit does not process CSS, so only inline styles are taken into
+     * account when deciding whether an element is displayed, and leaves JavaScript at the driver default, which is
+     * off. Safari has no options to tune.
+     * 
+     * @param browser The {@link Browser} to get the profile for.
+     * 
+     * @return Returns the {@link #FAST} profile of the specified {@link Browser}.
+     */
+    public static DriverProfile fast(Browser browser) {
+        DriverProfile fast = new DriverProfile(FAST);
+
+        switch (browser) {
+        case CHROME:
+            return fast.withHeadless(true).withImagesEnabled(false).withGpuEnabled(false)
+                    .withPageLoadStrategy(PAGE_LOAD_EAGER);
+        case FIREFOX:
+            return fast.withImagesEnabled(false).withGpuEnabled(false).withPageLoadStrategy(PAGE_LOAD_EAGER);
+        case IE:
+        case REMOTE:
+            return fast.withPageLoadStrategy(PAGE_LOAD_EAGER);
+        case HTMLUNIT:
+            return fast.withCssEnabled(false);
+        default:
+            return fast;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets whether the browser runs headless. Only Chrome supports it; the Firefox versions that the
+     * {@link org.openqa.selenium.firefox.FirefoxDriver} of Selenium 2 can drive have no headless mode.
+     * 
+     * @return Returns whether the browser runs headless.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    public boolean isImagesEnabled() {
+        return imagesEnabled;
+    }
+
+    public boolean isGpuEnabled() {
+        return gpuEnabled;
+    }
+
+    /**
+     * Gets the page load strategy, one of {@link #PAGE_LOAD_NORMAL}, {@link #PAGE_LOAD_EAGER} and
+     * {@link #PAGE_LOAD_NONE}.
+     * 
+     * @return Returns the page load strategy, or null to use the default of the driver.
+     */
+    public String getPageLoadStrategy() {
+        return pageLoadStrategy;
+    }
+
+    /**
+     * Gets whether HtmlUnit runs JavaScript.
+     * 
+     * @return Returns whether HtmlUnit runs JavaScript, or null to use the default of the driver.
+     */
+    public Boolean getJavascriptEnabled() {
+        return javascriptEnabled;
+    }
+
+    public boolean isCssEnabled() {
+        return cssEnabled;
+    }
+
+    /**
+     * Gets the extra command line arguments passed to the browser. Only Chrome takes them.
+     * 
+     * @return Returns the extra command line arguments passed to the browser.
+     */
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Whether this profile leaves every option at the default of the driver, so the driver can be launched without
+     * capabilities.
+     * 
+     * @return Returns true if no option of this profile differs from the driver defaults.
+     */
+    public boolean isDriverDefault() {
+        return !headless && imagesEnabled && gpuEnabled && (null == pageLoadStrategy)
+                && (null == javascriptEnabled) && cssEnabled && arguments.isEmpty();
+    }
+
+    public DriverProfile withHeadless(boolean headless) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withImagesEnabled(boolean imagesEnabled) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withGpuEnabled(boolean gpuEnabled) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withPageLoadStrategy(String pageLoadStrategy) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withJavascriptEnabled(Boolean javascriptEnabled) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withCssEnabled(boolean cssEnabled) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    public DriverProfile withArguments(List<String> arguments) {
+        return new DriverProfile(name, headless, imagesEnabled, gpuEnabled, pageLoadStrategy, javascriptEnabled,
+                cssEnabled, arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "DriverProfile [name=" + name + ", headless=" + headless + ", imagesEnabled=" + imagesEnabled
+                + ", gpuEnabled=" + gpuEnabled + ", pageLoadStrategy=" + pageLoadStrategy + ", javascriptEnabled="
+                + javascriptEnabled + ", cssEnabled=" + cssEnabled + ", arguments=" + arguments + "]";
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Extracts the text, attributes or table cells of a list of elements as plain Java data with a single script call,
+ * instead of one round trip to the browser per element and value. The elements are either looked up by the script
+ * itself from a {@link By} or passed to it after having been found by a wait.
+ * 
+ * Text is read from {@code innerText}, or {@code textContent} where that is not supported, and trimmed, which matches
+ * {@link WebElement#getText()} for visible elements. Attributes are read as with
+ * {@link WebElement#getAttribute(String)} by preferring the element's property of the same name when it holds a simple
+ * value.
+ * 
+ * If scripts cannot be run in the page, or the {@link By} is not one of the standard locators, the same data is
+ * gathered element by element through the {@link WebElement} API.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class ElementExtractor {
+
+    /**
+     * What is extracted from each element.
+     */
+    enum Projection {
+        /** The text of each element, as a {@code List<String>}. */
+        TEXT,
+        /** The named attributes of each element, as a {@code List<Map<String, String>>}. */
+        ATTRIBUTES,
+        /**
+         * The cell texts of each table row, as a {@code List<List<String>>}. Tables and table sections are expanded
+         * into their rows.
+         */
+        TABLE_ROWS
+    }
+
+    // @formatter:off
+    private static final String SCRIPT =
+            "var locator = arguments[0], elements = arguments[1], projection = arguments[2], names = arguments[3];"
+            + ScriptLocator.FIND_FUNCTION
+            + "function text(e) {"
+            + "  var t = (typeof e.innerText === 'string') ? e.innerText : e.textContent;"
+            + "  return (t || '').replace(/^\\s+|\\s+$/g, '');"
+            + "}"
+            + "function attribute(e, name) {"
+            + "  var p = (name === 'class') ? undefined : e[name];"
+            + "  if (typeof p === 'boolean') { return p ? 'true' : null; }"
+            + "  if (typeof p === 'string' || typeof p === 'number') { return String(p); }"
+            + "  return e.getAttribute(name);"
+            + "}"
+            + "function rowsOf(e) {"
+            + "  if (e.tagName.toLowerCase() === 'tr') { return [e]; }"
+            + "  return e.rows || e.getElementsByTagName('tr');"
+            + "}"
+            + "if (locator) { elements = find(locator[0], locator[1], false); }"
+            + "var result = [], i, j, k, item, rows, cells;"
+            + "for (i = 0; i < elements.length; i++) {"
+            + "  if (projection === 'TEXT') {"
+            + "    result.push(text(elements[i]));"
+            + "  } else if (projection === 'ATTRIBUTES') {"
+            + "    item = {};"
+            + "    for (j = 0; j < names.length; j++) { item[names[j]] = attribute(elements[i], names[j]); }"
+            + "    result.push(item);"
+            + "  } else {"
+            + "    rows = rowsOf(elements[i]);"
+            + "    for (j = 0; j < rows.length; j++) {"
+            + "      cells = [];"
+            + "      for (k = 0; k < rows[j].cells.length; k++) { cells.push(text(rows[j].cells[k])); }"
+            + "      result.push(cells);"
+            + "    }"
+            + "  }"
+            + "}"
+            + "return result;";
+    // @formatter:on
+
+    private static final List<String> TABLE_TAGS = Arrays.asList("table", "thead", "tbody", "tfoot");
+
+    /**
+     * Extracts data from every element in the current page identified by the specified {@link By}.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser from which to extract.
+     * @param by The {@link By} that identifies the elements.
+     * @param projection What to extract from each element.
+     * @param attributeNames The names of the attributes to extract for {@link Projection#ATTRIBUTES}.
+     * 
+     * @return Returns one entry per element, or per row for {@link Projection#TABLE_ROWS}, of the type described by the
+     *         {@link Projection}. Empty if no elements are found.
+     */
+    List<Object> extract(WebDriver driver, By by, Projection projection, List<String> attributeNames) {
+        String[] locator = ScriptLocator.toStrategyAndValue(by);
+        if ((null == locator) || !AsyncScripts.isSupported(driver)) {
+            return extractFromElements(driver.findElements(by), projection, attributeNames);
+        }
+
+        Object result = ((JavascriptExecutor) driver).executeScript(SCRIPT, Arrays.asList(locator),
+                Collections.emptyList(), projection.name(), attributeNames);
+
+        return convert(result, projection, attributeNames);
+    }
+
+    /**
+     * Extracts data from the specified elements, such as those returned by a wait.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser in which the elements were found.
+     * @param elements The elements to extract from.
+     * @param projection What to extract from each element.
+     * @param attributeNames The names of the attributes to extract for {@link Projection#ATTRIBUTES}.
+     * 
+     * @return Returns one entry per element, or per row for {@link Projection#TABLE_ROWS}, of the type described by the
+     *         {@link Projection}.
+     */
+    List<Object> extract(WebDriver driver, List<WebElement> elements, Projection projection,
+            List<String> attributeNames) {
+        if (elements.isEmpty()) {
+            return new ArrayList<Object>();
+        }
+
+        if (!AsyncScripts.isSupported(driver)) {
+            return extractFromElements(elements, projection, attributeNames);
+        }
+
+        Object result = ((JavascriptExecutor) driver).executeScript(SCRIPT, null, elements, projection.name(),
+                attributeNames);
+
+        return convert(result, projection, attributeNames);
+    }
+
+    private List<Object> convert(Object result, Projection projection, List<String> attributeNames) {
+        List<Object> converted = new ArrayList<Object>();
+        if (!(result instanceof List)) {
+            return converted;
+        }
+
+        for (Object item : (List<?>) result) {
+            switch (projection) {
+            case TEXT:
+                converted.add(toStringValue(item));
+                break;
+            case ATTRIBUTES:
+                Map<?, ?> values = (item instanceof Map) ? (Map<?, ?>) item : Collections.emptyMap();
+                Map<String, String> attributes = new LinkedHashMap<String, String>();
+                for (String name : attributeNames) {
+                    attributes.put(name, toStringValue(values.get(name)));
+                }
+                converted.add(attributes);
+                break;
+            default:
+                List<String> cells = new ArrayList<String>();
+                if (item instanceof List) {
+                    for (Object cell : (List<?>) item) {
+                        cells.add(toStringValue(cell));
+                    }
+                }
+                converted.add(cells);
+            }
+        }
+
+        return converted;
+    }
+
+    private List<Object> extractFromElements(List<WebElement> elements, Projection projection,
+            List<String> attributeNames) {
+        List<Object> extracted = new ArrayList<Object>();
+
+        for (WebElement element : elements) {
+            switch (projection) {
+            case TEXT:
+                extracted.add(element.getText());
+                break;
+            case ATTRIBUTES:
+                Map<String, String> attributes = new LinkedHashMap<String, String>();
+                for (String name : attributeNames) {
+                    attributes.put(name, element.getAttribute(name));
+                }
+                extracted.add(attributes);
+                break;
+            default:
+                List<WebElement> rows = TABLE_TAGS.contains(element.getTagName().toLowerCase()) ? element
+                        .findElements(By.tagName("tr")) : Collections.singletonList(element);
+                for (WebElement row : rows) {
+                    List<String> cells = new ArrayList<String>();
+                    for (WebElement cell : row.findElements(By.xpath("./td|./th"))) {
+                        cells.add(cell.getText());
+                    }
+                    extracted.add(cells);
+                }
+            }
+        }
+
+        return extracted;
+    }
+
+    private String toStringValue(Object value) {
+        return (null == value) ? null : value.toString();
+    }
+
+}
@@ -0,0 +1,239 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Remembers the element found for each {@link By} in the current page of each browser, so that looking up the same
+ * element again costs a single round trip that checks the element is still attached instead of a wait and a fresh
+ * lookup. Entries belong to a page identified by its URL and a navigation counter that is advanced by
+ * {@link #invalidate(WebDriver)} whenever {@link BrowserOperations} opens a page. An entry is dropped, and the element
+ * looked up again, when the check finds it detached or finds the browser on a different URL.
+ * 
+ * The URL of a page is read once, when the first element of the page is cached. The check of a cached element is a
+ * script that returns the current URL if the element is still in the document, so a hit does not need a separate URL
+ * lookup. Browsers that cannot run scripts are checked with {@link WebElement#isEnabled()} and
+ * {@link WebDriver#getCurrentUrl()} instead.
+ * 
+ * Instances are created by {@link BrowserOperations} when the locator cache is enabled in the
+ * {@code FunctionalTestProperties}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LocatorCache {
+
+    private static final String ATTACHED_URL_SCRIPT = "var element = arguments[0];"
+            + "return (element.ownerDocument === document && document.documentElement.contains(element))"
+            + " ? window.location.href : null;";
+
+    private final Map<WebDriver, Page> pages = new IdentityHashMap<WebDriver, Page>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong staleCount = new AtomicLong();
+
+    LocatorCache() {
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * 
+     * @return Returns the number of lookups answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that had to wait for the element, including those that found a stale entry.
+     * 
+     * @return Returns the number of lookups that had to wait for the element.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of cached elements found detached or on a page with a different URL.
+     * 
+     * @return Returns the number of cached elements found stale.
+     */
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    /**
+     * Gets the cached element for the specified {@link By} in the current page of the specified browser if it is still
+     * attached.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     * @param by The {@link By} the element was found with.
+     * 
+     * @return Returns the cached element, or null if there is none or it is stale.
+     */
+    WebElement get(WebDriver driver, By by) {
+        String pageUrl;
+        WebElement element;
+        synchronized (pages) {
+            Page page = pages.get(driver);
+            element = (null == page) ? null : page.elements.get(by);
+            pageUrl = (null == page) ? null : page.url;
+        }
+
+        if (null == element) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        String currentUrl = getUrlIfAttached(driver, element);
+        if ((null == currentUrl) || !currentUrl.equals(pageUrl)) {
+            staleCount.incrementAndGet();
+            missCount.incrementAndGet();
+            synchronized (pages) {
+                Page page = pages.get(driver);
+                if (null != page) {
+                    if (null == currentUrl) {
+                        page.elements.remove(by);
+                    } else {
+                        // The page moved on without going through openPage, so none of its entries can be trusted.
+                        advance(page);
+                    }
+                }
+            }
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return element;
+    }
+
+    /**
+     * Gets the navigation counter of the specified browser, to be passed to
+     * {@link #put(WebDriver, By, WebElement, int)} once the element being looked up is found.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     * 
+     * @return Returns the navigation counter of the specified browser.
+     */
+    int getNavigation(WebDriver driver) {
+        synchronized (pages) {
+            Page page = pages.get(driver);
+            return (null == page) ? 0 : page.navigation;
+        }
+    }
+
+    /**
+     * Caches the specified element for the specified {@link By} unless the browser navigated since the lookup started.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     * @param by The {@link By} the element was found with.
+     * @param element The element found.
+     * @param navigation The navigation counter of the browser when the lookup started.
+     */
+    void put(WebDriver driver, By by, WebElement element, int navigation) {
+        boolean needsUrl;
+        synchronized (pages) {
+            Page page = getPage(driver);
+            if (page.navigation != navigation) {
+                return;
+            }
+            needsUrl = (null == page.url);
+        }
+
+        String url = null;
+        if (needsUrl) {
+            try {
+                url = driver.getCurrentUrl();
+            } catch (WebDriverException wde) {
+                return;
+            }
+        }
+
+        synchronized (pages) {
+            Page page = getPage(driver);
+            if (page.navigation != navigation) {
+                return;
+            }
+            if (null == page.url) {
+                page.url = url;
+            }
+            page.elements.put(by, element);
+        }
+    }
+
+    /**
+     * Drops every cached element of the specified browser and advances its navigation counter. Called whenever the
+     * browser is sent to another page.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser.
+     */
+    void invalidate(WebDriver driver) {
+        synchronized (pages) {
+            advance(getPage(driver));
+        }
+    }
+
+    private Page getPage(WebDriver driver) {
+        Page page = pages.get(driver);
+        if (null == page) {
+            page = new Page();
+            pages.put(driver, page);
+        }
+        return page;
+    }
+
+    private void advance(Page page) {
+        page.navigation++;
+        page.url = null;
+        page.elements.clear();
+    }
+
+    /**
+     * Checks that the specified element is still attached to the document of the specified browser in a single round
+     * trip.
+     * 
+     * @return Returns the current URL of the browser, or null if the element is stale or cannot be checked.
+     */
+    private String getUrlIfAttached(WebDriver driver, WebElement element) {
+        try {
+            if (driver instanceof JavascriptExecutor) {
+                try {
+                    Object url = ((JavascriptExecutor) driver).executeScript(ATTACHED_URL_SCRIPT, element);
+                    return (url instanceof String) ? (String) url : null;
+                } catch (UnsupportedOperationException uoe) {
+                    // Scripts are disabled in this browser, so check the element and the URL separately.
+                }
+            }
+
+            element.isEnabled();
+            return driver.getCurrentUrl();
+        } catch (WebDriverException wde) {
+            // Most likely a StaleElementReferenceException, but any failure to check the element makes it unusable.
+            return null;
+        }
+    }
+
+    /**
+     * The cached elements of the page a browser is on.
+     */
+    private static class Page {
+
+        private int navigation;
+
+        private String url;
+
+        private final Map<By, WebElement> elements = new HashMap<By, WebElement>();
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.interzonedev.pienburger.driver;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+
+/**
+ * Waits for the page to become idle, meaning that the document has finished loading, no {@code XMLHttpRequest} or
+ * {@code fetch} calls are in flight, no short timers are pending and nothing of the sort has happened for a quiet
+ * period.
+ * 
+ * The first wait in a page installs hooks around {@code XMLHttpRequest.send}, {@code fetch}, {@code setTimeout} and
+ * {@code clearTimeout} that count the outstanding work and record the time of the last activity. Requests that were
+ * already in flight when the hooks were installed cannot be counted, so the number of resource timing entries is also
+ * sampled and a change is treated as activity. Timers with a delay longer than {@link #TRACKED_TIMER_MAX_DELAY_MILLIS}
+ * and {@code setInterval} timers are ignored since they usually implement polling that never stops.
+ * 
+ * The wait itself is a single asynchronous script call that checks the page's state inside the browser. If the script
+ * is aborted because the page navigated, the wait falls back to polling the same check from the test. Any other
+ * failure, such as a dead session or an error in the script, is thrown right away instead of being retried until the
+ * timeout.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class NetworkIdleWait {
+
+    /**
+     * Timers scheduled with a longer delay than this are not considered pending work.
+     */
+    static final long TRACKED_TIMER_MAX_DELAY_MILLIS = 1000L;
+
+    // @formatter:off
+    private static final String INSTALL_SCRIPT =
+            "var activity = window.__pienburgerActivity;"
+            + "if (!activity) {"
+            + "  activity = window.__pienburgerActivity = { requests: 0, timers: 0, last: new Date().getTime(),"
+            + "      resources: 0, pendingTimers: {}, setTimeout: window.setTimeout };"
+            + "  var touch = function () { activity.last = new Date().getTime(); };"
+            + "  activity.resourceCount = function () {"
+            + "    return (window.performance && performance.getEntriesByType)"
+            + "        ? performance.getEntriesByType('resource').length : 0;"
+            + "  };"
+            + "  activity.resources = activity.resourceCount();"
+            + "  if (window.XMLHttpRequest && XMLHttpRequest.prototype.send) {"
+            + "    var send = XMLHttpRequest.prototype.send;"
+            + "    XMLHttpRequest.prototype.send = function () {"
+            + "      var pending = true;"
+            + "      var done = function () { if (pending) { pending = false; activity.requests--; touch(); } };"
+            + "      var xhr = this;"
+            + "      activity.requests++; touch();"
+            + "      xhr.addEventListener('readystatechange', function () { if (xhr.readyState === 4) { done(); } });"
+            + "      xhr.addEventListener('loadend', done);"
+            + "      try { return send.apply(xhr, arguments); } catch (e) { done(); throw e; }"
+            + "    };"
+            + "  }"
+            + "  if (typeof window.fetch === 'function') {"
+            + "    var originalFetch = window.fetch;"
+            + "    window.fetch = function () {"
+            + "      var done = function () { activity.requests--; touch(); };"
+            + "      activity.requests++; touch();"
+            + "      var promise;"
+            + "      try { promise = originalFetch.apply(this, arguments); } catch (e) { done(); throw e; }"
+            + "      promise.then(done, done);"
+            + "      return promise;"
+            + "    };"
+            + "  }"
+            + "  var originalSetTimeout = window.setTimeout, originalClearTimeout = window.clearTimeout;"
+            + "  window.setTimeout = function (callback, delay) {"
+            + "    if (typeof callback !== 'function' || (delay || 0) > " + TRACKED_TIMER_MAX_DELAY_MILLIS + ") {"
+            + "      return originalSetTimeout.apply(window, arguments);"
+            + "    }"
+            + "    var args = Array.prototype.slice.call(arguments, 2), id;"
+            + "    id = originalSetTimeout.call(window, function () {"
+            + "      if (activity.pendingTimers[id]) { delete activity.pendingTimers[id]; activity.timers--; touch(); }"
+            + "      return callback.apply(this, args);"
+            + "    }, delay);"
+            + "    activity.pendingTimers[id] = true; activity.timers++;"
+            + "    return id;"
+            + "  };"
+            + "  window.clearTimeout = function (id) {"
+            + "    if (activity.pendingTimers[id]) { delete activity.pendingTimers[id]; activity.timers--; }"
+            + "    return originalClearTimeout.apply(window, arguments);"
+            + "  };"
+            + "}"
+            + "function isIdle(quiet) {"
+            + "  var now = new Date().getTime(), resources = activity.resourceCount();"
+            + "  if (resources !== activity.resources) { activity.resources = resources; activity.last = now; }"
+            + "  if (document.readyState !== 'complete') { activity.last = now; }"
+            + "  return activity.requests <= 0 && activity.timers <= 0 && (now - activity.last) >= quiet;"
+            + "}"
+            + "function status(idle) {"
+            + "  return { idle: idle, requests: activity.requests, timers: activity.timers };"
+            + "}";
+
+    private static final String AWAIT_SCRIPT =
+            "var quiet = arguments[0], timeout = arguments[1], callback = arguments[arguments.length - 1];"
+            + INSTALL_SCRIPT
+            + "var start = new Date().getTime(), interval = Math.max(10, Math.min(50, quiet));"
+            + "function check() {"
+            + "  if (isIdle(quiet)) { callback(status(true)); return; }"
+            + "  if ((new Date().getTime() - start) >= timeout) { callback(status(false)); return; }"
+            + "  activity.setTimeout.call(window, check, interval);"
+            + "}"
+            + "check();";
+
+    private static final String CHECK_SCRIPT =
+            "var quiet = arguments[0];"
+            + INSTALL_SCRIPT
+            + "return status(isIdle(quiet));";
+    // @formatter:on
+
+    /**
+     * Waits for the current page to be idle for the specified quiet period.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser in which to wait.
+     * @param quietMillis The number of milliseconds without any activity after which the page is considered idle.
+     * @param waitSettings The {@link WaitSettings} that determine the timeout and, if the wait falls back to polling,
+     *            the polling interval.
+     * 
+     * @throws TimeoutException Thrown if the page does not become idle before the timeout.
+     */
+    void await(WebDriver driver, final long quietMillis, WaitSettings waitSettings) {
+        if (!AsyncScripts.isSupported(driver)) {
+            // Without scripts there is no activity in the page after the driver has finished loading it.
+            return;
+        }
+
+        long timeoutMillis = waitSettings.getTimeout().toMillis();
+        long start = System.currentTimeMillis();
+
+        Map<?, ?> status;
+        try {
+            AsyncScripts.ensureScriptTimeout(driver, timeoutMillis);
+            status = (Map<?, ?>) ((JavascriptExecutor) driver).executeAsyncScript(AWAIT_SCRIPT, quietMillis,
+                    timeoutMillis);
+        } catch (TimeoutException te) {
+            throw te;
+        } catch (WebDriverException wde) {
+            if (!AsyncScripts.isPageUnloaded(wde)) {
+                throw wde;
+            }
+
+            // The page navigated away while the script was running, so poll the new page for the remaining time.
+            long remainingMillis = Math.max(0L, timeoutMillis - (System.currentTimeMillis() - start));
+            poll(driver, quietMillis, waitSettings.withTimeout(Duration.ofMillis(remainingMillis)));
+            return;
+        }
+
+        if (!Boolean.TRUE.equals(status.get("idle"))) {
+            throw new TimeoutException("Timed out after " + timeoutMillis + "ms waiting for the page to be idle for "
+                    + quietMillis + "ms (" + status.get("requests") + " requests and " + status.get("timers")
+                    + " timers pending)");
+        }
+    }
+
+    private void poll(WebDriver driver, final long quietMillis, WaitSettings waitSettings) {
+        ExpectedCondition<Boolean> idleCondition = new ExpectedCondition<Boolean>() {
+            public Boolean apply(WebDriver d) {
+                Map<?, ?> status;
+                try {
+                    status = (Map<?, ?>) ((JavascriptExecutor) d).executeScript(CHECK_SCRIPT, quietMillis);
+                } catch (WebDriverException wde) {
+                    if (AsyncScripts.isPageUnloaded(wde)) {
+                        // Still navigating, so check the next page on the next attempt.
+                        return Boolean.FALSE;
+                    }
+                    throw wde;
+                }
+                return Boolean.TRUE.equals(status.get("idle"));
+            }
+
+            @Override
+            public String toString() {
+                return "the page to be idle for " + quietMillis + "ms";
+            }
+        };
+
+        new BrowserWait(driver, waitSettings).until(idleCondition);
+    }
+
+}
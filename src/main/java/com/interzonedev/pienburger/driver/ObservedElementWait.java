@@ -0,0 +1,135 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Waits for elements by installing a {@code MutationObserver} in the page with a single asynchronous script call. The
+ * script checks for the element immediately, then re-checks whenever the DOM changes and calls back as soon as the
+ * element is present, so there is no polling interval and only one round trip to the browser per wait.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class ObservedElementWait {
+
+    private static final String UNSUPPORTED = "pienburger:unsupported";
+
+    /**
+     * How the elements found by the locators passed to the script are matched and returned.
+     */
+    enum Match {
+        /** The first element found by the single locator, optionally with the expected text. */
+        FIRST,
+        /** All elements found by the single locator, once there is at least one. */
+        ALL,
+        /** The first element found by whichever of the locators finds one first. */
+        ANY,
+        /** The first element found by each of the locators, once every locator finds one. */
+        EACH
+    }
+
+    // @formatter:off
+    private static final String SCRIPT =
+            "var locators = arguments[0], text = arguments[1], match = arguments[2], timeout = arguments[3],"
+            + "    callback = arguments[arguments.length - 1];"
+            + "if (typeof MutationObserver === 'undefined') { callback('" + UNSUPPORTED + "'); return; }"
+            + ScriptLocator.FIND_FUNCTION
+            + "function trim(s) { return (s || '').replace(/^\\s+|\\s+$/g, ''); }"
+            + "function evaluate() {"
+            + "  var elements, result = [], i;"
+            + "  if (match === 'ANY' || match === 'EACH') {"
+            + "    for (i = 0; i < locators.length; i++) {"
+            + "      elements = find(locators[i][0], locators[i][1], true);"
+            + "      if (match === 'ANY' && elements.length) { return elements[0]; }"
+            + "      if (match === 'EACH') { if (!elements.length) { return null; } result.push(elements[0]); }"
+            + "    }"
+            + "    return (match === 'EACH') ? result : null;"
+            + "  }"
+            + "  elements = find(locators[0][0], locators[0][1], match !== 'ALL');"
+            + "  if (!elements.length) { return null; }"
+            + "  if (match === 'ALL') { return elements; }"
+            + "  var element = elements[0];"
+            + "  if (text === null) { return element; }"
+            + "  var elementText = (typeof element.innerText === 'string') ? element.innerText : element.textContent;"
+            + "  return (trim(elementText) === text) ? element : null;"
+            + "}"
+            + "var result = evaluate();"
+            + "if (result) { callback(result); return; }"
+            + "var done = false, scheduled = false, observer, timer;"
+            + "function finish(r) {"
+            + "  if (done) { return; }"
+            + "  done = true; observer.disconnect(); clearTimeout(timer); callback(r);"
+            + "}"
+            + "function check() { scheduled = false; var r = evaluate(); if (r) { finish(r); } }"
+            + "observer = new MutationObserver(function () {"
+            + "  if (!done && !scheduled) { scheduled = true; setTimeout(check, 0); }"
+            + "});"
+            + "observer.observe(document.documentElement || document,"
+            + "    { childList: true, subtree: true, attributes: true, characterData: true });"
+            + "timer = setTimeout(function () { finish(null); }, timeout);";
+    // @formatter:on
+
+    /**
+     * Waits for the elements identified by the specified locators to be present in the current page.
+     * 
+     * @param driver The {@link WebDriver} that controls the browser in which to wait.
+     * @param bys The {@link By} instances that identify the elements. Only the first is used for {@link Match#FIRST}
+     *            and {@link Match#ALL}.
+     * @param text The text the element must have for {@link Match#FIRST}, or null to accept any text.
+     * @param match How the elements are matched and returned.
+     * @param timeoutMillis The number of milliseconds to wait before timing out.
+     * 
+     * @return Returns a {@code WebElement} for {@link Match#FIRST} and {@link Match#ANY} or a list of elements for
+     *         {@link Match#ALL} and {@link Match#EACH}, or null if the wait cannot be performed in the page and the
+     *         caller should fall back to polling.
+     * 
+     * @throws TimeoutException Thrown if the elements do not appear before the timeout.
+     */
+    Object await(WebDriver driver, List<By> bys, String text, Match match, long timeoutMillis) {
+        List<List<String>> locators = new ArrayList<List<String>>();
+        for (By by : bys) {
+            String[] locator = ScriptLocator.toStrategyAndValue(by);
+            if (null == locator) {
+                return null;
+            }
+            locators.add(Arrays.asList(locator));
+        }
+
+        if (!AsyncScripts.isSupported(driver)) {
+            return null;
+        }
+
+        Object result;
+        try {
+            AsyncScripts.ensureScriptTimeout(driver, timeoutMillis);
+            result = ((JavascriptExecutor) driver).executeAsyncScript(SCRIPT, locators, text, match.name(),
+                    timeoutMillis);
+        } catch (TimeoutException te) {
+            throw te;
+        } catch (UnsupportedOperationException uoe) {
+            return null;
+        } catch (WebDriverException wde) {
+            // The page navigated away or the script could not be run, so let the caller poll instead.
+            return null;
+        }
+
+        if (UNSUPPORTED.equals(result)) {
+            return null;
+        }
+
+        if ((null == result) || ((result instanceof List) && ((List<?>) result).isEmpty())) {
+            throw new TimeoutException("Timed out after " + timeoutMillis + "ms waiting for " + bys
+                    + ((null == text) ? "" : " with text \"" + text + "\""));
+        }
+
+        return result;
+    }
+
+}
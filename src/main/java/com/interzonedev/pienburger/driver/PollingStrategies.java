@@ -0,0 +1,114 @@
+package com.interzonedev.pienburger.driver;
+
+import java.time.Duration;
+
+/**
+ * Factory methods for the built in {@link PollingStrategy} implementations.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class PollingStrategies {
+
+    /**
+     * The polling interval used by a default {@code WebDriverWait}.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofMillis(500L);
+
+    private PollingStrategies() {
+    }
+
+    /**
+     * Gets a strategy that always sleeps for the same interval.
+     * 
+     * @param interval The interval between attempts.
+     * 
+     * @return Returns a strategy that always sleeps for the specified interval.
+     */
+    public static PollingStrategy fixed(final Duration interval) {
+        checkPositive(interval, "interval");
+
+        return new PollingStrategy() {
+            @Override
+            public Duration getInterval(int attempt) {
+                return interval;
+            }
+
+            @Override
+            public String toString() {
+                return "fixed(" + interval.toMillis() + "ms)";
+            }
+        };
+    }
+
+    /**
+     * Gets a strategy that starts with a short interval and multiplies it after every attempt up to a maximum
+     * interval. Elements that are already present or appear quickly are detected with little latency while long waits
+     * make fewer round trips to the browser.
+     * 
+     * @param initialInterval The interval after the first attempt.
+     * @param multiplier The factor by which the interval grows after every attempt. Must be at least 1.
+     * @param maxInterval The interval the growth is capped at.
+     * 
+     * @return Returns an exponential backoff strategy.
+     */
+    public static PollingStrategy exponentialBackoff(final Duration initialInterval, final double multiplier,
+            final Duration maxInterval) {
+        checkPositive(initialInterval, "initialInterval");
+        checkPositive(maxInterval, "maxInterval");
+        if (multiplier < 1.0d) {
+            throw new IllegalArgumentException("The multiplier must be at least 1");
+        }
+
+        return new PollingStrategy() {
+            @Override
+            public Duration getInterval(int attempt) {
+                double intervalMillis = initialInterval.toMillis() * Math.pow(multiplier, attempt);
+                if (intervalMillis >= maxInterval.toMillis()) {
+                    return maxInterval;
+                }
+                return Duration.ofMillis(Math.max(1L, (long) intervalMillis));
+            }
+
+            @Override
+            public String toString() {
+                return "exponentialBackoff(" + initialInterval.toMillis() + "ms, " + multiplier + ", "
+                        + maxInterval.toMillis() + "ms)";
+            }
+        };
+    }
+
+    /**
+     * Gets a strategy that polls at a fast interval for a number of attempts and at a slow interval afterwards.
+     * 
+     * @param fastInterval The interval used for the first attempts.
+     * @param fastAttempts The number of attempts that use the fast interval.
+     * @param slowInterval The interval used for all later attempts.
+     * 
+     * @return Returns a fast then slow strategy.
+     */
+    public static PollingStrategy fastThenSlow(final Duration fastInterval, final int fastAttempts,
+            final Duration slowInterval) {
+        checkPositive(fastInterval, "fastInterval");
+        checkPositive(slowInterval, "slowInterval");
+
+        return new PollingStrategy() {
+            @Override
+            public Duration getInterval(int attempt) {
+                return (attempt < fastAttempts) ? fastInterval : slowInterval;
+            }
+
+            @Override
+            public String toString() {
+                return "fastThenSlow(" + fastInterval.toMillis() + "ms x " + fastAttempts + ", "
+                        + slowInterval.toMillis() + "ms)";
+            }
+        };
+    }
+
+    private static void checkPositive(Duration duration, String name) {
+        if ((null == duration) || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The " + name + " must be a positive duration");
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.interzonedev.pienburger.driver;
+
+import java.time.Duration;
+
+/**
+ * Determines how long a {@link BrowserWait} sleeps between successive checks of its condition. Shorter intervals detect
+ * elements sooner at the cost of more round trips to the browser. See {@link PollingStrategies} for the built in
+ * implementations.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public interface PollingStrategy {
+
+    /**
+     * Gets the interval to sleep after the specified failed attempt.
+     * 
+     * @param attempt The zero based number of the attempt that just failed.
+     * 
+     * @return Returns the interval to sleep before the next attempt.
+     */
+    Duration getInterval(int attempt);
+
+}
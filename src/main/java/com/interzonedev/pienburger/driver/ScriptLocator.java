@@ -0,0 +1,86 @@
+package com.interzonedev.pienburger.driver;
+
+import org.openqa.selenium.By;
+
+/**
+ * Translates the standard {@link By} locators into a strategy and value pair that can be evaluated inside the page by
+ * the {@link #FIND_FUNCTION} script function. This allows element lookups to be combined with other work in a single
+ * script call instead of a separate round trip to the browser.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+final class ScriptLocator {
+
+    /**
+     * Script source declaring a {@code find(strategy, value, first)} function that returns an array of the elements in
+     * the document that match the strategy and value returned by {@link #toStrategyAndValue(By)}. If {@code first} is
+     * true only the first element is needed, which lets an id be looked up with {@code getElementById} instead of
+     * scanning the document for duplicate ids. The scan is also skipped when no element has the id.
+     */
+    // @formatter:off
+    static final String FIND_FUNCTION =
+            "function find(strategy, value, first) {"
+            + "  var nodes, result = [], i;"
+            + "  switch (strategy) {"
+            + "  case 'id':"
+            + "    var element = document.getElementById(value);"
+            + "    if (!element) { return result; }"
+            + "    if (first && element.id === value) { return [element]; }"
+            + "    nodes = document.querySelectorAll('[id]');"
+            + "    for (i = 0; i < nodes.length; i++) { if (nodes[i].id === value) { result.push(nodes[i]); } }"
+            + "    return result;"
+            + "  case 'name': nodes = document.getElementsByName(value); break;"
+            + "  case 'className': nodes = document.getElementsByClassName(value); break;"
+            + "  case 'tagName': nodes = document.getElementsByTagName(value); break;"
+            + "  case 'cssSelector': nodes = document.querySelectorAll(value); break;"
+            + "  case 'xpath':"
+            + "    var snapshot = document.evaluate(value, document, null,"
+            + "        XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);"
+            + "    for (i = 0; i < snapshot.snapshotLength; i++) { result.push(snapshot.snapshotItem(i)); }"
+            + "    return result;"
+            + "  case 'linkText':"
+            + "  case 'partialLinkText':"
+            + "    nodes = document.getElementsByTagName('a');"
+            + "    for (i = 0; i < nodes.length; i++) {"
+            + "      var linkText = (nodes[i].innerText || nodes[i].textContent || '').replace(/^\\s+|\\s+$/g, '');"
+            + "      if ((strategy === 'linkText') ? (linkText === value) : (linkText.indexOf(value) >= 0)) {"
+            + "        result.push(nodes[i]);"
+            + "      }"
+            + "    }"
+            + "    return result;"
+            + "  default: return result;"
+            + "  }"
+            + "  for (i = 0; i < nodes.length; i++) { result.push(nodes[i]); }"
+            + "  return result;"
+            + "}";
+    // @formatter:on
+
+    private static final String[][] PREFIXES = { { "By.id: ", "id" }, { "By.name: ", "name" },
+            { "By.className: ", "className" }, { "By.tagName: ", "tagName" }, { "By.cssSelector: ", "cssSelector" },
+            { "By.selector: ", "cssSelector" }, { "By.xpath: ", "xpath" }, { "By.linkText: ", "linkText" },
+            { "By.partialLinkText: ", "partialLinkText" } };
+
+    private ScriptLocator() {
+    }
+
+    /**
+     * Gets the strategy and value for the specified {@link By} as understood by {@link #FIND_FUNCTION}.
+     * 
+     * @param by The {@link By} to translate.
+     * 
+     * @return Returns a two element array of the strategy and value, or null if the {@link By} is not one of the
+     *         standard locators and cannot be evaluated in the page.
+     */
+    static String[] toStrategyAndValue(By by) {
+        String description = by.toString();
+
+        for (String[] prefix : PREFIXES) {
+            if (description.startsWith(prefix[0])) {
+                return new String[] { prefix[1], description.substring(prefix[0].length()) };
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Returns a browser session to a clean state between tests so that it can be reused instead of being quit and
+ * relaunched. A reset takes a handful of round trips to the browser, compared to the seconds it takes to launch a new
+ * browser executable.
+ * 
+ * A reset closes every window but the one the session was leased with, clears the local and session storage and the
+ * cookies of the page that is open, navigates to {@code about:blank} and optionally restores the window size. As with
+ * {@link WebDriver.Options#deleteAllCookies()}, only the storage and cookies of the domain of the open page can be
+ * cleared, which for a functional test is the application under test.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class SessionResetter {
+
+    private static final Log log = LogFactory.getLog(SessionResetter.class);
+
+    private static final String CLEAR_STORAGE_SCRIPT = "try { window.localStorage.clear(); } catch (e) {}"
+            + "try { window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Dimension windowSize;
+
+    /**
+     * Constructs an instance that resets the window size of every session to the specified size.
+     * 
+     * @param windowSize The window size to reset to, or null to leave the window size alone.
+     */
+    public SessionResetter(Dimension windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Resets the browser session controlled by the specified {@link WebDriver}.
+     * 
+     * @param driver The {@link WebDriver} whose session to reset.
+     * 
+     * @return Returns true if the session was reset and can be reused, or false if the reset failed and the session
+     *         should be discarded.
+     */
+    public boolean reset(WebDriver driver) {
+        return reset(driver, null);
+    }
+
+    /**
+     * Resets the browser session controlled by the specified {@link WebDriver}, keeping the window with the specified
+     * handle open and closing all others.
+     * 
+     * @param driver The {@link WebDriver} whose session to reset.
+     * @param windowHandle The handle of the window to keep, usually the one that was current when the session was
+     *            leased, or null to keep the current window.
+     * 
+     * @return Returns true if the session was reset and can be reused, or false if the reset failed and the session
+     *         should be discarded.
+     */
+    public boolean reset(WebDriver driver, String windowHandle) {
+        try {
+            closeExtraWindows(driver, windowHandle);
+            clearStorage(driver);
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            if (null != windowSize) {
+                driver.manage().window().setSize(windowSize);
+            }
+            return true;
+        } catch (WebDriverException wde) {
+            log.warn("reset: Error resetting browser session", wde);
+            return false;
+        }
+    }
+
+    private void closeExtraWindows(WebDriver driver, String windowHandle) {
+        Set<String> windowHandles = driver.getWindowHandles();
+        if (windowHandles.size() <= 1) {
+            return;
+        }
+
+        String keptWindowHandle = windowHandles.contains(windowHandle) ? windowHandle : getWindowToKeep(driver,
+                windowHandles);
+        for (String extraWindowHandle : windowHandles) {
+            if (!extraWindowHandle.equals(keptWindowHandle)) {
+                driver.switchTo().window(extraWindowHandle);
+                driver.close();
+            }
+        }
+        driver.switchTo().window(keptWindowHandle);
+    }
+
+    /**
+     * Gets the window to keep when the window the session was leased with is unknown or already closed. The order of
+     * the window handles is unspecified, so the current window is preferred over an arbitrary one.
+     */
+    private String getWindowToKeep(WebDriver driver, Set<String> windowHandles) {
+        try {
+            String currentWindowHandle = driver.getWindowHandle();
+            if (windowHandles.contains(currentWindowHandle)) {
+                return currentWindowHandle;
+            }
+        } catch (NoSuchWindowException nswe) {
+            // The current window was closed by the test.
+        }
+        return windowHandles.iterator().next();
+    }
+
+    private void clearStorage(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+
+        try {
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+        } catch (UnsupportedOperationException uoe) {
+            // JavaScript is disabled, so the page cannot have used storage either.
+        }
+    }
+
+}
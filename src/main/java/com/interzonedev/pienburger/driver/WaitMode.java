@@ -0,0 +1,22 @@
+package com.interzonedev.pienburger.driver;
+
+/**
+ * An enumeration of the strategies {@link BrowserOperations} can use to wait for elements to appear in a page.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public enum WaitMode {
+
+    /**
+     * Repeatedly looks the element up through the driver until it is found or the wait times out.
+     */
+    POLLING,
+
+    /**
+     * Installs a {@code MutationObserver} in the page through a single asynchronous script call that returns as soon
+     * as the element appears. Falls back to {@link #POLLING} for drivers that cannot run asynchronous scripts and for
+     * locators that cannot be evaluated in the page.
+     */
+    MUTATION_OBSERVER
+
+}
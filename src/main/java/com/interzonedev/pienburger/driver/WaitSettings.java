@@ -0,0 +1,123 @@
+package com.interzonedev.pienburger.driver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.NotFoundException;
+
+/**
+ * Immutable value object that holds how long a wait in {@link BrowserOperations} may take, how often it checks its
+ * condition and which exceptions thrown while checking are treated as "not yet" instead of failing the wait.
+ * 
+ * The defaults for a test class come from the {@code FunctionalTestProperties}. Individual calls can pass a variation
+ * of them, for example:
+ * 
+ * <pre>
+ * browserOperations.waitForAndGetElement(driver, by,
+ *         browserOperations.getDefaultWaitSettings().withTimeout(Duration.ofMillis(800L)));
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class WaitSettings {
+
+    private final Duration timeout;
+
+    private final PollingStrategy pollingStrategy;
+
+    private final List<Class<? extends Throwable>> ignoredExceptions;
+
+    /**
+     * Constructs an instance with the specified timeout that polls at the default {@code WebDriverWait} interval and
+     * ignores {@link NotFoundException}.
+     * 
+     * @param timeout The maximum time to wait.
+     */
+    public WaitSettings(Duration timeout) {
+        this(timeout, PollingStrategies.fixed(PollingStrategies.DEFAULT_INTERVAL),
+                Collections.<Class<? extends Throwable>> singletonList(NotFoundException.class));
+    }
+
+    /**
+     * Constructs an instance with the specified values.
+     * 
+     * @param timeout The maximum time to wait.
+     * @param pollingStrategy The {@link PollingStrategy} that determines the interval between checks.
+     * @param ignoredExceptions The exception types that are ignored when thrown while checking the condition.
+     */
+    public WaitSettings(Duration timeout, PollingStrategy pollingStrategy,
+            Collection<Class<? extends Throwable>> ignoredExceptions) {
+        if ((null == timeout) || timeout.isNegative()) {
+            throw new IllegalArgumentException("The timeout must not be negative");
+        }
+        if (null == pollingStrategy) {
+            throw new IllegalArgumentException("The polling strategy must be set");
+        }
+
+        this.timeout = timeout;
+        this.pollingStrategy = pollingStrategy;
+        this.ignoredExceptions = Collections.unmodifiableList(new ArrayList<Class<? extends Throwable>>(
+                ignoredExceptions));
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public PollingStrategy getPollingStrategy() {
+        return pollingStrategy;
+    }
+
+    public List<Class<? extends Throwable>> getIgnoredExceptions() {
+        return ignoredExceptions;
+    }
+
+    /**
+     * Determines whether the specified exception is an instance of one of the ignored exception types.
+     * 
+     * @param throwable The exception thrown while checking a wait condition.
+     * 
+     * @return Returns true if the exception should be ignored, otherwise false.
+     */
+    public boolean isIgnored(Throwable throwable) {
+        for (Class<? extends Throwable> ignoredException : ignoredExceptions) {
+            if (ignoredException.isInstance(throwable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public WaitSettings withTimeout(Duration timeout) {
+        return new WaitSettings(timeout, pollingStrategy, ignoredExceptions);
+    }
+
+    public WaitSettings withPollingStrategy(PollingStrategy pollingStrategy) {
+        return new WaitSettings(timeout, pollingStrategy, ignoredExceptions);
+    }
+
+    /**
+     * Gets a copy of this instance that additionally ignores the specified exception types.
+     * 
+     * @param exceptionTypes The additional exception types to ignore.
+     * 
+     * @return Returns a copy of this instance that additionally ignores the specified exception types.
+     */
+    @SafeVarargs
+    public final WaitSettings ignoring(Class<? extends Throwable>... exceptionTypes) {
+        List<Class<? extends Throwable>> ignored = new ArrayList<Class<? extends Throwable>>(ignoredExceptions);
+        ignored.addAll(Arrays.asList(exceptionTypes));
+        return new WaitSettings(timeout, pollingStrategy, ignored);
+    }
+
+    @Override
+    public String toString() {
+        return "WaitSettings [timeout=" + timeout.toMillis() + "ms, pollingStrategy=" + pollingStrategy
+                + ", ignoredExceptions=" + ignoredExceptions + "]";
+    }
+
+}
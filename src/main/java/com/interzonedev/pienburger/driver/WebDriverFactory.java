@@ -1,21 +1,173 @@
 package com.interzonedev.pienburger.driver;
 
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.Proxy;
 import org.openqa.selenium.WebDriver;
-import org.springframework.context.ApplicationContext;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsRegistry;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.OperationTimer;
+import com.interzonedev.pienburger.proxy.AssetProxyServer;
+import com.interzonedev.pienburger.remote.RemoteTransport;
 
 /**
  * Factory class for getting instances of concrete implementations of {@link WebDriver} for different browsers.
  * 
+ * Besides the shared drivers returned by {@link #getWebDriver(Browser)}, this maintains a {@link WebDriverPool} per
+ * {@link Browser} from which tests lease exclusive sessions. The pools are sized from the following settings in
+ * {@code pienburger.properties}, where the browser specific keys take precedence over the general ones:
+ * 
+ * <ul>
+ * <li>{@code pienburger.pool.minSize} / {@code pienburger.pool.<browserId>.minSize} - sessions started at context
+ * startup (default 0)</li>
+ * <li>{@code pienburger.pool.maxSize} / {@code pienburger.pool.<browserId>.maxSize} - maximum live sessions (defaults
+ * to {@code pienburger.parallel.concurrency}, which defaults to the number of available processors)</li>
+ * <li>{@code pienburger.pool.maxTestsPerSession} - tests run before a session is retired (default 0, unlimited)</li>
+ * <li>{@code pienburger.pool.leaseTimeoutMillis} - how long to wait for a free session (default 60000)</li>
+ * <li>{@code pienburger.pool.healthCheckOnLease} - whether to verify idle sessions before leasing (default true)</li>
+ * <li>{@code pienburger.session.reset} - whether to reset sessions with a {@link SessionResetter} when they are
+ * returned (default true)</li>
+ * <li>{@code pienburger.session.windowWidth} / {@code pienburger.session.windowHeight} - the window size sessions
+ * are reset to (default unchanged)</li>
+ * <li>{@code pienburger.proxy.enabled} - whether pooled sessions send their HTTP and HTTPS traffic through a shared
+ * {@link AssetProxyServer} (default false)</li>
+ * <li>{@code pienburger.proxy.blocklist} - comma separated regular expressions of URLs the proxy answers with an empty
+ * response</li>
+ * <li>{@code pienburger.proxy.blockImages} - whether the proxy also blocks images (default false)</li>
+ * <li>{@code pienburger.proxy.cacheablePattern} - regular expression of URLs whose responses the proxy caches (default
+ * {@link AssetProxyServer#DEFAULT_CACHEABLE_PATTERN})</li>
+ * <li>{@code pienburger.proxy.maxCacheBytes} - the size of the proxy cache (default 256MB)</li>
+ * </ul>
+ * 
+ * Pooled sessions are launched according to a named {@link DriverProfile}, and every profile of a {@link Browser} has a
+ * pool of its own sized by the settings above. The {@link DriverProfile#DEFAULT} profile launches browsers with the
+ * defaults of their drivers and {@link DriverProfile#FAST} starts from {@link DriverProfile#fast(Browser)}. The options
+ * of any profile can be set or overridden with the following settings, where the browser specific keys take precedence
+ * over the general ones:
+ * 
+ * <ul>
+ * <li>{@code pienburger.profile.<name>.headless} / {@code pienburger.profile.<name>.<browserId>.headless}</li>
+ * <li>{@code pienburger.profile.<name>.images} / {@code pienburger.profile.<name>.<browserId>.images}</li>
+ * <li>{@code pienburger.profile.<name>.gpu} / {@code pienburger.profile.<name>.<browserId>.gpu}</li>
+ * <li>{@code pienburger.profile.<name>.pageLoadStrategy} /
+ * {@code pienburger.profile.<name>.<browserId>.pageLoadStrategy} - normal, eager or none</li>
+ * <li>{@code pienburger.profile.<name>.javascript} / {@code pienburger.profile.<name>.<browserId>.javascript} - left
+ * at the driver default, which is off for HtmlUnit, unless set</li>
+ * <li>{@code pienburger.profile.<name>.css} / {@code pienburger.profile.<name>.<browserId>.css}</li>
+ * <li>{@code pienburger.profile.<name>.arguments} / {@code pienburger.profile.<name>.<browserId>.arguments} - comma
+ * separated extra browser arguments</li>
+ * </ul>
+ * 
+ * Sessions of the {@link Browser#REMOTE} browser are started on the remote server named by the
+ * {@code pienburger.remote.url} setting and share the pooled connections of a {@link RemoteTransport}, configured with
+ * the following settings:
+ * 
+ * <ul>
+ * <li>{@code pienburger.remote.browserName} - the browser requested from the remote server (default firefox)</li>
+ * <li>{@code pienburger.remote.maxConnections} / {@code pienburger.remote.maxConnectionsPerRoute} - the connection pool
+ * limits (default 50 / 20)</li>
+ * <li>{@code pienburger.remote.connectTimeoutMillis} - the connect timeout (default 5000)</li>
+ * <li>{@code pienburger.remote.socketTimeoutMillis} - how long to wait for the response to a command (default
+ * 180000)</li>
+ * <li>{@code pienburger.remote.connectionRequestTimeoutMillis} - how long to wait for a pooled connection (default
+ * 30000)</li>
+ * <li>{@code pienburger.remote.keepAliveMillis} - how long idle connections are kept open (default 30000)</li>
+ * </ul>
+ * 
  * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
  */
 @Named("webDriverFactory")
-public class WebDriverFactory {
+public class WebDriverFactory implements InitializingBean, DisposableBean {
+
+    @Inject
+    @Named("pienburgerSettings")
+    private PienburgerSettings pienburgerSettings;
 
     @Inject
-    private ApplicationContext applicationContext;
+    @Named("metricsRegistry")
+    private MetricsSink metricsSink;
+
+    private AssetProxyServer assetProxyServer;
+
+    private RemoteTransport remoteTransport;
+
+    private final Map<String, WebDriverPool> pools = new HashMap<String, WebDriverPool>();
+
+    private final Map<Browser, WebDriver> sharedDrivers = new EnumMap<Browser, WebDriver>(Browser.class);
+
+    /**
+     * Starts the {@link AssetProxyServer} if it is enabled and pre-warms the pool of every {@link Browser} that has a
+     * minimum pool size configured.
+     */
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (pienburgerSettings.getBoolean("pienburger.proxy.enabled", false)) {
+            assetProxyServer = createAssetProxyServer();
+            assetProxyServer.start();
+        }
+
+        for (Browser browser : Browser.values()) {
+            if (getPoolSetting(browser, "minSize", 0) > 0) {
+                getWebDriverPool(browser).prewarm();
+            }
+        }
+    }
+
+    /**
+     * Closes the shared drivers, quits every pooled session and stops the {@link AssetProxyServer} and
+     * {@link RemoteTransport} when the application context is closed.
+     */
+    @Override
+    public void destroy() {
+        synchronized (sharedDrivers) {
+            for (Map.Entry<Browser, WebDriver> entry : sharedDrivers.entrySet()) {
+                if (Browser.REMOTE == entry.getKey()) {
+                    entry.getValue().quit();
+                } else {
+                    entry.getValue().close();
+                }
+            }
+            sharedDrivers.clear();
+        }
+
+        synchronized (pools) {
+            for (WebDriverPool pool : pools.values()) {
+                pool.shutdown();
+            }
+            pools.clear();
+        }
+
+        if (null != assetProxyServer) {
+            assetProxyServer.stop();
+        }
+
+        synchronized (this) {
+            if (null != remoteTransport) {
+                remoteTransport.stop();
+                remoteTransport = null;
+            }
+        }
+    }
 
     /**
      * Gets a concrete implementation of {@link WebDriver} that corresponds with the {@link Browser} with the specified
@@ -36,7 +188,8 @@ public class WebDriverFactory {
     }
 
     /**
-     * Gets a concrete implementation of {@link WebDriver} that corresponds with the specified {@link Browser}.
+     * Gets a concrete implementation of {@link WebDriver} that corresponds with the specified {@link Browser}. The
+     * driver is launched on the first call for each browser and shared by every later caller.
      * 
      * @param browser An instance of {@link Browser} that specifies which browser executable the returned
      *            {@link WebDriver} controls.
@@ -46,10 +199,321 @@ public class WebDriverFactory {
      */
     public WebDriver getWebDriver(Browser browser) {
 
-        String beanName = browser.id() + "Driver";
+        OperationTimer timer = new OperationTimer(metricsSink, MetricNames.DRIVER_GET,
+                MetricsRegistry.tags(MetricsSink.BROWSER_TAG, browser.id()));
+        try {
+            WebDriver driver;
+            synchronized (sharedDrivers) {
+                driver = sharedDrivers.get(browser);
+                if (null == driver) {
+                    driver = (Browser.REMOTE == browser) ? createRemoteWebDriver(new DriverProfile(
+                            DriverProfile.DEFAULT)) : BeanUtils.instantiateClass(browser.driverClass());
+                    sharedDrivers.put(browser, driver);
+                }
+            }
+            timer.succeeded();
+            return driver;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Leases an exclusive {@link WebDriver} session for the specified {@link Browser} from its pool. The session must
+     * be handed back with {@link #releaseWebDriver(Browser, WebDriver)} or
+     * {@link #invalidateWebDriver(Browser, WebDriver)} once the caller is done with it.
+     * 
+     * @param browser An instance of {@link Browser} that specifies which browser executable the returned
+     *            {@link WebDriver} controls.
+     * 
+     * @return Returns a pooled {@link WebDriver} that is not shared with any other caller while it is leased.
+     */
+    public WebDriver leaseWebDriver(Browser browser) {
+        return leaseWebDriver(browser, DriverProfile.DEFAULT);
+    }
+
+    /**
+     * Leases an exclusive {@link WebDriver} session for the specified {@link Browser} launched with the named
+     * {@link DriverProfile} from the pool of that profile. The session must be handed back with
+     * {@link #releaseWebDriver(Browser, String, WebDriver)} or {@link #invalidateWebDriver(Browser, String, WebDriver)}
+     * once the caller is done with it.
+     * 
+     * @param browser An instance of {@link Browser} that specifies which browser executable the returned
+     *            {@link WebDriver} controls.
+     * @param profileName The name of the {@link DriverProfile} to launch the browser with, or null for the
+     *            {@link DriverProfile#DEFAULT} profile.
+     * 
+     * @return Returns a pooled {@link WebDriver} that is not shared with any other caller while it is leased.
+     */
+    public WebDriver leaseWebDriver(Browser browser, String profileName) {
+        return getWebDriverPool(browser, profileName).lease();
+    }
+
+    /**
+     * Returns a session leased with {@link #leaseWebDriver(Browser)} to its pool so it can be reused.
+     * 
+     * @param browser The {@link Browser} the session was leased for.
+     * @param driver The leased {@link WebDriver}.
+     */
+    public void releaseWebDriver(Browser browser, WebDriver driver) {
+        releaseWebDriver(browser, DriverProfile.DEFAULT, driver);
+    }
+
+    /**
+     * Returns a session leased with {@link #leaseWebDriver(Browser, String)} to its pool so it can be reused.
+     * 
+     * @param browser The {@link Browser} the session was leased for.
+     * @param profileName The name of the {@link DriverProfile} the session was leased for.
+     * @param driver The leased {@link WebDriver}.
+     */
+    public void releaseWebDriver(Browser browser, String profileName, WebDriver driver) {
+        getWebDriverPool(browser, profileName).release(driver);
+    }
+
+    /**
+     * Quits a session leased with {@link #leaseWebDriver(Browser)} instead of returning it to its pool.
+     * 
+     * @param browser The {@link Browser} the session was leased for.
+     * @param driver The leased {@link WebDriver}.
+     */
+    public void invalidateWebDriver(Browser browser, WebDriver driver) {
+        invalidateWebDriver(browser, DriverProfile.DEFAULT, driver);
+    }
+
+    /**
+     * Quits a session leased with {@link #leaseWebDriver(Browser, String)} instead of returning it to its pool.
+     * 
+     * @param browser The {@link Browser} the session was leased for.
+     * @param profileName The name of the {@link DriverProfile} the session was leased for.
+     * @param driver The leased {@link WebDriver}.
+     */
+    public void invalidateWebDriver(Browser browser, String profileName, WebDriver driver) {
+        getWebDriverPool(browser, profileName).invalidate(driver);
+    }
 
-        WebDriver driver = (WebDriver) applicationContext.getBean(beanName);
+    /**
+     * Gets the {@link WebDriverPool} for the specified {@link Browser} and the {@link DriverProfile#DEFAULT} profile,
+     * creating it on first use.
+     * 
+     * @param browser The {@link Browser} whose pool to get.
+     * 
+     * @return Returns the {@link WebDriverPool} for the specified {@link Browser}.
+     */
+    public WebDriverPool getWebDriverPool(Browser browser) {
+        return getWebDriverPool(browser, DriverProfile.DEFAULT);
+    }
+
+    /**
+     * Gets the {@link WebDriverPool} for the specified {@link Browser} and named {@link DriverProfile}, creating it on
+     * first use.
+     * 
+     * @param browser The {@link Browser} whose pool to get.
+     * @param profileName The name of the {@link DriverProfile} whose pool to get, or null for the
+     *            {@link DriverProfile#DEFAULT} profile.
+     * 
+     * @return Returns the {@link WebDriverPool} for the specified {@link Browser} and {@link DriverProfile}.
+     */
+    public WebDriverPool getWebDriverPool(final Browser browser, String profileName) {
+        String poolKey = browser.id() + "/" + ((null == profileName) ? DriverProfile.DEFAULT : profileName);
+
+        synchronized (pools) {
+            WebDriverPool pool = pools.get(poolKey);
+
+            if (null == pool) {
+                final DriverProfile profile = resolveDriverProfile(browser, profileName);
+                Supplier<WebDriver> webDriverSupplier = new Supplier<WebDriver>() {
+                    @Override
+                    public WebDriver get() {
+                        return createWebDriver(browser, profile);
+                    }
+                };
+
+                int concurrency = pienburgerSettings.getParallelConcurrency();
+
+                pool = new WebDriverPool(browser, webDriverSupplier, getPoolSetting(browser, "minSize", 0),
+                        getPoolSetting(browser, "maxSize", concurrency),
+                        pienburgerSettings.getInt("pienburger.pool.maxTestsPerSession", 0),
+                        pienburgerSettings.getLong("pienburger.pool.leaseTimeoutMillis", 60000L),
+                        pienburgerSettings.getBoolean("pienburger.pool.healthCheckOnLease", true));
+                if (pienburgerSettings.getBoolean("pienburger.session.reset", true)) {
+                    pool.setSessionResetter(createSessionResetter());
+                }
+                pools.put(poolKey, pool);
+            }
+
+            return pool;
+        }
+    }
+
+    /**
+     * Resolves the named {@link DriverProfile} for the specified {@link Browser}. The {@link DriverProfile#FAST}
+     * profile starts from {@link DriverProfile#fast(Browser)} and any other name from the driver defaults, and then
+     * the {@code pienburger.profile.<name>} settings are applied.
+     * 
+     * @param browser The {@link Browser} to resolve the profile for.
+     * @param profileName The name of the profile, or null for the {@link DriverProfile#DEFAULT} profile.
+     * 
+     * @return Returns the resolved {@link DriverProfile}.
+     */
+    public DriverProfile resolveDriverProfile(Browser browser, String profileName) {
+        String name = (null == profileName) ? DriverProfile.DEFAULT : profileName;
+        DriverProfile profile = DriverProfile.FAST.equals(name) ? DriverProfile.fast(browser) : new DriverProfile(name);
+
+        profile = profile.withHeadless(getProfileSetting(browser, name, "headless", profile.isHeadless()));
+        profile = profile.withImagesEnabled(getProfileSetting(browser, name, "images", profile.isImagesEnabled()));
+        profile = profile.withGpuEnabled(getProfileSetting(browser, name, "gpu", profile.isGpuEnabled()));
+        profile = profile.withCssEnabled(getProfileSetting(browser, name, "css", profile.isCssEnabled()));
+
+        String prefix = "pienburger.profile." + name + ".";
+        String browserPrefix = prefix + browser.id() + ".";
+
+        String javascript = pienburgerSettings.getString(prefix + "javascript", null);
+        javascript = pienburgerSettings.getString(browserPrefix + "javascript", javascript);
+        if (null != javascript) {
+            profile = profile.withJavascriptEnabled(Boolean.valueOf(javascript));
+        }
+
+        String pageLoadStrategy = pienburgerSettings.getString(prefix + "pageLoadStrategy",
+                profile.getPageLoadStrategy());
+        profile = profile.withPageLoadStrategy(pienburgerSettings.getString(browserPrefix + "pageLoadStrategy",
+                pageLoadStrategy));
+
+        String arguments = pienburgerSettings.getString(prefix + "arguments", null);
+        arguments = pienburgerSettings.getString(browserPrefix + "arguments", arguments);
+        if (null != arguments) {
+            List<String> extraArguments = new ArrayList<String>(profile.getArguments());
+            for (String argument : Arrays.asList(arguments.split(","))) {
+                if (!argument.trim().isEmpty()) {
+                    extraArguments.add(argument.trim());
+                }
+            }
+            profile = profile.withArguments(extraArguments);
+        }
+
+        return profile;
+    }
+
+    /**
+     * Gets the {@link AssetProxyServer} that pooled sessions are configured to use.
+     * 
+     * @return Returns the running {@link AssetProxyServer}, or null if the proxy is not enabled.
+     */
+    public AssetProxyServer getAssetProxyServer() {
+        return assetProxyServer;
+    }
+
+    /**
+     * Launches a new browser session of the specified {@link Browser} configured by the specified
+     * {@link DriverProfile} and to use the {@link AssetProxyServer} if it is running. Unlike
+     * {@link #getWebDriver(Browser)} this never returns a shared instance.
+     */
+    private WebDriver createWebDriver(Browser browser, DriverProfile profile) {
+        OperationTimer timer = new OperationTimer(metricsSink, MetricNames.DRIVER_CREATE,
+                MetricsRegistry.tags(MetricsSink.BROWSER_TAG, browser.id(), MetricsSink.PROFILE_TAG,
+                        profile.getName()));
+        try {
+            WebDriver driver;
+            if (Browser.REMOTE == browser) {
+                driver = createRemoteWebDriver(profile);
+            } else {
+                Proxy proxy = null;
+                if (null != assetProxyServer) {
+                    proxy = new Proxy();
+                    proxy.setHttpProxy(assetProxyServer.getAddress());
+                    proxy.setSslProxy(assetProxyServer.getSslAddress());
+                }
+
+                driver = new DriverLauncher().launch(browser, profile, proxy);
+            }
+            timer.succeeded();
+            return driver;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Starts a session on the remote server through the {@link RemoteTransport}, starting the transport on first use.
+     * The {@link AssetProxyServer} only listens on the loopback interface, so remote sessions do not use it.
+     */
+    private WebDriver createRemoteWebDriver(DriverProfile profile) {
+        RemoteTransport transport;
+        synchronized (this) {
+            if (null == remoteTransport) {
+                remoteTransport = createRemoteTransport();
+                remoteTransport.start();
+            }
+            transport = remoteTransport;
+        }
+
+        DesiredCapabilities capabilities = new DriverLauncher().toCapabilities(pienburgerSettings.getString(
+                "pienburger.remote.browserName", "firefox"), profile);
+
+        return transport.createWebDriver(capabilities, Browser.REMOTE.id());
+    }
+
+    private RemoteTransport createRemoteTransport() {
+        String remoteUrl = pienburgerSettings.getString("pienburger.remote.url", null);
+        if (null == remoteUrl) {
+            throw new IllegalStateException("The pienburger.remote.url setting is required for the remote browser");
+        }
+
+        RemoteTransport transport;
+        try {
+            transport = new RemoteTransport(new URL(remoteUrl), metricsSink);
+        } catch (MalformedURLException mue) {
+            throw new IllegalStateException("Invalid pienburger.remote.url setting: " + remoteUrl, mue);
+        }
+
+        transport.setMaxConnections(pienburgerSettings.getInt("pienburger.remote.maxConnections", 50));
+        transport.setMaxConnectionsPerRoute(pienburgerSettings.getInt("pienburger.remote.maxConnectionsPerRoute", 20));
+        transport.setConnectTimeoutMillis(pienburgerSettings.getInt("pienburger.remote.connectTimeoutMillis", 5000));
+        transport.setSocketTimeoutMillis(pienburgerSettings.getInt("pienburger.remote.socketTimeoutMillis", 180000));
+        transport.setConnectionRequestTimeoutMillis(pienburgerSettings.getInt(
+                "pienburger.remote.connectionRequestTimeoutMillis", 30000));
+        transport.setKeepAliveMillis(pienburgerSettings.getLong("pienburger.remote.keepAliveMillis", 30000L));
+
+        return transport;
+    }
+
+    private AssetProxyServer createAssetProxyServer() {
+        List<String> blocklist = new ArrayList<String>();
+        for (String pattern : pienburgerSettings.getString("pienburger.proxy.blocklist", "").split(",")) {
+            if (!pattern.trim().isEmpty()) {
+                blocklist.add(pattern.trim());
+            }
+        }
+        if (pienburgerSettings.getBoolean("pienburger.proxy.blockImages", false)) {
+            blocklist.add(AssetProxyServer.IMAGES_PATTERN);
+        }
+
+        String cacheablePattern = pienburgerSettings.getString("pienburger.proxy.cacheablePattern",
+                AssetProxyServer.DEFAULT_CACHEABLE_PATTERN);
+        long maxCacheBytes = pienburgerSettings.getLong("pienburger.proxy.maxCacheBytes", 256L * 1024L * 1024L);
+
+        return new AssetProxyServer(blocklist, cacheablePattern, maxCacheBytes);
+    }
+
+    private SessionResetter createSessionResetter() {
+        int windowWidth = pienburgerSettings.getInt("pienburger.session.windowWidth", 0);
+        int windowHeight = pienburgerSettings.getInt("pienburger.session.windowHeight", 0);
+
+        Dimension windowSize = null;
+        if ((windowWidth > 0) && (windowHeight > 0)) {
+            windowSize = new Dimension(windowWidth, windowHeight);
+        }
+
+        return new SessionResetter(windowSize);
+    }
+
+    private boolean getProfileSetting(Browser browser, String profileName, String name, boolean defaultValue) {
+        boolean value = pienburgerSettings.getBoolean("pienburger.profile." + profileName + "." + name, defaultValue);
+        return pienburgerSettings.getBoolean("pienburger.profile." + profileName + "." + browser.id() + "." + name,
+                value);
+    }
 
-        return driver;
+    private int getPoolSetting(Browser browser, String name, int defaultValue) {
+        int value = pienburgerSettings.getInt("pienburger.pool." + name, defaultValue);
+        return pienburgerSettings.getInt("pienburger.pool." + browser.id() + "." + name, value);
     }
 }
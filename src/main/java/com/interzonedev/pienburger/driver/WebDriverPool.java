@@ -0,0 +1,419 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * A bounded pool of live {@link WebDriver} sessions for a single {@link Browser}. Sessions are leased by a test for
+ * its duration and returned afterwards so that the cost of launching the browser executable is paid once per pooled
+ * session instead of once per test.
+ * 
+ * Idle sessions are health checked when leased and discarded if the browser has crashed. If a {@link SessionResetter}
+ * is set, sessions are reset when they are returned so that no cookies, storage or windows leak from one test into
+ * the next. A session is discarded when its reset fails or when it is returned after running the configured maximum
+ * number of tests.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class WebDriverPool {
+
+    private static final Log log = LogFactory.getLog(WebDriverPool.class);
+
+    private final Browser browser;
+
+    private final Supplier<WebDriver> webDriverSupplier;
+
+    private final int minSize;
+
+    private int maxSize;
+
+    private final int maxTestsPerSession;
+
+    private final long leaseTimeoutMillis;
+
+    private final boolean healthCheckOnLease;
+
+    private volatile SessionResetter sessionResetter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition sessionAvailable = lock.newCondition();
+
+    private final Deque<PooledSession> idleSessions = new ArrayDeque<PooledSession>();
+
+    private final Map<WebDriver, PooledSession> leasedSessions = new IdentityHashMap<WebDriver, PooledSession>();
+
+    private int size;
+
+    private boolean shutdown;
+
+    /**
+     * Constructs a pool of sessions for the specified {@link Browser}.
+     * 
+     * @param browser The {@link Browser} whose sessions are pooled.
+     * @param webDriverSupplier Creates a new {@link WebDriver} session each time it is called.
+     * @param minSize The number of sessions to create up front when the pool is pre-warmed.
+     * @param maxSize The maximum number of live sessions, leased or idle.
+     * @param maxTestsPerSession The number of tests after which a session is discarded instead of being reused. Zero
+     *            means sessions are reused indefinitely.
+     * @param leaseTimeoutMillis The number of milliseconds to wait for a session when all sessions are leased.
+     * @param healthCheckOnLease Whether idle sessions are checked for a responsive browser before being leased.
+     */
+    public WebDriverPool(Browser browser, Supplier<WebDriver> webDriverSupplier, int minSize, int maxSize,
+            int maxTestsPerSession, long leaseTimeoutMillis, boolean healthCheckOnLease) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("The maximum pool size must be at least 1");
+        }
+        if ((minSize < 0) || (minSize > maxSize)) {
+            throw new IllegalArgumentException("The minimum pool size must be between 0 and " + maxSize);
+        }
+
+        this.browser = browser;
+        this.webDriverSupplier = webDriverSupplier;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxTestsPerSession = maxTestsPerSession;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.healthCheckOnLease = healthCheckOnLease;
+    }
+
+    public Browser getBrowser() {
+        return browser;
+    }
+
+    public SessionResetter getSessionResetter() {
+        return sessionResetter;
+    }
+
+    /**
+     * Sets the {@link SessionResetter} used to reset sessions when they are returned to the pool.
+     * 
+     * @param sessionResetter The {@link SessionResetter} to use, or null to return sessions to the pool as they are.
+     */
+    public void setSessionResetter(SessionResetter sessionResetter) {
+        this.sessionResetter = sessionResetter;
+    }
+
+    public int getMaxSize() {
+        lock.lock();
+        try {
+            return maxSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Raises the maximum number of live sessions to at least the specified size, for example so that every virtual
+     * user of a load run can hold a session at once. The maximum is never lowered.
+     * 
+     * @param maxSize The maximum number of live sessions the pool must allow.
+     */
+    public void ensureMaxSize(int maxSize) {
+        lock.lock();
+        try {
+            if (maxSize > this.maxSize) {
+                this.maxSize = maxSize;
+                sessionAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates sessions until the pool holds at least the minimum number of sessions. If a session cannot be created,
+     * the sessions created so far are quit before the failure is rethrown.
+     */
+    public void prewarm() {
+        List<PooledSession> created = new ArrayList<PooledSession>();
+
+        try {
+            while (reserveSlotBelow(minSize)) {
+                created.add(createSession());
+            }
+        } catch (RuntimeException re) {
+            for (PooledSession session : created) {
+                destroy(session);
+            }
+            throw re;
+        }
+
+        lock.lock();
+        try {
+            idleSessions.addAll(created);
+            sessionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (!created.isEmpty()) {
+            log.info("prewarm: Started " + created.size() + " " + browser.id() + " session(s)");
+        }
+    }
+
+    /**
+     * Leases a session from the pool, creating a new one if no idle session is available and the pool is below its
+     * maximum size. Blocks for up to the lease timeout if every session is currently leased.
+     * 
+     * @return Returns a {@link WebDriver} that is exclusively held by the caller until it is returned with
+     *         {@link #release(WebDriver)} or {@link #invalidate(WebDriver)}.
+     * 
+     * @throws IllegalStateException Thrown if no session becomes available before the lease timeout or the pool has
+     *             been shut down.
+     */
+    public WebDriver lease() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+
+        while (true) {
+            PooledSession session = null;
+
+            lock.lock();
+            try {
+                while (!shutdown && idleSessions.isEmpty() && (size >= maxSize)) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        throw new IllegalStateException("Timed out after " + leaseTimeoutMillis
+                                + "ms waiting for an available " + browser.id() + " session");
+                    }
+                    sessionAvailable.awaitNanos(remaining);
+                }
+
+                if (shutdown) {
+                    throw new IllegalStateException("The " + browser.id() + " session pool has been shut down");
+                }
+
+                if (idleSessions.isEmpty()) {
+                    size++;
+                } else {
+                    session = idleSessions.pollFirst();
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a " + browser.id() + " session", ie);
+            } finally {
+                lock.unlock();
+            }
+
+            if (null == session) {
+                session = createSession();
+            } else if (healthCheckOnLease && !isHealthy(session)) {
+                log.warn("lease: Discarding unresponsive " + browser.id() + " session");
+                destroy(session);
+                continue;
+            }
+
+            if (null == session.windowHandle) {
+                session.windowHandle = getWindowHandle(session);
+            }
+
+            lock.lock();
+            try {
+                leasedSessions.put(session.driver, session);
+            } finally {
+                lock.unlock();
+            }
+
+            return session.driver;
+        }
+    }
+
+    /**
+     * Returns a leased session to the pool after a test has run with it. The session is reset if a
+     * {@link SessionResetter} is set, and discarded if the reset fails or it has run the maximum number of tests per
+     * session.
+     * 
+     * @param driver The {@link WebDriver} previously leased from this pool.
+     */
+    public void release(WebDriver driver) {
+        PooledSession session = removeLeased(driver);
+        session.testsRun++;
+
+        if ((maxTestsPerSession > 0) && (session.testsRun >= maxTestsPerSession)) {
+            log.debug("release: Retiring " + browser.id() + " session after " + session.testsRun + " tests");
+            destroy(session);
+            return;
+        }
+
+        SessionResetter resetter = sessionResetter;
+        if ((null != resetter) && !resetter.reset(session.driver, session.windowHandle)) {
+            log.warn("release: Discarding " + browser.id() + " session that could not be reset");
+            destroy(session);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (shutdown) {
+                quit(session);
+                size--;
+            } else {
+                // Most recently used first so that the warmest session is handed out next.
+                idleSessions.addFirst(session);
+            }
+            sessionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards a leased session instead of returning it to the pool, for example after the browser has crashed.
+     * 
+     * @param driver The {@link WebDriver} previously leased from this pool.
+     */
+    public void invalidate(WebDriver driver) {
+        destroy(removeLeased(driver));
+    }
+
+    /**
+     * Quits every idle session and prevents any further leases. Sessions that are still leased are quit when they are
+     * returned.
+     */
+    public void shutdown() {
+        List<PooledSession> toQuit;
+
+        lock.lock();
+        try {
+            shutdown = true;
+            toQuit = new ArrayList<PooledSession>(idleSessions);
+            idleSessions.clear();
+            size -= toQuit.size();
+            sessionAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (PooledSession session : toQuit) {
+            quit(session);
+        }
+    }
+
+    public int getSize() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idleSessions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean reserveSlotBelow(int limit) {
+        lock.lock();
+        try {
+            if (shutdown || (size >= limit)) {
+                return false;
+            }
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledSession createSession() {
+        try {
+            return new PooledSession(webDriverSupplier.get());
+        } catch (RuntimeException re) {
+            lock.lock();
+            try {
+                size--;
+                sessionAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw re;
+        }
+    }
+
+    private PooledSession removeLeased(WebDriver driver) {
+        lock.lock();
+        try {
+            PooledSession session = leasedSessions.remove(driver);
+            if (null == session) {
+                throw new IllegalArgumentException("The driver was not leased from the " + browser.id()
+                        + " session pool");
+            }
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isHealthy(PooledSession session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException wde) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the handle of the window the session is in when it is first leased, which is the window kept open when the
+     * session is reset. A reset switches back to that window, so it stays the same for later leases.
+     */
+    private String getWindowHandle(PooledSession session) {
+        try {
+            return session.driver.getWindowHandle();
+        } catch (WebDriverException wde) {
+            return null;
+        }
+    }
+
+    private void destroy(PooledSession session) {
+        quit(session);
+
+        lock.lock();
+        try {
+            size--;
+            sessionAvailable.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void quit(PooledSession session) {
+        try {
+            session.driver.quit();
+        } catch (WebDriverException wde) {
+            log.warn("quit: Error quitting " + browser.id() + " session", wde);
+        }
+    }
+
+    private static class PooledSession {
+
+        private final WebDriver driver;
+
+        private int testsRun;
+
+        private String windowHandle;
+
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.interzonedev.pienburger.load;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.interzonedev.pienburger.metrics.InMemoryMetricsSink;
+import com.interzonedev.pienburger.metrics.InMemoryMetricsSink.Metric;
+import com.interzonedev.pienburger.metrics.LatencyHistogram;
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.Outcome;
+
+/**
+ * The results of a {@link LoadRunner} run: the latency percentiles and throughput of every flow iteration and of every
+ * browser operation step within the flows.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LoadReport {
+
+    private final LoadSchedule schedule;
+
+    private final InMemoryMetricsSink metricsSink;
+
+    private final long elapsedNanos;
+
+    private final long missedIterationCount;
+
+    LoadReport(LoadSchedule schedule, InMemoryMetricsSink metricsSink, long elapsedNanos, long missedIterationCount) {
+        this.schedule = schedule;
+        this.metricsSink = metricsSink;
+        this.elapsedNanos = elapsedNanos;
+        this.missedIterationCount = missedIterationCount;
+    }
+
+    public LoadSchedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Gets the metrics recorded during the run, including the lifecycle metrics of the flows.
+     * 
+     * @return Returns the {@link InMemoryMetricsSink} the run recorded to.
+     */
+    public InMemoryMetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getIterationCount() {
+        long count = 0L;
+        for (Metric metric : getIterationMetrics()) {
+            count += metric.getHistogram().getCount();
+        }
+        return count;
+    }
+
+    public long getFailedIterationCount() {
+        long count = 0L;
+        for (Metric metric : getIterationMetrics()) {
+            count += metric.getCount(Outcome.FAILURE) + metric.getCount(Outcome.TIMEOUT);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of iterations a constant rate schedule could not start because every user was busy.
+     * 
+     * @return Returns the number of missed iterations, which is always zero for the other schedules.
+     */
+    public long getMissedIterationCount() {
+        return missedIterationCount;
+    }
+
+    /**
+     * Gets the number of iterations completed per second over the whole run.
+     * 
+     * @return Returns the iteration throughput.
+     */
+    public double getThroughput() {
+        return perSecond(getIterationCount());
+    }
+
+    /**
+     * Gets the metrics of the flow iterations, one per flow.
+     * 
+     * @return Returns the iteration metrics sorted by flow name.
+     */
+    public List<Metric> getIterationMetrics() {
+        List<Metric> iterationMetrics = new ArrayList<Metric>();
+        for (Metric metric : metricsSink.getMetrics()) {
+            if (MetricNames.LOAD_ITERATION.equals(metric.getName())) {
+                iterationMetrics.add(metric);
+            }
+        }
+        sort(iterationMetrics);
+        return iterationMetrics;
+    }
+
+    /**
+     * Gets the metrics of the browser operation steps, one per flow and operation.
+     * 
+     * @return Returns the step metrics sorted by flow and operation name.
+     */
+    public List<Metric> getStepMetrics() {
+        List<Metric> stepMetrics = new ArrayList<Metric>();
+        for (Metric metric : metricsSink.getMetrics()) {
+            if (metric.getName().startsWith(MetricNames.BROWSER_OPERATION_PREFIX)) {
+                stepMetrics.add(metric);
+            }
+        }
+        sort(stepMetrics);
+        return stepMetrics;
+    }
+
+    /**
+     * Writes the report to the specified writer.
+     * 
+     * @param out The {@link PrintWriter} to write the report to.
+     */
+    public void write(PrintWriter out) {
+        out.println("Pienburger load run - " + schedule);
+        out.println(String.format("elapsed %s s, %d iterations, %d failed, %d missed, %.2f iterations/s",
+                seconds(elapsedNanos), getIterationCount(), getFailedIterationCount(), missedIterationCount,
+                getThroughput()));
+
+        out.println();
+        out.println("Iterations");
+        writeHeader(out, "flow");
+        for (Metric metric : getIterationMetrics()) {
+            writeRow(out, metric.getTags().get(MetricsSink.TEST_CLASS_TAG), metric);
+        }
+
+        out.println();
+        out.println("Steps");
+        writeHeader(out, "flow / operation");
+        for (Metric metric : getStepMetrics()) {
+            String operation = metric.getName().substring(MetricNames.BROWSER_OPERATION_PREFIX.length());
+            writeRow(out, metric.getTags().get(MetricsSink.TEST_CLASS_TAG) + " " + operation, metric);
+        }
+
+        out.flush();
+    }
+
+    private void writeHeader(PrintWriter out, String label) {
+        out.println(String.format("  %-64s %8s %8s %8s %9s %9s %9s %9s %9s", label, "count", "failed", "timeouts",
+                "per s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+    }
+
+    private void writeRow(PrintWriter out, String label, Metric metric) {
+        LatencyHistogram histogram = metric.getHistogram();
+        out.println(String.format("  %-64s %8d %8d %8d %9.2f %9s %9s %9s %9s", label, histogram.getCount(),
+                metric.getCount(Outcome.FAILURE), metric.getCount(Outcome.TIMEOUT), perSecond(histogram.getCount()),
+                millis(histogram.getPercentileNanos(50.0d)), millis(histogram.getPercentileNanos(90.0d)),
+                millis(histogram.getPercentileNanos(99.0d)), millis(histogram.getMaxNanos())));
+    }
+
+    private double perSecond(long count) {
+        return (elapsedNanos <= 0L) ? 0.0d : count / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1L));
+    }
+
+    private void sort(List<Metric> metrics) {
+        Collections.sort(metrics, new Comparator<Metric>() {
+            @Override
+            public int compare(Metric a, Metric b) {
+                String aKey = a.getTags().get(MetricsSink.TEST_CLASS_TAG) + " " + a.getName();
+                String bKey = b.getTags().get(MetricsSink.TEST_CLASS_TAG) + " " + b.getName();
+                return aKey.compareTo(bKey);
+            }
+        });
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+
+    private static String seconds(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.SECONDS.toNanos(1L));
+    }
+
+}
@@ -0,0 +1,330 @@
+package com.interzonedev.pienburger.load;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runner.JUnitCore;
+import org.junit.runner.Request;
+import org.junit.runner.Result;
+import org.junit.runner.notification.Failure;
+import org.openqa.selenium.TimeoutException;
+
+import com.interzonedev.pienburger.AbstractFunctionalTest;
+import com.interzonedev.pienburger.FunctionalTestContext;
+import com.interzonedev.pienburger.async.AsyncExecutors;
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.metrics.InMemoryMetricsSink;
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsRegistry;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.Outcome;
+import com.interzonedev.pienburger.parallel.WorkerDataSource;
+import com.interzonedev.zankou.dataset.DataSet;
+import com.interzonedev.zankou.dataset.DataSets;
+
+/**
+ * Replays functional test flows, which are {@link AbstractFunctionalTest} subclasses or single test methods of them, as
+ * concurrent virtual users against the application URL in their {@code FunctionalTestProperties}. This lets the same
+ * flows serve as functional tests and as a load test.
+ * 
+ * Each iteration of a virtual user runs the next flow, in round robin order, through JUnit exactly as it would run in
+ * a functional test build, so datasets, rules and assertions all apply. The virtual users override the browser of the
+ * flows, by default with HtmlUnit since its sessions are cheap enough to run many of them concurrently, and the
+ * {@code openPage} and wait calls of the flows are measured as the steps of the load run. The iterations are paced
+ * according to a {@link LoadSchedule}.
+ * 
+ * <pre>
+ * LoadReport report = new LoadRunner(LoadSchedule.rampUp(50, Duration.ofSeconds(30L), Duration.ofMinutes(5L)))
+ *         .addFlow(SearchTest.class).addFlow(CheckoutTest.class, "testCheckout").run();
+ * report.write(new PrintWriter(System.out));
+ * </pre>
+ * 
+ * The pool of sessions for the browser is grown to hold a session for every virtual user. A {@code SnapshotDataSet}
+ * declared by the flows is loaded once for the run and shared by the virtual users, since restoring it while other
+ * iterations are using it would pull their data out from under them. The Zankou {@code @DataSets} of a flow are still
+ * set up and torn down around every iteration, so a flow that declares them is only run when every virtual user has
+ * its own database, with the data source of the datasets being a {@link WorkerDataSource} over at least one database
+ * per user, as declared with {@link #setWorkerDatabases(int)}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LoadRunner {
+
+    private static final Log log = LogFactory.getLog(LoadRunner.class);
+
+    private final LoadSchedule schedule;
+
+    private final List<Request> flows = new ArrayList<Request>();
+
+    private final List<String> flowNames = new ArrayList<String>();
+
+    private final List<String> zankouDataSetFlows = new ArrayList<String>();
+
+    private Browser browser = Browser.HTMLUNIT;
+
+    private int workerDatabases;
+
+    /**
+     * Constructs a runner that runs its flows according to the specified {@link LoadSchedule}.
+     * 
+     * @param schedule The {@link LoadSchedule} that determines how many virtual users run and how they are paced.
+     */
+    public LoadRunner(LoadSchedule schedule) {
+        this.schedule = schedule;
+    }
+
+    /**
+     * Adds every test method of the specified functional test class as a single flow.
+     * 
+     * @param testClass The functional test class.
+     * 
+     * @return Returns this instance.
+     */
+    public LoadRunner addFlow(Class<? extends AbstractFunctionalTest> testClass) {
+        addFlow(Request.aClass(testClass), testClass.getName(), declaresZankouDataSets(testClass, null));
+        return this;
+    }
+
+    /**
+     * Adds a single test method of the specified functional test class as a flow.
+     * 
+     * @param testClass The functional test class.
+     * @param methodName The name of the test method.
+     * 
+     * @return Returns this instance.
+     */
+    public LoadRunner addFlow(Class<? extends AbstractFunctionalTest> testClass, String methodName) {
+        addFlow(Request.method(testClass, methodName), testClass.getName() + "#" + methodName,
+                declaresZankouDataSets(testClass, methodName));
+        return this;
+    }
+
+    /**
+     * Sets the {@link Browser} used by every virtual user in place of the browser of the flows.
+     * 
+     * @param browser The {@link Browser} to use. Defaults to {@link Browser#HTMLUNIT}.
+     * 
+     * @return Returns this instance.
+     */
+    public LoadRunner setBrowser(Browser browser) {
+        this.browser = browser;
+        return this;
+    }
+
+    /**
+     * Declares that the data source of the Zankou {@code @DataSets} of the flows is a {@link WorkerDataSource} over the
+     * specified number of databases. Each virtual user runs with its index as its worker index, so flows that declare
+     * Zankou datasets can be run by up to this many virtual users without reloading each other's data.
+     * 
+     * @param workerDatabases The number of databases the {@link WorkerDataSource} routes between.
+     * 
+     * @return Returns this instance.
+     */
+    public LoadRunner setWorkerDatabases(int workerDatabases) {
+        this.workerDatabases = workerDatabases;
+        return this;
+    }
+
+    /**
+     * Runs the flows according to the schedule and waits for every iteration to finish.
+     * 
+     * @return Returns the {@link LoadReport} of the run.
+     * 
+     * @throws IllegalStateException Thrown if there are no flows, or if a flow declares Zankou {@code @DataSets} and
+     *             there are fewer worker databases than virtual users.
+     */
+    public LoadReport run() {
+        if (flows.isEmpty()) {
+            throw new IllegalStateException("At least one flow is required");
+        }
+        if (!zankouDataSetFlows.isEmpty() && (workerDatabases < schedule.getUsers())) {
+            throw new IllegalStateException("The flows " + zankouDataSetFlows + " reload their Zankou datasets in "
+                    + "every iteration, which needs a worker database for each of the " + schedule.getUsers()
+                    + " virtual users but only " + workerDatabases + " were declared");
+        }
+
+        log.info("run: Running " + flowNames + " with " + schedule);
+
+        Object loadRun = new Object();
+
+        InMemoryMetricsSink metricsSink = new InMemoryMetricsSink();
+        AtomicLong missedIterations = new AtomicLong();
+        AtomicLong nextFlow = new AtomicLong();
+
+        ExecutorService executorService = AsyncExecutors.newExecutor();
+        long startNanos = System.nanoTime();
+        long endNanos = startNanos + schedule.getTotalDuration().toNanos();
+
+        try {
+            if (LoadSchedule.Model.OPEN == schedule.getModel()) {
+                dispatchAtConstantRate(executorService, loadRun, metricsSink, nextFlow, missedIterations, startNanos,
+                        endNanos);
+            } else {
+                for (int i = 0; i < schedule.getUsers(); i++) {
+                    startUser(executorService, loadRun, i, metricsSink, nextFlow, startNanos, endNanos);
+                }
+            }
+        } finally {
+            executorService.shutdown();
+            try {
+                executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                executorService.shutdownNow();
+            }
+        }
+
+        LoadReport report = new LoadReport(schedule, metricsSink, System.nanoTime() - startNanos,
+                missedIterations.get());
+        log.info("run: Finished " + report.getIterationCount() + " iterations, " + report.getFailedIterationCount()
+                + " failed");
+        return report;
+    }
+
+    private void startUser(ExecutorService executorService, final Object loadRun, final int index,
+            final MetricsSink metricsSink, final AtomicLong nextFlow, final long startNanos, final long endNanos) {
+        executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+                beginUser(loadRun, index, metricsSink);
+                try {
+                    long delayNanos = (startNanos + schedule.getStartDelay(index).toNanos()) - System.nanoTime();
+                    if (delayNanos > 0L) {
+                        TimeUnit.NANOSECONDS.sleep(delayNanos);
+                    }
+                    while (System.nanoTime() < endNanos) {
+                        runIteration(metricsSink, nextFlow);
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    VirtualUser.end();
+                }
+            }
+        });
+    }
+
+    private void dispatchAtConstantRate(ExecutorService executorService, final Object loadRun,
+            final MetricsSink metricsSink, final AtomicLong nextFlow, AtomicLong missedIterations, long startNanos,
+            long endNanos) {
+        final BlockingQueue<Integer> idleUsers = new LinkedBlockingQueue<Integer>();
+        for (int i = 0; i < schedule.getUsers(); i++) {
+            idleUsers.add(i);
+        }
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1L) / schedule.getIterationsPerSecond());
+
+        for (long dueNanos = startNanos; dueNanos < endNanos; dueNanos += intervalNanos) {
+            long delayNanos = dueNanos - System.nanoTime();
+            if (delayNanos > 0L) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(delayNanos);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            final Integer index = idleUsers.poll();
+            if (null == index) {
+                missedIterations.incrementAndGet();
+                continue;
+            }
+
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    beginUser(loadRun, index, metricsSink);
+                    try {
+                        runIteration(metricsSink, nextFlow);
+                    } finally {
+                        VirtualUser.end();
+                        idleUsers.add(index);
+                    }
+                }
+            });
+        }
+    }
+
+    private void beginUser(Object loadRun, int index, MetricsSink metricsSink) {
+        FunctionalTestContext.assignWorkerIndex(index);
+        VirtualUser.begin(new VirtualUser(loadRun, index, schedule.getUsers(), browser, metricsSink));
+    }
+
+    private void runIteration(MetricsSink metricsSink, AtomicLong nextFlow) {
+        int flowIndex = (int) (nextFlow.getAndIncrement() % flows.size());
+        String flowName = flowNames.get(flowIndex);
+
+        long startNanos = System.nanoTime();
+        Outcome outcome;
+        try {
+            Result result = new JUnitCore().run(flows.get(flowIndex));
+            outcome = getOutcome(result);
+            if (Outcome.SUCCESS != outcome) {
+                log.debug("runIteration: " + flowName + " failed - " + result.getFailures().get(0).getMessage());
+            }
+        } catch (RuntimeException re) {
+            outcome = Outcome.FAILURE;
+            log.debug("runIteration: " + flowName + " failed", re);
+        }
+
+        Map<String, String> tags = MetricsRegistry.tags(MetricsSink.TEST_CLASS_TAG, flowName, MetricsSink.BROWSER_TAG,
+                browser.id());
+        metricsSink.record(MetricNames.LOAD_ITERATION, tags, outcome, System.nanoTime() - startNanos);
+    }
+
+    private void addFlow(Request flow, String flowName, boolean declaresZankouDataSets) {
+        flows.add(flow);
+        flowNames.add(flowName);
+        if (declaresZankouDataSets) {
+            zankouDataSetFlows.add(flowName);
+        }
+    }
+
+    /**
+     * Determines whether the specified test class, or the named test method of it, declares Zankou datasets.
+     * 
+     * @param methodName The name of the test method, or null to check every method of the class.
+     */
+    private boolean declaresZankouDataSets(Class<?> testClass, String methodName) {
+        for (Class<?> type = testClass; null != type; type = type.getSuperclass()) {
+            if (isZankouDataSetDeclaration(type)) {
+                return true;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (((null == methodName) || methodName.equals(method.getName()))
+                        && isZankouDataSetDeclaration(method)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isZankouDataSetDeclaration(AnnotatedElement element) {
+        return element.isAnnotationPresent(DataSets.class) || element.isAnnotationPresent(DataSet.class);
+    }
+
+    private Outcome getOutcome(Result result) {
+        if (result.wasSuccessful()) {
+            return Outcome.SUCCESS;
+        }
+        for (Failure failure : result.getFailures()) {
+            if (!(failure.getException() instanceof TimeoutException)) {
+                return Outcome.FAILURE;
+            }
+        }
+        return Outcome.TIMEOUT;
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.interzonedev.pienburger.load;
+
+import java.time.Duration;
+
+/**
+ * Immutable description of how a {@link LoadRunner} starts virtual users and paces their iterations.
+ * 
+ * <ul>
+ * <li>{@link #rampUp(int, Duration, Duration)} starts the users one after the other, evenly spread over the ramp-up
+ * time, and has each run iterations back to back until the hold time after the ramp-up has passed.</li>
+ * <li>{@link #maxThroughput(int, Duration)} starts every user at once and has each run iterations back to back.</li>
+ * <li>{@link #constantRate(double, int, Duration)} starts iterations at a fixed rate regardless of how long they take,
+ * using up to a maximum number of concurrent users. Iterations that are due while every user is busy are skipped and
+ * reported as missed.</li>
+ * </ul>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class LoadSchedule {
+
+    /**
+     * Whether the schedule keeps a fixed number of users busy or starts iterations at a fixed rate.
+     */
+    enum Model {
+        CLOSED, OPEN
+    }
+
+    private final Model model;
+
+    private final int users;
+
+    private final Duration rampUpTime;
+
+    private final Duration holdTime;
+
+    private final double iterationsPerSecond;
+
+    private LoadSchedule(Model model, int users, Duration rampUpTime, Duration holdTime, double iterationsPerSecond) {
+        if (users < 1) {
+            throw new IllegalArgumentException("At least one user is required");
+        }
+        if (rampUpTime.isNegative() || holdTime.isNegative()) {
+            throw new IllegalArgumentException("The durations must not be negative");
+        }
+
+        this.model = model;
+        this.users = users;
+        this.rampUpTime = rampUpTime;
+        this.holdTime = holdTime;
+        this.iterationsPerSecond = iterationsPerSecond;
+    }
+
+    /**
+     * Creates a schedule that starts the specified number of users evenly over the ramp-up time and keeps them all
+     * busy for the hold time.
+     * 
+     * @param users The number of virtual users.
+     * @param rampUpTime The time over which the users are started.
+     * @param holdTime The time for which every user runs once all have started.
+     * 
+     * @return Returns a new {@link LoadSchedule}.
+     */
+    public static LoadSchedule rampUp(int users, Duration rampUpTime, Duration holdTime) {
+        return new LoadSchedule(Model.CLOSED, users, rampUpTime, holdTime, 0.0d);
+    }
+
+    /**
+     * Creates a schedule that starts the specified number of users at once and keeps them busy for the specified
+     * duration.
+     * 
+     * @param users The number of virtual users.
+     * @param duration The time for which the users run.
+     * 
+     * @return Returns a new {@link LoadSchedule}.
+     */
+    public static LoadSchedule maxThroughput(int users, Duration duration) {
+        return new LoadSchedule(Model.CLOSED, users, Duration.ZERO, duration, 0.0d);
+    }
+
+    /**
+     * Creates a schedule that starts iterations at the specified rate for the specified duration.
+     * 
+     * @param iterationsPerSecond The number of iterations started per second.
+     * @param maxUsers The maximum number of iterations that may run concurrently.
+     * @param duration The time for which iterations are started.
+     * 
+     * @return Returns a new {@link LoadSchedule}.
+     */
+    public static LoadSchedule constantRate(double iterationsPerSecond, int maxUsers, Duration duration) {
+        if (iterationsPerSecond <= 0.0d) {
+            throw new IllegalArgumentException("The rate must be positive");
+        }
+        return new LoadSchedule(Model.OPEN, maxUsers, Duration.ZERO, duration, iterationsPerSecond);
+    }
+
+    Model getModel() {
+        return model;
+    }
+
+    /**
+     * Gets the number of virtual users, which for a constant rate schedule is the maximum number of concurrent
+     * iterations.
+     * 
+     * @return Returns the number of virtual users.
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    public Duration getRampUpTime() {
+        return rampUpTime;
+    }
+
+    public Duration getHoldTime() {
+        return holdTime;
+    }
+
+    public double getIterationsPerSecond() {
+        return iterationsPerSecond;
+    }
+
+    /**
+     * Gets the time after which no new iterations are started.
+     * 
+     * @return Returns the ramp-up time plus the hold time.
+     */
+    public Duration getTotalDuration() {
+        return rampUpTime.plus(holdTime);
+    }
+
+    /**
+     * Gets the delay before the specified user starts in a closed model schedule.
+     */
+    Duration getStartDelay(int userIndex) {
+        return rampUpTime.multipliedBy(userIndex).dividedBy(users);
+    }
+
+    @Override
+    public String toString() {
+        if (Model.OPEN == model) {
+            return "constant rate of " + iterationsPerSecond + "/s with up to " + users + " users for "
+                    + holdTime.toMillis() + "ms";
+        }
+        return users + " users, ramp-up " + rampUpTime.toMillis() + "ms, hold " + holdTime.toMillis() + "ms";
+    }
+
+}
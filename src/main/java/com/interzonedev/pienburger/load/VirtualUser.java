@@ -0,0 +1,101 @@
+package com.interzonedev.pienburger.load;
+
+import java.util.Map;
+
+import com.interzonedev.pienburger.driver.Browser;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.Outcome;
+
+/**
+ * One of the concurrent users simulated by a {@link LoadRunner}. The virtual user running on a thread overrides the
+ * {@link Browser} of the functional tests it runs and receives the measurements of their browser operations, so that
+ * the tests themselves need no changes to be replayed as load.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class VirtualUser {
+
+    private static final ThreadLocal<VirtualUser> currentUser = new ThreadLocal<VirtualUser>();
+
+    private final Object loadRun;
+
+    private final int index;
+
+    private final int userCount;
+
+    private final Browser browser;
+
+    private final MetricsSink metricsSink;
+
+    VirtualUser(Object loadRun, int index, int userCount, Browser browser, MetricsSink metricsSink) {
+        this.loadRun = loadRun;
+        this.index = index;
+        this.userCount = userCount;
+        this.browser = browser;
+        this.metricsSink = metricsSink;
+    }
+
+    /**
+     * Gets the virtual user running on the calling thread.
+     * 
+     * @return Returns the {@link VirtualUser} running on the calling thread, or null if the thread is not part of a
+     *         load run.
+     */
+    public static VirtualUser current() {
+        return currentUser.get();
+    }
+
+    /**
+     * Gets the object that identifies the load run this user is part of. It is the same for every user of a run and
+     * differs between runs, so that state shared by the users of a run, such as a loaded dataset, is not shared with
+     * the next run.
+     * 
+     * @return Returns the identity of the load run.
+     */
+    public Object getLoadRun() {
+        return loadRun;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Gets the number of virtual users of the load run, which is the number of browser sessions the run needs at once.
+     * 
+     * @return Returns the number of virtual users of the load run.
+     */
+    public int getUserCount() {
+        return userCount;
+    }
+
+    public Browser getBrowser() {
+        return browser;
+    }
+
+    /**
+     * Gets a {@link MetricsSink} that records to the specified sink as well as to the sink of the load run.
+     * 
+     * @param delegate The {@link MetricsSink} the functional test records to outside of a load run.
+     * 
+     * @return Returns a {@link MetricsSink} that records to both sinks.
+     */
+    public MetricsSink decorate(final MetricsSink delegate) {
+        return new MetricsSink() {
+            @Override
+            public void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos) {
+                metricsSink.record(name, tags, outcome, durationNanos);
+                delegate.record(name, tags, outcome, durationNanos);
+            }
+        };
+    }
+
+    static void begin(VirtualUser virtualUser) {
+        currentUser.set(virtualUser);
+    }
+
+    static void end() {
+        currentUser.remove();
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link MetricsSink} that keeps a {@link LatencyHistogram} and outcome counts in memory for every distinct
+ * combination of metric name and tags.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class InMemoryMetricsSink implements MetricsSink {
+
+    private final ConcurrentMap<MetricId, Metric> metrics = new ConcurrentHashMap<MetricId, Metric>();
+
+    @Override
+    public void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos) {
+        MetricId id = new MetricId(name, tags);
+
+        Metric metric = metrics.get(id);
+        if (null == metric) {
+            Metric created = new Metric(id);
+            metric = metrics.putIfAbsent(id, created);
+            if (null == metric) {
+                metric = created;
+            }
+        }
+
+        metric.record(outcome, durationNanos);
+    }
+
+    /**
+     * Gets every metric recorded so far.
+     * 
+     * @return Returns a snapshot of the list of metrics recorded so far.
+     */
+    public List<Metric> getMetrics() {
+        return new ArrayList<Metric>(metrics.values());
+    }
+
+    /**
+     * Discards every metric recorded so far.
+     */
+    public void clear() {
+        metrics.clear();
+    }
+
+    /**
+     * The latency histogram and outcome counts of one metric name and set of tags.
+     */
+    public static class Metric {
+
+        private final MetricId id;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private final Map<Outcome, AtomicLong> outcomeCounts = new EnumMap<Outcome, AtomicLong>(Outcome.class);
+
+        private Metric(MetricId id) {
+            this.id = id;
+            for (Outcome outcome : Outcome.values()) {
+                outcomeCounts.put(outcome, new AtomicLong());
+            }
+        }
+
+        private void record(Outcome outcome, long durationNanos) {
+            histogram.record(durationNanos);
+            outcomeCounts.get(outcome).incrementAndGet();
+        }
+
+        public String getName() {
+            return id.name;
+        }
+
+        public Map<String, String> getTags() {
+            return id.tags;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getCount(Outcome outcome) {
+            return outcomeCounts.get(outcome).get();
+        }
+    }
+
+    private static final class MetricId {
+
+        private final String name;
+
+        private final Map<String, String> tags;
+
+        private MetricId(String name, Map<String, String> tags) {
+            this.name = name;
+            this.tags = Collections.unmodifiableMap(new TreeMap<String, String>(tags));
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * name.hashCode()) + tags.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MetricId)) {
+                return false;
+            }
+            MetricId other = (MetricId) obj;
+            return name.equals(other.name) && tags.equals(other.tags);
+        }
+    }
+
+}
@@ -0,0 +1,32 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.Map;
+
+/**
+ * {@link MetricsSink} that emits a {@code com.interzonedev.pienburger.Operation} Java Flight Recorder event for every
+ * measurement, so framework operations can be correlated with GC, I/O and thread activity in a flight recording. The
+ * event is committed when the operation is recorded, and its duration is carried in the {@code operationDuration}
+ * field.
+ * 
+ * Requires a JVM with the {@code jdk.jfr} API (Java 11, or Java 8 update 262 and later).
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class JfrMetricsSink implements MetricsSink {
+
+    @Override
+    public void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos) {
+        OperationEvent event = new OperationEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+
+        event.operation = name;
+        event.outcome = outcome.name();
+        event.testClass = tags.get(TEST_CLASS_TAG);
+        event.browser = tags.get(BROWSER_TAG);
+        event.operationDuration = durationNanos;
+        event.commit();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram with logarithmic buckets. Each power of two of microseconds is split into four buckets,
+ * so recorded values are reported with a relative error of at most about 19 percent, which is plenty to tell fast
+ * operations from slow ones while keeping the histogram to a few hundred counters.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+
+    private static final int BUCKETS = 42 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong count = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long durationNanos) {
+        long nanos = Math.max(0L, durationNanos);
+
+        counts.incrementAndGet(bucketIndex(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+
+        long max = maxNanos.get();
+        while ((nanos > max) && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long n = count.get();
+        return (0L == n) ? 0L : (totalNanos.get() / n);
+    }
+
+    /**
+     * Gets an estimate of the specified percentile of the recorded durations.
+     * 
+     * @param percentile The percentile between 0 and 100.
+     * 
+     * @return Returns the upper bound, in nanoseconds, of the bucket holding the specified percentile, capped at the
+     *         maximum recorded duration.
+     */
+    public long getPercentileNanos(double percentile) {
+        long n = count.get();
+        if (0L == n) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil((percentile / 100.0d) * n));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketUpperBoundNanos(i), maxNanos.get());
+            }
+        }
+
+        return maxNanos.get();
+    }
+
+    private static int bucketIndex(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        if (micros < 1L) {
+            return 0;
+        }
+
+        double log2 = Math.log(micros) / Math.log(2.0d);
+        int index = 1 + (int) (log2 * SUB_BUCKETS);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    private static long bucketUpperBoundNanos(int index) {
+        if (0 == index) {
+            return TimeUnit.MICROSECONDS.toNanos(1L);
+        }
+        if ((BUCKETS - 1) == index) {
+            // The last bucket also holds every longer duration, so only the maximum bounds it.
+            return Long.MAX_VALUE;
+        }
+        double micros = Math.pow(2.0d, (double) index / SUB_BUCKETS);
+        return (long) (micros * 1000.0d);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.interzonedev.pienburger.metrics;
+
+/**
+ * The metric names recorded by the pienburger framework.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class MetricNames {
+
+    /**
+     * Prefix of the metrics recorded for each {@code BrowserOperations} method, followed by the method name.
+     */
+    public static final String BROWSER_OPERATION_PREFIX = "pienburger.browser.";
+
+    /**
+     * Launching a new browser session.
+     */
+    public static final String DRIVER_CREATE = "pienburger.driver.create";
+
+    /**
+     * Getting the shared driver from the {@code WebDriverFactory}.
+     */
+    public static final String DRIVER_GET = "pienburger.driver.get";
+
+    /**
+     * Leasing a pooled browser session, including launching it if needed.
+     */
+    public static final String DRIVER_LEASE = "pienburger.driver.lease";
+
+    /**
+     * One wire protocol command sent to a remote browser, tagged with the command name.
+     */
+    public static final String REMOTE_COMMAND = "pienburger.remote.command";
+
+    /**
+     * Loading or restoring the {@code SnapshotDataSet} of a functional test.
+     */
+    public static final String DATASET_PREPARE = "pienburger.dataset.prepare";
+
+    /**
+     * Grabbing the screenshot, page source and console log of a browser after a wait timed out.
+     */
+    public static final String ARTIFACT_CAPTURE = "pienburger.artifact.capture";
+
+    /**
+     * The {@code beforeTest()} method of a functional test.
+     */
+    public static final String TEST_BEFORE = "pienburger.test.before";
+
+    /**
+     * The {@code afterTest()} method of a functional test.
+     */
+    public static final String TEST_AFTER = "pienburger.test.after";
+
+    /**
+     * A whole functional test, from the start of {@code beforeTest()} to the end of {@code afterTest()}. Every other
+     * metric of a test class is part of this one.
+     */
+    public static final String TEST_TOTAL = "pienburger.test.total";
+
+    /**
+     * One iteration of a virtual user in a load run, which is one run of a functional test flow.
+     */
+    public static final String LOAD_ITERATION = "pienburger.load.iteration";
+
+    private MetricNames() {
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+
+/**
+ * The {@link MetricsSink} used throughout the pienburger framework. Every measurement is recorded to an
+ * {@link InMemoryMetricsSink}, to a {@link JfrMetricsSink} if the {@code pienburger.metrics.jfr} setting is true, and
+ * to any additional sinks registered with {@link #addMetricsSink(MetricsSink)}, such as an adapter to a Micrometer
+ * registry.
+ * 
+ * When the application context is closed, a {@link MetricsReport} of where the time was spent per test class is
+ * written to the file named by the {@code pienburger.metrics.reportFile} setting (default
+ * {@code target/pienburger-metrics.txt}). Setting {@code pienburger.metrics.enabled} to false disables recording
+ * altogether.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Named("metricsRegistry")
+public class MetricsRegistry implements MetricsSink, InitializingBean, DisposableBean {
+
+    private static final Log log = LogFactory.getLog(MetricsRegistry.class);
+
+    @Inject
+    @Named("pienburgerSettings")
+    private PienburgerSettings pienburgerSettings;
+
+    private final InMemoryMetricsSink inMemoryMetricsSink = new InMemoryMetricsSink();
+
+    private final List<MetricsSink> metricsSinks = new CopyOnWriteArrayList<MetricsSink>();
+
+    private volatile boolean enabled = true;
+
+    @Override
+    public void afterPropertiesSet() {
+        enabled = pienburgerSettings.getBoolean("pienburger.metrics.enabled", true);
+
+        metricsSinks.add(inMemoryMetricsSink);
+        if (pienburgerSettings.getBoolean("pienburger.metrics.jfr", false)) {
+            metricsSinks.add(new JfrMetricsSink());
+        }
+    }
+
+    /**
+     * Writes the metrics report when the application context is closed.
+     */
+    @Override
+    public void destroy() {
+        if (!enabled || inMemoryMetricsSink.getMetrics().isEmpty()) {
+            return;
+        }
+
+        File reportFile = new File(pienburgerSettings.getString("pienburger.metrics.reportFile",
+                "target/pienburger-metrics.txt"));
+        try {
+            writeReport(reportFile);
+            log.info("destroy: Wrote metrics report to " + reportFile.getAbsolutePath());
+        } catch (IOException ioe) {
+            log.warn("destroy: Error writing metrics report to " + reportFile.getAbsolutePath(), ioe);
+        }
+    }
+
+    @Override
+    public void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+
+        for (MetricsSink metricsSink : metricsSinks) {
+            metricsSink.record(name, tags, outcome, durationNanos);
+        }
+    }
+
+    /**
+     * Registers an additional {@link MetricsSink} that receives every subsequent measurement.
+     * 
+     * @param metricsSink The {@link MetricsSink} to register.
+     */
+    public void addMetricsSink(MetricsSink metricsSink) {
+        metricsSinks.add(metricsSink);
+    }
+
+    public void removeMetricsSink(MetricsSink metricsSink) {
+        metricsSinks.remove(metricsSink);
+    }
+
+    public InMemoryMetricsSink getInMemoryMetricsSink() {
+        return inMemoryMetricsSink;
+    }
+
+    /**
+     * Writes the report of the metrics recorded so far to the specified file.
+     * 
+     * @param reportFile The file to write the report to. Its parent directories are created if needed.
+     * 
+     * @throws IOException Thrown if the report cannot be written.
+     */
+    public void writeReport(File reportFile) throws IOException {
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        if (null != parent) {
+            Files.createDirectories(parent.toPath());
+        }
+
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(Files.newOutputStream(reportFile.toPath()),
+                StandardCharsets.UTF_8));
+        try {
+            new MetricsReport(inMemoryMetricsSink).write(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Builds the tags of a measurement from alternating keys and values, skipping null values.
+     * 
+     * @param keysAndValues Alternating tag keys and values.
+     * 
+     * @return Returns an unmodifiable map of the tags.
+     */
+    public static Map<String, String> tags(String... keysAndValues) {
+        if (0 != (keysAndValues.length % 2)) {
+            throw new IllegalArgumentException("Tags must be given as alternating keys and values");
+        }
+
+        Map<String, String> tags = new HashMap<String, String>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            if (null != keysAndValues[i + 1]) {
+                tags.put(keysAndValues[i], keysAndValues[i + 1]);
+            }
+        }
+        return Collections.unmodifiableMap(tags);
+    }
+
+}
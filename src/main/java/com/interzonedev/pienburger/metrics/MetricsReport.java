@@ -0,0 +1,107 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.interzonedev.pienburger.metrics.InMemoryMetricsSink.Metric;
+
+/**
+ * Writes a plain text report of the metrics held by an {@link InMemoryMetricsSink}, grouped by test class and sorted
+ * so that the test classes and operations that took the most time come first.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class MetricsReport {
+
+    private static final String NO_TEST_CLASS = "(no test class)";
+
+    private final InMemoryMetricsSink inMemoryMetricsSink;
+
+    public MetricsReport(InMemoryMetricsSink inMemoryMetricsSink) {
+        this.inMemoryMetricsSink = inMemoryMetricsSink;
+    }
+
+    /**
+     * Writes the report to the specified writer.
+     * 
+     * @param out The {@link PrintWriter} to write the report to.
+     */
+    public void write(PrintWriter out) {
+        Map<String, List<Metric>> metricsByTestClass = new TreeMap<String, List<Metric>>();
+        for (Metric metric : inMemoryMetricsSink.getMetrics()) {
+            String testClass = metric.getTags().get(MetricsSink.TEST_CLASS_TAG);
+            if (null == testClass) {
+                testClass = NO_TEST_CLASS;
+            }
+            List<Metric> metrics = metricsByTestClass.get(testClass);
+            if (null == metrics) {
+                metrics = new ArrayList<Metric>();
+                metricsByTestClass.put(testClass, metrics);
+            }
+            metrics.add(metric);
+        }
+
+        List<Map.Entry<String, List<Metric>>> testClasses = new ArrayList<Map.Entry<String, List<Metric>>>(
+                metricsByTestClass.entrySet());
+        Collections.sort(testClasses, new Comparator<Map.Entry<String, List<Metric>>>() {
+            @Override
+            public int compare(Map.Entry<String, List<Metric>> a, Map.Entry<String, List<Metric>> b) {
+                return Long.compare(totalNanos(b.getValue()), totalNanos(a.getValue()));
+            }
+        });
+
+        out.println("Pienburger time spent per test class");
+        for (Map.Entry<String, List<Metric>> testClass : testClasses) {
+            List<Metric> metrics = testClass.getValue();
+            Collections.sort(metrics, new Comparator<Metric>() {
+                @Override
+                public int compare(Metric a, Metric b) {
+                    return Long.compare(b.getHistogram().getTotalNanos(), a.getHistogram().getTotalNanos());
+                }
+            });
+
+            out.println();
+            out.println(testClass.getKey() + " - total " + millis(totalNanos(metrics)) + " ms");
+            out.println(String.format("  %-48s %-10s %8s %8s %10s %9s %9s %9s %9s %9s", "operation", "browser",
+                    "count", "timeouts", "total ms", "mean ms", "p50 ms", "p95 ms", "p99 ms", "max ms"));
+            for (Metric metric : metrics) {
+                LatencyHistogram histogram = metric.getHistogram();
+                String browser = metric.getTags().get(MetricsSink.BROWSER_TAG);
+                out.println(String.format("  %-48s %-10s %8d %8d %10s %9s %9s %9s %9s %9s", metric.getName(),
+                        (null == browser) ? "-" : browser, histogram.getCount(), metric.getCount(Outcome.TIMEOUT),
+                        millis(histogram.getTotalNanos()), millis(histogram.getMeanNanos()),
+                        millis(histogram.getPercentileNanos(50.0d)), millis(histogram.getPercentileNanos(95.0d)),
+                        millis(histogram.getPercentileNanos(99.0d)), millis(histogram.getMaxNanos())));
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Gets the time spent in a test class, which is the time of its whole tests if they were recorded and otherwise the
+     * sum of its operations.
+     */
+    private static long totalNanos(List<Metric> metrics) {
+        long operationsTotal = 0L;
+        long testsTotal = -1L;
+        for (Metric metric : metrics) {
+            long metricTotal = metric.getHistogram().getTotalNanos();
+            if (MetricNames.TEST_TOTAL.equals(metric.getName())) {
+                testsTotal = Math.max(testsTotal, 0L) + metricTotal;
+            }
+            operationsTotal += metricTotal;
+        }
+        return (testsTotal >= 0L) ? testsTotal : operationsTotal;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1L));
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.Map;
+
+/**
+ * Receives the latency of every timed operation performed by the pienburger framework. Operations are identified by a
+ * dotted metric name, such as {@code pienburger.browser.openPage}, and a set of tags, such as the test class and
+ * browser, in the same way as a Micrometer {@code Timer}, so an implementation can forward measurements to a
+ * Micrometer {@code MeterRegistry} with {@code registry.timer(name, tags).record(durationNanos, NANOSECONDS)}.
+ * 
+ * Implementations must be thread safe.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public interface MetricsSink {
+
+    /**
+     * Tag holding the name of the test class that performed the operation.
+     */
+    String TEST_CLASS_TAG = "testClass";
+
+    /**
+     * Tag holding the id of the browser the operation was performed against.
+     */
+    String BROWSER_TAG = "browser";
+
+    /**
+     * Tag holding the name of the driver profile a browser session was launched with.
+     */
+    String PROFILE_TAG = "profile";
+
+    /**
+     * Tag holding the name of the wire protocol command sent to a remote browser.
+     */
+    String COMMAND_TAG = "command";
+
+    /**
+     * Records one timed operation.
+     * 
+     * @param name The metric name of the operation.
+     * @param tags The tags that further identify the operation.
+     * @param outcome How the operation ended.
+     * @param durationNanos The duration of the operation in nanoseconds.
+     */
+    void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos);
+
+}
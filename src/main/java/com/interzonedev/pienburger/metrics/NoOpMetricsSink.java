@@ -0,0 +1,21 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.Map;
+
+/**
+ * {@link MetricsSink} that discards every measurement.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public final class NoOpMetricsSink implements MetricsSink {
+
+    public static final NoOpMetricsSink INSTANCE = new NoOpMetricsSink();
+
+    private NoOpMetricsSink() {
+    }
+
+    @Override
+    public void record(String name, Map<String, String> tags, Outcome outcome, long durationNanos) {
+    }
+
+}
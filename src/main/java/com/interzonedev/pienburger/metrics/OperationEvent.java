@@ -0,0 +1,37 @@
+package com.interzonedev.pienburger.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event emitted by the {@link JfrMetricsSink} for every timed pienburger operation.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Name("com.interzonedev.pienburger.Operation")
+@Label("Pienburger Operation")
+@Category({ "Pienburger" })
+@Description("A timed browser, driver or test lifecycle operation performed by the pienburger framework")
+class OperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Test Class")
+    String testClass;
+
+    @Label("Browser")
+    String browser;
+
+    @Label("Operation Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationDuration;
+
+}
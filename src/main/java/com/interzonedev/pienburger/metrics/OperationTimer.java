@@ -0,0 +1,64 @@
+package com.interzonedev.pienburger.metrics;
+
+import java.util.Map;
+
+/**
+ * Times a single operation and records it to a {@link MetricsSink} when stopped. Meant to be used as follows so that
+ * the outcome is recorded however the operation ends:
+ * 
+ * <pre>
+ * OperationTimer timer = new OperationTimer(metricsSink, name, tags);
+ * try {
+ *     result = performOperation();
+ *     timer.succeeded();
+ *     return result;
+ * } catch (TimeoutException te) {
+ *     timer.timedOut();
+ *     throw te;
+ * } finally {
+ *     timer.stop();
+ * }
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class OperationTimer {
+
+    private final MetricsSink metricsSink;
+
+    private final String name;
+
+    private final Map<String, String> tags;
+
+    private final long startNanos;
+
+    private Outcome outcome = Outcome.FAILURE;
+
+    public OperationTimer(MetricsSink metricsSink, String name, Map<String, String> tags) {
+        this.metricsSink = metricsSink;
+        this.name = name;
+        this.tags = tags;
+        this.startNanos = System.nanoTime();
+    }
+
+    public void succeeded() {
+        outcome = Outcome.SUCCESS;
+    }
+
+    public void timedOut() {
+        outcome = Outcome.TIMEOUT;
+    }
+
+    /**
+     * Records the operation with the outcome set so far, which is {@link Outcome#FAILURE} if neither
+     * {@link #succeeded()} nor {@link #timedOut()} was called.
+     * 
+     * @return Returns the duration of the operation in nanoseconds.
+     */
+    public long stop() {
+        long durationNanos = System.nanoTime() - startNanos;
+        metricsSink.record(name, tags, outcome, durationNanos);
+        return durationNanos;
+    }
+
+}
@@ -0,0 +1,10 @@
+package com.interzonedev.pienburger.metrics;
+
+/**
+ * An enumeration of the ways a timed operation can end.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public enum Outcome {
+    SUCCESS, TIMEOUT, FAILURE
+}
@@ -0,0 +1,81 @@
+package com.interzonedev.pienburger.parallel;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.runner.Computer;
+import org.junit.runner.Runner;
+import org.junit.runners.ParentRunner;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+import com.interzonedev.pienburger.sharding.RunHistory;
+import com.interzonedev.pienburger.sharding.ShardPlanner;
+
+/**
+ * JUnit {@link Computer} that runs functional test classes concurrently, each on its own worker thread with its own
+ * browser session leased from the {@link com.interzonedev.pienburger.driver.WebDriverFactory} pool. Test methods within
+ * a class run sequentially. Alternatively the methods within each class can be run concurrently while the classes run
+ * one after another, which additionally requires a Spring version whose {@code TestContextManager} keeps its test
+ * context per thread.
+ * 
+ * The concurrency defaults to the {@code pienburger.parallel.concurrency} setting, read from the system properties and
+ * {@code pienburger.properties} through {@link PienburgerSettings#getParallelConcurrency()} in the same way as the
+ * default size of the browser session pools, so that every worker can lease a session without waiting.
+ * 
+ * When the test classes run concurrently they are queued longest first according to the {@link RunHistory}, so the
+ * long running classes do not start last and hold up the end of the run.
+ * 
+ * <pre>
+ * JUnitCore.runClasses(new ParallelFunctionalTestComputer(), LoginTest.class, SearchTest.class);
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ParallelFunctionalTestComputer extends Computer {
+
+    private final int concurrency;
+
+    private final boolean parallelMethods;
+
+    public ParallelFunctionalTestComputer() {
+        this(PienburgerSettings.fromClasspath().getParallelConcurrency(), false);
+    }
+
+    /**
+     * Constructs a computer that runs at most the specified number of test classes concurrently.
+     * 
+     * @param concurrency The number of worker threads.
+     * @param parallelMethods Whether the methods within each test class run concurrently instead of the test classes.
+     */
+    public ParallelFunctionalTestComputer(int concurrency, boolean parallelMethods) {
+        this.concurrency = concurrency;
+        this.parallelMethods = parallelMethods;
+    }
+
+    @Override
+    public Runner getSuite(RunnerBuilder builder, Class<?>[] classes) throws InitializationError {
+        if (!parallelMethods) {
+            List<Class<?>> longestFirst = new ShardPlanner(RunHistory.read(RunHistory.getDefaultFile()))
+                    .longestFirst(Arrays.<Class<?>> asList(classes));
+            classes = longestFirst.toArray(new Class<?>[longestFirst.size()]);
+        }
+
+        Runner suite = super.getSuite(builder, classes);
+        if (!parallelMethods && (suite instanceof ParentRunner)) {
+            ((ParentRunner<?>) suite).setScheduler(new ParallelScheduler(concurrency));
+        }
+        return suite;
+    }
+
+    @Override
+    protected Runner getRunner(RunnerBuilder builder, Class<?> testClass) throws Throwable {
+        Runner runner = super.getRunner(builder, testClass);
+        if (parallelMethods && (runner instanceof ParentRunner)) {
+            ((ParentRunner<?>) runner).setScheduler(new ParallelScheduler(concurrency));
+        }
+        return runner;
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.interzonedev.pienburger.parallel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.runners.model.RunnerScheduler;
+
+import com.interzonedev.pienburger.FunctionalTestContext;
+
+/**
+ * JUnit {@link RunnerScheduler} that runs the children of a runner on a fixed number of worker threads. Each worker
+ * thread is assigned a contiguous worker index through {@link FunctionalTestContext#assignWorkerIndex(int)}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ParallelScheduler implements RunnerScheduler {
+
+    private final ExecutorService executorService;
+
+    /**
+     * Constructs a scheduler that runs at most the specified number of children concurrently.
+     * 
+     * @param concurrency The number of worker threads.
+     */
+    public ParallelScheduler(int concurrency) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("The concurrency must be at least 1");
+        }
+
+        final AtomicInteger nextIndex = new AtomicInteger();
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final int index = nextIndex.getAndIncrement();
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        FunctionalTestContext.assignWorkerIndex(index);
+                        runnable.run();
+                    }
+                }, "pienburger-worker-" + index);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+
+        executorService = Executors.newFixedThreadPool(concurrency, threadFactory);
+    }
+
+    @Override
+    public void schedule(Runnable childStatement) {
+        executorService.submit(childStatement);
+    }
+
+    @Override
+    public void finished() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+        }
+    }
+
+}
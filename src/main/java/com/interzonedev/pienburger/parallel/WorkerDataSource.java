@@ -0,0 +1,113 @@
+package com.interzonedev.pienburger.parallel;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import com.interzonedev.pienburger.FunctionalTestContext;
+
+/**
+ * {@link DataSource} that routes each connection request to one of several target data sources according to the
+ * worker index of the calling thread (see {@link FunctionalTestContext#currentWorkerIndex()}). Declaring the data
+ * source used by the Zankou {@code @DataSets} setup as a {@code WorkerDataSource} over one database or schema per
+ * worker keeps the datasets of concurrently running tests isolated from each other, as long as the application under
+ * test is started against the same set of databases.
+ * 
+ * <pre>
+ * &lt;bean id="dataSource" class="com.interzonedev.pienburger.parallel.WorkerDataSource"&gt;
+ *     &lt;constructor-arg&gt;
+ *         &lt;list&gt;
+ *             &lt;ref bean="dataSourceWorker0" /&gt;
+ *             &lt;ref bean="dataSourceWorker1" /&gt;
+ *         &lt;/list&gt;
+ *     &lt;/constructor-arg&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class WorkerDataSource implements DataSource {
+
+    private final List<DataSource> targetDataSources;
+
+    /**
+     * Constructs an instance that routes between the specified data sources. Worker indexes beyond the number of data
+     * sources wrap around.
+     * 
+     * @param targetDataSources The data sources to route between, in worker index order.
+     */
+    public WorkerDataSource(List<DataSource> targetDataSources) {
+        if (targetDataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one target data source is required");
+        }
+        this.targetDataSources = new ArrayList<DataSource>(targetDataSources);
+    }
+
+    /**
+     * Gets the data source that the calling thread is routed to.
+     * 
+     * @return Returns the data source for the worker index of the calling thread.
+     */
+    public DataSource getCurrentDataSource() {
+        return targetDataSources.get(FunctionalTestContext.currentWorkerIndex() % targetDataSources.size());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getCurrentDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getCurrentDataSource().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return getCurrentDataSource().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (DataSource dataSource : targetDataSources) {
+            dataSource.setLogWriter(out);
+        }
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (DataSource dataSource : targetDataSources) {
+            dataSource.setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return getCurrentDataSource().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return getCurrentDataSource().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || getCurrentDataSource().isWrapperFor(iface);
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.interzonedev.pienburger.proxy;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In memory cache of static asset responses bounded by the total size of the cached bodies. When adding a response
+ * would exceed the bound, the least recently used responses are evicted first.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AssetCache {
+
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<String, CachedResponse>(64, 0.75f,
+            true);
+
+    private long currentBytes;
+
+    /**
+     * Constructs a cache that holds at most the specified number of bytes of response bodies.
+     * 
+     * @param maxBytes The maximum total size of the cached response bodies.
+     */
+    public AssetCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized CachedResponse get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Adds a response to the cache, evicting the least recently used responses as needed. Responses larger than the
+     * whole cache are not cached.
+     * 
+     * @param key The cache key of the response.
+     * @param response The response to cache.
+     */
+    public synchronized void put(String key, CachedResponse response) {
+        long size = response.getBody().length;
+        if (size > maxBytes) {
+            return;
+        }
+
+        CachedResponse previous = entries.remove(key);
+        if (null != previous) {
+            currentBytes -= previous.getBody().length;
+        }
+
+        Iterator<CachedResponse> leastRecentlyUsed = entries.values().iterator();
+        while ((currentBytes + size > maxBytes) && leastRecentlyUsed.hasNext()) {
+            currentBytes -= leastRecentlyUsed.next().getBody().length;
+            leastRecentlyUsed.remove();
+        }
+
+        entries.put(key, response);
+        currentBytes += size;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0L;
+    }
+
+    /**
+     * A response held by the cache.
+     */
+    public static class CachedResponse {
+
+        private final int statusCode;
+
+        private final String reasonPhrase;
+
+        private final List<Map.Entry<String, String>> headers;
+
+        private final byte[] body;
+
+        public CachedResponse(int statusCode, String reasonPhrase, List<Map.Entry<String, String>> headers,
+                byte[] body) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.headers = Collections.unmodifiableList(headers);
+            this.body = body;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getReasonPhrase() {
+            return reasonPhrase;
+        }
+
+        public List<Map.Entry<String, String>> getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+}
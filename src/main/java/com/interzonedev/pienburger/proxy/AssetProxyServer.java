@@ -0,0 +1,439 @@
+package com.interzonedev.pienburger.proxy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.bootstrap.HttpServer;
+import org.apache.http.impl.bootstrap.ServerBootstrap;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestHandler;
+import org.apache.http.protocol.HttpRequestHandlerMapper;
+import org.apache.http.util.EntityUtils;
+
+import com.interzonedev.pienburger.proxy.AssetCache.CachedResponse;
+
+/**
+ * Embedded HTTP proxy, bound to the loopback interface, that the browsers launched by the
+ * {@link com.interzonedev.pienburger.driver.WebDriverFactory} can be configured to use for HTTP and HTTPS traffic.
+ * 
+ * Requests whose URL matches one of the blocklist patterns, such as analytics, ads or images that a test does not need,
+ * are answered with an empty {@code 204 No Content} response without leaving the machine. Successful {@code GET}
+ * responses for URLs that match the cacheable pattern, by default the usual static asset extensions, are kept in an
+ * {@link AssetCache} shared by every browser using the proxy. Everything else is forwarded to the origin server over a
+ * pooled, keep-alive connection, with the request and response bodies streamed through rather than buffered, so that
+ * event streams, long polls and large downloads work through the proxy.
+ * 
+ * HTTPS traffic is not decrypted. Browsers send it to a second loopback port, see {@link #getSslAddress()}, as
+ * {@code CONNECT} requests. Hosts that match the blocklist are refused and all other connections are relayed to the
+ * origin server unchanged, so HTTPS requests to blocked hosts, such as third party analytics and ads, are blocked while
+ * HTTPS responses are never cached. For HTTPS the blocklist patterns are matched against {@code https://<host>/}, as
+ * only the host is visible.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AssetProxyServer {
+
+    private static final Log log = LogFactory.getLog(AssetProxyServer.class);
+
+    /**
+     * The default pattern of URLs whose responses are cached.
+     */
+    public static final String DEFAULT_CACHEABLE_PATTERN = "(?i)^[^?#]+\\.(js|css|png|jpe?g|gif|svg|ico|webp|woff2?|ttf"
+            + "|eot|otf|map)([?#].*)?$";
+
+    /**
+     * A pattern that matches image URLs, for use in a blocklist.
+     */
+    public static final String IMAGES_PATTERN = "(?i)^[^?#]+\\.(png|jpe?g|gif|svg|ico|webp|bmp)([?#].*)?$";
+
+    /**
+     * Headers that only apply to a single connection and must not be forwarded by a proxy, along with the framing
+     * headers that are recomputed for each response.
+     */
+    private static final Set<String> EXCLUDED_HEADERS = new HashSet<String>(Arrays.asList("connection",
+            "proxy-connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+            "transfer-encoding", "upgrade", "content-length", "host"));
+
+    private final List<Pattern> blocklist;
+
+    private final Pattern cacheablePattern;
+
+    private final AssetCache assetCache;
+
+    private final ProxyStatistics statistics = new ProxyStatistics();
+
+    private final ConnectTunnelServer tunnelServer;
+
+    private CloseableHttpClient httpClient;
+
+    private HttpServer server;
+
+    /**
+     * Constructs a proxy with the specified blocklist and cache. Call {@link #start()} to start accepting requests.
+     * 
+     * @param blocklist Regular expressions matched against the full URL of each request. Matching requests are not
+     *            forwarded.
+     * @param cacheablePattern Regular expression matched against the full URL of each {@code GET} request to determine
+     *            whether its response may be cached.
+     * @param maxCacheBytes The maximum total size of the cached response bodies.
+     */
+    public AssetProxyServer(List<String> blocklist, String cacheablePattern, long maxCacheBytes) {
+        this.blocklist = new ArrayList<Pattern>();
+        for (String pattern : blocklist) {
+            this.blocklist.add(Pattern.compile(pattern));
+        }
+        this.cacheablePattern = Pattern.compile(cacheablePattern);
+        this.assetCache = new AssetCache(maxCacheBytes);
+        this.tunnelServer = new ConnectTunnelServer(this.blocklist, statistics);
+    }
+
+    /**
+     * Starts the proxy on an ephemeral port of the loopback interface.
+     * 
+     * @throws IOException Thrown if the server socket cannot be bound.
+     */
+    public synchronized void start() throws IOException {
+        if (null != server) {
+            return;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(200);
+        connectionManager.setDefaultMaxPerRoute(50);
+
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).disableRedirectHandling()
+                .disableContentCompression().disableCookieManagement().disableAutomaticRetries()
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(10000).setSocketTimeout(60000)
+                        .build()).build();
+
+        final HttpRequestHandler handler = new HttpRequestHandler() {
+            @Override
+            public void handle(HttpRequest request, HttpResponse response, HttpContext context)
+                    throws HttpException, IOException {
+                handleRequest(request, response);
+            }
+        };
+
+        server = ServerBootstrap.bootstrap().setLocalAddress(InetAddress.getLoopbackAddress()).setListenerPort(0)
+                .setSocketConfig(SocketConfig.custom().setTcpNoDelay(true).setSoKeepAlive(true).build())
+                .setHandlerMapper(new HttpRequestHandlerMapper() {
+                    @Override
+                    public HttpRequestHandler lookup(HttpRequest request) {
+                        return handler;
+                    }
+                }).create();
+        server.start();
+        tunnelServer.start();
+
+        log.info("start: Started asset proxy on port " + getPort() + " and HTTPS tunnel on port "
+                + tunnelServer.getPort());
+    }
+
+    /**
+     * Stops accepting requests and releases the pooled upstream connections.
+     */
+    public synchronized void stop() {
+        if (null == server) {
+            return;
+        }
+
+        server.shutdown(1L, TimeUnit.SECONDS);
+        server = null;
+        tunnelServer.stop();
+
+        try {
+            httpClient.close();
+        } catch (IOException ioe) {
+            log.warn("stop: Error closing the upstream HTTP client", ioe);
+        }
+
+        log.info("stop: Stopped asset proxy - " + statistics);
+    }
+
+    public synchronized int getPort() {
+        if (null == server) {
+            throw new IllegalStateException("The asset proxy is not running");
+        }
+        return server.getLocalPort();
+    }
+
+    /**
+     * Gets the address of the proxy in the {@code host:port} form expected by the Selenium {@code Proxy} settings.
+     * 
+     * @return Returns the address of the proxy.
+     */
+    public String getAddress() {
+        return InetAddress.getLoopbackAddress().getHostAddress() + ":" + getPort();
+    }
+
+    /**
+     * Gets the address that browsers send their HTTPS {@code CONNECT} requests to, in the {@code host:port} form
+     * expected by {@code Proxy.setSslProxy}.
+     * 
+     * @return Returns the address of the HTTPS tunnel of the proxy.
+     */
+    public String getSslAddress() {
+        return InetAddress.getLoopbackAddress().getHostAddress() + ":" + tunnelServer.getPort();
+    }
+
+    public ProxyStatistics getStatistics() {
+        return statistics;
+    }
+
+    public AssetCache getAssetCache() {
+        return assetCache;
+    }
+
+    private void handleRequest(HttpRequest request, HttpResponse response) throws IOException {
+        String method = request.getRequestLine().getMethod().toUpperCase(Locale.ENGLISH);
+        String uri = request.getRequestLine().getUri();
+
+        if ("CONNECT".equals(method) || !uri.startsWith("http://")) {
+            response.setStatusCode(HttpStatus.SC_NOT_IMPLEMENTED);
+            return;
+        }
+
+        for (Pattern blocked : blocklist) {
+            if (blocked.matcher(uri).find()) {
+                statistics.recordBlocked();
+                response.setStatusCode(HttpStatus.SC_NO_CONTENT);
+                return;
+            }
+        }
+
+        boolean cacheable = "GET".equals(method) && cacheablePattern.matcher(uri).find();
+        String cacheKey = null;
+
+        if (cacheable) {
+            Header acceptEncoding = request.getFirstHeader("Accept-Encoding");
+            cacheKey = uri + "|" + ((null == acceptEncoding) ? "" : acceptEncoding.getValue());
+
+            CachedResponse cached = assetCache.get(cacheKey);
+            if (null != cached) {
+                statistics.recordHit();
+                writeResponse(response, cached);
+                return;
+            }
+
+            statistics.recordMiss();
+        } else {
+            statistics.recordPassedThrough();
+        }
+
+        CloseableHttpResponse upstreamResponse;
+        CachedResponse fetched = null;
+        try {
+            upstreamResponse = forward(method, uri, request);
+            if (cacheable) {
+                try {
+                    fetched = toCachedResponse(upstreamResponse);
+                } finally {
+                    upstreamResponse.close();
+                }
+            }
+        } catch (IOException ioe) {
+            statistics.recordError();
+            log.debug("handleRequest: Error forwarding " + method + " " + uri, ioe);
+            response.setStatusCode(HttpStatus.SC_BAD_GATEWAY);
+            return;
+        }
+
+        if (!cacheable) {
+            streamResponse(response, upstreamResponse, "HEAD".equals(method));
+            return;
+        }
+
+        if ((HttpStatus.SC_OK == fetched.getStatusCode()) && isStorable(fetched)) {
+            assetCache.put(cacheKey, fetched);
+        }
+
+        writeResponse(response, fetched);
+    }
+
+    /**
+     * Sends the specified request to the origin server. A request body is streamed to the origin server as it is read
+     * from the browser.
+     */
+    private CloseableHttpResponse forward(String method, String uri, HttpRequest request) throws IOException {
+        RequestBuilder upstreamRequest = RequestBuilder.create(method).setUri(uri);
+
+        for (Header header : request.getAllHeaders()) {
+            if (!EXCLUDED_HEADERS.contains(header.getName().toLowerCase(Locale.ENGLISH))) {
+                upstreamRequest.addHeader(header);
+            }
+        }
+
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (null != entity) {
+                InputStreamEntity body = new InputStreamEntity(entity.getContent(), entity.getContentLength());
+                body.setContentType(entity.getContentType());
+                upstreamRequest.setEntity(body);
+            }
+        }
+
+        return httpClient.execute(upstreamRequest.build());
+    }
+
+    /**
+     * Reads the whole of the specified response from the origin server so that it can be cached.
+     */
+    private CachedResponse toCachedResponse(CloseableHttpResponse upstreamResponse) throws IOException {
+        HttpEntity entity = upstreamResponse.getEntity();
+        byte[] body = (null == entity) ? new byte[0] : EntityUtils.toByteArray(entity);
+
+        return new CachedResponse(upstreamResponse.getStatusLine().getStatusCode(),
+                upstreamResponse.getStatusLine().getReasonPhrase(), getForwardedHeaders(upstreamResponse), body);
+    }
+
+    /**
+     * Passes the specified response from the origin server on to the browser without buffering its body, so that
+     * event streams, long polls and large downloads reach the browser as they arrive. The upstream connection is
+     * released once the body has been written, or right away if there is no body to write.
+     */
+    private void streamResponse(HttpResponse response, CloseableHttpResponse upstreamResponse, boolean head)
+            throws IOException {
+        int statusCode = upstreamResponse.getStatusLine().getStatusCode();
+        response.setStatusCode(statusCode);
+        response.setReasonPhrase(upstreamResponse.getStatusLine().getReasonPhrase());
+
+        for (Map.Entry<String, String> header : getForwardedHeaders(upstreamResponse)) {
+            response.addHeader(header.getKey(), header.getValue());
+        }
+
+        HttpEntity entity = upstreamResponse.getEntity();
+        if (head || (null == entity) || (HttpStatus.SC_NO_CONTENT == statusCode)
+                || (HttpStatus.SC_NOT_MODIFIED == statusCode)) {
+            upstreamResponse.close();
+            return;
+        }
+
+        response.setEntity(new StreamedEntity(upstreamResponse, entity));
+    }
+
+    private List<Map.Entry<String, String>> getForwardedHeaders(HttpResponse upstreamResponse) {
+        List<Map.Entry<String, String>> headers = new ArrayList<Map.Entry<String, String>>();
+        for (Header header : upstreamResponse.getAllHeaders()) {
+            if (!EXCLUDED_HEADERS.contains(header.getName().toLowerCase(Locale.ENGLISH))) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<String, String>(header.getName(),
+                        header.getValue()));
+            }
+        }
+        return headers;
+    }
+
+    private boolean isStorable(CachedResponse fetched) {
+        for (Map.Entry<String, String> header : fetched.getHeaders()) {
+            if ("cache-control".equalsIgnoreCase(header.getKey())
+                    && header.getValue().toLowerCase(Locale.ENGLISH).contains("no-store")) {
+                return false;
+            }
+            if ("set-cookie".equalsIgnoreCase(header.getKey())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeResponse(HttpResponse response, CachedResponse source) {
+        response.setStatusCode(source.getStatusCode());
+        response.setReasonPhrase(source.getReasonPhrase());
+
+        for (Map.Entry<String, String> header : source.getHeaders()) {
+            response.addHeader(header.getKey(), header.getValue());
+        }
+
+        int statusCode = source.getStatusCode();
+        if ((HttpStatus.SC_NO_CONTENT != statusCode) && (HttpStatus.SC_NOT_MODIFIED != statusCode)) {
+            response.setEntity(new ByteArrayEntity(source.getBody()));
+        }
+    }
+
+    /**
+     * Entity that copies the body of a response from the origin server to the browser as it arrives. The output is
+     * flushed whenever the origin server has sent nothing more yet, so that partial responses are not held back in the
+     * output buffer. The upstream response is closed when the body has been copied or the copy fails.
+     */
+    private static class StreamedEntity extends AbstractHttpEntity {
+
+        private final CloseableHttpResponse upstreamResponse;
+
+        private final HttpEntity upstreamEntity;
+
+        private StreamedEntity(CloseableHttpResponse upstreamResponse, HttpEntity upstreamEntity) {
+            this.upstreamResponse = upstreamResponse;
+            this.upstreamEntity = upstreamEntity;
+            setChunked(upstreamEntity.isChunked());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() {
+            return upstreamEntity.getContentLength();
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return upstreamEntity.getContent();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                InputStream in = upstreamEntity.getContent();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, read);
+                    if (0 == in.available()) {
+                        out.flush();
+                    }
+                }
+            } finally {
+                upstreamResponse.close();
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,304 @@
+package com.interzonedev.pienburger.proxy;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Loopback listener that serves the HTTPS side of the {@link AssetProxyServer}. Browsers send a {@code CONNECT} request
+ * for every HTTPS host, which is refused if the host matches the blocklist and otherwise answered by relaying the
+ * encrypted bytes to and from the origin server unchanged.
+ * 
+ * Only the host and port of an HTTPS request are visible to a proxy that does not decrypt the traffic, so the blocklist
+ * patterns are matched against {@code https://<host>/}, or {@code https://<host>:<port>/} for a port other than 443.
+ * Patterns that match on the host, such as the domains of analytics and ad services, block the HTTPS requests to those
+ * hosts as well. Tunnelled responses are never cached.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class ConnectTunnelServer {
+
+    private static final Log log = LogFactory.getLog(ConnectTunnelServer.class);
+
+    private static final int MAX_REQUEST_HEAD_BYTES = 8192;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10000;
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 30000L;
+
+    private final List<Pattern> blocklist;
+
+    private final ProxyStatistics statistics;
+
+    private final Set<Socket> openSockets = Collections.newSetFromMap(new IdentityHashMap<Socket, Boolean>());
+
+    private ServerSocket serverSocket;
+
+    private ExecutorService executorService;
+
+    ConnectTunnelServer(List<Pattern> blocklist, ProxyStatistics statistics) {
+        this.blocklist = blocklist;
+        this.statistics = statistics;
+    }
+
+    synchronized void start() throws IOException {
+        if (null != serverSocket) {
+            return;
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "pienburger-proxy-tunnel-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        final ServerSocket listener = serverSocket;
+        final ExecutorService executor = executorService;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept(listener, executor);
+            }
+        });
+    }
+
+    synchronized void stop() {
+        if (null == serverSocket) {
+            return;
+        }
+
+        closeQuietly(serverSocket);
+        serverSocket = null;
+
+        synchronized (openSockets) {
+            for (Socket socket : openSockets) {
+                closeQuietly(socket);
+            }
+            openSockets.clear();
+        }
+
+        executorService.shutdownNow();
+        executorService = null;
+    }
+
+    synchronized int getPort() {
+        if (null == serverSocket) {
+            throw new IllegalStateException("The HTTPS tunnel is not running");
+        }
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the URL the blocklist patterns are matched against for a {@code CONNECT} request to the specified host and
+     * port.
+     */
+    static String toBlocklistUrl(String host, int port) {
+        return "https://" + host + ((443 == port) ? "" : ":" + port) + "/";
+    }
+
+    private void accept(ServerSocket listener, final ExecutorService executor) {
+        while (!listener.isClosed()) {
+            final Socket client;
+            try {
+                client = listener.accept();
+            } catch (IOException ioe) {
+                if (!listener.isClosed()) {
+                    log.warn("accept: Error accepting a tunnel connection", ioe);
+                }
+                return;
+            }
+
+            track(client);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            tunnel(client, executor);
+                        } catch (IOException ioe) {
+                            log.debug("tunnel: Tunnel closed with an error", ioe);
+                        } finally {
+                            untrackAndClose(client);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                // The tunnel is being stopped.
+                untrackAndClose(client);
+                return;
+            }
+        }
+    }
+
+    private void tunnel(Socket client, ExecutorService executor) throws IOException {
+        client.setTcpNoDelay(true);
+        InputStream clientIn = new BufferedInputStream(client.getInputStream());
+        OutputStream clientOut = client.getOutputStream();
+
+        String requestLine = readRequestHead(clientIn);
+        String[] parts = (null == requestLine) ? new String[0] : requestLine.split(" ");
+        if ((parts.length < 2) || !"CONNECT".equalsIgnoreCase(parts[0])) {
+            respond(clientOut, "405 Method Not Allowed");
+            return;
+        }
+
+        String authority = parts[1];
+        int colon = authority.lastIndexOf(':');
+        String host = (colon < 0) ? authority : authority.substring(0, colon);
+        int port;
+        try {
+            port = (colon < 0) ? 443 : Integer.parseInt(authority.substring(colon + 1));
+        } catch (NumberFormatException nfe) {
+            respond(clientOut, "400 Bad Request");
+            return;
+        }
+
+        String blocklistUrl = toBlocklistUrl(host, port);
+        for (Pattern blocked : blocklist) {
+            if (blocked.matcher(blocklistUrl).find()) {
+                statistics.recordBlocked();
+                respond(clientOut, "403 Forbidden");
+                return;
+            }
+        }
+
+        final Socket upstream = new Socket();
+        track(upstream);
+        try {
+            try {
+                upstream.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                upstream.setTcpNoDelay(true);
+            } catch (IOException ioe) {
+                statistics.recordError();
+                log.debug("tunnel: Error connecting to " + authority, ioe);
+                respond(clientOut, "502 Bad Gateway");
+                return;
+            }
+
+            statistics.recordTunneled();
+            respond(clientOut, "200 Connection Established");
+
+            final InputStream upstreamIn = upstream.getInputStream();
+            final Socket downstream = client;
+            final CountDownLatch upstreamDone = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        relay(upstreamIn, downstream);
+                    } finally {
+                        upstreamDone.countDown();
+                    }
+                }
+            });
+            relay(clientIn, upstream);
+
+            // Give the origin server time to finish its side before both sockets are closed.
+            try {
+                upstreamDone.await(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            untrackAndClose(upstream);
+        }
+    }
+
+    /**
+     * Copies bytes from the specified stream to the specified socket until the stream ends, then half closes the
+     * socket so the other side sees the end of the stream as well.
+     */
+    private void relay(InputStream in, Socket to) {
+        byte[] buffer = new byte[16384];
+        try {
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+            to.shutdownOutput();
+        } catch (SocketException se) {
+            // One side closed the connection, which ends the tunnel.
+        } catch (IOException ioe) {
+            log.debug("relay: Error relaying tunnel data", ioe);
+        }
+    }
+
+    /**
+     * Reads the request line and headers of a request.
+     * 
+     * @return Returns the request line, or null if the stream ends or the head is too large.
+     */
+    private String readRequestHead(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            head.append((char) b);
+            if ((head.length() >= 4) && (head.lastIndexOf("\r\n\r\n") == head.length() - 4)) {
+                int endOfLine = head.indexOf("\r\n");
+                return head.substring(0, endOfLine);
+            }
+            if (head.length() > MAX_REQUEST_HEAD_BYTES) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void respond(OutputStream out, String status) throws IOException {
+        out.write(("HTTP/1.1 " + status + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private void track(Socket socket) {
+        synchronized (openSockets) {
+            openSockets.add(socket);
+        }
+    }
+
+    private void untrackAndClose(Socket socket) {
+        synchronized (openSockets) {
+            openSockets.remove(socket);
+        }
+        closeQuietly(socket);
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ioe) {
+            // Nothing more to do with a socket that cannot be closed.
+        }
+    }
+
+}
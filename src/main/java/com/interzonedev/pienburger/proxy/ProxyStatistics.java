@@ -0,0 +1,101 @@
+package com.interzonedev.pienburger.proxy;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of how the requests passing through an {@link AssetProxyServer} were handled.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ProxyStatistics {
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong blocked = new AtomicLong();
+
+    private final AtomicLong passedThrough = new AtomicLong();
+
+    private final AtomicLong tunneled = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * @return Returns the number of cacheable requests served from the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of cacheable requests that had to be fetched from the origin server.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the number of requests answered with an empty response because they matched the blocklist.
+     */
+    public long getBlocked() {
+        return blocked.get();
+    }
+
+    /**
+     * @return Returns the number of requests forwarded to the origin server without being considered for caching.
+     */
+    public long getPassedThrough() {
+        return passedThrough.get();
+    }
+
+    /**
+     * @return Returns the number of HTTPS connections relayed to the origin server without being inspected.
+     */
+    public long getTunneled() {
+        return tunneled.get();
+    }
+
+    /**
+     * @return Returns the number of requests that could not be forwarded to the origin server.
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public double getHitRatio() {
+        long cacheable = hits.get() + misses.get();
+        return (0L == cacheable) ? 0.0d : (hits.get() / (double) cacheable);
+    }
+
+    void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    void recordBlocked() {
+        blocked.incrementAndGet();
+    }
+
+    void recordPassedThrough() {
+        passedThrough.incrementAndGet();
+    }
+
+    void recordTunneled() {
+        tunneled.incrementAndGet();
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "ProxyStatistics [hits=" + hits + ", misses=" + misses + ", blocked=" + blocked + ", passedThrough="
+                + passedThrough + ", tunneled=" + tunneled + ", errors=" + errors + "]";
+    }
+
+}
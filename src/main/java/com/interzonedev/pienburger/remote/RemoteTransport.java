@@ -0,0 +1,301 @@
+package com.interzonedev.pienburger.remote;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.internal.ApacheHttpClient;
+
+import com.interzonedev.pienburger.metrics.MetricsSink;
+
+/**
+ * The HTTP transport shared by every {@link RemoteWebDriver} session against one remote server, such as a Selenium grid
+ * hub. Every wire protocol command is an HTTP round trip, so instead of the default client the sessions share a single
+ * pool of keep-alive connections with {@code TCP_NODELAY} set, which saves the connection setup on all but the first
+ * command to each host. The round trip of every command is recorded to the {@link MetricsSink}.
+ * 
+ * The pool limits and timeouts are set with the setters before {@link #start()} is called.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class RemoteTransport {
+
+    private static final Log log = LogFactory.getLog(RemoteTransport.class);
+
+    private final URL remoteAddress;
+
+    private final MetricsSink metricsSink;
+
+    private int maxConnections = 50;
+
+    private int maxConnectionsPerRoute = 20;
+
+    private int connectTimeoutMillis = 5000;
+
+    private int socketTimeoutMillis = 180000;
+
+    private int connectionRequestTimeoutMillis = 30000;
+
+    private long keepAliveMillis = 30000L;
+
+    private int validateAfterInactivityMillis = 1000;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    /**
+     * Constructs a transport to the specified remote server. Call {@link #start()} before creating sessions.
+     * 
+     * @param remoteAddress The address of the remote server, for example {@code http://grid:4444/wd/hub}.
+     * @param metricsSink The {@link MetricsSink} the command round trips are recorded to.
+     */
+    public RemoteTransport(URL remoteAddress, MetricsSink metricsSink) {
+        this.remoteAddress = remoteAddress;
+        this.metricsSink = metricsSink;
+    }
+
+    /**
+     * Creates the connection pool and HTTP client.
+     */
+    public synchronized void start() {
+        if (null != httpClient) {
+            return;
+        }
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMillis);
+        connectionManager.setDefaultSocketConfig(SocketConfig.custom().setTcpNoDelay(true).setSoKeepAlive(true)
+                .setSoTimeout(socketTimeoutMillis).build());
+
+        RequestConfig requestConfig = RequestConfig.custom().setConnectTimeout(connectTimeoutMillis)
+                .setSocketTimeout(socketTimeoutMillis).setConnectionRequestTimeout(connectionRequestTimeoutMillis)
+                .build();
+
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+                    @Override
+                    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                        long serverKeepAliveMillis = super.getKeepAliveDuration(response, context);
+                        return (serverKeepAliveMillis > 0L) ? serverKeepAliveMillis : keepAliveMillis;
+                    }
+                }).evictExpiredConnections().evictIdleConnections(keepAliveMillis, TimeUnit.MILLISECONDS)
+                .disableCookieManagement().disableContentCompression().disableAutomaticRetries().build();
+
+        log.info("start: Started remote transport to " + remoteAddress + " with " + maxConnectionsPerRoute
+                + " connections per route");
+    }
+
+    /**
+     * Closes every pooled connection. Sessions created by this transport can no longer send commands afterwards.
+     */
+    public synchronized void stop() {
+        if (null == httpClient) {
+            return;
+        }
+
+        log.info("stop: Stopping remote transport to " + remoteAddress + " - " + getPoolStats());
+
+        try {
+            httpClient.close();
+        } catch (IOException ioe) {
+            log.warn("stop: Error closing the remote transport HTTP client", ioe);
+        }
+        httpClient = null;
+        connectionManager = null;
+    }
+
+    /**
+     * Starts a new session on the remote server that sends its commands through the pooled connections.
+     * 
+     * @param desiredCapabilities The {@link Capabilities} requested for the session.
+     * @param browserId The browser id to tag the command metrics of the session with.
+     * 
+     * @return Returns the new {@link RemoteWebDriver}.
+     */
+    public RemoteWebDriver createWebDriver(Capabilities desiredCapabilities, String browserId) {
+        final CloseableHttpClient sharedHttpClient = getHttpClient();
+
+        HttpClient.Factory httpClientFactory = new HttpClient.Factory() {
+            @Override
+            public HttpClient createClient(URL url) {
+                return new ApacheHttpClient(new NonClosingHttpClient(sharedHttpClient), url);
+            }
+        };
+
+        HttpCommandExecutor commandExecutor = new HttpCommandExecutor(Collections.<String, CommandInfo> emptyMap(),
+                remoteAddress, httpClientFactory);
+
+        return new RemoteWebDriver(new TimedCommandExecutor(commandExecutor, metricsSink, browserId),
+                desiredCapabilities);
+    }
+
+    /**
+     * Gets the statistics of the connection pool.
+     * 
+     * @return Returns the {@link PoolStats} of the connection pool, or null if the transport is not started.
+     */
+    public synchronized PoolStats getPoolStats() {
+        return (null == connectionManager) ? null : connectionManager.getTotalStats();
+    }
+
+    public URL getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    /**
+     * Sets how long to wait for the response to a command. This must be longer than the longest page load or script
+     * the remote browser is asked to wait for.
+     * 
+     * @param socketTimeoutMillis The read timeout in milliseconds.
+     */
+    public void setSocketTimeoutMillis(int socketTimeoutMillis) {
+        this.socketTimeoutMillis = socketTimeoutMillis;
+    }
+
+    public void setConnectionRequestTimeoutMillis(int connectionRequestTimeoutMillis) {
+        this.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+    }
+
+    /**
+     * Sets how long idle connections are kept open when the server does not send a {@code Keep-Alive} header.
+     * 
+     * @param keepAliveMillis The keep-alive duration in milliseconds.
+     */
+    public void setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+    }
+
+    public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) {
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+    }
+
+    private synchronized CloseableHttpClient getHttpClient() {
+        if (null == httpClient) {
+            throw new IllegalStateException("The remote transport to " + remoteAddress + " is not started");
+        }
+        return httpClient;
+    }
+
+    /**
+     * Delegates to the shared client but ignores {@link #close()}, so that one session closing its client does not
+     * close the connections of every other session. {@link ApacheHttpClient#close()} closes the idle connections of
+     * the client's connection manager instead, so the connection manager is hidden behind a
+     * {@link NonClosingConnectionManager} as well.
+     */
+    @SuppressWarnings("deprecation")
+    private static class NonClosingHttpClient extends CloseableHttpClient {
+
+        private final CloseableHttpClient delegate;
+
+        private NonClosingHttpClient(CloseableHttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context)
+                throws IOException, ClientProtocolException {
+            return delegate.execute(target, request, context);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public HttpParams getParams() {
+            return delegate.getParams();
+        }
+
+        @Override
+        public ClientConnectionManager getConnectionManager() {
+            return new NonClosingConnectionManager(delegate.getConnectionManager());
+        }
+
+    }
+
+    /**
+     * Connection manager reported by a {@link NonClosingHttpClient} that delegates to the connection manager of the
+     * shared client but ignores the requests to close or shut down connections. The pooled connections are only closed
+     * by {@link RemoteTransport#stop()}.
+     */
+    @SuppressWarnings("deprecation")
+    private static class NonClosingConnectionManager implements ClientConnectionManager {
+
+        private final ClientConnectionManager delegate;
+
+        private NonClosingConnectionManager(ClientConnectionManager delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public SchemeRegistry getSchemeRegistry() {
+            return delegate.getSchemeRegistry();
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            return delegate.requestConnection(route, state);
+        }
+
+        @Override
+        public void releaseConnection(ManagedClientConnection connection, long validDuration, TimeUnit timeUnit) {
+            delegate.releaseConnection(connection, validDuration, timeUnit);
+        }
+
+        @Override
+        public void closeIdleConnections(long idleTime, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void closeExpiredConnections() {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+    }
+
+}
@@ -0,0 +1,53 @@
+package com.interzonedev.pienburger.remote;
+
+import java.io.IOException;
+
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.ErrorCodes;
+import org.openqa.selenium.remote.Response;
+
+import com.interzonedev.pienburger.metrics.MetricNames;
+import com.interzonedev.pienburger.metrics.MetricsRegistry;
+import com.interzonedev.pienburger.metrics.MetricsSink;
+import com.interzonedev.pienburger.metrics.OperationTimer;
+
+/**
+ * {@link CommandExecutor} that records the round trip time of every wire protocol command sent by its delegate as a
+ * {@link MetricNames#REMOTE_COMMAND} metric tagged with the command name.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+class TimedCommandExecutor implements CommandExecutor {
+
+    private final CommandExecutor delegate;
+
+    private final MetricsSink metricsSink;
+
+    private final String browserId;
+
+    TimedCommandExecutor(CommandExecutor delegate, MetricsSink metricsSink, String browserId) {
+        this.delegate = delegate;
+        this.metricsSink = metricsSink;
+        this.browserId = browserId;
+    }
+
+    @Override
+    public Response execute(Command command) throws IOException {
+        OperationTimer timer = new OperationTimer(metricsSink, MetricNames.REMOTE_COMMAND, MetricsRegistry.tags(
+                MetricsSink.COMMAND_TAG, command.getName(), MetricsSink.BROWSER_TAG, browserId));
+        try {
+            Response response = delegate.execute(command);
+            Integer status = response.getStatus();
+            if ((null == status) || (ErrorCodes.SUCCESS == status)) {
+                timer.succeeded();
+            } else if ((ErrorCodes.TIMEOUT == status) || (ErrorCodes.ASYNC_SCRIPT_TIMEOUT == status)) {
+                timer.timedOut();
+            }
+            return response;
+        } finally {
+            timer.stop();
+        }
+    }
+
+}
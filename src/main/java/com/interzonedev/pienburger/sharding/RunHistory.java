@@ -0,0 +1,202 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+
+/**
+ * The durations of past functional test runs, per test method, as stored in a local properties file with one
+ * {@code testClass#testMethod=millis} entry per method. Each new measurement is averaged with the stored duration so a
+ * single slow or fast run does not swing the estimates used by the {@link ShardPlanner}.
+ * 
+ * The file is named by the {@code pienburger.history.file} setting (default {@code pienburger-history.properties} in
+ * the working directory). It lives outside of {@code target} so that CI builds can cache it between runs.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class RunHistory {
+
+    /**
+     * The setting naming the run history file.
+     */
+    public static final String FILE_SETTING = "pienburger.history.file";
+
+    /**
+     * The default run history file.
+     */
+    public static final String DEFAULT_FILE = "pienburger-history.properties";
+
+    private static final Log log = LogFactory.getLog(RunHistory.class);
+
+    private static final String METHOD_SEPARATOR = "#";
+
+    private final ConcurrentMap<String, Long> methodMillis = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Gets the run history file named by the {@code pienburger.history.file} setting, read the same way as by the
+     * application context. Used where the run history is needed before the application context exists, such as when
+     * JUnit builds its runners.
+     * 
+     * @return Returns the run history file.
+     */
+    public static File getDefaultFile() {
+        return new File(PienburgerSettings.fromClasspath().getString(FILE_SETTING, DEFAULT_FILE));
+    }
+
+    /**
+     * Reads the run history from the specified file.
+     * 
+     * @param historyFile The run history file.
+     * 
+     * @return Returns the run history read from the file, or an empty history if the file does not exist or cannot be
+     *         read.
+     */
+    public static RunHistory read(File historyFile) {
+        RunHistory runHistory = new RunHistory();
+        if (!historyFile.isFile()) {
+            return runHistory;
+        }
+
+        Properties properties = new Properties();
+        try {
+            InputStream in = Files.newInputStream(historyFile.toPath());
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException ioe) {
+            log.warn("read: Error reading run history from " + historyFile.getAbsolutePath(), ioe);
+            return runHistory;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.indexOf(METHOD_SEPARATOR) < 1) {
+                log.warn("read: Ignoring run history entry without a test method " + key);
+                continue;
+            }
+            try {
+                runHistory.methodMillis.put(key, Long.parseLong(properties.getProperty(key).trim()));
+            } catch (NumberFormatException nfe) {
+                log.warn("read: Ignoring invalid run history entry " + key);
+            }
+        }
+
+        return runHistory;
+    }
+
+    /**
+     * Writes the run history to the specified file, replacing its contents.
+     * 
+     * @param historyFile The run history file. Its parent directories are created if needed.
+     * 
+     * @throws IOException Thrown if the file cannot be written.
+     */
+    public void write(File historyFile) throws IOException {
+        File parent = historyFile.getAbsoluteFile().getParentFile();
+        if (null != parent) {
+            Files.createDirectories(parent.toPath());
+        }
+
+        Properties properties = new Properties();
+        for (Map.Entry<String, Long> entry : methodMillis.entrySet()) {
+            properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+
+        OutputStream out = Files.newOutputStream(historyFile.toPath());
+        try {
+            properties.store(out, "Pienburger functional test durations in milliseconds");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Records a duration of the specified test method, averaging it with the duration already recorded.
+     * 
+     * @param className The name of the test class.
+     * @param methodName The name of the test method.
+     * @param millis The duration of the test method in milliseconds.
+     */
+    public void record(String className, String methodName, long millis) {
+        String key = className + METHOD_SEPARATOR + methodName;
+        Long previous = methodMillis.putIfAbsent(key, millis);
+        while ((null != previous) && !methodMillis.replace(key, previous, (previous + millis) / 2L)) {
+            previous = methodMillis.putIfAbsent(key, millis);
+        }
+    }
+
+    /**
+     * Records every duration in the specified history into this one.
+     * 
+     * @param other The {@link RunHistory} whose durations are recorded.
+     */
+    public void merge(RunHistory other) {
+        for (Map.Entry<String, Long> entry : other.methodMillis.entrySet()) {
+            String key = entry.getKey();
+            int separator = key.indexOf(METHOD_SEPARATOR);
+            record(key.substring(0, separator), key.substring(separator + 1), entry.getValue());
+        }
+    }
+
+    /**
+     * Gets the recorded duration of the specified test method.
+     * 
+     * @param className The name of the test class.
+     * @param methodName The name of the test method.
+     * 
+     * @return Returns the duration in milliseconds, or null if the method has no history.
+     */
+    public Long getMethodMillis(String className, String methodName) {
+        return methodMillis.get(className + METHOD_SEPARATOR + methodName);
+    }
+
+    /**
+     * Gets the recorded duration of the specified test class, which is the sum of the durations of its methods.
+     * 
+     * @param className The name of the test class.
+     * 
+     * @return Returns the duration in milliseconds, or null if the class has no history.
+     */
+    public Long getClassMillis(String className) {
+        String prefix = className + METHOD_SEPARATOR;
+        Long classMillis = null;
+        for (Map.Entry<String, Long> entry : methodMillis.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                classMillis = ((null == classMillis) ? 0L : classMillis) + entry.getValue();
+            }
+        }
+        return classMillis;
+    }
+
+    /**
+     * Gets the names of the test classes with history.
+     * 
+     * @return Returns the sorted names of the test classes with history.
+     */
+    public Set<String> getClassNames() {
+        Set<String> classNames = new TreeSet<String>();
+        for (String key : methodMillis.keySet()) {
+            classNames.add(key.substring(0, key.indexOf(METHOD_SEPARATOR)));
+        }
+        return classNames;
+    }
+
+    public boolean isEmpty() {
+        return methodMillis.isEmpty();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+
+/**
+ * Collects the duration of every functional test method run in this JVM and merges them into the {@link RunHistory}
+ * file when the application context is closed. Setting {@code pienburger.history.enabled} to false disables recording.
+ * 
+ * The durations are merged into the file named by {@code pienburger.history.recordFile}, which defaults to the
+ * {@code pienburger.history.file} the {@link ShardPlanner} plans with. In a sharded run, with a
+ * {@code pienburger.shard.count} above 1, it defaults to that file name followed by {@code .shard<index>} instead, so
+ * that the history every shard plans with stays a read only snapshot. Otherwise each shard would merge only its own
+ * classes into its copy of the history and the plans of the shards would drift apart in later runs. The per shard
+ * files can be merged into the shared history with {@link RunHistory#merge(RunHistory)} once every shard has finished.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+@Named("runHistoryRecorder")
+public class RunHistoryRecorder implements InitializingBean, DisposableBean {
+
+    /**
+     * The setting naming the file the recorded durations are merged into.
+     */
+    public static final String RECORD_FILE_SETTING = "pienburger.history.recordFile";
+
+    private static final Log log = LogFactory.getLog(RunHistoryRecorder.class);
+
+    @Inject
+    @Named("pienburgerSettings")
+    private PienburgerSettings pienburgerSettings;
+
+    private final RunHistory recorded = new RunHistory();
+
+    private File historyFile;
+
+    private volatile boolean enabled = true;
+
+    @Override
+    public void afterPropertiesSet() {
+        enabled = pienburgerSettings.getBoolean("pienburger.history.enabled", true);
+        String recordFile = pienburgerSettings.getString(RunHistory.FILE_SETTING, RunHistory.DEFAULT_FILE);
+        if (pienburgerSettings.getInt(ShardedSuite.SHARD_COUNT_PROPERTY, 1) > 1) {
+            recordFile += ".shard" + pienburgerSettings.getInt(ShardedSuite.SHARD_INDEX_PROPERTY, 0);
+        }
+        historyFile = new File(pienburgerSettings.getString(RECORD_FILE_SETTING, recordFile));
+    }
+
+    /**
+     * Merges the durations recorded in this JVM into the run history file when the application context is closed.
+     */
+    @Override
+    public void destroy() {
+        if (!enabled || recorded.isEmpty()) {
+            return;
+        }
+
+        RunHistory runHistory = RunHistory.read(historyFile);
+        runHistory.merge(recorded);
+        try {
+            runHistory.write(historyFile);
+            log.info("destroy: Wrote run history to " + historyFile.getAbsolutePath());
+        } catch (IOException ioe) {
+            log.warn("destroy: Error writing run history to " + historyFile.getAbsolutePath(), ioe);
+        }
+    }
+
+    /**
+     * Records the duration of one run of the specified test method.
+     * 
+     * @param className The name of the test class.
+     * @param methodName The name of the test method.
+     * @param durationNanos The duration of the test method in nanoseconds.
+     */
+    public void record(String className, String methodName, long durationNanos) {
+        if (enabled && (null != className) && (null != methodName)) {
+            recorded.record(className, methodName, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+    }
+
+}
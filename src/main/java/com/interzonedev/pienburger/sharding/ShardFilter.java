@@ -0,0 +1,98 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.util.Arrays;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runner.Description;
+import org.junit.runner.manipulation.Filter;
+
+/**
+ * JUnit {@link Filter} that only lets the test classes of one shard of a {@link ShardPlan} run. Test classes that are
+ * not part of the plan are assigned to a shard by the hash of their name, so every class still runs on exactly one
+ * shard. The fingerprint of the plan is logged, so that a build can check that every shard ran from the same plan.
+ * 
+ * <pre>
+ * ShardFilter filter = ShardFilter.forClasses(RunHistory.read(RunHistory.getDefaultFile()), 1, 4, testClasses);
+ * new JUnitCore().run(Request.classes(testClasses).filterWith(filter));
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ShardFilter extends Filter {
+
+    private static final Log log = LogFactory.getLog(ShardFilter.class);
+
+    private final ShardPlan shardPlan;
+
+    private final int shardIndex;
+
+    /**
+     * Constructs a filter for the specified shard of the specified plan.
+     * 
+     * @param shardPlan The {@link ShardPlan} to filter by.
+     * @param shardIndex The zero based index of the shard to run.
+     */
+    public ShardFilter(ShardPlan shardPlan, int shardIndex) {
+        if ((shardIndex < 0) || (shardIndex >= shardPlan.getShardCount())) {
+            throw new IllegalArgumentException("The shard index must be between 0 and "
+                    + (shardPlan.getShardCount() - 1));
+        }
+        this.shardPlan = shardPlan;
+        this.shardIndex = shardIndex;
+
+        log.info("ShardFilter: Running " + describe() + " of plan " + shardPlan.getFingerprint() + " " + shardPlan);
+    }
+
+    /**
+     * Creates a filter for the specified shard of a plan of the specified test classes.
+     * 
+     * @param runHistory The {@link RunHistory} to plan with.
+     * @param shardIndex The zero based index of the shard to run.
+     * @param shardCount The number of shards.
+     * @param testClasses The test classes of the whole suite.
+     * 
+     * @return Returns a new {@link ShardFilter}.
+     */
+    public static ShardFilter forClasses(RunHistory runHistory, int shardIndex, int shardCount,
+            Class<?>... testClasses) {
+        return new ShardFilter(new ShardPlanner(runHistory).plan(Arrays.asList(testClasses), shardCount), shardIndex);
+    }
+
+    public ShardPlan getShardPlan() {
+        return shardPlan;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    @Override
+    public boolean shouldRun(Description description) {
+        String className = description.getClassName();
+        if (description.isTest() || (null != shardPlan.getShardIndex(className))) {
+            return isInShard(className);
+        }
+
+        for (Description child : description.getChildren()) {
+            if (shouldRun(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String describe() {
+        return "shard " + (shardIndex + 1) + " of " + shardPlan.getShardCount();
+    }
+
+    private boolean isInShard(String className) {
+        Integer classShardIndex = shardPlan.getShardIndex(className);
+        if (null == classShardIndex) {
+            classShardIndex = Math.floorMod(String.valueOf(className).hashCode(), shardPlan.getShardCount());
+        }
+        return shardIndex == classShardIndex;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The assignment of test classes to shards made by a {@link ShardPlanner}, along with the estimated duration of each
+ * shard. Within each shard the test classes are ordered longest first.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ShardPlan {
+
+    private final List<List<Class<?>>> shards;
+
+    private final long[] estimatedMillis;
+
+    private final Map<String, Integer> shardIndexes = new HashMap<String, Integer>();
+
+    private final Map<String, Long> classMillis;
+
+    ShardPlan(List<List<Class<?>>> shards, long[] estimatedMillis, Map<String, Long> classMillis) {
+        this.shards = shards;
+        this.estimatedMillis = estimatedMillis;
+        this.classMillis = classMillis;
+
+        for (int i = 0; i < shards.size(); i++) {
+            for (Class<?> testClass : shards.get(i)) {
+                shardIndexes.put(testClass.getName(), i);
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Gets the test classes assigned to the specified shard.
+     * 
+     * @param shardIndex The zero based index of the shard.
+     * 
+     * @return Returns the test classes of the shard, longest first.
+     */
+    public List<Class<?>> getShard(int shardIndex) {
+        return Collections.unmodifiableList(shards.get(shardIndex));
+    }
+
+    /**
+     * Gets the shard the specified test class is assigned to.
+     * 
+     * @param className The name of the test class.
+     * 
+     * @return Returns the zero based index of the shard, or null if the class is not part of the plan.
+     */
+    public Integer getShardIndex(String className) {
+        return shardIndexes.get(className);
+    }
+
+    /**
+     * Gets the estimated duration of the specified test class that the plan was made with.
+     * 
+     * @param className The name of the test class.
+     * 
+     * @return Returns the estimated duration in milliseconds, or null if the class is not part of the plan.
+     */
+    public Long getEstimatedMillis(String className) {
+        return classMillis.get(className);
+    }
+
+    /**
+     * Gets the estimated duration of the specified shard, which is the sum of the estimated durations of its classes.
+     * 
+     * @param shardIndex The zero based index of the shard.
+     * 
+     * @return Returns the estimated duration of the shard in milliseconds.
+     */
+    public long getShardEstimatedMillis(int shardIndex) {
+        return estimatedMillis[shardIndex];
+    }
+
+    /**
+     * Gets a short fingerprint of the assignment of the test classes to the shards. Every shard of a build logs it, so
+     * shards that planned with different run histories, and therefore may run some classes twice and others not at
+     * all, can be told apart.
+     * 
+     * @return Returns the fingerprint as eight hexadecimal digits.
+     */
+    public String getFingerprint() {
+        List<List<String>> classNames = new ArrayList<List<String>>();
+        for (List<Class<?>> shard : shards) {
+            List<String> shardClassNames = new ArrayList<String>();
+            for (Class<?> testClass : shard) {
+                shardClassNames.add(testClass.getName());
+            }
+            classNames.add(shardClassNames);
+        }
+        return String.format("%08x", classNames.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        List<String> shardSummaries = new ArrayList<String>();
+        for (int i = 0; i < shards.size(); i++) {
+            shardSummaries.add(shards.get(i).size() + " classes/" + estimatedMillis[i] + "ms");
+        }
+        return "ShardPlan" + shardSummaries;
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns functional test classes to shards, such as CI machines or worker threads, so that every shard takes about
+ * the same time. The classes are assigned longest first, each to the shard with the least estimated time so far, using
+ * the durations in the {@link RunHistory}. Classes without history are estimated at the average duration of the classes
+ * with history, so a suite without any history is split into shards of even class counts.
+ * 
+ * The plan only depends on the run history and the set of classes, so every machine of a sharded build computes the
+ * same plan as long as they share the same run history file and do not write to it during the build (see
+ * {@link RunHistoryRecorder}).
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ShardPlanner {
+
+    private final RunHistory runHistory;
+
+    public ShardPlanner(RunHistory runHistory) {
+        this.runHistory = runHistory;
+    }
+
+    /**
+     * Assigns the specified test classes to the specified number of shards.
+     * 
+     * @param testClasses The test classes to assign.
+     * @param shardCount The number of shards.
+     * 
+     * @return Returns the {@link ShardPlan}.
+     */
+    public ShardPlan plan(Collection<Class<?>> testClasses, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("The shard count must be at least 1");
+        }
+
+        Map<String, Long> classMillis = estimate(testClasses);
+
+        List<List<Class<?>>> shards = new ArrayList<List<Class<?>>>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<Class<?>>());
+        }
+        long[] shardMillis = new long[shardCount];
+
+        for (Class<?> testClass : sortLongestFirst(testClasses, classMillis)) {
+            int leastLoaded = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardMillis[i] < shardMillis[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            shards.get(leastLoaded).add(testClass);
+            shardMillis[leastLoaded] += classMillis.get(testClass.getName());
+        }
+
+        return new ShardPlan(shards, shardMillis, classMillis);
+    }
+
+    /**
+     * Orders the specified test classes longest first. Worker threads that take the next class from a shared queue
+     * finish closest together when the classes are queued in this order.
+     * 
+     * @param testClasses The test classes to order.
+     * 
+     * @return Returns a new list of the test classes, longest first.
+     */
+    public List<Class<?>> longestFirst(Collection<Class<?>> testClasses) {
+        return sortLongestFirst(testClasses, estimate(testClasses));
+    }
+
+    private Map<String, Long> estimate(Collection<Class<?>> testClasses) {
+        Map<String, Long> classMillis = new HashMap<String, Long>();
+        long knownMillis = 0L;
+        int knownCount = 0;
+        for (Class<?> testClass : testClasses) {
+            Long millis = runHistory.getClassMillis(testClass.getName());
+            if (null != millis) {
+                classMillis.put(testClass.getName(), millis);
+                knownMillis += millis;
+                knownCount++;
+            }
+        }
+
+        long unknownMillis = (0 == knownCount) ? 1L : Math.max(1L, knownMillis / knownCount);
+        for (Class<?> testClass : testClasses) {
+            if (!classMillis.containsKey(testClass.getName())) {
+                classMillis.put(testClass.getName(), unknownMillis);
+            }
+        }
+
+        return classMillis;
+    }
+
+    private List<Class<?>> sortLongestFirst(Collection<Class<?>> testClasses, final Map<String, Long> classMillis) {
+        List<Class<?>> sorted = new ArrayList<Class<?>>(testClasses);
+        Collections.sort(sorted, new Comparator<Class<?>>() {
+            @Override
+            public int compare(Class<?> a, Class<?> b) {
+                int byMillis = classMillis.get(b.getName()).compareTo(classMillis.get(a.getName()));
+                return (0 != byMillis) ? byMillis : a.getName().compareTo(b.getName());
+            }
+        });
+        return sorted;
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.interzonedev.pienburger.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.runner.Description;
+import org.junit.runner.Runner;
+import org.junit.runner.manipulation.NoTestsRemainException;
+import org.junit.runner.manipulation.Sorter;
+import org.junit.runners.Suite;
+import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerBuilder;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+
+/**
+ * JUnit {@link Suite} runner that only runs the share of its {@link Suite.SuiteClasses} assigned to the current shard
+ * by a {@link ShardPlanner}, longest first. The shard is selected with the {@code pienburger.shard.index} (zero based,
+ * default 0) and {@code pienburger.shard.count} (default 1) settings, so each CI machine runs the same suite with a
+ * different index. The durations are read from the {@link RunHistory#getDefaultFile() run history file}, which the
+ * {@link RunHistoryRecorder} of a sharded run leaves unchanged.
+ * 
+ * <pre>
+ * &#064;RunWith(ShardedSuite.class)
+ * &#064;SuiteClasses({ LoginTest.class, SearchTest.class, CheckoutTest.class })
+ * public class AllFunctionalTests {
+ * }
+ * </pre>
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ShardedSuite extends Suite {
+
+    /**
+     * The setting holding the zero based index of the shard to run.
+     */
+    public static final String SHARD_INDEX_PROPERTY = "pienburger.shard.index";
+
+    /**
+     * The setting holding the number of shards.
+     */
+    public static final String SHARD_COUNT_PROPERTY = "pienburger.shard.count";
+
+    private static final Log log = LogFactory.getLog(ShardedSuite.class);
+
+    public ShardedSuite(Class<?> klass, RunnerBuilder builder) throws InitializationError {
+        super(klass, builder);
+
+        PienburgerSettings pienburgerSettings = PienburgerSettings.fromClasspath();
+        int shardIndex = pienburgerSettings.getInt(SHARD_INDEX_PROPERTY, 0);
+        int shardCount = pienburgerSettings.getInt(SHARD_COUNT_PROPERTY, 1);
+        if ((shardCount < 1) || (shardIndex < 0) || (shardIndex >= shardCount)) {
+            throw new InitializationError("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+
+        List<Class<?>> testClasses = new ArrayList<Class<?>>();
+        for (Runner runner : getChildren()) {
+            Class<?> testClass = runner.getDescription().getTestClass();
+            if (null != testClass) {
+                testClasses.add(testClass);
+            }
+        }
+
+        final ShardPlan shardPlan = new ShardPlanner(RunHistory.read(RunHistory.getDefaultFile())).plan(testClasses,
+                shardCount);
+        log.info("ShardedSuite: Shard " + shardIndex + " is estimated at "
+                + shardPlan.getShardEstimatedMillis(shardIndex) + "ms");
+
+        try {
+            filter(new ShardFilter(shardPlan, shardIndex));
+        } catch (NoTestsRemainException ntre) {
+            log.info("ShardedSuite: No test classes are assigned to shard " + shardIndex);
+        }
+
+        sort(new Sorter(new Comparator<Description>() {
+            @Override
+            public int compare(Description a, Description b) {
+                Long aMillis = shardPlan.getEstimatedMillis(a.getClassName());
+                Long bMillis = shardPlan.getEstimatedMillis(b.getClassName());
+                if (a.isTest() || b.isTest() || (null == aMillis) || (null == bMillis)) {
+                    return 0;
+                }
+                return bMillis.compareTo(aMillis);
+            }
+        }));
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.interzonedev.pienburger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+import com.interzonedev.pienburger.driver.Browser;
+
+/**
+ * Unit tests for {@link FunctionalTestProperties}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class FunctionalTestPropertiesTest {
+
+    @Test
+    public void testSecondsConstructor() {
+        FunctionalTestProperties properties = new FunctionalTestProperties(Browser.HTMLUNIT, "http://localhost", 7L);
+
+        assertEquals(Long.valueOf(7L), properties.getElementWaitTimeoutInSeconds());
+        assertEquals(Duration.ofSeconds(7L), properties.getWaitSettings().getTimeout());
+    }
+
+    @Test
+    public void testNullSecondsConstructor() {
+        FunctionalTestProperties properties = new FunctionalTestProperties(Browser.HTMLUNIT, "http://localhost", null);
+
+        assertNull(properties.getElementWaitTimeoutInSeconds());
+        assertNull(properties.getElementWaitTimeout());
+        assertEquals(FunctionalTestProperties.DEFAULT_ELEMENT_WAIT_TIMEOUT, properties.getWaitSettings().getTimeout());
+    }
+
+    @Test
+    public void testNullSecondsSetter() {
+        FunctionalTestProperties properties = new FunctionalTestProperties();
+
+        properties.setElementWaitTimeoutInSeconds(null);
+
+        assertNull(properties.getElementWaitTimeoutInSeconds());
+    }
+
+    @Test
+    public void testDurationFactory() {
+        FunctionalTestProperties properties = FunctionalTestProperties.ofElementWaitTimeout(Browser.HTMLUNIT,
+                "http://localhost", Duration.ofMillis(1500L));
+
+        assertEquals(Browser.HTMLUNIT, properties.getBrowser());
+        assertEquals("http://localhost", properties.getApplicationUrl());
+        assertEquals(Long.valueOf(1L), properties.getElementWaitTimeoutInSeconds());
+        assertEquals(Duration.ofMillis(1500L), properties.getWaitSettings().getTimeout());
+    }
+
+}
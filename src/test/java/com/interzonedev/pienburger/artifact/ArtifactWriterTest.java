@@ -0,0 +1,246 @@
+package com.interzonedev.pienburger.artifact;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.interzonedev.pienburger.PienburgerSettings;
+import com.interzonedev.pienburger.driver.FakeWebDriver;
+
+/**
+ * Unit tests for the retention of previous runs and the blob writing of the {@link ArtifactWriter}, against a
+ * temporary artifact directory.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ArtifactWriterTest {
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1L);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File artifactDirectory;
+
+    private Properties properties;
+
+    @Before
+    public void setUp() throws Exception {
+        artifactDirectory = temporaryFolder.newFolder("artifacts");
+        properties = new Properties();
+        properties.setProperty("pienburger.artifacts.directory", artifactDirectory.getAbsolutePath());
+    }
+
+    @Test
+    public void testRunsBeyondRetainRunsAreDeleted() throws Exception {
+        File newest = runDirectory("run-a", 1L);
+        File second = runDirectory("run-b", 2L);
+        File third = runDirectory("run-c", 3L);
+        File fourth = runDirectory("run-d", 4L);
+        properties.setProperty("pienburger.artifacts.retainRuns", "2");
+
+        start().destroy();
+
+        assertTrue(newest.exists());
+        assertTrue(second.exists());
+        assertFalse(third.exists());
+        assertFalse(fourth.exists());
+    }
+
+    @Test
+    public void testRunsOlderThanRetainDaysAreDeleted() throws Exception {
+        File recent = runDirectory("run-a", 1L);
+        File old = runDirectory("run-b", 24L * 8L);
+        properties.setProperty("pienburger.artifacts.retainDays", "7");
+
+        start().destroy();
+
+        assertTrue(recent.exists());
+        assertFalse(old.exists());
+    }
+
+    @Test
+    public void testLiveRunsAreSpared() throws Exception {
+        File live = runDirectory("run-live", 24L * 30L);
+        File dead = runDirectory("run-dead", 24L * 30L);
+        File deadLock = new File(artifactDirectory, "run-dead.lock");
+        assertTrue(deadLock.createNewFile());
+        properties.setProperty("pienburger.artifacts.retainRuns", "0");
+
+        FileChannel liveLock = FileChannel.open(new File(artifactDirectory, "run-live.lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            liveLock.lock();
+            start().destroy();
+        } finally {
+            liveLock.close();
+        }
+
+        assertTrue(live.exists());
+        assertFalse(dead.exists());
+        assertFalse(deadLock.exists());
+    }
+
+    @Test
+    public void testOrphanLockFilesAreDeleted() throws Exception {
+        File orphanLock = new File(artifactDirectory, "run-gone.lock");
+        assertTrue(orphanLock.createNewFile());
+
+        start().destroy();
+
+        assertFalse(orphanLock.exists());
+    }
+
+    @Test
+    public void testOwnLockIsHeldUntilDestroy() throws Exception {
+        ArtifactWriter artifactWriter = start();
+        File lockFile = new File(artifactDirectory, artifactWriter.getRunDirectory().getName() + ".lock");
+
+        assertTrue(lockFile.exists());
+        artifactWriter.destroy();
+        assertFalse(lockFile.exists());
+    }
+
+    @Test
+    public void testConcurrentDuplicatesShareOneBlob() throws Exception {
+        properties.setProperty("pienburger.artifacts.writerThreads", "4");
+        properties.setProperty("pienburger.artifacts.queueCapacity", "1");
+        ArtifactWriter artifactWriter = start();
+
+        submitConcurrently(artifactWriter, Collections.nCopies(40, "<html><body>Error</body></html>"));
+        artifactWriter.destroy();
+
+        List<String> references = getPageSourceReferences(artifactWriter.getRunDirectory());
+        assertEquals(40, references.size());
+        for (String reference : references) {
+            assertEquals(references.get(0), reference);
+            assertTrue(new File(artifactWriter.getRunDirectory(), reference).isFile());
+        }
+        assertEquals(1, new File(artifactWriter.getRunDirectory(), "blobs").list().length);
+    }
+
+    @Test
+    public void testConcurrentWritersStayWithinCap() throws Exception {
+        properties.setProperty("pienburger.artifacts.writerThreads", "4");
+        properties.setProperty("pienburger.artifacts.queueCapacity", "1");
+        properties.setProperty("pienburger.artifacts.maxRunBytes", "20000");
+        ArtifactWriter artifactWriter = start();
+
+        // Random text compresses poorly, so only some of the page sources fit under the cap.
+        Random random = new Random(42L);
+        List<String> pageSources = new ArrayList<String>();
+        for (int i = 0; i < 40; i++) {
+            StringBuilder pageSource = new StringBuilder();
+            for (int j = 0; j < 2000; j++) {
+                pageSource.append((char) ('!' + random.nextInt(90)));
+            }
+            // Every page source appears twice, so duplicates of omitted blobs are written concurrently as well.
+            pageSources.add(pageSource.toString());
+            pageSources.add(pageSource.toString());
+        }
+
+        submitConcurrently(artifactWriter, pageSources);
+        artifactWriter.destroy();
+
+        List<String> references = getPageSourceReferences(artifactWriter.getRunDirectory());
+        assertEquals(80, references.size());
+        int omitted = 0;
+        for (String reference : references) {
+            if (reference.startsWith("omitted")) {
+                omitted++;
+            } else {
+                assertTrue(new File(artifactWriter.getRunDirectory(), reference).isFile());
+            }
+        }
+        assertTrue(omitted > 0);
+
+        long blobBytes = 0L;
+        for (File blob : new File(artifactWriter.getRunDirectory(), "blobs").listFiles()) {
+            blobBytes += blob.length();
+        }
+        assertTrue(blobBytes <= 20000L);
+    }
+
+    private ArtifactWriter start() {
+        ArtifactWriter artifactWriter = new ArtifactWriter();
+        artifactWriter.setPienburgerSettings(new PienburgerSettings(properties));
+        artifactWriter.afterPropertiesSet();
+        return artifactWriter;
+    }
+
+    private File runDirectory(String name, long ageHours) throws IOException {
+        File runDirectory = new File(artifactDirectory, name);
+        assertTrue(runDirectory.mkdir());
+        Files.write(new File(runDirectory, "report.txt").toPath(), name.getBytes(StandardCharsets.UTF_8));
+        assertTrue(runDirectory.setLastModified(System.currentTimeMillis() - (ageHours * HOUR_MILLIS)));
+        return runDirectory;
+    }
+
+    private void submitConcurrently(final ArtifactWriter artifactWriter, List<String> pageSources)
+            throws InterruptedException {
+        ExecutorService submitters = Executors.newFixedThreadPool(4);
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < pageSources.size(); i++) {
+            final String pageSource = pageSources.get(i);
+            final String methodName = "test" + i;
+            submitters.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    FakeWebDriver driver = new FakeWebDriver() {
+                        @Override
+                        public String getPageSource() {
+                            return pageSource;
+                        }
+                    };
+                    artifactWriter.submit("ArtifactWriterTest", methodName, new IllegalStateException("failed"),
+                            Collections.singletonList(BrowserCapture.grab(driver, "capture", null, artifactWriter)));
+                }
+            });
+        }
+        start.countDown();
+        submitters.shutdown();
+        assertTrue(submitters.awaitTermination(30L, TimeUnit.SECONDS));
+    }
+
+    private List<String> getPageSourceReferences(File runDirectory) throws IOException {
+        List<String> references = new ArrayList<String>();
+        File[] reportDirectories = new File(runDirectory, "ArtifactWriterTest").listFiles();
+        for (File reportDirectory : reportDirectories) {
+            for (String line : Files.readAllLines(new File(reportDirectory, "report.txt").toPath(),
+                    StandardCharsets.UTF_8)) {
+                if (line.startsWith("Page source: ")) {
+                    references.add(line.substring("Page source: ".length()));
+                }
+            }
+        }
+        return references;
+    }
+
+}
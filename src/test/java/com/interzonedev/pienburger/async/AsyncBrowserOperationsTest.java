@@ -0,0 +1,159 @@
+package com.interzonedev.pienburger.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+import com.interzonedev.pienburger.driver.FakeWebDriver;
+
+/**
+ * Unit tests for the ordering of the operations submitted to {@link AsyncBrowserOperations}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AsyncBrowserOperationsTest {
+
+    private ExecutorService executor;
+
+    private AsyncBrowserOperations asyncBrowserOperations;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        asyncBrowserOperations = new AsyncBrowserOperations(null, executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOperationsOnSameDriverRunInOrder() {
+        WebDriver driver = new FakeWebDriver();
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+
+        for (int i = 0; i < 5; i++) {
+            asyncBrowserOperations.submit(driver, record(order, i));
+        }
+        asyncBrowserOperations.awaitQuiescence();
+
+        assertEquals(5, order.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testCancellingAnOperationDoesNotAdvanceTheLane() throws Exception {
+        WebDriver driver = new FakeWebDriver();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+
+        CompletableFuture<Integer> blocking = asyncBrowserOperations.submit(driver,
+                new Function<WebDriver, Integer>() {
+                    @Override
+                    public Integer apply(WebDriver d) {
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                        }
+                        order.add(0);
+                        return 0;
+                    }
+                });
+        assertTrue(started.await(5L, TimeUnit.SECONDS));
+
+        // Losing a Futures.firstOf race cancels the operation's future.
+        Futures.firstOf(Deadline.after(Duration.ofMinutes(1L)), blocking, CompletableFuture.completedFuture(-1));
+        assertTrue(blocking.isCancelled());
+
+        CompletableFuture<Integer> next = asyncBrowserOperations.submit(driver, record(order, 1));
+        Thread.sleep(100L);
+        assertFalse(next.isDone());
+        assertTrue(order.isEmpty());
+
+        release.countDown();
+        assertEquals(Integer.valueOf(1), Futures.await(next));
+        assertEquals(2, order.size());
+        assertEquals(Integer.valueOf(0), order.get(0));
+        assertEquals(Integer.valueOf(1), order.get(1));
+    }
+
+    @Test
+    public void testOperationCancelledBeforeItStartsIsSkipped() throws Exception {
+        WebDriver driver = new FakeWebDriver();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+
+        asyncBrowserOperations.submit(driver, new Function<WebDriver, Integer>() {
+            @Override
+            public Integer apply(WebDriver d) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                order.add(0);
+                return 0;
+            }
+        });
+        assertTrue(started.await(5L, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> cancelled = asyncBrowserOperations.submit(driver, record(order, 1));
+        CompletableFuture<Integer> next = asyncBrowserOperations.submit(driver, record(order, 2));
+        cancelled.cancel(false);
+
+        release.countDown();
+        assertEquals(Integer.valueOf(2), Futures.await(next));
+        assertEquals(2, order.size());
+        assertEquals(Integer.valueOf(0), order.get(0));
+        assertEquals(Integer.valueOf(2), order.get(1));
+    }
+
+    @Test
+    public void testFailureDoesNotStopTheLane() {
+        WebDriver driver = new FakeWebDriver();
+        final List<Integer> order = new CopyOnWriteArrayList<Integer>();
+
+        asyncBrowserOperations.submit(driver, new Function<WebDriver, Integer>() {
+            @Override
+            public Integer apply(WebDriver d) {
+                throw new IllegalStateException("failed");
+            }
+        });
+
+        assertEquals(Integer.valueOf(1), Futures.await(asyncBrowserOperations.submit(driver, record(order, 1))));
+    }
+
+    private static Function<WebDriver, Integer> record(final List<Integer> order, final int value) {
+        return new Function<WebDriver, Integer>() {
+            @Override
+            public Integer apply(WebDriver d) {
+                order.add(value);
+                return value;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.interzonedev.pienburger.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+
+import org.junit.Test;
+import org.openqa.selenium.TimeoutException;
+
+import com.interzonedev.pienburger.driver.WaitSettings;
+
+/**
+ * Unit tests for {@link Deadline}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class DeadlineTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeout() {
+        Deadline.after(Duration.ofMillis(-1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullTimeout() {
+        Deadline.after(null);
+    }
+
+    @Test
+    public void testRemainingNeverExceedsTimeout() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1L));
+
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.remaining().compareTo(Duration.ofMinutes(1L)) <= 0);
+        assertTrue(deadline.remaining().compareTo(Duration.ofSeconds(50L)) > 0);
+    }
+
+    @Test
+    public void testLimitKeepsShorterTimeout() {
+        Deadline deadline = Deadline.after(Duration.ofMinutes(1L));
+        WaitSettings waitSettings = new WaitSettings(Duration.ofSeconds(1L));
+
+        assertSame(waitSettings, deadline.limit(waitSettings));
+    }
+
+    @Test
+    public void testLimitShortensLongerTimeout() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(2L));
+        WaitSettings waitSettings = new WaitSettings(Duration.ofMinutes(1L));
+
+        WaitSettings limited = deadline.limit(waitSettings);
+
+        assertTrue(limited.getTimeout().compareTo(Duration.ofSeconds(2L)) <= 0);
+        assertEquals(waitSettings.getPollingStrategy(), limited.getPollingStrategy());
+    }
+
+    @Test
+    public void testExpiredDeadline() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+
+        assertTrue(deadline.isExpired());
+        assertEquals(Duration.ZERO, deadline.remaining());
+        try {
+            deadline.limit(new WaitSettings(Duration.ofSeconds(1L)));
+            fail("Expected a TimeoutException");
+        } catch (TimeoutException te) {
+            // Expected.
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.interzonedev.pienburger.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+import org.openqa.selenium.TimeoutException;
+
+/**
+ * Unit tests for {@link Futures}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class FuturesTest {
+
+    private static final Deadline LONG_DEADLINE = Deadline.after(Duration.ofMinutes(5L));
+
+    @Test
+    public void testFirstOfCompletesWithFirstSuccess() {
+        CompletableFuture<String> slow = new CompletableFuture<String>();
+        CompletableFuture<String> fast = new CompletableFuture<String>();
+
+        CompletableFuture<String> first = Futures.firstOf(LONG_DEADLINE, slow, fast);
+        fast.complete("fast");
+
+        assertEquals("fast", Futures.await(first));
+        assertTrue(slow.isCancelled());
+    }
+
+    @Test
+    public void testFirstOfSkipsFailures() {
+        CompletableFuture<String> failing = new CompletableFuture<String>();
+        CompletableFuture<String> succeeding = new CompletableFuture<String>();
+
+        CompletableFuture<String> first = Futures.firstOf(LONG_DEADLINE, failing, succeeding);
+        failing.completeExceptionally(new IllegalStateException("failed"));
+        assertFalse(first.isDone());
+        succeeding.complete("succeeded");
+
+        assertEquals("succeeded", Futures.await(first));
+    }
+
+    @Test
+    public void testFirstOfFailsWithLastFailure() {
+        CompletableFuture<String> one = new CompletableFuture<String>();
+        CompletableFuture<String> two = new CompletableFuture<String>();
+        IllegalStateException last = new IllegalStateException("last");
+
+        CompletableFuture<String> first = Futures.firstOf(LONG_DEADLINE, one, two);
+        one.completeExceptionally(new IllegalStateException("first"));
+        two.completeExceptionally(last);
+
+        try {
+            Futures.await(first);
+            fail("Expected the last failure");
+        } catch (IllegalStateException ise) {
+            assertSame(last, ise);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFirstOfRequiresFutures() {
+        Futures.firstOf(LONG_DEADLINE, Collections.<CompletableFuture<String>> emptyList());
+    }
+
+    @Test
+    public void testAllOfKeepsOrder() {
+        CompletableFuture<Integer> one = new CompletableFuture<Integer>();
+        CompletableFuture<Integer> two = new CompletableFuture<Integer>();
+
+        CompletableFuture<List<Integer>> all = Futures.allOf(LONG_DEADLINE, one, two);
+        two.complete(2);
+        assertFalse(all.isDone());
+        one.complete(1);
+
+        assertEquals(Arrays.asList(1, 2), Futures.await(all));
+    }
+
+    @Test
+    public void testAllOfFailsWithFirstFailureAndCancelsTheRest() {
+        CompletableFuture<Integer> failing = new CompletableFuture<Integer>();
+        CompletableFuture<Integer> pending = new CompletableFuture<Integer>();
+        IllegalStateException failure = new IllegalStateException("failed");
+
+        CompletableFuture<List<Integer>> all = Futures.allOf(LONG_DEADLINE, failing, pending);
+        failing.completeExceptionally(failure);
+
+        try {
+            Futures.await(all);
+            fail("Expected the failure");
+        } catch (IllegalStateException ise) {
+            assertSame(failure, ise);
+        }
+        assertTrue(pending.isCancelled());
+    }
+
+    @Test
+    public void testAllOfEmpty() {
+        assertTrue(Futures.await(Futures.allOf(LONG_DEADLINE, Collections.<CompletableFuture<String>> emptyList()))
+                .isEmpty());
+    }
+
+    @Test
+    public void testDeadlinePasses() {
+        CompletableFuture<String> never = new CompletableFuture<String>();
+
+        CompletableFuture<List<String>> all = Futures.allOf(Deadline.after(Duration.ofMillis(50L)), never);
+
+        try {
+            Futures.await(all);
+            fail("Expected a TimeoutException");
+        } catch (TimeoutException te) {
+            assertTrue(never.isCancelled());
+        }
+    }
+
+    @Test
+    public void testAwaitRethrowsAssertionErrors() {
+        CompletableFuture<String> failed = new CompletableFuture<String>();
+        AssertionError assertionError = new AssertionError("expected");
+        failed.completeExceptionally(assertionError);
+
+        try {
+            Futures.await(failed);
+            fail("Expected the AssertionError");
+        } catch (AssertionError ae) {
+            assertSame(assertionError, ae);
+        }
+    }
+
+}
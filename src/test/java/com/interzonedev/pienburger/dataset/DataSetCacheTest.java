@@ -0,0 +1,296 @@
+package com.interzonedev.pienburger.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Unit tests for when the {@link DataSetCache} loads, restores or skips a dataset.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class DataSetCacheTest {
+
+    private RecordingDataSource dataSource;
+
+    private CountingSnapshotStrategy snapshotStrategy;
+
+    private DataSetCache dataSetCache;
+
+    private ResourceLoader resourceLoader;
+
+    @Before
+    public void setUp() {
+        dataSource = new RecordingDataSource();
+        snapshotStrategy = new CountingSnapshotStrategy();
+        dataSetCache = new DataSetCache();
+        dataSetCache.setSnapshotStrategy(snapshotStrategy);
+        resourceLoader = new DefaultResourceLoader() {
+            @Override
+            public Resource getResource(String location) {
+                return new ByteArrayResource(("INSERT INTO customer VALUES ('" + location + "')").getBytes());
+            }
+        };
+    }
+
+    @Test
+    public void testFirstPrepareLoadsAndTakesSnapshot() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), false, resourceLoader);
+
+        assertEquals(1, dataSource.count("DELETE FROM customer"));
+        assertEquals(1, snapshotStrategy.snapshots);
+        assertEquals(0, snapshotStrategy.restores);
+        assertEquals(1, snapshotStrategy.sweeps);
+    }
+
+    @Test
+    public void testModifyingTestIsFollowedByRestore() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), false, resourceLoader);
+        dataSetCache.afterTest(false);
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), false, resourceLoader);
+
+        assertEquals(1, dataSource.count("DELETE FROM customer"));
+        assertEquals(1, snapshotStrategy.snapshots);
+        assertEquals(1, snapshotStrategy.restores);
+    }
+
+    @Test
+    public void testReadOnlyTestIsFollowedBySkip() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+        dataSetCache.afterTest(true);
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+        dataSetCache.afterTest(true);
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), false, resourceLoader);
+
+        assertEquals(0, snapshotStrategy.restores);
+    }
+
+    @Test
+    public void testTestWithoutReadOnlyDataSetMarksEveryDataSetDirty() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+        dataSetCache.afterTest(true);
+
+        // A test without a dataset of its own, which may still have changed the customers.
+        dataSetCache.afterTest(false);
+
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+
+        assertEquals(1, snapshotStrategy.restores);
+    }
+
+    @Test
+    public void testOtherDataSetOnSameTablesIsRestored() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+        dataSetCache.prepare(dataSource, dataSet(OtherCustomers.class), true, resourceLoader);
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+
+        assertEquals(2, snapshotStrategy.snapshots);
+        assertEquals(1, snapshotStrategy.restores);
+    }
+
+    @Test
+    public void testSharedDataSetIsLoadedOncePerOwner() throws Exception {
+        Object loadRun = new Object();
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+
+        dataSetCache.prepareShared(dataSource, dataSet(Customers.class), loadRun, resourceLoader);
+        dataSetCache.prepareShared(dataSource, dataSet(Customers.class), loadRun, resourceLoader);
+        dataSetCache.afterTest(false);
+        dataSetCache.prepareShared(dataSource, dataSet(Customers.class), loadRun, resourceLoader);
+
+        assertEquals(1, snapshotStrategy.restores);
+
+        dataSetCache.prepareShared(dataSource, dataSet(Customers.class), new Object(), resourceLoader);
+        assertEquals(2, snapshotStrategy.restores);
+
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), true, resourceLoader);
+        assertEquals(3, snapshotStrategy.restores);
+    }
+
+    @Test
+    public void testSharedTablesCannotHoldAnotherDataSet() throws Exception {
+        Object loadRun = new Object();
+        dataSetCache.prepareShared(dataSource, dataSet(Customers.class), loadRun, resourceLoader);
+
+        try {
+            dataSetCache.prepareShared(dataSource, dataSet(OtherCustomers.class), loadRun, resourceLoader);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException ise) {
+            assertEquals(1, snapshotStrategy.snapshots);
+        }
+    }
+
+    @Test
+    public void testDestroyDiscardsSnapshots() throws Exception {
+        dataSetCache.prepare(dataSource, dataSet(Customers.class), false, resourceLoader);
+        dataSetCache.prepare(dataSource, dataSet(OtherCustomers.class), false, resourceLoader);
+
+        dataSetCache.destroy();
+
+        assertEquals(2, snapshotStrategy.discards);
+    }
+
+    private static SnapshotDataSet dataSet(Class<?> annotatedClass) {
+        return annotatedClass.getAnnotation(SnapshotDataSet.class);
+    }
+
+    @SnapshotDataSet(scripts = "customers.sql", tables = "customer")
+    private static class Customers {
+    }
+
+    @SnapshotDataSet(scripts = "other-customers.sql", tables = "customer")
+    private static class OtherCustomers {
+    }
+
+    private static class CountingSnapshotStrategy implements SnapshotStrategy {
+
+        private int snapshots;
+
+        private int restores;
+
+        private int discards;
+
+        private int sweeps;
+
+        @Override
+        public DataSetSnapshot snapshot(DataSource dataSource, List<String> tables) {
+            snapshots++;
+            return new DataSetSnapshot() {
+                @Override
+                public void restore() {
+                    restores++;
+                }
+
+                @Override
+                public void discard() {
+                    discards++;
+                }
+            };
+        }
+
+        @Override
+        public int sweep(DataSource dataSource, long maxAgeMillis) {
+            sweeps++;
+            return 0;
+        }
+
+    }
+
+    /**
+     * {@link DataSource} whose connections record the SQL run with them and answer everything else with defaults.
+     */
+    private static class RecordingDataSource implements DataSource {
+
+        private final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+
+        private int count(String sql) {
+            return Collections.frequency(statements, sql);
+        }
+
+        @Override
+        public Connection getConnection() {
+            return proxy(Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+
+        private <T> T proxy(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                    new InvocationHandler() {
+                        @Override
+                        public Object invoke(Object proxy, Method method, Object[] args) {
+                            String name = method.getName();
+                            if ("createStatement".equals(name)) {
+                                return proxy(Statement.class);
+                            }
+                            if ("getMetaData".equals(name)) {
+                                return proxy(DatabaseMetaData.class);
+                            }
+                            if ("getURL".equals(name)) {
+                                return "jdbc:recording:test";
+                            }
+                            if ("getAutoCommit".equals(name)) {
+                                return Boolean.TRUE;
+                            }
+                            if (name.startsWith("execute") && (null != args) && (args[0] instanceof String)) {
+                                statements.add((String) args[0]);
+                            }
+                            return defaultValue(method.getReturnType());
+                        }
+                    }));
+        }
+
+        private static Object defaultValue(Class<?> type) {
+            if (boolean.class == type) {
+                return Boolean.FALSE;
+            }
+            if (int.class == type) {
+                return 0;
+            }
+            if (long.class == type) {
+                return 0L;
+            }
+            return null;
+        }
+
+    }
+
+}
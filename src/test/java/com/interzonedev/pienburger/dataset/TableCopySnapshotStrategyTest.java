@@ -0,0 +1,33 @@
+package com.interzonedev.pienburger.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link TableCopySnapshotStrategy}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class TableCopySnapshotStrategyTest {
+
+    @Test
+    public void testCreatedSecondsOfSnapshotTables() {
+        String time = Long.toString(1700000000L, 36);
+
+        assertEquals(Long.valueOf(1700000000L), TableCopySnapshotStrategy.getCreatedSeconds("pbs_" + time
+                + "_1a2b_order_item"));
+        assertEquals(Long.valueOf(1700000000L), TableCopySnapshotStrategy.getCreatedSeconds(("pbs_" + time
+                + "_1a2b_customer").toUpperCase()));
+    }
+
+    @Test
+    public void testOtherTablesAreNotSnapshots() {
+        assertNull(TableCopySnapshotStrategy.getCreatedSeconds("customer"));
+        assertNull(TableCopySnapshotStrategy.getCreatedSeconds("order_item_archive"));
+        assertNull(TableCopySnapshotStrategy.getCreatedSeconds("pbs_not-a-time_1a2b_customer"));
+        assertNull(TableCopySnapshotStrategy.getCreatedSeconds("pbs_1a2b"));
+    }
+
+}
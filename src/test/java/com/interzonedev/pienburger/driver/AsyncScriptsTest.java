@@ -0,0 +1,40 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+/**
+ * Unit tests for {@link AsyncScripts}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AsyncScriptsTest {
+
+    @Test
+    public void testUnloadMessagesAreNavigation() {
+        assertTrue(AsyncScripts.isPageUnloaded(new WebDriverException(
+                "Detected a page unload event; asynchronous script execution does not work across page loads")));
+        assertTrue(AsyncScripts.isPageUnloaded(new WebDriverException(
+                "javascript error: document unloaded while waiting for result")));
+        assertTrue(AsyncScripts.isPageUnloaded(new StaleElementReferenceException("stale")));
+    }
+
+    @Test
+    public void testDeadSessionIsNotNavigation() {
+        assertFalse(AsyncScripts.isPageUnloaded(new NoSuchSessionException("Session ID is null")));
+        assertFalse(AsyncScripts.isPageUnloaded(new UnreachableBrowserException("Could not start a new session")));
+    }
+
+    @Test
+    public void testScriptErrorIsNotNavigation() {
+        assertFalse(AsyncScripts.isPageUnloaded(new WebDriverException("ReferenceError: foo is not defined")));
+        assertFalse(AsyncScripts.isPageUnloaded(new WebDriverException((String) null)));
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.openqa.selenium.remote.BrowserType;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Unit tests for the translation of {@link DriverProfile}s into capabilities by {@link DriverLauncher}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class DriverLauncherTest {
+
+    private final DriverLauncher driverLauncher = new DriverLauncher();
+
+    @Test
+    public void testDefaultProfileLeavesHtmlUnitJavascriptUnset() {
+        DriverProfile profile = new DriverProfile(DriverProfile.DEFAULT);
+
+        DesiredCapabilities capabilities = driverLauncher.toCapabilities(BrowserType.HTMLUNIT, profile);
+
+        assertTrue(profile.isDriverDefault());
+        assertNull(capabilities.getCapability(CapabilityType.SUPPORTS_JAVASCRIPT));
+    }
+
+    @Test
+    public void testFastProfileLeavesHtmlUnitJavascriptUnset() {
+        DriverProfile profile = DriverProfile.fast(Browser.HTMLUNIT);
+
+        DesiredCapabilities capabilities = driverLauncher.toCapabilities(BrowserType.HTMLUNIT, profile);
+
+        assertFalse(profile.isDriverDefault());
+        assertFalse(profile.isCssEnabled());
+        assertNull(capabilities.getCapability(CapabilityType.SUPPORTS_JAVASCRIPT));
+    }
+
+    @Test
+    public void testExplicitJavascriptSetsCapability() {
+        DriverProfile profile = new DriverProfile("custom").withJavascriptEnabled(Boolean.TRUE);
+
+        DesiredCapabilities capabilities = driverLauncher.toCapabilities(BrowserType.HTMLUNIT, profile);
+
+        assertFalse(profile.isDriverDefault());
+        assertEquals(Boolean.TRUE, capabilities.getCapability(CapabilityType.SUPPORTS_JAVASCRIPT));
+    }
+
+    @Test
+    public void testFastFirefoxProfileIsNotHeadless() {
+        DriverProfile profile = DriverProfile.fast(Browser.FIREFOX);
+
+        assertFalse(profile.isHeadless());
+        assertFalse(profile.isImagesEnabled());
+        assertEquals(DriverProfile.PAGE_LOAD_EAGER, profile.getPageLoadStrategy());
+    }
+
+}
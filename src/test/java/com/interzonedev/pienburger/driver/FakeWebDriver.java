@@ -0,0 +1,269 @@
+package com.interzonedev.pienburger.driver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.By;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+
+/**
+ * In memory {@link WebDriver} for unit tests that exercise the pooling and session handling code without a browser.
+ * It keeps track of its windows and of whether it has been quit, and can be told to behave as a crashed browser.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class FakeWebDriver implements WebDriver {
+
+    private static final AtomicInteger sequence = new AtomicInteger();
+
+    private final int id = sequence.incrementAndGet();
+
+    private final Set<String> windowHandles = new LinkedHashSet<String>();
+
+    private final List<String> closedWindowHandles = new ArrayList<String>();
+
+    private String currentWindowHandle;
+
+    private String currentUrl = "about:blank";
+
+    private boolean crashed;
+
+    private int quitCount;
+
+    public FakeWebDriver() {
+        currentWindowHandle = addWindow();
+    }
+
+    /**
+     * Opens another window without switching to it, as a popup opened by the page would.
+     * 
+     * @return Returns the handle of the new window.
+     */
+    public String addWindow() {
+        String windowHandle = "window-" + id + "-" + (windowHandles.size() + closedWindowHandles.size());
+        windowHandles.add(windowHandle);
+        return windowHandle;
+    }
+
+    /**
+     * Replaces the window handles with the specified handles in the specified order, to simulate a driver that does
+     * not return them in the order they were opened.
+     * 
+     * @param orderedWindowHandles The handles in the order {@link #getWindowHandles()} returns them.
+     */
+    public void reorderWindows(List<String> orderedWindowHandles) {
+        windowHandles.clear();
+        windowHandles.addAll(orderedWindowHandles);
+    }
+
+    public List<String> getClosedWindowHandles() {
+        return closedWindowHandles;
+    }
+
+    public void crash() {
+        crashed = true;
+    }
+
+    public boolean isQuit() {
+        return quitCount > 0;
+    }
+
+    public int getQuitCount() {
+        return quitCount;
+    }
+
+    @Override
+    public void get(String url) {
+        checkAlive();
+        currentUrl = url;
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        checkAlive();
+        return currentUrl;
+    }
+
+    @Override
+    public String getTitle() {
+        checkAlive();
+        return "";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        checkAlive();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        checkAlive();
+        throw new NoSuchElementException(String.valueOf(by));
+    }
+
+    @Override
+    public String getPageSource() {
+        checkAlive();
+        return "<html></html>";
+    }
+
+    @Override
+    public void close() {
+        checkAlive();
+        windowHandles.remove(currentWindowHandle);
+        closedWindowHandles.add(currentWindowHandle);
+    }
+
+    @Override
+    public void quit() {
+        quitCount++;
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        checkAlive();
+        return new LinkedHashSet<String>(windowHandles);
+    }
+
+    @Override
+    public String getWindowHandle() {
+        checkAlive();
+        return currentWindowHandle;
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return new TargetLocator() {
+            @Override
+            public WebDriver frame(int index) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver frame(String nameOrId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver frame(WebElement frameElement) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver parentFrame() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public WebDriver window(String nameOrHandle) {
+                checkAlive();
+                if (!windowHandles.contains(nameOrHandle)) {
+                    throw new NoSuchWindowException(nameOrHandle);
+                }
+                currentWindowHandle = nameOrHandle;
+                return FakeWebDriver.this;
+            }
+
+            @Override
+            public WebDriver defaultContent() {
+                return FakeWebDriver.this;
+            }
+
+            @Override
+            public WebElement activeElement() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Alert alert() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Options manage() {
+        return new Options() {
+            @Override
+            public void addCookie(Cookie cookie) {
+                checkAlive();
+            }
+
+            @Override
+            public void deleteCookieNamed(String name) {
+                checkAlive();
+            }
+
+            @Override
+            public void deleteCookie(Cookie cookie) {
+                checkAlive();
+            }
+
+            @Override
+            public void deleteAllCookies() {
+                checkAlive();
+            }
+
+            @Override
+            public Set<Cookie> getCookies() {
+                checkAlive();
+                return Collections.emptySet();
+            }
+
+            @Override
+            public Cookie getCookieNamed(String name) {
+                checkAlive();
+                return null;
+            }
+
+            @Override
+            public Timeouts timeouts() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ImeHandler ime() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Window window() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Logs logs() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "FakeWebDriver [id=" + id + "]";
+    }
+
+    private void checkAlive() {
+        if (crashed || isQuit()) {
+            throw new NoSuchSessionException("Session " + id + " is gone");
+        }
+    }
+
+}
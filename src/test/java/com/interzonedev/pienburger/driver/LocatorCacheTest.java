@@ -0,0 +1,191 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Unit tests for when the {@link LocatorCache} answers a lookup from the cache or drops the cached element.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LocatorCacheTest {
+
+    private static final By BUTTON = By.id("button");
+
+    private static final By LINK = By.id("link");
+
+    private LocatorCache locatorCache;
+
+    private FakeWebDriver driver;
+
+    @Before
+    public void setUp() {
+        locatorCache = new LocatorCache();
+        driver = new FakeWebDriver();
+        driver.get("http://localhost/page");
+    }
+
+    @Test
+    public void testAttachedElementIsHit() {
+        FakeElement button = new FakeElement();
+        locatorCache.put(driver, BUTTON, button.proxy, locatorCache.getNavigation(driver));
+
+        assertSame(button.proxy, locatorCache.get(driver, BUTTON));
+        assertSame(button.proxy, locatorCache.get(driver, BUTTON));
+        assertEquals(2L, locatorCache.getHitCount());
+        assertEquals(0L, locatorCache.getMissCount());
+        assertEquals(0L, locatorCache.getStaleCount());
+    }
+
+    @Test
+    public void testUncachedElementIsMiss() {
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(0L, locatorCache.getHitCount());
+        assertEquals(1L, locatorCache.getMissCount());
+        assertEquals(0L, locatorCache.getStaleCount());
+    }
+
+    @Test
+    public void testDetachedElementIsDropped() {
+        FakeElement button = new FakeElement();
+        FakeElement link = new FakeElement();
+        int navigation = locatorCache.getNavigation(driver);
+        locatorCache.put(driver, BUTTON, button.proxy, navigation);
+        locatorCache.put(driver, LINK, link.proxy, navigation);
+
+        button.detached = true;
+
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(1L, locatorCache.getStaleCount());
+        assertEquals(1L, locatorCache.getMissCount());
+
+        // The dropped element is not checked again, and the other elements of the page stay cached.
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(1L, locatorCache.getStaleCount());
+        assertSame(link.proxy, locatorCache.get(driver, LINK));
+    }
+
+    @Test
+    public void testUrlMovedDropsEveryElement() {
+        FakeElement button = new FakeElement();
+        FakeElement link = new FakeElement();
+        int navigation = locatorCache.getNavigation(driver);
+        locatorCache.put(driver, BUTTON, button.proxy, navigation);
+        locatorCache.put(driver, LINK, link.proxy, navigation);
+
+        // The page navigated by itself, for example after a form submission, without going through openPage.
+        driver.get("http://localhost/other");
+
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(1L, locatorCache.getStaleCount());
+        assertEquals(navigation + 1, locatorCache.getNavigation(driver));
+
+        assertNull(locatorCache.get(driver, LINK));
+        assertEquals(1L, locatorCache.getStaleCount());
+        assertEquals(2L, locatorCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidateDropsEveryElement() {
+        FakeElement button = new FakeElement();
+        locatorCache.put(driver, BUTTON, button.proxy, locatorCache.getNavigation(driver));
+
+        locatorCache.invalidate(driver);
+
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(0L, locatorCache.getStaleCount());
+    }
+
+    @Test
+    public void testInvalidateBeforePutIsNotCached() {
+        FakeElement button = new FakeElement();
+        int navigation = locatorCache.getNavigation(driver);
+
+        // The browser is sent to another page while the element of the previous page is being looked up.
+        locatorCache.invalidate(driver);
+        locatorCache.put(driver, BUTTON, button.proxy, navigation);
+
+        assertNull(locatorCache.get(driver, BUTTON));
+        assertEquals(0L, locatorCache.getHitCount());
+    }
+
+    @Test
+    public void testInvalidateWhileReadingUrlIsNotCached() {
+        final FakeElement button = new FakeElement();
+        FakeWebDriver navigatingDriver = new FakeWebDriver() {
+            private boolean navigated;
+
+            @Override
+            public String getCurrentUrl() {
+                if (!navigated) {
+                    // The browser is sent to another page while put reads the URL of the page the element is on.
+                    navigated = true;
+                    locatorCache.invalidate(this);
+                }
+                return super.getCurrentUrl();
+            }
+        };
+        navigatingDriver.get("http://localhost/page");
+
+        locatorCache.put(navigatingDriver, BUTTON, button.proxy, locatorCache.getNavigation(navigatingDriver));
+
+        assertNull(locatorCache.get(navigatingDriver, BUTTON));
+        assertEquals(0L, locatorCache.getHitCount());
+        assertEquals(1, locatorCache.getNavigation(navigatingDriver));
+    }
+
+    @Test
+    public void testElementsArePerBrowser() {
+        FakeElement button = new FakeElement();
+        FakeWebDriver otherDriver = new FakeWebDriver();
+        otherDriver.get("http://localhost/page");
+        locatorCache.put(driver, BUTTON, button.proxy, locatorCache.getNavigation(driver));
+
+        locatorCache.invalidate(otherDriver);
+
+        assertNull(locatorCache.get(otherDriver, BUTTON));
+        assertSame(button.proxy, locatorCache.get(driver, BUTTON));
+    }
+
+    /**
+     * {@link WebElement} whose checks fail with a {@link StaleElementReferenceException} once it is detached.
+     */
+    private static class FakeElement implements InvocationHandler {
+
+        private final WebElement proxy = (WebElement) Proxy.newProxyInstance(LocatorCacheTest.class.getClassLoader(),
+                new Class<?>[] { WebElement.class }, this);
+
+        private boolean detached;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            String name = method.getName();
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name)) {
+                return "FakeElement";
+            } else if ("isEnabled".equals(name)) {
+                if (detached) {
+                    throw new StaleElementReferenceException("The element is no longer attached to the DOM");
+                }
+                return true;
+            }
+            throw new UnsupportedOperationException(name);
+        }
+
+    }
+
+}
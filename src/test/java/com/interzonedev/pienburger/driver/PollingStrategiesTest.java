@@ -0,0 +1,69 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link PollingStrategies}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class PollingStrategiesTest {
+
+    @Test
+    public void testFixed() {
+        PollingStrategy strategy = PollingStrategies.fixed(Duration.ofMillis(250L));
+
+        assertEquals(Duration.ofMillis(250L), strategy.getInterval(0));
+        assertEquals(Duration.ofMillis(250L), strategy.getInterval(100));
+    }
+
+    @Test
+    public void testExponentialBackoffGrowsUpToMaximum() {
+        PollingStrategy strategy = PollingStrategies.exponentialBackoff(Duration.ofMillis(10L), 2.0d,
+                Duration.ofMillis(100L));
+
+        assertEquals(Duration.ofMillis(10L), strategy.getInterval(0));
+        assertEquals(Duration.ofMillis(20L), strategy.getInterval(1));
+        assertEquals(Duration.ofMillis(40L), strategy.getInterval(2));
+        assertEquals(Duration.ofMillis(80L), strategy.getInterval(3));
+        assertEquals(Duration.ofMillis(100L), strategy.getInterval(4));
+        assertEquals(Duration.ofMillis(100L), strategy.getInterval(1000));
+    }
+
+    @Test
+    public void testExponentialBackoffWithoutGrowth() {
+        PollingStrategy strategy = PollingStrategies.exponentialBackoff(Duration.ofMillis(10L), 1.0d,
+                Duration.ofMillis(100L));
+
+        assertEquals(Duration.ofMillis(10L), strategy.getInterval(50));
+    }
+
+    @Test
+    public void testFastThenSlow() {
+        PollingStrategy strategy = PollingStrategies.fastThenSlow(Duration.ofMillis(10L), 3, Duration.ofMillis(500L));
+
+        assertEquals(Duration.ofMillis(10L), strategy.getInterval(0));
+        assertEquals(Duration.ofMillis(10L), strategy.getInterval(2));
+        assertEquals(Duration.ofMillis(500L), strategy.getInterval(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiplierBelowOneIsRejected() {
+        PollingStrategies.exponentialBackoff(Duration.ofMillis(10L), 0.5d, Duration.ofMillis(100L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroIntervalIsRejected() {
+        PollingStrategies.fixed(Duration.ZERO);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeIntervalIsRejected() {
+        PollingStrategies.fastThenSlow(Duration.ofMillis(10L), 3, Duration.ofMillis(-1L));
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link SessionResetter}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class SessionResetterTest {
+
+    @Test
+    public void testKeepsSpecifiedWindowWhateverTheHandleOrder() {
+        FakeWebDriver driver = new FakeWebDriver();
+        String mainWindowHandle = driver.getWindowHandle();
+        String popupWindowHandle = driver.addWindow();
+        driver.reorderWindows(Arrays.asList(popupWindowHandle, mainWindowHandle));
+
+        assertTrue(new SessionResetter(null).reset(driver, mainWindowHandle));
+
+        assertEquals(Collections.singletonList(popupWindowHandle), driver.getClosedWindowHandles());
+        assertEquals(mainWindowHandle, driver.getWindowHandle());
+        assertEquals("about:blank", driver.getCurrentUrl());
+    }
+
+    @Test
+    public void testKeepsCurrentWindowWhenNoneSpecified() {
+        FakeWebDriver driver = new FakeWebDriver();
+        String mainWindowHandle = driver.getWindowHandle();
+        String popupWindowHandle = driver.addWindow();
+        driver.reorderWindows(Arrays.asList(popupWindowHandle, mainWindowHandle));
+
+        assertTrue(new SessionResetter(null).reset(driver));
+
+        assertEquals(Collections.singletonList(popupWindowHandle), driver.getClosedWindowHandles());
+        assertEquals(mainWindowHandle, driver.getWindowHandle());
+    }
+
+    @Test
+    public void testKeepsCurrentWindowWhenSpecifiedWindowIsGone() {
+        FakeWebDriver driver = new FakeWebDriver();
+        String popupWindowHandle = driver.addWindow();
+        String otherWindowHandle = driver.addWindow();
+        driver.switchTo().window(popupWindowHandle);
+
+        assertTrue(new SessionResetter(null).reset(driver, "closed-window"));
+
+        assertTrue(driver.getClosedWindowHandles().contains(otherWindowHandle));
+        assertFalse(driver.getClosedWindowHandles().contains(popupWindowHandle));
+        assertEquals(popupWindowHandle, driver.getWindowHandle());
+    }
+
+    @Test
+    public void testSingleWindowIsLeftAlone() {
+        FakeWebDriver driver = new FakeWebDriver();
+
+        assertTrue(new SessionResetter(null).reset(driver, driver.getWindowHandle()));
+
+        assertTrue(driver.getClosedWindowHandles().isEmpty());
+    }
+
+    @Test
+    public void testCrashedBrowserCannotBeReset() {
+        FakeWebDriver driver = new FakeWebDriver();
+        driver.crash();
+
+        assertFalse(new SessionResetter(null).reset(driver, null));
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+
+/**
+ * Unit tests for {@link WaitSettings}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class WaitSettingsTest {
+
+    @Test
+    public void testDefaultsIgnoreNotFound() {
+        WaitSettings waitSettings = new WaitSettings(Duration.ofSeconds(1L));
+
+        assertTrue(waitSettings.isIgnored(new NoSuchElementException("missing")));
+        assertFalse(waitSettings.isIgnored(new StaleElementReferenceException("stale")));
+        assertEquals(PollingStrategies.DEFAULT_INTERVAL, waitSettings.getPollingStrategy().getInterval(0));
+    }
+
+    @Test
+    public void testIgnoringAddsToIgnoredExceptions() {
+        WaitSettings waitSettings = new WaitSettings(Duration.ofSeconds(1L));
+
+        WaitSettings ignoring = waitSettings.ignoring(StaleElementReferenceException.class);
+
+        assertTrue(ignoring.isIgnored(new NoSuchElementException("missing")));
+        assertTrue(ignoring.isIgnored(new StaleElementReferenceException("stale")));
+        assertFalse(waitSettings.isIgnored(new StaleElementReferenceException("stale")));
+    }
+
+    @Test
+    public void testWithTimeoutKeepsOtherValues() {
+        PollingStrategy pollingStrategy = PollingStrategies.fixed(Duration.ofMillis(20L));
+        WaitSettings waitSettings = new WaitSettings(Duration.ofSeconds(1L), pollingStrategy,
+                Collections.<Class<? extends Throwable>> singletonList(WebDriverException.class));
+
+        WaitSettings shorter = waitSettings.withTimeout(Duration.ofMillis(200L));
+
+        assertEquals(Duration.ofMillis(200L), shorter.getTimeout());
+        assertSame(pollingStrategy, shorter.getPollingStrategy());
+        assertEquals(waitSettings.getIgnoredExceptions(), shorter.getIgnoredExceptions());
+    }
+
+    @Test
+    public void testZeroTimeoutIsAllowed() {
+        assertEquals(Duration.ZERO, new WaitSettings(Duration.ZERO).getTimeout());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTimeoutIsRejected() {
+        new WaitSettings(Duration.ofMillis(-1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingPollingStrategyIsRejected() {
+        new WaitSettings(Duration.ofSeconds(1L), null, Collections.<Class<? extends Throwable>> emptyList());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testIgnoredExceptionsAreImmutable() {
+        new WaitSettings(Duration.ofSeconds(1L)).getIgnoredExceptions().clear();
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.interzonedev.pienburger.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Unit tests for {@link WebDriverPool}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class WebDriverPoolTest {
+
+    private List<FakeWebDriver> created;
+
+    private Supplier<WebDriver> supplier;
+
+    @Before
+    public void beforeTest() {
+        created = new ArrayList<FakeWebDriver>();
+        supplier = new Supplier<WebDriver>() {
+            @Override
+            public WebDriver get() {
+                FakeWebDriver driver = new FakeWebDriver();
+                created.add(driver);
+                return driver;
+            }
+        };
+    }
+
+    @Test
+    public void testPrewarmCreatesMinimumSessions() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 2, 3, 0, 1000L, true);
+
+        pool.prewarm();
+
+        assertEquals(2, created.size());
+        assertEquals(2, pool.getSize());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    @Test
+    public void testFailedPrewarmQuitsCreatedSessions() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, new Supplier<WebDriver>() {
+            @Override
+            public WebDriver get() {
+                if (created.size() >= 2) {
+                    throw new IllegalStateException("Browser did not start");
+                }
+                return supplier.get();
+            }
+        }, 3, 3, 0, 1000L, true);
+
+        try {
+            pool.prewarm();
+            fail("Expected the prewarm to fail");
+        } catch (IllegalStateException ise) {
+            assertEquals("Browser did not start", ise.getMessage());
+        }
+
+        assertEquals(0, pool.getSize());
+        assertEquals(0, pool.getIdleCount());
+        for (FakeWebDriver driver : created) {
+            assertTrue(driver.isQuit());
+        }
+    }
+
+    @Test
+    public void testReleasedSessionIsReused() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 2, 0, 1000L, true);
+
+        WebDriver first = pool.lease();
+        pool.release(first);
+        WebDriver second = pool.lease();
+
+        assertSame(first, second);
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testLeaseCreatesSessionsUpToMaximum() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 2, 0, 1000L, true);
+
+        WebDriver first = pool.lease();
+        WebDriver second = pool.lease();
+
+        assertNotSame(first, second);
+        assertEquals(2, pool.getSize());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testLeaseTimesOutWhenExhausted() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 50L, true);
+        pool.lease();
+
+        long start = System.nanoTime();
+        try {
+            pool.lease();
+            fail("Expected the lease to time out");
+        } catch (IllegalStateException ise) {
+            assertTrue(ise.getMessage().contains("Timed out"));
+        }
+
+        assertTrue((System.nanoTime() - start) >= 50000000L);
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testWaitingLeaseGetsReleasedSession() throws Exception {
+        final WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 5000L, true);
+        final WebDriver first = pool.lease();
+
+        Thread releaser = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50L);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                pool.release(first);
+            }
+        };
+        releaser.start();
+
+        WebDriver second = pool.lease();
+        releaser.join();
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testUnhealthyIdleSessionIsReplaced() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 1000L, true);
+
+        FakeWebDriver first = (FakeWebDriver) pool.lease();
+        pool.release(first);
+        first.crash();
+
+        WebDriver second = pool.lease();
+
+        assertNotSame(first, second);
+        assertTrue(first.isQuit());
+        assertEquals(1, pool.getSize());
+    }
+
+    @Test
+    public void testSessionRetiredAfterMaxTests() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 2, 1000L, true);
+
+        FakeWebDriver first = (FakeWebDriver) pool.lease();
+        pool.release(first);
+        assertSame(first, pool.lease());
+        pool.release(first);
+
+        assertTrue(first.isQuit());
+        assertEquals(0, pool.getSize());
+        assertNotSame(first, pool.lease());
+    }
+
+    @Test
+    public void testFailedResetDiscardsSession() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 1000L, true);
+        pool.setSessionResetter(new SessionResetter(null) {
+            @Override
+            public boolean reset(WebDriver driver, String windowHandle) {
+                return false;
+            }
+        });
+
+        FakeWebDriver first = (FakeWebDriver) pool.lease();
+        pool.release(first);
+
+        assertTrue(first.isQuit());
+        assertEquals(0, pool.getSize());
+    }
+
+    @Test
+    public void testResetKeepsWindowSessionWasLeasedWith() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 1000L, true);
+        pool.setSessionResetter(new SessionResetter(null));
+
+        FakeWebDriver driver = (FakeWebDriver) pool.lease();
+        String leasedWindowHandle = driver.getWindowHandle();
+        String popupWindowHandle = driver.addWindow();
+        driver.switchTo().window(popupWindowHandle);
+        driver.reorderWindows(Arrays.asList(popupWindowHandle, leasedWindowHandle));
+
+        pool.release(driver);
+
+        assertEquals(Collections.singletonList(popupWindowHandle), driver.getClosedWindowHandles());
+        assertEquals(leasedWindowHandle, driver.getWindowHandle());
+        assertSame(driver, pool.lease());
+    }
+
+    @Test
+    public void testEnsureMaxSizeOnlyGrows() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 50L, true);
+
+        WebDriver first = pool.lease();
+        pool.ensureMaxSize(2);
+        pool.ensureMaxSize(1);
+
+        assertEquals(2, pool.getMaxSize());
+        assertNotSame(first, pool.lease());
+        assertEquals(2, pool.getSize());
+    }
+
+    @Test
+    public void testInvalidateFreesSlot() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 50L, true);
+
+        FakeWebDriver first = (FakeWebDriver) pool.lease();
+        pool.invalidate(first);
+
+        assertTrue(first.isQuit());
+        assertNotSame(first, pool.lease());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReleaseOfUnleasedDriverFails() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 1, 0, 1000L, true);
+
+        pool.release(new FakeWebDriver());
+    }
+
+    @Test
+    public void testFailedCreationFreesSlot() {
+        final List<Boolean> failNext = new ArrayList<Boolean>();
+        failNext.add(Boolean.TRUE);
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, new Supplier<WebDriver>() {
+            @Override
+            public WebDriver get() {
+                if (failNext.remove(Boolean.TRUE)) {
+                    throw new IllegalStateException("Browser did not start");
+                }
+                return supplier.get();
+            }
+        }, 0, 1, 0, 50L, true);
+
+        try {
+            pool.lease();
+            fail("Expected the session creation to fail");
+        } catch (IllegalStateException ise) {
+            assertEquals("Browser did not start", ise.getMessage());
+        }
+
+        assertEquals(0, pool.getSize());
+        pool.lease();
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testShutdownQuitsIdleAndLateReleasedSessions() {
+        WebDriverPool pool = new WebDriverPool(Browser.HTMLUNIT, supplier, 0, 2, 0, 1000L, true);
+
+        FakeWebDriver idle = (FakeWebDriver) pool.lease();
+        FakeWebDriver leased = (FakeWebDriver) pool.lease();
+        pool.release(idle);
+
+        pool.shutdown();
+
+        assertTrue(idle.isQuit());
+        assertFalse(leased.isQuit());
+
+        pool.release(leased);
+
+        assertTrue(leased.isQuit());
+        assertEquals(0, pool.getSize());
+
+        try {
+            pool.lease();
+            fail("Expected the lease to fail after shutdown");
+        } catch (IllegalStateException ise) {
+            assertTrue(ise.getMessage().contains("shut down"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinimumAboveMaximumIsRejected() {
+        new WebDriverPool(Browser.HTMLUNIT, supplier, 3, 2, 0, 1000L, true);
+    }
+
+}
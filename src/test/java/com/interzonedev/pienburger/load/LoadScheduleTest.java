@@ -0,0 +1,70 @@
+package com.interzonedev.pienburger.load;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LoadSchedule}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LoadScheduleTest {
+
+    @Test
+    public void testRampUpSpreadsStartsEvenly() {
+        LoadSchedule schedule = LoadSchedule.rampUp(4, Duration.ofSeconds(8L), Duration.ofMinutes(1L));
+
+        assertEquals(LoadSchedule.Model.CLOSED, schedule.getModel());
+        assertEquals(Duration.ZERO, schedule.getStartDelay(0));
+        assertEquals(Duration.ofSeconds(2L), schedule.getStartDelay(1));
+        assertEquals(Duration.ofSeconds(4L), schedule.getStartDelay(2));
+        assertEquals(Duration.ofSeconds(6L), schedule.getStartDelay(3));
+        assertEquals(Duration.ofSeconds(68L), schedule.getTotalDuration());
+    }
+
+    @Test
+    public void testRampUpWithUnevenSplit() {
+        LoadSchedule schedule = LoadSchedule.rampUp(3, Duration.ofSeconds(1L), Duration.ZERO);
+
+        assertEquals(Duration.ofNanos(333333333L), schedule.getStartDelay(1));
+        assertEquals(Duration.ofNanos(666666666L), schedule.getStartDelay(2));
+    }
+
+    @Test
+    public void testMaxThroughputStartsEveryUserAtOnce() {
+        LoadSchedule schedule = LoadSchedule.maxThroughput(10, Duration.ofSeconds(30L));
+
+        assertEquals(LoadSchedule.Model.CLOSED, schedule.getModel());
+        assertEquals(Duration.ZERO, schedule.getStartDelay(9));
+        assertEquals(Duration.ofSeconds(30L), schedule.getTotalDuration());
+    }
+
+    @Test
+    public void testConstantRate() {
+        LoadSchedule schedule = LoadSchedule.constantRate(2.5d, 5, Duration.ofSeconds(10L));
+
+        assertEquals(LoadSchedule.Model.OPEN, schedule.getModel());
+        assertEquals(2.5d, schedule.getIterationsPerSecond(), 0.0d);
+        assertEquals(5, schedule.getUsers());
+        assertEquals(Duration.ofSeconds(10L), schedule.getTotalDuration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstantRateMustBePositive() {
+        LoadSchedule.constantRate(0.0d, 5, Duration.ofSeconds(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAtLeastOneUser() {
+        LoadSchedule.maxThroughput(0, Duration.ofSeconds(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDurationIsRejected() {
+        LoadSchedule.rampUp(2, Duration.ofSeconds(-1L), Duration.ofSeconds(10L));
+    }
+
+}
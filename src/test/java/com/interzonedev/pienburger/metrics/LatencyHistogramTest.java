@@ -0,0 +1,116 @@
+package com.interzonedev.pienburger.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link LatencyHistogram}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class LatencyHistogramTest {
+
+    private static final double MAX_RELATIVE_ERROR = 0.19d;
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0L, histogram.getCount());
+        assertEquals(0L, histogram.getMeanNanos());
+        assertEquals(0L, histogram.getMaxNanos());
+        assertEquals(0L, histogram.getPercentileNanos(99.0d));
+    }
+
+    @Test
+    public void testSingleValueIsReportedExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(millis(3L));
+
+        assertEquals(1L, histogram.getCount());
+        assertEquals(millis(3L), histogram.getMeanNanos());
+        assertEquals(millis(3L), histogram.getMaxNanos());
+        assertEquals(millis(3L), histogram.getPercentileNanos(50.0d));
+    }
+
+    @Test
+    public void testPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1L; i <= 100L; i++) {
+            histogram.record(millis(i));
+        }
+
+        assertEquals(100L, histogram.getCount());
+        assertEquals(millis(100L), histogram.getMaxNanos());
+        assertEquals((millis(1L) + millis(100L)) / 2L, histogram.getMeanNanos());
+        assertWithinBucketError(millis(50L), histogram.getPercentileNanos(50.0d));
+        assertWithinBucketError(millis(90L), histogram.getPercentileNanos(90.0d));
+        assertWithinBucketError(millis(99L), histogram.getPercentileNanos(99.0d));
+        assertEquals(millis(100L), histogram.getPercentileNanos(100.0d));
+    }
+
+    @Test
+    public void testSubMicrosecondAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-5L);
+        histogram.record(500L);
+
+        assertEquals(2L, histogram.getCount());
+        assertEquals(500L, histogram.getMaxNanos());
+        assertEquals(500L, histogram.getPercentileNanos(100.0d));
+    }
+
+    @Test
+    public void testVeryLongValuesAreCapped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(TimeUnit.DAYS.toNanos(400L));
+
+        assertEquals(TimeUnit.DAYS.toNanos(400L), histogram.getPercentileNanos(50.0d));
+    }
+
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(millis(1L + (i % 10)));
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000L, histogram.getCount());
+        assertEquals(millis(10L), histogram.getMaxNanos());
+        assertEquals(4L * 1000L * (millis(1L) + millis(10L)) * 10L / 2L, histogram.getTotalNanos());
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static void assertWithinBucketError(long expectedNanos, long actualNanos) {
+        assertTrue(actualNanos + " below " + expectedNanos, actualNanos >= expectedNanos);
+        assertTrue(actualNanos + " too far above " + expectedNanos,
+                actualNanos <= (long) (expectedNanos * (1.0d + MAX_RELATIVE_ERROR)));
+    }
+
+}
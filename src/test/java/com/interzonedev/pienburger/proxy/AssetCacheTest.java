@@ -0,0 +1,106 @@
+package com.interzonedev.pienburger.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.interzonedev.pienburger.proxy.AssetCache.CachedResponse;
+
+/**
+ * Unit tests for {@link AssetCache}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AssetCacheTest {
+
+    @Test
+    public void testGetReturnsCachedResponse() {
+        AssetCache cache = new AssetCache(100L);
+        CachedResponse response = response(10);
+
+        cache.put("a", response);
+
+        assertSame(response, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(10L, cache.getCurrentBytes());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvictedFirst() {
+        AssetCache cache = new AssetCache(30L);
+        cache.put("a", response(10));
+        cache.put("b", response(10));
+        cache.put("c", response(10));
+
+        // Reading a makes b the least recently used entry.
+        cache.get("a");
+        cache.put("d", response(10));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+        assertEquals(30L, cache.getCurrentBytes());
+    }
+
+    @Test
+    public void testLargeEntryEvictsAsManyAsNeeded() {
+        AssetCache cache = new AssetCache(30L);
+        cache.put("a", response(10));
+        cache.put("b", response(10));
+        cache.put("c", response(10));
+
+        cache.put("d", response(25));
+
+        assertEquals(1, cache.getEntryCount());
+        assertEquals(25L, cache.getCurrentBytes());
+        assertNotNull(cache.get("d"));
+    }
+
+    @Test
+    public void testReplacingEntryUpdatesSize() {
+        AssetCache cache = new AssetCache(30L);
+        cache.put("a", response(10));
+        cache.put("b", response(10));
+
+        cache.put("a", response(20));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(30L, cache.getCurrentBytes());
+    }
+
+    @Test
+    public void testEntryLargerThanCacheIsNotCached() {
+        AssetCache cache = new AssetCache(30L);
+        cache.put("a", response(10));
+
+        cache.put("b", response(31));
+
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertEquals(10L, cache.getCurrentBytes());
+    }
+
+    @Test
+    public void testClear() {
+        AssetCache cache = new AssetCache(30L);
+        cache.put("a", response(10));
+
+        cache.clear();
+
+        assertEquals(0, cache.getEntryCount());
+        assertEquals(0L, cache.getCurrentBytes());
+    }
+
+    private CachedResponse response(int bodySize) {
+        return new CachedResponse(200, "OK", Collections.<Map.Entry<String, String>> emptyList(), new byte[bodySize]);
+    }
+
+}
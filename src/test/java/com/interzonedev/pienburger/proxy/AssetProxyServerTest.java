@@ -0,0 +1,178 @@
+package com.interzonedev.pienburger.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests for {@link AssetProxyServer}, forwarding to an origin server on the loopback interface.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class AssetProxyServerTest {
+
+    private HttpServer originServer;
+
+    private AssetProxyServer proxyServer;
+
+    private CountDownLatch streamReleased;
+
+    private AtomicInteger assetRequests;
+
+    @Before
+    public void beforeTest() throws Exception {
+        streamReleased = new CountDownLatch(1);
+        assetRequests = new AtomicInteger();
+
+        originServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        originServer.createContext("/events", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0L);
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    out.write("first\n".getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    streamReleased.await(5L, TimeUnit.SECONDS);
+                    out.write("second\n".getBytes(StandardCharsets.US_ASCII));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    out.close();
+                }
+            }
+        });
+        originServer.createContext("/echo", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                respond(exchange, readFully(exchange.getRequestBody()));
+            }
+        });
+        originServer.createContext("/app.js", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                assetRequests.incrementAndGet();
+                readFully(exchange.getRequestBody());
+                respond(exchange, "var app;".getBytes(StandardCharsets.US_ASCII));
+            }
+        });
+        originServer.start();
+
+        proxyServer = new AssetProxyServer(Collections.<String> emptyList(),
+                AssetProxyServer.DEFAULT_CACHEABLE_PATTERN, 1000000L);
+        proxyServer.start();
+    }
+
+    @After
+    public void afterTest() {
+        streamReleased.countDown();
+        proxyServer.stop();
+        originServer.stop(0);
+    }
+
+    @Test
+    public void testUncacheableResponseIsStreamed() throws Exception {
+        HttpURLConnection connection = open("/events");
+        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(),
+                StandardCharsets.US_ASCII));
+        try {
+            // The origin server holds back the rest of the response until the first line has been read.
+            assertEquals("first", in.readLine());
+            streamReleased.countDown();
+            assertEquals("second", in.readLine());
+        } finally {
+            in.close();
+        }
+
+        assertEquals(1L, proxyServer.getStatistics().getPassedThrough());
+    }
+
+    @Test
+    public void testRequestBodyIsForwarded() throws Exception {
+        HttpURLConnection connection = open("/echo");
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        OutputStream out = connection.getOutputStream();
+        try {
+            out.write("name=value".getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            out.close();
+        }
+
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("name=value", new String(readFully(connection.getInputStream()), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testCacheableResponseIsServedFromCache() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            HttpURLConnection connection = open("/app.js");
+            assertEquals("var app;", new String(readFully(connection.getInputStream()), StandardCharsets.US_ASCII));
+        }
+
+        assertEquals(1, assetRequests.get());
+        assertEquals(1L, proxyServer.getStatistics().getMisses());
+        assertEquals(1L, proxyServer.getStatistics().getHits());
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        URL url = new URL("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                + originServer.getAddress().getPort() + path);
+        Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                proxyServer.getPort()));
+
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection(proxy);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(5000);
+        return connection;
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(body);
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.interzonedev.pienburger.proxy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ConnectTunnelServer}, relaying to an echo server on the loopback interface.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ConnectTunnelServerTest {
+
+    private ProxyStatistics statistics;
+
+    private ConnectTunnelServer tunnelServer;
+
+    private ServerSocket echoServer;
+
+    @Before
+    public void beforeTest() throws Exception {
+        statistics = new ProxyStatistics();
+        tunnelServer = new ConnectTunnelServer(Collections.singletonList(Pattern.compile("//ads\\.example\\.com/")),
+                statistics);
+        tunnelServer.start();
+
+        echoServer = new ServerSocket(0, 5, InetAddress.getLoopbackAddress());
+        Thread echoThread = new Thread() {
+            @Override
+            public void run() {
+                try (Socket socket = echoServer.accept()) {
+                    InputStream in = socket.getInputStream();
+                    OutputStream out = socket.getOutputStream();
+                    int read;
+                    while ((read = in.read()) >= 0) {
+                        out.write(read);
+                        out.flush();
+                    }
+                } catch (IOException ioe) {
+                    // The test is over.
+                }
+            }
+        };
+        echoThread.setDaemon(true);
+        echoThread.start();
+    }
+
+    @After
+    public void afterTest() throws Exception {
+        tunnelServer.stop();
+        echoServer.close();
+    }
+
+    @Test
+    public void testRelaysBytesBothWays() throws Exception {
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), tunnelServer.getPort())) {
+            client.setSoTimeout(5000);
+            OutputStream out = client.getOutputStream();
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.US_ASCII));
+
+            String authority = InetAddress.getLoopbackAddress().getHostAddress() + ":" + echoServer.getLocalPort();
+            write(out, "CONNECT " + authority + " HTTP/1.1\r\nHost: " + authority + "\r\n\r\n");
+
+            assertEquals("HTTP/1.1 200 Connection Established", in.readLine());
+            assertEquals("", in.readLine());
+
+            write(out, "encrypted bytes\n");
+            assertEquals("encrypted bytes", in.readLine());
+        }
+
+        assertEquals(1L, statistics.getTunneled());
+    }
+
+    @Test
+    public void testBlockedHostIsRefused() throws Exception {
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), tunnelServer.getPort())) {
+            client.setSoTimeout(5000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.US_ASCII));
+
+            write(client.getOutputStream(), "CONNECT ads.example.com:443 HTTP/1.1\r\n\r\n");
+
+            assertEquals("HTTP/1.1 403 Forbidden", in.readLine());
+        }
+
+        assertEquals(1L, statistics.getBlocked());
+        assertEquals(0L, statistics.getTunneled());
+    }
+
+    @Test
+    public void testOtherMethodsAreRefused() throws Exception {
+        try (Socket client = new Socket(InetAddress.getLoopbackAddress(), tunnelServer.getPort())) {
+            client.setSoTimeout(5000);
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.US_ASCII));
+
+            write(client.getOutputStream(), "GET http://example.com/ HTTP/1.1\r\n\r\n");
+
+            assertEquals("HTTP/1.1 405 Method Not Allowed", in.readLine());
+        }
+    }
+
+    @Test
+    public void testBlocklistUrl() {
+        assertEquals("https://ads.example.com/", ConnectTunnelServer.toBlocklistUrl("ads.example.com", 443));
+        assertEquals("https://ads.example.com:8443/", ConnectTunnelServer.toBlocklistUrl("ads.example.com", 8443));
+    }
+
+    private void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.interzonedev.pienburger.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import com.interzonedev.pienburger.metrics.InMemoryMetricsSink;
+import com.interzonedev.pienburger.metrics.MetricNames;
+
+/**
+ * Unit tests for the sessions created by {@link RemoteTransport} against a {@link StubWireProtocolServer}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class RemoteTransportTest {
+
+    private StubWireProtocolServer server;
+
+    private InMemoryMetricsSink metricsSink;
+
+    private RemoteTransport remoteTransport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new StubWireProtocolServer();
+        server.start();
+
+        metricsSink = new InMemoryMetricsSink();
+        remoteTransport = new RemoteTransport(new URL(server.getRemoteUrl()), metricsSink);
+    }
+
+    @After
+    public void tearDown() {
+        remoteTransport.stop();
+        server.stop();
+    }
+
+    @Test
+    public void testSessionSendsCommandsThroughTransport() {
+        remoteTransport.start();
+
+        RemoteWebDriver driver = remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+        driver.get("http://www.example.com/");
+
+        assertEquals("http://www.example.com/", driver.getCurrentUrl());
+        assertEquals(StubWireProtocolServer.TITLE, driver.getTitle());
+        assertEquals(MetricNames.REMOTE_COMMAND, metricsSink.getMetrics().get(0).getName());
+    }
+
+    @Test
+    public void testQuittingSessionKeepsSharedConnections() {
+        remoteTransport.start();
+
+        RemoteWebDriver first = remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+        RemoteWebDriver second = remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+        second.getTitle();
+
+        first.quit();
+
+        assertTrue(remoteTransport.getPoolStats().getAvailable() > 0);
+        assertEquals(StubWireProtocolServer.TITLE, second.getTitle());
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    @Test
+    public void testStopClosesConnections() {
+        remoteTransport.start();
+
+        RemoteWebDriver driver = remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+        driver.getTitle();
+
+        remoteTransport.stop();
+
+        assertNull(remoteTransport.getPoolStats());
+        try {
+            remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException ise) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateWebDriverBeforeStart() {
+        remoteTransport.createWebDriver(DesiredCapabilities.htmlUnit(), "remote");
+    }
+
+}
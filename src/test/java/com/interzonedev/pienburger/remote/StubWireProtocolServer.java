@@ -0,0 +1,198 @@
+package com.interzonedev.pienburger.remote;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server bound to the loopback interface that stands in for a remote browser by answering the JSON wire
+ * protocol with canned responses, so that the remote transport can be tested and measured without a grid. Every
+ * command succeeds:
+ * 
+ * <ul>
+ * <li>{@code POST /wd/hub/session} starts a new session.</li>
+ * <li>{@code GET .../url} returns the URL last navigated to and {@code GET .../title} returns a fixed title.</li>
+ * <li>{@code POST .../element} returns an element reference and {@code POST .../elements} an empty list.</li>
+ * <li>Every other command returns a null value.</li>
+ * </ul>
+ * 
+ * Each response can be delayed to simulate the latency of the remote browser. The client port of every command is
+ * kept, so that tests can tell how many connections the commands were sent over. The server is shared with the
+ * benchmarks module through the test jar.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class StubWireProtocolServer {
+
+    public static final String TITLE = "Stub";
+
+    private final HttpServer server;
+
+    private final ExecutorService executorService;
+
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+
+    private final AtomicLong commandCount = new AtomicLong();
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+    private final long latencyMillis;
+
+    private volatile String currentUrl = "about:blank";
+
+    /**
+     * Constructs a server that answers immediately. Call {@link #start()} to start serving.
+     * 
+     * @throws IOException Thrown if the server socket cannot be bound.
+     */
+    public StubWireProtocolServer() throws IOException {
+        this(0L);
+    }
+
+    /**
+     * Constructs a server bound to an ephemeral port on the loopback interface. Call {@link #start()} to start serving.
+     * 
+     * @param latencyMillis The time to wait before answering each command.
+     * 
+     * @throws IOException Thrown if the server socket cannot be bound.
+     */
+    public StubWireProtocolServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+
+        executorService = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "stub-wire-protocol-server");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        server.setExecutor(executorService);
+
+        server.createContext("/wd/hub", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                handleCommand(exchange);
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Gets the address of the server to be used as the remote URL of a driver.
+     * 
+     * @return Returns the address of the server.
+     */
+    public String getRemoteUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/wd/hub";
+    }
+
+    public long getCommandCount() {
+        return commandCount.get();
+    }
+
+    /**
+     * Gets the number of client connections the commands were received on.
+     * 
+     * @return Returns the number of distinct client ports seen.
+     */
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    private void handleCommand(HttpExchange exchange) throws IOException {
+        commandCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String body = readBody(exchange.getRequestBody());
+
+        if (latencyMillis > 0L) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String sessionId;
+        String value = "null";
+        if ("POST".equals(method) && path.endsWith("/session")) {
+            sessionId = "stub-" + nextSessionId.incrementAndGet();
+            value = "{\"browserName\":\"stub\",\"javascriptEnabled\":true,\"takesScreenshot\":false}";
+        } else {
+            String[] segments = path.split("/");
+            sessionId = (segments.length > 4) ? segments[4] : null;
+
+            if ("POST".equals(method) && path.endsWith("/url")) {
+                int start = body.indexOf("\"url\"");
+                if (start >= 0) {
+                    int valueStart = body.indexOf('"', body.indexOf(':', start)) + 1;
+                    currentUrl = body.substring(valueStart, body.indexOf('"', valueStart));
+                }
+            } else if ("GET".equals(method) && path.endsWith("/url")) {
+                value = "\"" + currentUrl + "\"";
+            } else if ("GET".equals(method) && path.endsWith("/title")) {
+                value = "\"" + TITLE + "\"";
+            } else if (path.endsWith("/element")) {
+                value = "{\"ELEMENT\":\"0\"}";
+            } else if (path.endsWith("/elements")) {
+                value = "[]";
+            }
+        }
+
+        String json = "{\"sessionId\":" + ((null == sessionId) ? "null" : "\"" + sessionId + "\"")
+                + ",\"status\":0,\"value\":" + value + "}";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private String readBody(InputStream in) throws IOException {
+        try {
+            StringBuilder body = new StringBuilder();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) >= 0) {
+                body.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+            }
+            return body.toString();
+        } finally {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.interzonedev.pienburger.sharding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link ShardPlanner}.
+ * 
+ * @author "Mark Markarian" &lt;mark@interzonedev.com&gt;
+ */
+public class ShardPlannerTest {
+
+    private static final List<Class<?>> TEST_CLASSES = Arrays.<Class<?>> asList(A.class, B.class, C.class, D.class,
+            E.class, F.class);
+
+    @Test
+    public void testLongestFirstToLeastLoadedShard() {
+        RunHistory runHistory = history(7L, 5L, 4L, 3L, 3L, 2L);
+
+        ShardPlan plan = new ShardPlanner(runHistory).plan(TEST_CLASSES, 2);
+
+        assertEquals(2, plan.getShardCount());
+        assertEquals(Arrays.<Class<?>> asList(A.class, D.class, F.class), plan.getShard(0));
+        assertEquals(Arrays.<Class<?>> asList(B.class, C.class, E.class), plan.getShard(1));
+        assertEquals(12L, plan.getShardEstimatedMillis(0));
+        assertEquals(12L, plan.getShardEstimatedMillis(1));
+        assertEquals(Integer.valueOf(1), plan.getShardIndex(C.class.getName()));
+        assertNull(plan.getShardIndex(ShardPlannerTest.class.getName()));
+    }
+
+    @Test
+    public void testClassDurationIsSumOfMethods() {
+        RunHistory runHistory = new RunHistory();
+        runHistory.record(A.class.getName(), "testOne", 30L);
+        runHistory.record(A.class.getName(), "testTwo", 40L);
+
+        ShardPlan plan = new ShardPlanner(runHistory).plan(Arrays.<Class<?>> asList(A.class), 1);
+
+        assertEquals(Long.valueOf(70L), plan.getEstimatedMillis(A.class.getName()));
+    }
+
+    @Test
+    public void testClassesWithoutHistoryAreEstimatedAtAverage() {
+        RunHistory runHistory = new RunHistory();
+        runHistory.record(A.class.getName(), "test", 100L);
+        runHistory.record(B.class.getName(), "test", 300L);
+
+        ShardPlan plan = new ShardPlanner(runHistory).plan(Arrays.<Class<?>> asList(A.class, B.class, C.class), 2);
+
+        assertEquals(Long.valueOf(200L), plan.getEstimatedMillis(C.class.getName()));
+        assertEquals(Arrays.<Class<?>> asList(B.class), plan.getShard(0));
+        assertEquals(Arrays.<Class<?>> asList(C.class, A.class), plan.getShard(1));
+    }
+
+    @Test
+    public void testWithoutHistorySplitsByCount() {
+        ShardPlan plan = new ShardPlanner(new RunHistory()).plan(TEST_CLASSES, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(2, plan.getShard(i).size());
+        }
+    }
+
+    @Test
+    public void testLongestFirstBreaksTiesByName() {
+        RunHistory runHistory = history(1L, 5L, 5L, 2L, 1L, 1L);
+
+        List<Class<?>> ordered = new ShardPlanner(runHistory).longestFirst(TEST_CLASSES);
+
+        assertEquals(Arrays.<Class<?>> asList(B.class, C.class, D.class, A.class, E.class, F.class), ordered);
+    }
+
+    @Test
+    public void testFingerprintFollowsAssignment() {
+        ShardPlan plan = new ShardPlanner(history(7L, 5L, 4L, 3L, 3L, 2L)).plan(TEST_CLASSES, 2);
+        ShardPlan samePlan = new ShardPlanner(history(7L, 5L, 4L, 3L, 3L, 2L)).plan(TEST_CLASSES, 2);
+        ShardPlan otherPlan = new ShardPlanner(history(1L, 1L, 1L, 1L, 1L, 9L)).plan(TEST_CLASSES, 2);
+
+        assertEquals(8, plan.getFingerprint().length());
+        assertEquals(plan.getFingerprint(), samePlan.getFingerprint());
+        assertNotEquals(plan.getFingerprint(), otherPlan.getFingerprint());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testShardCountMustBePositive() {
+        new ShardPlanner(new RunHistory()).plan(TEST_CLASSES, 0);
+    }
+
+    private static RunHistory history(long... millis) {
+        RunHistory runHistory = new RunHistory();
+        for (int i = 0; i < millis.length; i++) {
+            runHistory.record(TEST_CLASSES.get(i).getName(), "test", millis[i]);
+        }
+        return runHistory;
+    }
+
+    private static class A {
+    }
+
+    private static class B {
+    }
+
+    private static class C {
+    }
+
+    private static class D {
+    }
+
+    private static class E {
+    }
+
+    private static class F {
+    }
+
+}